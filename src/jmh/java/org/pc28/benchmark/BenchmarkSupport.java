@@ -0,0 +1,92 @@
+package org.pc28.benchmark;
+
+import ch.qos.logback.classic.Level;
+import ch.qos.logback.classic.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 基准测试公共工具：样例网页、屏蔽解析器的控制台输出、生成解析结果页面
+ */
+final class BenchmarkSupport {
+
+    /**
+     * 仓库自带的样例网页（相对项目根目录）
+     */
+    static final String SAMPLE_PAGE = "download/redtaotao_sf1_20250614_103937.html";
+
+    private static final PrintStream ORIGINAL_OUT = System.out;
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * 读取样例网页内容
+     */
+    static String readSamplePage() throws IOException {
+        Path path = Path.of(SAMPLE_PAGE);
+        if (!Files.exists(path)) {
+            throw new IllegalStateException("样例网页不存在，请在项目根目录运行基准测试: " + path.toAbsolutePath());
+        }
+        return Files.readString(path, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解析器在每次解析时都会打印到控制台，基准测试期间屏蔽输出并把日志级别调到WARN
+     */
+    static void silence() {
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+        ((Logger) LoggerFactory.getLogger(org.slf4j.Logger.ROOT_LOGGER_NAME)).setLevel(Level.WARN);
+    }
+
+    /**
+     * 恢复控制台输出
+     */
+    static void restore() {
+        System.setOut(ORIGINAL_OUT);
+    }
+
+    /**
+     * 生成与 SimpleHtmlParser 输出格式相同的解析结果，期号从 newestPeriod 开始递减，第一行为未开奖占位
+     *
+     * @param server 服务器前缀
+     * @param newestPeriod 最新期号
+     * @param rows 行数
+     * @param random 随机数
+     * @return 解析结果
+     */
+    static Map<String, Object> buildPage(String server, int newestPeriod, int rows, Random random) {
+        Map<String, Object> page = new HashMap<>();
+        page.put("server", server);
+        page.put("history_count", rows);
+        for (int i = 0; i < rows; i++) {
+            String numbers;
+            Object total;
+            if (i == 0) {
+                numbers = "---";
+                total = "";
+            } else {
+                int a = random.nextInt(10);
+                int b = random.nextInt(10);
+                int c = random.nextInt(10);
+                numbers = a + "+" + b + "+" + c + "=" + (a + b + c);
+                total = a + b + c;
+            }
+            page.put("history_" + i + "_period", newestPeriod - i);
+            page.put("history_" + i + "_numbers", numbers);
+            page.put("history_" + i + "_prediction", random.nextBoolean() ? "单" : "双");
+            page.put("history_" + i + "_outcome", i == 0 ? "---" : (random.nextBoolean() ? "中" : "错"));
+            page.put("history_" + i + "_total_number", total);
+        }
+        return page;
+    }
+}
@@ -0,0 +1,74 @@
+package org.pc28.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pc28.model.DrawResult;
+import org.pc28.utils.HtmlParser;
+import org.pc28.utils.SimpleHtmlParser;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 网页解析基准：SimpleHtmlParser（jsoup与流式两种路径）和 HtmlParser 结构化解析
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HtmlParsingBenchmark {
+
+    private final HtmlParser htmlParser = new HtmlParser();
+
+    private String html;
+
+    /**
+     * SimpleHtmlParser 的解析路径：true 为流式提取，false 为 jsoup
+     */
+    @State(Scope.Benchmark)
+    public static class ParserMode {
+
+        @Param({"false", "true"})
+        public boolean streaming;
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        html = BenchmarkSupport.readSamplePage();
+        BenchmarkSupport.silence();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkSupport.restore();
+    }
+
+    @Benchmark
+    public Map<String, Object> simpleParseHtmlFile(ParserMode mode) {
+        return SimpleHtmlParser.parseHtml(BenchmarkSupport.SAMPLE_PAGE, -1, mode.streaming);
+    }
+
+    @Benchmark
+    public Map<String, Object> simpleParseHtmlContent(ParserMode mode) {
+        return SimpleHtmlParser.parseHtmlContent(html, -1, mode.streaming);
+    }
+
+    @Benchmark
+    public DrawResult htmlParserDrawResultObject() throws IOException {
+        return htmlParser.parseDrawResultObject(BenchmarkSupport.SAMPLE_PAGE);
+    }
+}
@@ -0,0 +1,92 @@
+package org.pc28.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pc28.utils.BettingResultAnalyzer;
+import org.pc28.utils.BettingResultAnalyzer.BettingResult;
+import org.pc28.utils.DrawCodeTable;
+import org.pc28.utils.NumberAnalysisUtil;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 号码分析基准：杀号判断、总数提取（查表与字符串接口）和多区间胜率计算
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class NumberAnalysisBenchmark {
+
+    private static final int SAMPLE_SIZE = 1024;
+
+    private static final int[] GAME_RANGES = {10, 20, 30, 50, 100};
+
+    private String[] numbers;
+
+    private BettingResult[] results;
+
+    private int index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(28);
+        numbers = new String[SAMPLE_SIZE];
+        for (int i = 0; i < SAMPLE_SIZE; i++) {
+            int a = random.nextInt(10);
+            int b = random.nextInt(10);
+            int c = random.nextInt(10);
+            numbers[i] = a + "+" + b + "+" + c + "=" + (a + b + c);
+        }
+
+        BettingResult[] outcomes = {BettingResult.HIT_PROFIT, BettingResult.HIT_KILLED,
+                BettingResult.MISS_PROFIT, BettingResult.MISS_LOSS};
+        results = new BettingResult[1000];
+        for (int i = 0; i < results.length; i++) {
+            results[i] = outcomes[random.nextInt(outcomes.length)];
+        }
+    }
+
+    private String nextNumbers() {
+        index = (index + 1) & (SAMPLE_SIZE - 1);
+        return numbers[index];
+    }
+
+    @Benchmark
+    public String checkIfKill() {
+        return NumberAnalysisUtil.checkIfKill(nextNumbers());
+    }
+
+    @Benchmark
+    public String extractTotalNumber() {
+        return NumberAnalysisUtil.extractTotalNumber(nextNumbers());
+    }
+
+    @Benchmark
+    public String[] analyzeNumbers() {
+        return NumberAnalysisUtil.analyzeNumbers(nextNumbers());
+    }
+
+    @Benchmark
+    public boolean encodeAndLookupKill() {
+        int code = DrawCodeTable.encode(nextNumbers());
+        return code != DrawCodeTable.INVALID && DrawCodeTable.isKill(code);
+    }
+
+    @Benchmark
+    public double[] calculateWinRatesForRanges() {
+        return BettingResultAnalyzer.calculateWinRatesForRanges(results, GAME_RANGES);
+    }
+}
@@ -0,0 +1,119 @@
+package org.pc28.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.pc28.Pc28Application;
+import org.pc28.service.db.HistoryDataServiceImpl;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 持久化基准：HistoryDataServiceImpl.saveServerData 写入内嵌H2数据库（MySQL兼容模式）
+ * newPage 每次写入全新期号的一页，knownPage 重复写入已入库的同一页（稳定状态下的每轮采集）
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PersistenceBenchmark {
+
+    private static final String SERVER = "sf1";
+
+    private static final int ROWS_PER_PAGE = 100;
+
+    /**
+     * 写入路径：legacy 为逐行查询保存，batch 为一次查询 + 一个JDBC批次
+     */
+    @Param({"legacy", "batch"})
+    public String writePath;
+
+    /**
+     * 是否启用内存期号索引
+     */
+    @Param({"false", "true"})
+    public boolean presenceIndex;
+
+    private ConfigurableApplicationContext context;
+
+    private HistoryDataServiceImpl historyDataService;
+
+    private final Random random = new Random(28);
+
+    private int nextPeriod = 1_000_000;
+
+    private Map<String, Object> knownPage;
+
+    private Map<String, Object> nextPage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkSupport.silence();
+        // 以命令行参数传入，优先级高于 application.properties 中的MySQL数据源（builder.properties 只是默认值）
+        context = new SpringApplicationBuilder(Pc28Application.class)
+                .run(
+                        "--spring.main.web-application-type=none",
+                        "--spring.main.banner-mode=off",
+                        "--spring.datasource.url=jdbc:h2:mem:pc28bench;MODE=MySQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "--spring.datasource.driver-class-name=org.h2.Driver",
+                        "--spring.datasource.username=sa",
+                        "--spring.datasource.password=",
+                        "--spring.jpa.hibernate.ddl-auto=create-drop",
+                        "--spring.shell.interactive.enabled=false",
+                        "--spring.shell.noninteractive.enabled=false",
+                        "--spring.shell.script.enabled=false",
+                        "--pc28.collection.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.pc28=WARN");
+        historyDataService = context.getBean(HistoryDataServiceImpl.class);
+        ReflectionTestUtils.setField(historyDataService, "batchEnabled", "batch".equals(writePath));
+        ReflectionTestUtils.setField(historyDataService, "presenceIndexEnabled", presenceIndex);
+
+        knownPage = BenchmarkSupport.buildPage(SERVER, 900_000, ROWS_PER_PAGE, random);
+        historyDataService.saveServerData(SERVER, knownPage);
+    }
+
+    /**
+     * 新页面在计时之外生成，每次调用使用全新的期号区间
+     */
+    @Setup(Level.Invocation)
+    public void prepareNextPage() {
+        nextPeriod += ROWS_PER_PAGE;
+        nextPage = BenchmarkSupport.buildPage(SERVER, nextPeriod, ROWS_PER_PAGE, random);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        BenchmarkSupport.restore();
+    }
+
+    @Benchmark
+    public int newPage() {
+        return historyDataService.saveServerData(SERVER, nextPage);
+    }
+
+    @Benchmark
+    public int knownPage() {
+        return historyDataService.saveServerData(SERVER, knownPage);
+    }
+}
@@ -1,13 +1,19 @@
 package org.pc28.config;
 
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
 import org.pc28.constants.WebConstants;
+import org.pc28.utils.HttpUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.util.concurrent.TimeUnit;
+
 /**
  * HTTP客户端配置类
  */
@@ -17,12 +23,32 @@ public class HttpClientConfig {
     /**
      * 最大连接数
      */
-    private static final int MAX_TOTAL_CONNECTIONS = 100;
+    @Value("${httpclient.max-total-connections:100}")
+    private int maxTotalConnections;
     
     /**
      * 每个路由的最大连接数
      */
-    private static final int MAX_CONNECTIONS_PER_ROUTE = 10;
+    @Value("${httpclient.max-per-route:10}")
+    private int maxConnectionsPerRoute;
+    
+    /**
+     * 服务器未声明Keep-Alive时连接的保持时间（毫秒）
+     */
+    @Value("${httpclient.keep-alive-millis:30000}")
+    private long keepAliveMillis;
+    
+    /**
+     * 空闲连接超过该时间（秒）后被后台线程关闭
+     */
+    @Value("${httpclient.idle-evict-seconds:60}")
+    private long idleEvictSeconds;
+    
+    /**
+     * 连接空闲超过该时间（毫秒）后，复用前先校验连接是否仍然可用
+     */
+    @Value("${httpclient.validate-after-inactivity-millis:2000}")
+    private int validateAfterInactivityMillis;
     
     /**
      * 创建连接池管理器
@@ -31,9 +57,11 @@ public class HttpClientConfig {
      */
     @Bean
     public PoolingHttpClientConnectionManager connectionManager() {
-        PoolingHttpClientConnectionManager connectionManager = new PoolingHttpClientConnectionManager();
-        connectionManager.setMaxTotal(MAX_TOTAL_CONNECTIONS);
-        connectionManager.setDefaultMaxPerRoute(MAX_CONNECTIONS_PER_ROUTE);
+        PoolingHttpClientConnectionManager connectionManager =
+                new PoolingHttpClientConnectionManager(HttpUtils.countingConnectionFactory());
+        connectionManager.setMaxTotal(maxTotalConnections);
+        connectionManager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+        connectionManager.setValidateAfterInactivity(validateAfterInactivityMillis);
         return connectionManager;
     }
     
@@ -52,17 +80,39 @@ public class HttpClientConfig {
     }
     
     /**
-     * 创建HTTP客户端
+     * 创建连接保持策略
+     * 优先使用服务器Keep-Alive响应头声明的时间，未声明时使用配置的默认时间
+     * 
+     * @return 连接保持策略
+     */
+    @Bean
+    public ConnectionKeepAliveStrategy keepAliveStrategy() {
+        return (response, context) -> {
+            long serverKeepAlive = DefaultConnectionKeepAliveStrategy.INSTANCE.getKeepAliveDuration(response, context);
+            return serverKeepAlive > 0 ? serverKeepAlive : keepAliveMillis;
+        };
+    }
+    
+    /**
+     * 创建HTTP客户端，并注册为HttpUtils的共享客户端
      * 
      * @param connectionManager 连接池管理器
      * @param requestConfig 请求配置
+     * @param keepAliveStrategy 连接保持策略
      * @return HTTP客户端
      */
     @Bean
-    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager, RequestConfig requestConfig) {
-        return HttpClientBuilder.create()
+    public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager connectionManager,
+                                          RequestConfig requestConfig,
+                                          ConnectionKeepAliveStrategy keepAliveStrategy) {
+        CloseableHttpClient httpClient = HttpClientBuilder.create()
                 .setConnectionManager(connectionManager)
                 .setDefaultRequestConfig(requestConfig)
+                .setKeepAliveStrategy(keepAliveStrategy)
+                .evictExpiredConnections()
+                .evictIdleConnections(idleEvictSeconds, TimeUnit.SECONDS)
                 .build();
+        HttpUtils.useSharedClient(httpClient, connectionManager);
+        return httpClient;
     }
-}
\ No newline at end of file
+}
@@ -9,7 +9,12 @@ public class WebConstants {
      * 目标网页URL列表
      */
     public static final String[] TARGET_URLS = {
-        "http://www.redtaotao.com/jnd28_sf1_msds.html"
+        "http://www.redtaotao.com/jnd28_sf1_msds.html",
+        "http://www.redtaotao.com/jnd28_sf3_msds.html",
+        "http://www.redtaotao.com/jnd28_sf4_msds.html",
+        "http://www.redtaotao.com/jnd28_sf5_msds.html",
+        "http://www.redtaotao.com/jnd28_sf6_msds.html",
+        "http://www.redtaotao.com/jnd28_sf7_msds.html"
     };
     
     /**
@@ -38,16 +43,23 @@ public class WebConstants {
      * @return 带时间戳的文件名，格式为：redtaotao_sf{server}_yyyyMMdd_HHmmss.html
      */
     public static String getTimestampedFileName(int urlIndex) {
-        // 从URL中提取服务器编号
-        String url = TARGET_URLS[urlIndex];
-        // 提取形如sf1, sf6等服务器编号
-        String serverName = url.contains("_sf") ? "sf" + url.split("_sf")[1].split("_")[0] : "sf" + (urlIndex + 1);
+        String serverName = getServerPrefix(urlIndex);
         
         java.time.format.DateTimeFormatter formatter = java.time.format.DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
         String timestamp = java.time.LocalDateTime.now().format(formatter);
         return FILE_NAME_BASE + "_" + serverName + "_" + timestamp + FILE_EXTENSION;
     }
     
+    /**
+     * 从URL中提取服务器编号
+     * @param urlIndex URL的索引
+     * @return 形如sf1, sf6等服务器编号
+     */
+    public static String getServerPrefix(int urlIndex) {
+        String url = TARGET_URLS[urlIndex];
+        return url.contains("_sf") ? "sf" + url.split("_sf")[1].split("_")[0] : "sf" + (urlIndex + 1);
+    }
+    
     /**
      * 获取最新的HTML文件
      * @param directory 目录路径
@@ -93,6 +105,17 @@ public class WebConstants {
      */
     public static final int RETRY_WAIT_TIME = 2000;
     
+    /**
+     * 并发下载默认的最大并发数
+     */
+    public static final int DOWNLOAD_MAX_CONCURRENCY = 4;
+    
+    /**
+     * 并发下载单轮的默认截止时间（毫秒）
+     * 超过该时间仍未完成的下载将被取消并记为超时
+     */
+    public static final int DOWNLOAD_CYCLE_DEADLINE_MILLIS = 20000;
+    
     /**
      * 用户代理头信息
      */
@@ -0,0 +1,130 @@
+package org.pc28.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.pc28.model.BacktestGrid;
+import org.pc28.model.BacktestReport;
+import org.pc28.model.MonteCarloReport;
+import org.pc28.service.analysis.BacktestBetMode;
+import org.pc28.service.analysis.BacktestEngine;
+import org.pc28.service.analysis.BacktestStrategy;
+import org.pc28.service.analysis.MonteCarloEngine;
+import org.pc28.utils.KillRuleSet;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 策略回测控制器
+ */
+@RestController
+@RequestMapping("/api/backtest")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "策略回测", description = "在已入库的历史记录和模拟开奖序列上评估注码策略")
+public class BacktestController {
+
+    private final BacktestEngine backtestEngine;
+    private final MonteCarloEngine monteCarloEngine;
+
+    /**
+     * 回测注码策略参数网格
+     *
+     * @return 回测结果，参数无效时返回400
+     */
+    @GetMapping("/{server}")
+    @Operation(
+            summary = "回测注码策略参数网格",
+            description = "读取服务器最近的历史记录，对策略、下注方向、注码、步数上限和本金的所有组合并行回测，"
+                    + "返回每个组合的盈亏曲线、最大回撤、破产概率和本金最高点，按最终盈亏从高到低排列"
+    )
+    public ResponseEntity<BacktestReport> backtest(
+            @Parameter(description = "服务器前缀，例如 sf1") @PathVariable String server,
+            @Parameter(description = "读取最近的期数") @RequestParam(defaultValue = "100000") int limit,
+            @Parameter(description = "注码策略") @RequestParam(defaultValue = "FLAT,MARTINGALE,FIBONACCI,STOP_AFTER_LOSSES")
+            List<BacktestStrategy> strategies,
+            @Parameter(description = "下注方向") @RequestParam(defaultValue = "RESULT,FOLLOW,AGAINST") List<BacktestBetMode> modes,
+            @Parameter(description = "基础注码") @RequestParam(defaultValue = "1") double[] stakes,
+            @Parameter(description = "步数上限") @RequestParam(defaultValue = "3,5,8") int[] limits,
+            @Parameter(description = "初始本金") @RequestParam(defaultValue = "100,1000") double[] bankrolls,
+            @Parameter(description = "赢一期的净赔率") @RequestParam(defaultValue = "1.0") double payout,
+            @Parameter(description = "计算破产概率时每局的期数") @RequestParam(defaultValue = "1000") int session,
+            @Parameter(description = "盈亏曲线采样点数") @RequestParam(defaultValue = "50") int curvePoints,
+            @Parameter(description = "只返回最终盈亏最高的前N个组合，0为全部") @RequestParam(defaultValue = "100") int top,
+            @Parameter(description = "杀规则集") @RequestParam(defaultValue = KillRuleSet.STANDARD_NAME) String killRule) {
+        log.info("收到回测请求: 服务器 {}，最近 {} 期", server, limit);
+
+        BacktestGrid grid = BacktestGrid.builder()
+                .killRule(killRule)
+                .strategies(strategies)
+                .betModes(modes)
+                .baseStakes(stakes)
+                .limits(limits)
+                .bankrolls(bankrolls)
+                .payout(payout)
+                .sessionLength(session)
+                .curvePoints(curvePoints)
+                .build();
+        try {
+            BacktestReport report = backtestEngine.run(server, limit, grid);
+            if (top > 0 && report.getResults().size() > top) {
+                report.setResults(report.getResults().subList(0, top));
+            }
+            return ResponseEntity.ok(report);
+        } catch (IllegalArgumentException e) {
+            log.warn("回测参数无效: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
+    /**
+     * 在模拟的开奖序列上运行注码策略参数网格
+     *
+     * @return 模拟结果，参数无效时返回400
+     */
+    @GetMapping("/monte-carlo")
+    @Operation(
+            summary = "蒙特卡洛模拟注码策略",
+            description = "按三个数字均匀独立的模型生成开奖序列，对参数网格的所有组合并行模拟，"
+                    + "返回每个组合的盈亏和最大回撤分位数、平均盈亏和破产概率的95%置信区间"
+    )
+    public ResponseEntity<MonteCarloReport> monteCarlo(
+            @Parameter(description = "模拟局数") @RequestParam(defaultValue = "10000") int paths,
+            @Parameter(description = "每局期数，不超过100000") @RequestParam(defaultValue = "1000") int session,
+            @Parameter(description = "随机数种子") @RequestParam(defaultValue = "28") long seed,
+            @Parameter(description = "注码策略") @RequestParam(defaultValue = "FLAT,MARTINGALE,FIBONACCI,STOP_AFTER_LOSSES")
+            List<BacktestStrategy> strategies,
+            @Parameter(description = "下注方向") @RequestParam(defaultValue = "RESULT") List<BacktestBetMode> modes,
+            @Parameter(description = "基础注码") @RequestParam(defaultValue = "1") double[] stakes,
+            @Parameter(description = "步数上限") @RequestParam(defaultValue = "5") int[] limits,
+            @Parameter(description = "初始本金") @RequestParam(defaultValue = "1000") double[] bankrolls,
+            @Parameter(description = "赢一期的净赔率") @RequestParam(defaultValue = "1.0") double payout,
+            @Parameter(description = "杀规则集") @RequestParam(defaultValue = KillRuleSet.STANDARD_NAME) String killRule) {
+        log.info("收到蒙特卡洛模拟请求: {} 局 × {} 期", paths, session);
+
+        BacktestGrid grid = BacktestGrid.builder()
+                .killRule(killRule)
+                .strategies(strategies)
+                .betModes(modes)
+                .baseStakes(stakes)
+                .limits(limits)
+                .bankrolls(bankrolls)
+                .payout(payout)
+                .sessionLength(session)
+                .build();
+        try {
+            return ResponseEntity.ok(monteCarloEngine.run(grid, paths, seed));
+        } catch (IllegalArgumentException e) {
+            log.warn("模拟参数无效: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package org.pc28.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.pc28.model.ConsensusSnapshot;
+import org.pc28.model.CorrelationReport;
+import org.pc28.model.DrawClockSnapshot;
+import org.pc28.model.PatternReport;
+import org.pc28.model.StreakReport;
+import org.pc28.model.SumStatsSnapshot;
+import org.pc28.model.WinRateSnapshot;
+import org.pc28.service.analysis.ConsensusEngine;
+import org.pc28.service.analysis.DrawClock;
+import org.pc28.service.analysis.DrawStatsService;
+import org.pc28.service.analysis.PatternAlphabet;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+/**
+ * 开奖统计控制器
+ */
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "开奖统计", description = "提供胜率、连胜连败、跨服务器共识等开奖统计数据的API")
+public class StatsController {
+
+    private final DrawStatsService drawStatsService;
+    private final ConsensusEngine consensusEngine;
+    private final DrawClock drawClock;
+
+    /**
+     * 获取所有服务器的滑动窗口胜率
+     *
+     * @return 各服务器的胜率快照
+     */
+    @GetMapping("/win-rates")
+    @Operation(
+            summary = "获取所有服务器的胜率",
+            description = "返回各服务器最近10、20、30、50、100期（可配置）的胜率，数据在入库时增量更新，读取不查询数据库"
+    )
+    public ResponseEntity<List<WinRateSnapshot>> getAllWinRates() {
+        return ResponseEntity.ok(drawStatsService.getAllWinRates());
+    }
+
+    /**
+     * 获取指定服务器的滑动窗口胜率
+     *
+     * @param server 服务器前缀
+     * @return 胜率快照，服务器没有统计数据时返回404
+     */
+    @GetMapping("/win-rates/{server}")
+    @Operation(
+            summary = "获取指定服务器的胜率",
+            description = "返回指定服务器最近若干期的胜场数和胜率"
+    )
+    public ResponseEntity<WinRateSnapshot> getWinRates(
+            @Parameter(description = "服务器前缀，例如 sf1") @PathVariable String server) {
+        try {
+            return ResponseEntity.ok(drawStatsService.getWinRates(server));
+        } catch (IllegalArgumentException e) {
+            log.debug("获取胜率失败: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * 获取所有服务器的连胜连败和回撤统计
+     *
+     * @return 各服务器全部历史的统计结果
+     */
+    @GetMapping("/streaks")
+    @Operation(
+            summary = "获取所有服务器的连胜连败和回撤",
+            description = "返回各服务器全部历史的当前/最长连胜、连败（未命中亏损、命中被杀）和最大回撤"
+    )
+    public ResponseEntity<List<StreakReport>> getAllStreaks() {
+        return ResponseEntity.ok(drawStatsService.getAllStreaks());
+    }
+
+    /**
+     * 获取指定服务器的连胜连败和回撤统计
+     *
+     * @param server 服务器前缀
+     * @param fromPeriod 起始期号（包含），为空时从第一期开始
+     * @param toPeriod 结束期号（包含），为空时到最后一期
+     * @return 统计结果，服务器没有统计数据时返回404，区间无效时返回400
+     */
+    @GetMapping("/streaks/{server}")
+    @Operation(
+            summary = "获取指定服务器的连胜连败和回撤",
+            description = "返回指定服务器在期号区间内的连胜连败和回撤，区间统计由线段树合并得到，不扫描历史记录"
+    )
+    public ResponseEntity<StreakReport> getStreaks(
+            @Parameter(description = "服务器前缀，例如 sf1") @PathVariable String server,
+            @Parameter(description = "起始期号（包含）") @RequestParam(required = false) Integer fromPeriod,
+            @Parameter(description = "结束期号（包含）") @RequestParam(required = false) Integer toPeriod) {
+        int from = fromPeriod == null ? Integer.MIN_VALUE : fromPeriod;
+        int to = toPeriod == null ? Integer.MAX_VALUE : toPeriod;
+        if (from > to) {
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(drawStatsService.getStreaks(server, from, to));
+        } catch (IllegalArgumentException e) {
+            log.debug("获取连胜连败统计失败: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * 获取所有服务器的总和分布和遗漏统计
+     *
+     * @return 各服务器的统计快照
+     */
+    @GetMapping("/sums")
+    @Operation(
+            summary = "获取所有服务器的总和分布和遗漏",
+            description = "返回各服务器最近N期总和0-27和大小单双的出现次数、当前和最大遗漏期数，以及总和分布的卡方检验结果"
+    )
+    public ResponseEntity<List<SumStatsSnapshot>> getAllSumStats() {
+        return ResponseEntity.ok(drawStatsService.getAllSumStats());
+    }
+
+    /**
+     * 获取指定服务器的总和分布和遗漏统计
+     *
+     * @param server 服务器前缀
+     * @return 统计快照，服务器没有统计数据时返回404
+     */
+    @GetMapping("/sums/{server}")
+    @Operation(
+            summary = "获取指定服务器的总和分布和遗漏",
+            description = "统计在记录入库时增量更新，读取不查询数据库"
+    )
+    public ResponseEntity<SumStatsSnapshot> getSumStats(
+            @Parameter(description = "服务器前缀，例如 sf1") @PathVariable String server) {
+        try {
+            return ResponseEntity.ok(drawStatsService.getSumStats(server));
+        } catch (IllegalArgumentException e) {
+            log.debug("获取总和统计失败: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * 检索符号序列在服务器历史上的出现次数和下一期的分布
+     *
+     * @param server 服务器前缀
+     * @param alphabet 符号表
+     * @param pattern 模式文本
+     * @param limit 最多返回的最近出现期号数量
+     * @return 检索结果，模式无法解析时返回400，服务器没有统计数据时返回404
+     */
+    @GetMapping("/patterns/{server}")
+    @Operation(
+            summary = "检索历史上出现过的结果序列",
+            description = "返回模式（如单双单单）在全部历史中出现的次数、之后下一期各符号的次数和比例，以及最近几次出现的期号。"
+                    + "符号表可选 ODD_EVEN（单双）、BIG_SMALL（大小）、OUTCOME（中错）、RESULT（下注结果，多字符号用逗号分隔）"
+    )
+    public ResponseEntity<PatternReport> findPattern(
+            @Parameter(description = "服务器前缀，例如 sf3") @PathVariable String server,
+            @Parameter(description = "符号表") @RequestParam(defaultValue = "ODD_EVEN") PatternAlphabet alphabet,
+            @Parameter(description = "模式，例如 单双单单") @RequestParam String pattern,
+            @Parameter(description = "最多返回的最近出现期号数量") @RequestParam(defaultValue = "20") int limit) {
+        try {
+            alphabet.parse(pattern);
+        } catch (IllegalArgumentException e) {
+            log.debug("模式无法解析: {}", e.getMessage());
+            return ResponseEntity.badRequest().build();
+        }
+        try {
+            return ResponseEntity.ok(drawStatsService.findPattern(server, alphabet, pattern, limit));
+        } catch (IllegalArgumentException e) {
+            log.debug("检索模式失败: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+
+    /**
+     * 获取最近若干期各服务器预测的共识
+     *
+     * @param limit 期数
+     * @return 从新到旧排列的共识
+     */
+    @GetMapping("/consensus")
+    @Operation(
+            summary = "获取最近若干期的跨服务器共识",
+            description = "按期号合并各服务器的预测，返回多数预测（单/双）、一致率以及开奖后多数预测是否命中"
+    )
+    public ResponseEntity<List<ConsensusSnapshot>> getRecentConsensus(
+            @Parameter(description = "期数") @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(consensusEngine.recent(Math.max(0, limit)));
+    }
+
+    /**
+     * 获取指定期号各服务器预测的共识
+     *
+     * @param period 期号
+     * @return 共识，期号不在保留范围内时返回404
+     */
+    @GetMapping("/consensus/{period}")
+    @Operation(
+            summary = "获取指定期号的跨服务器共识",
+            description = "只保留最近 pc28.consensus.retention 期"
+    )
+    public ResponseEntity<ConsensusSnapshot> getConsensus(
+            @Parameter(description = "期号") @PathVariable int period) {
+        ConsensusSnapshot snapshot = consensusEngine.consensus(period);
+        return snapshot == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(snapshot);
+    }
+
+    /**
+     * 获取各服务器命中序列的两两相关性
+     *
+     * @return 相关系数矩阵
+     */
+    @GetMapping("/correlation")
+    @Operation(
+            summary = "获取各服务器命中序列的相关性",
+            description = "返回最近 pc28.consensus.retention 期内两两服务器命中/未中序列的phi相关系数、样本数，"
+                    + "以及各服务器和多数预测的命中率"
+    )
+    public ResponseEntity<CorrelationReport> getCorrelation() {
+        return ResponseEntity.ok(consensusEngine.correlation());
+    }
+
+    /**
+     * 获取所有服务器的开奖时钟模型
+     *
+     * @return 各服务器下一期的预计开奖时刻和模型参数
+     */
+    @GetMapping("/draw-clock")
+    @Operation(
+            summary = "获取所有服务器的开奖时钟",
+            description = "返回由倒计时观测拟合的每期间隔、拟合误差和下一期的预计开奖时刻"
+    )
+    public ResponseEntity<List<DrawClockSnapshot>> getAllDrawClocks() {
+        return ResponseEntity.ok(drawClock.snapshots());
+    }
+
+    /**
+     * 把期号换算为预计开奖时刻
+     *
+     * @param server 服务器前缀
+     * @param period 期号，为空时取下一期
+     * @return 时钟快照，服务器没有时钟数据时返回404
+     */
+    @GetMapping("/draw-clock/{server}")
+    @Operation(
+            summary = "获取指定服务器期号的开奖时刻",
+            description = "按开奖时钟模型把任意期号换算为本机时钟下的开奖时刻"
+    )
+    public ResponseEntity<DrawClockSnapshot> getDrawClock(
+            @Parameter(description = "服务器前缀，例如 sf1") @PathVariable String server,
+            @Parameter(description = "期号，为空时取下一期") @RequestParam(required = false) Integer period) {
+        try {
+            return ResponseEntity.ok(drawClock.snapshot(server, period));
+        } catch (IllegalArgumentException e) {
+            log.debug("获取开奖时钟失败: {}", e.getMessage());
+            return ResponseEntity.notFound().build();
+        }
+    }
+}
@@ -8,14 +8,19 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.pc28.model.ConnectionPoolStats;
+import org.pc28.model.ContentChangeStats;
+import org.pc28.model.IngestionStageStats;
 import org.pc28.model.WebDownloadResult;
 import org.pc28.service.WebDownloadService;
+import org.pc28.task.StagedIngestionPipeline;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -29,6 +34,7 @@ import java.util.Map;
 public class WebDownloadController {
     
     private final WebDownloadService webDownloadService;
+    private final StagedIngestionPipeline ingestionPipeline;
     
     /**
      * 下载网页
@@ -77,4 +83,46 @@ public class WebDownloadController {
             return ResponseEntity.badRequest().body(response);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * 获取HTTP连接池统计信息
+     * 
+     * @return 连接池统计信息
+     */
+    @GetMapping("/pool-stats")
+    @Operation(
+            summary = "HTTP连接池统计",
+            description = "返回共享HTTP连接池的租用/空闲/等待连接数以及连接复用率"
+    )
+    public ResponseEntity<ConnectionPoolStats> poolStats() {
+        return ResponseEntity.ok(webDownloadService.getConnectionPoolStats());
+    }
+    
+    /**
+     * 获取各数据源的内容变化统计
+     * 
+     * @return 内容变化统计列表
+     */
+    @GetMapping("/change-stats")
+    @Operation(
+            summary = "数据源内容变化统计",
+            description = "返回各数据源的下载次数、304次数、内容未变化次数以及跳过解析和入库的周期数"
+    )
+    public ResponseEntity<List<ContentChangeStats>> changeStats() {
+        return ResponseEntity.ok(webDownloadService.getContentChangeStats());
+    }
+    
+    /**
+     * 获取分阶段采集流水线各阶段的统计信息
+     * 
+     * @return 各阶段的统计信息
+     */
+    @GetMapping("/ingestion-stats")
+    @Operation(
+            summary = "采集流水线阶段统计",
+            description = "返回下载、解析、分析、入库各阶段的工作线程数、队列深度、处理耗时和等待下游的背压时间，流水线还没有启动时返回空列表"
+    )
+    public ResponseEntity<List<IngestionStageStats>> ingestionStats() {
+        return ResponseEntity.ok(ingestionPipeline.getStageStats());
+    }
+}
@@ -0,0 +1,20 @@
+package org.pc28.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 统一历史记录表的复合主键（服务器 + 期号）
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DrawHistoryId implements Serializable {
+    
+    private String server;
+    
+    private Integer period;
+}
@@ -0,0 +1,68 @@
+package org.pc28.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 统一历史记录实体类
+ * 所有服务器的开奖记录写入同一张表，以（服务器, 期号）为主键，按服务器分区
+ */
+@Entity
+@Table(name = "draw_history", indexes = {
+        @Index(name = "idx_draw_history_period_server", columnList = "period, server")
+})
+@IdClass(DrawHistoryId.class)
+@Data
+@NoArgsConstructor
+public class DrawHistoryRecord {
+    
+    @Id
+    @Column(name = "server", nullable = false, length = 16)
+    private String server;
+    
+    @Id
+    @Column(name = "period", nullable = false)
+    private Integer period;
+    
+    @Column(name = "numbers", nullable = false)
+    private String numbers;
+    
+    @Column(name = "prediction")
+    private String prediction;
+    
+    @Column(name = "outcome")
+    private String outcome;
+    
+    @Column(name = "total_number")
+    private Integer totalNumber;
+    
+    @Column(name = "kill_number")
+    private String killNumber;
+    
+    @Column(name = "betting_result")
+    private String bettingResult;
+    
+    @Column(name = "open_result")
+    private String openResult;
+    
+    @Column(name = "created_at", updatable = false)
+    private LocalDateTime createdAt;
+    
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+    
+    @PrePersist
+    protected void onCreate() {
+        LocalDateTime now = LocalDateTime.now();
+        this.createdAt = now;
+        this.updatedAt = now;
+    }
+    
+    @PreUpdate
+    protected void onUpdate() {
+        this.updatedAt = LocalDateTime.now();
+    }
+}
@@ -0,0 +1,72 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+import org.pc28.service.analysis.BacktestBetMode;
+import org.pc28.service.analysis.BacktestStrategy;
+
+import java.util.List;
+
+/**
+ * 回测参数网格，各列表的笛卡尔积即为要回测的参数组合
+ */
+@Data
+@Builder
+@Schema(description = "回测参数网格")
+public class BacktestGrid {
+
+    /**
+     * 判断"杀"使用的规则集名称
+     */
+    @Schema(description = "杀规则集", example = "standard")
+    private String killRule;
+
+    /**
+     * 注码策略
+     */
+    @Schema(description = "注码策略", example = "[\"FLAT\", \"MARTINGALE\"]")
+    private List<BacktestStrategy> strategies;
+
+    /**
+     * 下注方向
+     */
+    @Schema(description = "下注方向", example = "[\"RESULT\", \"FOLLOW\", \"AGAINST\"]")
+    private List<BacktestBetMode> betModes;
+
+    /**
+     * 基础注码
+     */
+    @Schema(description = "基础注码", example = "[1, 2, 5]")
+    private double[] baseStakes;
+
+    /**
+     * 步数上限：倍投和斐波那契为最大步数，连输止损为连输期数，平注忽略
+     */
+    @Schema(description = "步数上限", example = "[3, 5, 8]")
+    private int[] limits;
+
+    /**
+     * 初始本金
+     */
+    @Schema(description = "初始本金", example = "[100, 1000]")
+    private double[] bankrolls;
+
+    /**
+     * 赢一期的净赔率（赢得注码的倍数）
+     */
+    @Schema(description = "净赔率", example = "1.0")
+    private double payout;
+
+    /**
+     * 计算破产概率时每局的期数，历史按此长度切分为互不重叠的多局
+     */
+    @Schema(description = "每局期数", example = "1000")
+    private int sessionLength;
+
+    /**
+     * 盈亏曲线的采样点数
+     */
+    @Schema(description = "盈亏曲线采样点数", example = "50")
+    private int curvePoints;
+}
@@ -0,0 +1,49 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 一次网格回测的结果
+ */
+@Data
+@Builder
+@Schema(description = "网格回测结果")
+public class BacktestReport {
+
+    @Schema(description = "服务器编号", example = "sf1")
+    private String server;
+
+    @Schema(description = "杀规则集", example = "standard")
+    private String killRule;
+
+    /**
+     * 参与回测的期数（已开奖且有预测）
+     */
+    @Schema(description = "参与回测的期数", example = "100000")
+    private int games;
+
+    @Schema(description = "起始期号", example = "3198082")
+    private int fromPeriod;
+
+    @Schema(description = "结束期号", example = "3298081")
+    private int toPeriod;
+
+    /**
+     * 参数组合数量
+     */
+    @Schema(description = "参数组合数量", example = "1080")
+    private int combinations;
+
+    @Schema(description = "回测耗时（毫秒）", example = "850")
+    private long elapsedMillis;
+
+    /**
+     * 按最终盈亏从高到低排列的结果
+     */
+    @Schema(description = "按最终盈亏从高到低排列的结果")
+    private List<BacktestResult> results;
+}
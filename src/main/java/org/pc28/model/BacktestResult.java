@@ -0,0 +1,76 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+import org.pc28.service.analysis.BacktestBetMode;
+import org.pc28.service.analysis.BacktestStrategy;
+
+/**
+ * 单个参数组合的回测结果
+ */
+@Data
+@Builder
+@Schema(description = "单个参数组合的回测结果")
+public class BacktestResult {
+
+    @Schema(description = "注码策略", example = "MARTINGALE")
+    private BacktestStrategy strategy;
+
+    @Schema(description = "下注方向", example = "RESULT")
+    private BacktestBetMode betMode;
+
+    @Schema(description = "基础注码", example = "1")
+    private double baseStake;
+
+    /**
+     * 步数上限，平注为0
+     */
+    @Schema(description = "步数上限", example = "5")
+    private int limit;
+
+    @Schema(description = "初始本金", example = "1000")
+    private double bankroll;
+
+    /**
+     * 全部历史结束时的盈亏（破产时为破产时的盈亏）
+     */
+    @Schema(description = "最终盈亏", example = "125.0")
+    private double finalProfit;
+
+    /**
+     * 本金从高点到其后低点的最大跌幅
+     */
+    @Schema(description = "最大回撤", example = "63.0")
+    private double maxDrawdown;
+
+    /**
+     * 本金的最高点
+     */
+    @Schema(description = "本金最高点", example = "1180.0")
+    private double peakBankroll;
+
+    /**
+     * 全部历史是否在中途破产（本金不足下一注）
+     */
+    @Schema(description = "是否破产", example = "false")
+    private boolean ruined;
+
+    /**
+     * 按每局期数切分的各局中破产的比例
+     */
+    @Schema(description = "破产概率", example = "0.12")
+    private double ruinProbability;
+
+    @Schema(description = "下注期数", example = "98000")
+    private int bets;
+
+    @Schema(description = "赢的期数", example = "52000")
+    private int wins;
+
+    /**
+     * 按期数均匀采样的累计盈亏
+     */
+    @Schema(description = "盈亏曲线", example = "[0.0, 12.0, 5.0]")
+    private double[] curve;
+}
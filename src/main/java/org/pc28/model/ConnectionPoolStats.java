@@ -0,0 +1,62 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * HTTP连接池统计信息模型类
+ */
+@Data
+@Builder
+@Schema(description = "HTTP连接池统计信息")
+public class ConnectionPoolStats {
+    
+    /**
+     * 正在使用的连接数
+     */
+    @Schema(description = "正在使用的连接数", example = "1")
+    private int leased;
+    
+    /**
+     * 空闲可复用的连接数
+     */
+    @Schema(description = "空闲可复用的连接数", example = "5")
+    private int available;
+    
+    /**
+     * 等待获取连接的请求数
+     */
+    @Schema(description = "等待获取连接的请求数", example = "0")
+    private int pending;
+    
+    /**
+     * 连接池最大连接数
+     */
+    @Schema(description = "连接池最大连接数", example = "100")
+    private int max;
+    
+    /**
+     * 连接池中的路由数
+     */
+    @Schema(description = "连接池中的路由数", example = "1")
+    private int routes;
+    
+    /**
+     * 已发送的请求数（含重试）
+     */
+    @Schema(description = "已发送的请求数", example = "120")
+    private long requestCount;
+    
+    /**
+     * 新建的TCP连接数
+     */
+    @Schema(description = "新建的TCP连接数", example = "6")
+    private long connectionsCreated;
+    
+    /**
+     * 连接复用率（1 - 新建连接数 / 请求数）
+     */
+    @Schema(description = "连接复用率", example = "0.95")
+    private double reuseRate;
+}
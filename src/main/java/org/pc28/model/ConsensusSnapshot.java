@@ -0,0 +1,61 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 单期各服务器预测的共识
+ */
+@Data
+@Builder
+@Schema(description = "单期各服务器预测的共识")
+public class ConsensusSnapshot {
+
+    @Schema(description = "期号", example = "3298082")
+    private int period;
+
+    /**
+     * 各服务器的预测（单/双），没有预测的服务器不在其中
+     */
+    @Schema(description = "各服务器的预测", example = "{\"sf1\": \"单\", \"sf3\": \"双\"}")
+    private Map<String, String> predictions;
+
+    @Schema(description = "预测单的服务器数量", example = "4")
+    private int oddVotes;
+
+    @Schema(description = "预测双的服务器数量", example = "2")
+    private int evenVotes;
+
+    /**
+     * 多数预测：单、双，票数相同时为"平"
+     */
+    @Schema(description = "多数预测", example = "单")
+    private String majority;
+
+    /**
+     * 一致率：多数预测的票数占有预测服务器的比例
+     */
+    @Schema(description = "一致率", example = "0.667")
+    private double agreement;
+
+    /**
+     * 开奖号码，未开奖时为null
+     */
+    @Schema(description = "开奖号码", example = "3+5+7=15")
+    private String numbers;
+
+    /**
+     * 开奖的单双，未开奖时为null
+     */
+    @Schema(description = "开奖单双", example = "单")
+    private String actual;
+
+    /**
+     * 多数预测是否命中，未开奖或平票时为null
+     */
+    @Schema(description = "多数预测是否命中", example = "true")
+    private Boolean majorityHit;
+}
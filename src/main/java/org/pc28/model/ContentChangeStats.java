@@ -0,0 +1,50 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 数据源内容变化统计模型类
+ */
+@Data
+@Builder
+@Schema(description = "数据源内容变化统计")
+public class ContentChangeStats {
+    
+    /**
+     * 服务器编号
+     */
+    @Schema(description = "服务器编号", example = "sf1")
+    private String serverPrefix;
+    
+    /**
+     * 下载次数
+     */
+    @Schema(description = "下载次数", example = "120")
+    private long fetchCount;
+    
+    /**
+     * 服务器返回304的次数
+     */
+    @Schema(description = "服务器返回304的次数", example = "0")
+    private long notModifiedCount;
+    
+    /**
+     * 内容哈希与上次相同的次数
+     */
+    @Schema(description = "内容哈希与上次相同的次数", example = "80")
+    private long unchangedCount;
+    
+    /**
+     * 内容发生变化的次数
+     */
+    @Schema(description = "内容发生变化的次数", example = "40")
+    private long changedCount;
+    
+    /**
+     * 跳过解析和入库的周期数（304 + 哈希相同）
+     */
+    @Schema(description = "跳过解析和入库的周期数", example = "80")
+    private long skippedCycles;
+}
@@ -0,0 +1,64 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 各服务器命中序列的两两相关性
+ */
+@Data
+@Builder
+@Schema(description = "各服务器命中序列的两两相关性")
+public class CorrelationReport {
+
+    /**
+     * 服务器编号，与各矩阵的行列一一对应
+     */
+    @Schema(description = "服务器编号", example = "[\"sf1\", \"sf3\", \"sf4\"]")
+    private List<String> servers;
+
+    /**
+     * 统计的期数范围（最近N期）
+     */
+    @Schema(description = "统计的期数范围", example = "1000")
+    private int retention;
+
+    @Schema(description = "统计范围内的第一期", example = "3297083")
+    private int fromPeriod;
+
+    @Schema(description = "统计范围内的最后一期", example = "3298082")
+    private int toPeriod;
+
+    /**
+     * samples[i][j] 为两个服务器都有结果的期数
+     */
+    @Schema(description = "两两都有结果的期数")
+    private int[][] samples;
+
+    /**
+     * correlation[i][j] 为两个服务器命中序列的相关系数（phi系数，-1到1），样本不足或序列不变时为null
+     */
+    @Schema(description = "命中序列的相关系数")
+    private Double[][] correlation;
+
+    /**
+     * 各服务器的命中率
+     */
+    @Schema(description = "各服务器的命中率", example = "[0.51, 0.49, 0.5]")
+    private double[] hitRates;
+
+    /**
+     * 有多数预测且已开奖的期数
+     */
+    @Schema(description = "有多数预测且已开奖的期数", example = "920")
+    private int majorityGames;
+
+    /**
+     * 多数预测的命中率
+     */
+    @Schema(description = "多数预测的命中率", example = "0.52")
+    private double majorityHitRate;
+}
@@ -0,0 +1,87 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 并发下载周期报告模型类
+ * 记录一轮并发下载中每个数据源的结果与耗时
+ */
+@Data
+@Builder
+@Schema(description = "并发下载周期报告")
+public class DownloadCycleReport {
+    
+    /**
+     * 各数据源的下载结果，顺序与TARGET_URLS一致
+     */
+    @Schema(description = "各数据源的下载结果")
+    private List<WebDownloadResult> results;
+    
+    /**
+     * 本轮下载总耗时（毫秒）
+     */
+    @Schema(description = "本轮下载总耗时（毫秒）", example = "1830")
+    private long wallTimeMillis;
+    
+    /**
+     * 本轮下载截止时间（毫秒）
+     */
+    @Schema(description = "本轮下载截止时间（毫秒）", example = "20000")
+    private long deadlineMillis;
+    
+    /**
+     * 最大并发数
+     */
+    @Schema(description = "最大并发数", example = "4")
+    private int maxConcurrency;
+    
+    /**
+     * 成功下载数量
+     */
+    @Schema(description = "成功下载数量", example = "6")
+    private int successCount;
+    
+    /**
+     * 超时被取消的数量
+     */
+    @Schema(description = "超时被取消的数量", example = "0")
+    private int timedOutCount;
+    
+    /**
+     * 内容未变化的数量
+     */
+    @Schema(description = "内容未变化的数量", example = "4")
+    private int unchangedCount;
+    
+    /**
+     * 获取数据源总数
+     *
+     * @return 数据源总数
+     */
+    public int getTotalCount() {
+        return results == null ? 0 : results.size();
+    }
+    
+    /**
+     * 获取内容未变化、无需解析和入库的服务器
+     *
+     * @return 服务器前缀集合
+     */
+    public Set<String> getUnchangedServers() {
+        Set<String> servers = new LinkedHashSet<>();
+        if (results != null) {
+            for (WebDownloadResult result : results) {
+                if (result.isSuccess() && result.isUnchanged()) {
+                    servers.add(result.getServerPrefix());
+                }
+            }
+        }
+        return servers;
+    }
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 单个服务器开奖时钟模型的快照
+ */
+@Data
+@Builder
+@Schema(description = "开奖时钟模型快照")
+public class DrawClockSnapshot {
+
+    /**
+     * 服务器编号
+     */
+    @Schema(description = "服务器编号", example = "sf1")
+    private String server;
+
+    /**
+     * 最后一个已开奖的期号，不知道时为-1
+     */
+    @Schema(description = "最后一个已开奖的期号", example = "3298081")
+    private int lastDrawnPeriod;
+
+    /**
+     * 参与拟合的观测数量
+     */
+    @Schema(description = "参与拟合的观测数量", example = "256")
+    private int samples;
+
+    /**
+     * 累计的观测数量
+     */
+    @Schema(description = "累计的观测数量", example = "1520")
+    private long observations;
+
+    /**
+     * 因开奖时间表变化重新拟合的次数
+     */
+    @Schema(description = "重新拟合的次数", example = "3")
+    private int resets;
+
+    /**
+     * 拟合的每期间隔（毫秒）
+     */
+    @Schema(description = "拟合的每期间隔（毫秒）", example = "210012.4")
+    private double intervalMillis;
+
+    /**
+     * 观测相对拟合结果的均方根误差（毫秒）
+     */
+    @Schema(description = "观测相对拟合结果的均方根误差（毫秒）", example = "312.5")
+    private double rmsResidualMillis;
+
+    /**
+     * 查询的期号，未指定时为下一期
+     */
+    @Schema(description = "查询的期号", example = "3298082")
+    private int period;
+
+    /**
+     * 查询期号的预计开奖时刻（本机时钟），模型还没有观测时为null
+     */
+    @Schema(description = "预计开奖时刻")
+    private LocalDateTime drawAt;
+
+    /**
+     * 查询期号的预计开奖时刻（毫秒时间戳），模型还没有观测时为-1
+     */
+    @Schema(description = "预计开奖时刻（毫秒时间戳）", example = "1735689600000")
+    private long drawAtMillis;
+}
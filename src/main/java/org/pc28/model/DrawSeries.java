@@ -0,0 +1,110 @@
+package org.pc28.model;
+
+import lombok.Getter;
+import org.pc28.utils.DrawCodeTable;
+
+import java.util.Arrays;
+
+/**
+ * 单个服务器按期号从旧到新排列的开奖序列（列式存储）
+ *
+ * 号码保存为 DrawCodeTable 编码（0-999），未开奖或格式不标准的记录为-1；
+ * 预测和结果使用 ParsedServerPage 中的byte编码，供各种统计和回测直接按下标访问
+ */
+public class DrawSeries {
+
+    /**
+     * 号码未开奖或格式不标准
+     */
+    public static final short NO_CODE = -1;
+
+    @Getter
+    private final String server;
+
+    @Getter
+    private int size;
+
+    private int[] periods;
+    private short[] codes;
+    private byte[] predictions;
+    private byte[] outcomes;
+
+    public DrawSeries(String server, int expectedSize) {
+        this.server = server;
+        int capacity = Math.max(1, expectedSize);
+        this.periods = new int[capacity];
+        this.codes = new short[capacity];
+        this.predictions = new byte[capacity];
+        this.outcomes = new byte[capacity];
+    }
+
+    /**
+     * 追加一期记录，期号必须大于上一期
+     *
+     * @param period 期号
+     * @param numbers 号码字符串
+     * @param prediction 预测文本
+     * @param outcome 结果文本
+     */
+    public void add(int period, String numbers, String prediction, String outcome) {
+        int code = DrawCodeTable.encode(numbers);
+        add(period, code == DrawCodeTable.INVALID ? NO_CODE : code,
+                ParsedServerPage.predictionCode(prediction), ParsedServerPage.outcomeCode(outcome));
+    }
+
+    /**
+     * 追加一期记录，期号必须大于上一期
+     */
+    public void add(int period, int code, byte prediction, byte outcome) {
+        if (size > 0 && period <= periods[size - 1]) {
+            throw new IllegalArgumentException("期号必须递增: " + periods[size - 1] + " -> " + period);
+        }
+        if (size == periods.length) {
+            int capacity = size * 2;
+            periods = Arrays.copyOf(periods, capacity);
+            codes = Arrays.copyOf(codes, capacity);
+            predictions = Arrays.copyOf(predictions, capacity);
+            outcomes = Arrays.copyOf(outcomes, capacity);
+        }
+        periods[size] = period;
+        codes[size] = (short) code;
+        predictions[size] = prediction;
+        outcomes[size] = outcome;
+        size++;
+    }
+
+    public int periodAt(int index) {
+        return periods[index];
+    }
+
+    /**
+     * 号码编码，未开奖或格式不标准时为 {@link #NO_CODE}
+     */
+    public int codeAt(int index) {
+        return codes[index];
+    }
+
+    public boolean hasCode(int index) {
+        return codes[index] >= 0;
+    }
+
+    public byte predictionAt(int index) {
+        return predictions[index];
+    }
+
+    public byte outcomeAt(int index) {
+        return outcomes[index];
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int firstPeriod() {
+        return size == 0 ? -1 : periods[0];
+    }
+
+    public int lastPeriod() {
+        return size == 0 ? -1 : periods[size - 1];
+    }
+}
@@ -0,0 +1,33 @@
+package org.pc28.model;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * HTTP GET请求结果模型类
+ * 包含响应内容以及用于条件请求的缓存校验头
+ */
+@Data
+@Builder
+public class HttpFetchResult {
+    
+    /**
+     * 服务器是否返回304（内容未修改）
+     */
+    private boolean notModified;
+    
+    /**
+     * 响应内容，304时为null
+     */
+    private String content;
+    
+    /**
+     * 响应的ETag头
+     */
+    private String etag;
+    
+    /**
+     * 响应的Last-Modified头
+     */
+    private String lastModified;
+}
@@ -0,0 +1,86 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 分阶段采集流水线单个阶段的统计信息模型类
+ */
+@Data
+@Builder
+@Schema(description = "采集流水线阶段统计信息")
+public class IngestionStageStats {
+    
+    /**
+     * 阶段名称
+     */
+    @Schema(description = "阶段名称", example = "PARSE")
+    private String stage;
+    
+    /**
+     * 阶段说明
+     */
+    @Schema(description = "阶段说明", example = "解析")
+    private String description;
+    
+    /**
+     * 工作线程数
+     */
+    @Schema(description = "工作线程数", example = "2")
+    private int workers;
+    
+    /**
+     * 正在处理的工作线程数
+     */
+    @Schema(description = "正在处理的工作线程数", example = "1")
+    private int busyWorkers;
+    
+    /**
+     * 队列容量
+     */
+    @Schema(description = "队列容量", example = "4")
+    private int queueCapacity;
+    
+    /**
+     * 当前排队的数量
+     */
+    @Schema(description = "当前排队的数量", example = "0")
+    private int queueDepth;
+    
+    /**
+     * 已处理的数量
+     */
+    @Schema(description = "已处理的数量", example = "120")
+    private long processed;
+    
+    /**
+     * 处理失败的数量
+     */
+    @Schema(description = "处理失败的数量", example = "0")
+    private long failed;
+    
+    /**
+     * 平均处理耗时（毫秒）
+     */
+    @Schema(description = "平均处理耗时（毫秒）", example = "35.2")
+    private double meanLatencyMillis;
+    
+    /**
+     * 最近的最大处理耗时（毫秒）
+     */
+    @Schema(description = "最近的最大处理耗时（毫秒）", example = "180.0")
+    private double maxLatencyMillis;
+    
+    /**
+     * 平均排队等待时间（毫秒）
+     */
+    @Schema(description = "平均排队等待时间（毫秒）", example = "2.5")
+    private double meanQueueWaitMillis;
+    
+    /**
+     * 平均等待下游队列空位的时间（毫秒），持续增大说明下游阶段成为瓶颈
+     */
+    @Schema(description = "平均等待下游队列空位的时间（毫秒）", example = "0.0")
+    private double meanBlockedMillis;
+}
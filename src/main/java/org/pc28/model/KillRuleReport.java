@@ -0,0 +1,56 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 单个杀规则集在历史记录上的下注结果统计
+ */
+@Data
+@Builder
+@Schema(description = "杀规则集下注结果统计")
+public class KillRuleReport {
+
+    /**
+     * 规则集名称
+     */
+    @Schema(description = "规则集名称", example = "standard")
+    private String ruleSet;
+
+    /**
+     * 规则定义
+     */
+    @Schema(description = "规则定义", example = "sum=13,14; pair; leopard; straight")
+    private String definition;
+
+    /**
+     * 1000个号码中为"杀"的数量
+     */
+    @Schema(description = "1000个号码中为杀的数量", example = "412")
+    private int killCount;
+
+    /**
+     * 参与统计的期数（已开奖且有预测）
+     */
+    @Schema(description = "参与统计的期数", example = "100")
+    private int games;
+
+    /**
+     * 开出"杀"的期数
+     */
+    @Schema(description = "开出杀的期数", example = "41")
+    private int killed;
+
+    /**
+     * 各下注结果的期数，下标与 BettingResult 的声明顺序一致
+     */
+    @Schema(description = "各下注结果的期数（命中盈利、命中被杀、未命中盈利、未命中亏损、未知）")
+    private int[] resultCounts;
+
+    /**
+     * 对应场次范围（最近N期）的胜率
+     */
+    @Schema(description = "最近N期的胜率，与场次范围一一对应")
+    private double[] winRates;
+}
@@ -0,0 +1,58 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 一次蒙特卡洛模拟的结果
+ */
+@Data
+@Builder
+@Schema(description = "蒙特卡洛模拟结果")
+public class MonteCarloReport {
+
+    @Schema(description = "杀规则集", example = "standard")
+    private String killRule;
+
+    /**
+     * 模拟的局数，每局为一条独立的开奖序列，所有参数组合共用同一批序列
+     */
+    @Schema(description = "模拟局数", example = "10000")
+    private int paths;
+
+    @Schema(description = "每局期数", example = "1000")
+    private int sessionLength;
+
+    /**
+     * 生成的开奖期数（局数 × 每局期数）
+     */
+    @Schema(description = "生成的开奖期数", example = "10000000")
+    private long draws;
+
+    @Schema(description = "随机数种子", example = "28")
+    private long seed;
+
+    /**
+     * 分位数（百分比），与各结果中的分位数数组一一对应
+     */
+    @Schema(description = "分位数（百分比）", example = "[1, 5, 25, 50, 75, 95, 99]")
+    private int[] percentiles;
+
+    @Schema(description = "模拟耗时（毫秒）", example = "1200")
+    private long elapsedMillis;
+
+    /**
+     * 每秒模拟的开奖期数（按参数组合累计）
+     */
+    @Schema(description = "每秒模拟的期数", example = "300000000")
+    private long drawsPerSecond;
+
+    /**
+     * 按平均盈亏从高到低排列的结果
+     */
+    @Schema(description = "按平均盈亏从高到低排列的结果")
+    private List<MonteCarloResult> results;
+}
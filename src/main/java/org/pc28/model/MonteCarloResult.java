@@ -0,0 +1,82 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+import org.pc28.service.analysis.BacktestBetMode;
+import org.pc28.service.analysis.BacktestStrategy;
+
+/**
+ * 单个参数组合在模拟开奖序列上的结果分布
+ */
+@Data
+@Builder
+@Schema(description = "单个参数组合的蒙特卡洛模拟结果")
+public class MonteCarloResult {
+
+    @Schema(description = "注码策略", example = "MARTINGALE")
+    private BacktestStrategy strategy;
+
+    @Schema(description = "下注方向", example = "RESULT")
+    private BacktestBetMode betMode;
+
+    @Schema(description = "基础注码", example = "1")
+    private double baseStake;
+
+    /**
+     * 步数上限，平注为0
+     */
+    @Schema(description = "步数上限", example = "5")
+    private int limit;
+
+    @Schema(description = "初始本金", example = "1000")
+    private double bankroll;
+
+    /**
+     * 每局结束时的平均盈亏
+     */
+    @Schema(description = "平均盈亏", example = "-12.5")
+    private double meanProfit;
+
+    /**
+     * 平均盈亏的95%置信区间下限
+     */
+    @Schema(description = "平均盈亏95%置信区间下限", example = "-13.1")
+    private double meanProfitLow;
+
+    /**
+     * 平均盈亏的95%置信区间上限
+     */
+    @Schema(description = "平均盈亏95%置信区间上限", example = "-11.9")
+    private double meanProfitHigh;
+
+    /**
+     * 每局盈亏的分位数，与报告中的 percentiles 一一对应
+     */
+    @Schema(description = "盈亏分位数", example = "[-210.0, -120.0, -50.0, -10.0, 30.0, 95.0, 160.0]")
+    private double[] profitPercentiles;
+
+    /**
+     * 每局最大回撤的分位数，与报告中的 percentiles 一一对应
+     */
+    @Schema(description = "最大回撤分位数", example = "[8.0, 12.0, 25.0, 48.0, 80.0, 150.0, 230.0]")
+    private double[] drawdownPercentiles;
+
+    /**
+     * 破产（本金不足下一注）的局数比例
+     */
+    @Schema(description = "破产概率", example = "0.08")
+    private double ruinProbability;
+
+    /**
+     * 破产概率的95%置信区间下限（Wilson区间）
+     */
+    @Schema(description = "破产概率95%置信区间下限", example = "0.075")
+    private double ruinProbabilityLow;
+
+    /**
+     * 破产概率的95%置信区间上限（Wilson区间）
+     */
+    @Schema(description = "破产概率95%置信区间上限", example = "0.085")
+    private double ruinProbabilityHigh;
+}
@@ -0,0 +1,551 @@
+package org.pc28.model;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.pc28.utils.DrawCodeTable;
+import org.pc28.utils.NumberAnalysisUtil;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 单个服务器一页的解析结果（列式存储）
+ *
+ * 历史记录按列保存在基本类型数组中：期号为int，号码压缩为三位数字编码（a*100+b*10+c），
+ * 预测和结果为byte编码，总数由号码编码推出，不再为每行每个字段拼接字符串键和装箱。
+ * 格式不规则的期号和号码保存在按需分配的稀疏数组中，保证与原始文本无损对应。
+ * {@link #toMap()} / {@link #fromMap(String, Map)} 只作为旧的 history_i_* Map 格式的兼容适配
+ */
+public class ParsedServerPage {
+
+    /**
+     * 预测：无
+     */
+    public static final byte PREDICTION_NONE = 0;
+
+    /**
+     * 预测：单
+     */
+    public static final byte PREDICTION_ODD = 1;
+
+    /**
+     * 预测：双
+     */
+    public static final byte PREDICTION_EVEN = 2;
+
+    /**
+     * 结果：未开奖（---）
+     */
+    public static final byte OUTCOME_PENDING = 0;
+
+    /**
+     * 结果：中
+     */
+    public static final byte OUTCOME_HIT = 1;
+
+    /**
+     * 结果：错
+     */
+    public static final byte OUTCOME_MISS = 2;
+
+    /**
+     * 号码编码：未开奖占位"---"
+     */
+    public static final short NUMBERS_PLACEHOLDER = -1;
+
+    /**
+     * 号码编码：格式不规则，原文保存在稀疏数组中
+     */
+    public static final short NUMBERS_IRREGULAR = -2;
+
+    /**
+     * 期号无法转换为整数，原文保存在稀疏数组中
+     */
+    public static final int PERIOD_INVALID = Integer.MIN_VALUE;
+
+    private static final String[] PREDICTION_TEXT = {"", "单", "双"};
+
+    private static final String[] OUTCOME_TEXT = {"---", "中", "错"};
+
+    @Getter
+    private final String server;
+
+    @Getter
+    @Setter
+    private String filePath;
+
+    /**
+     * 下载或解析失败的原因
+     */
+    @Getter
+    @Setter
+    private String error;
+
+    /**
+     * 内容与上次相同，未解析
+     */
+    @Getter
+    @Setter
+    private boolean unchanged;
+
+    @Getter
+    @Setter
+    private String period;
+
+    @Getter
+    @Setter
+    private String countdownMinutes;
+
+    @Getter
+    @Setter
+    private String countdownSeconds;
+
+    @Getter
+    @Setter
+    private String drawNumbers;
+
+    @Getter
+    @Setter
+    private String drawResult;
+
+    /**
+     * 未开统计，键为元素id（小写）
+     */
+    private Map<String, String> notOpen;
+
+    /**
+     * 页面中是否找到历史记录表格
+     */
+    @Getter
+    @Setter
+    private boolean historyFound = true;
+
+    /**
+     * 本次解析实际访问的历史记录行数，-1表示未知
+     */
+    @Getter
+    @Setter
+    private int rowsVisited = -1;
+
+    /**
+     * 增量解析停止时的水位期号，未提前停止为null
+     */
+    @Getter
+    @Setter
+    private Integer stoppedAt;
+
+    @Getter
+    private int rowCount;
+
+    private int[] periods;
+    private short[] numberCodes;
+    private byte[] predictions;
+    private byte[] outcomes;
+    private String[] rawPeriods;
+    private String[] rawNumbers;
+
+    public ParsedServerPage(String server) {
+        this(server, 16);
+    }
+
+    public ParsedServerPage(String server, int expectedRows) {
+        this.server = server;
+        int capacity = Math.max(1, expectedRows);
+        this.periods = new int[capacity];
+        this.numberCodes = new short[capacity];
+        this.predictions = new byte[capacity];
+        this.outcomes = new byte[capacity];
+    }
+
+    /**
+     * 内容未变化的页面
+     */
+    public static ParsedServerPage unchanged(String server) {
+        ParsedServerPage page = new ParsedServerPage(server, 1);
+        page.setUnchanged(true);
+        return page;
+    }
+
+    /**
+     * 下载或解析失败的页面
+     */
+    public static ParsedServerPage failed(String server, String error) {
+        ParsedServerPage page = new ParsedServerPage(server, 1);
+        page.setError(error);
+        return page;
+    }
+
+    /**
+     * 追加一行历史记录
+     *
+     * @param period 期号，无法转换时为 {@link #PERIOD_INVALID}
+     * @param rawPeriod 期号原文，仅在 period 为 {@link #PERIOD_INVALID} 时使用
+     * @param numbersCode 号码编码（0-999、{@link #NUMBERS_PLACEHOLDER} 或 {@link #NUMBERS_IRREGULAR}）
+     * @param rawNumbers 号码原文，仅在编码为 {@link #NUMBERS_IRREGULAR} 时使用
+     * @param prediction 预测编码
+     * @param outcome 结果编码
+     */
+    public void addRow(int period, String rawPeriod, int numbersCode, String rawNumbers, byte prediction, byte outcome) {
+        if (rowCount == periods.length) {
+            int capacity = rowCount * 2;
+            periods = Arrays.copyOf(periods, capacity);
+            numberCodes = Arrays.copyOf(numberCodes, capacity);
+            predictions = Arrays.copyOf(predictions, capacity);
+            outcomes = Arrays.copyOf(outcomes, capacity);
+            if (rawPeriods != null) {
+                rawPeriods = Arrays.copyOf(rawPeriods, capacity);
+            }
+            if (this.rawNumbers != null) {
+                this.rawNumbers = Arrays.copyOf(this.rawNumbers, capacity);
+            }
+        }
+
+        int row = rowCount++;
+        periods[row] = period;
+        numberCodes[row] = (short) numbersCode;
+        predictions[row] = prediction;
+        outcomes[row] = outcome;
+
+        if (period == PERIOD_INVALID) {
+            if (rawPeriods == null) {
+                rawPeriods = new String[periods.length];
+            }
+            rawPeriods[row] = rawPeriod;
+        }
+        if (numbersCode == NUMBERS_IRREGULAR) {
+            if (this.rawNumbers == null) {
+                this.rawNumbers = new String[periods.length];
+            }
+            this.rawNumbers[row] = rawNumbers;
+        }
+    }
+
+    /**
+     * 按原文追加一行历史记录（用于jsoup解析结果和Map适配）
+     */
+    public void addRow(String periodText, String numbers, String predictionText, String outcomeText) {
+        int period;
+        try {
+            period = Integer.parseInt(periodText);
+        } catch (NumberFormatException e) {
+            period = PERIOD_INVALID;
+        }
+        int code = encodeNumbers(numbers, 0, numbers.length());
+        addRow(period, periodText, code, numbers, predictionCode(predictionText), outcomeCode(outcomeText));
+    }
+
+    /**
+     * 记录一项未开统计
+     */
+    public void putNotOpen(String id, String count) {
+        if (notOpen == null) {
+            notOpen = new LinkedHashMap<>();
+        }
+        notOpen.put(id, count);
+    }
+
+    public Map<String, String> getNotOpen() {
+        return notOpen == null ? Map.of() : notOpen;
+    }
+
+    public boolean hasError() {
+        return error != null;
+    }
+
+    public boolean hasValidPeriod(int row) {
+        return periods[row] != PERIOD_INVALID;
+    }
+
+    public int periodAt(int row) {
+        return periods[row];
+    }
+
+    public String periodTextAt(int row) {
+        return periods[row] == PERIOD_INVALID ? rawPeriods[row] : String.valueOf(periods[row]);
+    }
+
+    public int numbersCodeAt(int row) {
+        return numberCodes[row];
+    }
+
+    /**
+     * 号码是否为未开奖占位（"---" 或 "-"）
+     */
+    public boolean isPlaceholderAt(int row) {
+        int code = numberCodes[row];
+        return code == NUMBERS_PLACEHOLDER || (code == NUMBERS_IRREGULAR && "-".equals(rawNumbers[row]));
+    }
+
+    /**
+     * 页面顶部最新开奖信息中的期号（只取其中的数字）
+     *
+     * @return 期号，页面没有期号或格式错误时返回-1
+     */
+    public int headerPeriod() {
+        if (period == null) {
+            return -1;
+        }
+        int value = 0;
+        int digits = 0;
+        for (int i = 0; i < period.length(); i++) {
+            char c = period.charAt(i);
+            if (c >= '0' && c <= '9') {
+                if (++digits > 9) {
+                    return -1;
+                }
+                value = value * 10 + (c - '0');
+            }
+        }
+        return digits == 0 ? -1 : value;
+    }
+
+    /**
+     * 页面上的开奖倒计时
+     *
+     * @return 倒计时总秒数，页面没有倒计时或格式错误时返回-1
+     */
+    public int countdownTotalSeconds() {
+        if (countdownMinutes == null || countdownSeconds == null) {
+            return -1;
+        }
+        try {
+            int minutes = Integer.parseInt(countdownMinutes.trim());
+            int seconds = Integer.parseInt(countdownSeconds.trim());
+            return minutes < 0 || seconds < 0 ? -1 : minutes * 60 + seconds;
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 已开奖的最大期号，取页面顶部的最新开奖期号和历史记录中号码不是占位的期号中较大者
+     *
+     * @return 期号，没有已开奖的记录时返回-1
+     */
+    public int latestDrawnPeriod() {
+        int latest = headerPeriod();
+        for (int row = 0; row < rowCount; row++) {
+            if (periods[row] != PERIOD_INVALID && !isPlaceholderAt(row) && periods[row] > latest) {
+                latest = periods[row];
+            }
+        }
+        return latest;
+    }
+
+    /**
+     * 还原号码原文，例如 "1+1+8=10"
+     */
+    public String numbersAt(int row) {
+        int code = numberCodes[row];
+        if (code == NUMBERS_PLACEHOLDER) {
+            return "---";
+        }
+        if (code == NUMBERS_IRREGULAR) {
+            return rawNumbers[row];
+        }
+        return DrawCodeTable.text(code);
+    }
+
+    /**
+     * 号码总数，无法确定时返回-1
+     */
+    public int totalNumberAt(int row) {
+        int code = numberCodes[row];
+        if (code >= 0) {
+            return DrawCodeTable.sum(code);
+        }
+        if (code == NUMBERS_IRREGULAR) {
+            try {
+                return Integer.parseInt(NumberAnalysisUtil.extractTotalNumber(rawNumbers[row]));
+            } catch (NumberFormatException e) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    public byte predictionAt(int row) {
+        return predictions[row];
+    }
+
+    public String predictionTextAt(int row) {
+        return predictionText(predictions[row]);
+    }
+
+    public byte outcomeAt(int row) {
+        return outcomes[row];
+    }
+
+    public String outcomeTextAt(int row) {
+        return outcomeText(outcomes[row]);
+    }
+
+    /**
+     * 预测编码转换为文本（""、"单"、"双"）
+     */
+    public static String predictionText(byte prediction) {
+        return PREDICTION_TEXT[prediction];
+    }
+
+    /**
+     * 结果编码转换为文本（"---"、"中"、"错"）
+     */
+    public static String outcomeText(byte outcome) {
+        return OUTCOME_TEXT[outcome];
+    }
+
+    /**
+     * 预测文本转换为编码（包含"单"为单，否则包含"双"为双）
+     */
+    public static byte predictionCode(String prediction) {
+        if (prediction == null) {
+            return PREDICTION_NONE;
+        }
+        if (prediction.contains("单")) {
+            return PREDICTION_ODD;
+        }
+        return prediction.contains("双") ? PREDICTION_EVEN : PREDICTION_NONE;
+    }
+
+    /**
+     * 结果文本转换为编码（"中"、"错"，其余视为未开奖）
+     */
+    public static byte outcomeCode(String outcome) {
+        if ("中".equals(outcome)) {
+            return OUTCOME_HIT;
+        }
+        return "错".equals(outcome) ? OUTCOME_MISS : OUTCOME_PENDING;
+    }
+
+    /**
+     * 把 "a+b+c=s" 编码为 a*100+b*10+c（见 {@link DrawCodeTable#encode(CharSequence, int, int)}），不分配对象。
+     * "---" 返回占位编码，不标准的格式返回不规则编码
+     *
+     * @param text 文本
+     * @param from 起始位置（包含）
+     * @param to 结束位置（不包含）
+     * @return 号码编码
+     */
+    public static int encodeNumbers(CharSequence text, int from, int to) {
+        int length = to - from;
+        if (length == 3 && text.charAt(from) == '-' && text.charAt(from + 1) == '-' && text.charAt(from + 2) == '-') {
+            return NUMBERS_PLACEHOLDER;
+        }
+        int code = DrawCodeTable.encode(text, from, to);
+        return code == DrawCodeTable.INVALID ? NUMBERS_IRREGULAR : code;
+    }
+
+    /**
+     * 转换为旧的 history_i_* Map 格式（兼容适配，键和值类型与 SimpleHtmlParser 的jsoup路径一致）
+     */
+    public Map<String, Object> toMap() {
+        Map<String, Object> result = new HashMap<>();
+        if (server != null) {
+            result.put("server", server);
+        }
+        if (filePath != null) {
+            result.put("file_path", filePath);
+        }
+        if (error != null) {
+            result.put("error", error);
+            return result;
+        }
+        if (unchanged) {
+            result.put("unchanged", true);
+            return result;
+        }
+
+        if (period != null) {
+            result.put("period", period);
+        }
+        if (countdownMinutes != null && countdownSeconds != null) {
+            result.put("countdown_minutes", countdownMinutes);
+            result.put("countdown_seconds", countdownSeconds);
+            result.put("countdown", countdownMinutes + "分" + countdownSeconds + "秒");
+        }
+        if (drawNumbers != null) {
+            result.put("draw_numbers", drawNumbers);
+        }
+        if (drawResult != null) {
+            result.put("draw_result", drawResult);
+        }
+        if (notOpen != null) {
+            for (Map.Entry<String, String> entry : notOpen.entrySet()) {
+                result.put("not_open_" + entry.getKey(), entry.getValue());
+            }
+        }
+
+        if (!historyFound) {
+            return result;
+        }
+        for (int i = 0; i < rowCount; i++) {
+            result.put("history_" + i + "_period", hasValidPeriod(i) ? (Object) periods[i] : rawPeriods[i]);
+            result.put("history_" + i + "_numbers", numbersAt(i));
+            result.put("history_" + i + "_prediction", predictionTextAt(i));
+            int total = totalNumberAt(i);
+            result.put("history_" + i + "_total_number", total >= 0 ? (Object) total
+                    : NumberAnalysisUtil.extractTotalNumber(numbersAt(i)));
+            result.put("history_" + i + "_is_hit", outcomes[i] == OUTCOME_HIT);
+            result.put("history_" + i + "_outcome", outcomeTextAt(i));
+        }
+        result.put("history_count", rowCount);
+        if (rowsVisited >= 0) {
+            result.put("history_rows_visited", rowsVisited);
+        }
+        if (stoppedAt != null) {
+            result.put("history_stopped_at", stoppedAt);
+        }
+        return result;
+    }
+
+    /**
+     * 从旧的 history_i_* Map 格式转换（兼容适配）
+     *
+     * @param server 服务器前缀，为null时取Map中的server
+     * @param data 解析结果Map
+     * @return 列式解析结果
+     */
+    public static ParsedServerPage fromMap(String server, Map<String, Object> data) {
+        String serverPrefix = server != null ? server : (String) data.get("server");
+        Object countObj = data.get("history_count");
+        int historyCount = countObj instanceof Integer ? (Integer) countObj : 0;
+
+        ParsedServerPage page = new ParsedServerPage(serverPrefix, historyCount);
+        page.setFilePath((String) data.get("file_path"));
+        if (data.containsKey("error")) {
+            page.setError(String.valueOf(data.get("error")));
+        }
+        page.setUnchanged(data.containsKey("unchanged"));
+        page.setHistoryFound(countObj != null);
+        page.setPeriod((String) data.get("period"));
+        page.setCountdownMinutes((String) data.get("countdown_minutes"));
+        page.setCountdownSeconds((String) data.get("countdown_seconds"));
+        page.setDrawNumbers((String) data.get("draw_numbers"));
+        page.setDrawResult((String) data.get("draw_result"));
+        for (Map.Entry<String, Object> entry : data.entrySet()) {
+            if (entry.getKey().startsWith("not_open_")) {
+                page.putNotOpen(entry.getKey().substring("not_open_".length()), String.valueOf(entry.getValue()));
+            }
+        }
+        if (data.get("history_rows_visited") instanceof Integer visited) {
+            page.setRowsVisited(visited);
+        }
+        if (data.get("history_stopped_at") instanceof Integer stopped) {
+            page.setStoppedAt(stopped);
+        }
+
+        for (int i = 0; i < historyCount; i++) {
+            Object periodObj = data.get("history_" + i + "_period");
+            Object numbersObj = data.get("history_" + i + "_numbers");
+            if (periodObj == null || numbersObj == null) {
+                continue;
+            }
+            page.addRow(String.valueOf(periodObj), (String) numbersObj,
+                    (String) data.getOrDefault("history_" + i + "_prediction", ""),
+                    (String) data.getOrDefault("history_" + i + "_outcome", ""));
+        }
+        return page;
+    }
+}
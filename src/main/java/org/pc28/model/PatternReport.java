@@ -0,0 +1,82 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 模式检索结果：某个符号序列在历史上出现的次数，以及每次出现后下一期的符号分布
+ */
+@Data
+@Builder
+@Schema(description = "模式检索结果")
+public class PatternReport {
+
+    /**
+     * 服务器编号
+     */
+    @Schema(description = "服务器编号", example = "sf3")
+    private String server;
+
+    /**
+     * 符号表名称
+     */
+    @Schema(description = "符号表名称", example = "ODD_EVEN")
+    private String alphabet;
+
+    /**
+     * 按符号名称写出的模式
+     */
+    @Schema(description = "模式", example = "单双单单")
+    private String pattern;
+
+    /**
+     * 模式长度（符号个数）
+     */
+    @Schema(description = "模式长度", example = "4")
+    private int length;
+
+    /**
+     * 符号序列的总长度（已计入的期数）
+     */
+    @Schema(description = "符号序列的总长度", example = "150000")
+    private int sequenceLength;
+
+    /**
+     * 是否由k元组索引直接回答（模式长度不超过 pc28.patterns.max-length），否则为顺序扫描
+     */
+    @Schema(description = "是否由索引直接回答", example = "true")
+    private boolean indexed;
+
+    /**
+     * 模式出现的次数（可以重叠）
+     */
+    @Schema(description = "模式出现的次数", example = "9371")
+    private int occurrences;
+
+    /**
+     * 下一期可能的符号
+     */
+    @Schema(description = "下一期可能的符号", example = "[\"单\", \"双\"]")
+    private List<String> nextSymbols;
+
+    /**
+     * 模式出现后下一期为各符号的次数，最后一次出现在序列末尾时没有下一期，不计入
+     */
+    @Schema(description = "模式出现后下一期为各符号的次数", example = "[4702, 4668]")
+    private int[] nextCounts;
+
+    /**
+     * 模式出现后下一期为各符号的比例
+     */
+    @Schema(description = "模式出现后下一期为各符号的比例", example = "[0.5018, 0.4982]")
+    private double[] nextRates;
+
+    /**
+     * 最近几次出现时模式最后一期的期号，从新到旧排列
+     */
+    @Schema(description = "最近几次出现时模式最后一期的期号，从新到旧", example = "[3298077, 3298012]")
+    private int[] recentPeriods;
+}
@@ -0,0 +1,128 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 单个服务器在一段期号内的连胜连败和回撤统计
+ */
+@Data
+@Builder
+@Schema(description = "连胜连败和回撤统计")
+public class StreakReport {
+
+    /**
+     * 服务器编号
+     */
+    @Schema(description = "服务器编号", example = "sf1")
+    private String server;
+
+    /**
+     * 计算下注结果使用的杀规则集
+     */
+    @Schema(description = "杀规则集", example = "standard")
+    private String killRule;
+
+    /**
+     * 统计区间内的第一期，没有记录时为-1
+     */
+    @Schema(description = "统计区间内的第一期", example = "3297001")
+    private int fromPeriod;
+
+    /**
+     * 统计区间内的最后一期，没有记录时为-1
+     */
+    @Schema(description = "统计区间内的最后一期", example = "3298081")
+    private int toPeriod;
+
+    /**
+     * 期数
+     */
+    @Schema(description = "期数", example = "1081")
+    private int games;
+
+    /**
+     * 胜利期数（命中盈利和未命中盈利）
+     */
+    @Schema(description = "胜利期数", example = "600")
+    private int wins;
+
+    /**
+     * 未命中亏损期数
+     */
+    @Schema(description = "未命中亏损期数", example = "200")
+    private int missLosses;
+
+    /**
+     * 命中被杀期数
+     */
+    @Schema(description = "命中被杀期数", example = "281")
+    private int hitKilled;
+
+    /**
+     * 累计盈亏（每期1个单位，胜+1，负-1）
+     */
+    @Schema(description = "累计盈亏（单位）", example = "119")
+    private int net;
+
+    /**
+     * 最大回撤：累计盈亏从高点到其后低点的最大跌幅
+     */
+    @Schema(description = "最大回撤（单位）", example = "17")
+    private int maxDrawdown;
+
+    /**
+     * 当前回撤：区间结束时距累计盈亏最高点的差距
+     */
+    @Schema(description = "当前回撤（单位）", example = "3")
+    private int currentDrawdown;
+
+    /**
+     * 当前连胜期数
+     */
+    @Schema(description = "当前连胜期数", example = "0")
+    private int currentWinRun;
+
+    /**
+     * 最长连胜期数
+     */
+    @Schema(description = "最长连胜期数", example = "12")
+    private int maxWinRun;
+
+    /**
+     * 当前连败期数（未命中亏损或命中被杀）
+     */
+    @Schema(description = "当前连败期数", example = "2")
+    private int currentLosingRun;
+
+    /**
+     * 最长连败期数（未命中亏损或命中被杀）
+     */
+    @Schema(description = "最长连败期数", example = "8")
+    private int maxLosingRun;
+
+    /**
+     * 当前连续未命中亏损期数
+     */
+    @Schema(description = "当前连续未命中亏损期数", example = "1")
+    private int currentMissLossRun;
+
+    /**
+     * 最长连续未命中亏损期数
+     */
+    @Schema(description = "最长连续未命中亏损期数", example = "5")
+    private int maxMissLossRun;
+
+    /**
+     * 当前连续命中被杀期数
+     */
+    @Schema(description = "当前连续命中被杀期数", example = "1")
+    private int currentHitKilledRun;
+
+    /**
+     * 最长连续命中被杀期数
+     */
+    @Schema(description = "最长连续命中被杀期数", example = "4")
+    private int maxHitKilledRun;
+}
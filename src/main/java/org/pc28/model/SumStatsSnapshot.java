@@ -0,0 +1,98 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 单个服务器的总和分布和遗漏（未开）统计快照
+ */
+@Data
+@Builder
+@Schema(description = "总和分布和遗漏统计快照")
+public class SumStatsSnapshot {
+
+    /**
+     * 服务器编号
+     */
+    @Schema(description = "服务器编号", example = "sf1")
+    private String server;
+
+    /**
+     * 最后一期的期号，没有记录时为-1
+     */
+    @Schema(description = "最后一期的期号", example = "3298081")
+    private int lastPeriod;
+
+    /**
+     * 累计记录的期数
+     */
+    @Schema(description = "累计记录的期数", example = "15000")
+    private long recorded;
+
+    /**
+     * 场次范围（最近N期）
+     */
+    @Schema(description = "场次范围（最近N期）", example = "[100, 500, 1000]")
+    private int[] windows;
+
+    /**
+     * 各场次范围内实际的期数（记录不足N期时小于N）
+     */
+    @Schema(description = "各场次范围内实际的期数", example = "[100, 500, 1000]")
+    private int[] games;
+
+    /**
+     * sumCounts[w][s] 为第w个场次范围内总和为s（0-27）的期数
+     */
+    @Schema(description = "各场次范围内总和0-27的出现次数")
+    private int[][] sumCounts;
+
+    /**
+     * 大小单双分类名称，与 categoryCounts 和遗漏数组的第二维一一对应
+     */
+    @Schema(description = "分类名称", example = "[\"大\", \"小\", \"单\", \"双\", \"大单\", \"大双\", \"小单\", \"小双\"]")
+    private String[] categories;
+
+    /**
+     * categoryCounts[w][c] 为第w个场次范围内第c个分类的期数
+     */
+    @Schema(description = "各场次范围内大小单双分类的出现次数")
+    private int[][] categoryCounts;
+
+    /**
+     * 每个总和的当前遗漏期数（距上次开出的期数，从未开出时为累计期数）
+     */
+    @Schema(description = "总和0-27的当前遗漏期数")
+    private int[] sumOmissions;
+
+    /**
+     * 每个总和的历史最大遗漏期数
+     */
+    @Schema(description = "总和0-27的最大遗漏期数")
+    private int[] sumMaxOmissions;
+
+    /**
+     * 每个分类的当前遗漏期数
+     */
+    @Schema(description = "大小单双分类的当前遗漏期数", example = "[0, 1, 3, 0, 5, 0, 1, 3]")
+    private int[] categoryOmissions;
+
+    /**
+     * 每个分类的历史最大遗漏期数
+     */
+    @Schema(description = "大小单双分类的最大遗漏期数", example = "[9, 11, 10, 12, 21, 18, 17, 22]")
+    private int[] categoryMaxOmissions;
+
+    /**
+     * 各场次范围内总和分布相对三个数字均匀独立模型的卡方统计量（自由度27）
+     */
+    @Schema(description = "卡方统计量（自由度27）", example = "25.3")
+    private double[] chiSquare;
+
+    /**
+     * 卡方检验的p值，越小说明越偏离均匀模型；期数较少时期望频数过小，结果只作参考
+     */
+    @Schema(description = "卡方检验p值", example = "0.56")
+    private double[] chiSquarePValues;
+}
@@ -8,7 +8,7 @@ import lombok.Data;
  * 网页下载结果模型类
  */
 @Data
-@Builder
+@Builder(toBuilder = true)
 @Schema(description = "网页下载结果")
 public class WebDownloadResult {
     
@@ -42,6 +42,36 @@ public class WebDownloadResult {
     @Schema(description = "下载耗时（毫秒）", example = "1245")
     private long downloadTimeMillis;
     
+    /**
+     * 请求发出的时刻（毫秒时间戳），与下载耗时一起用于估计页面生成的时刻
+     */
+    @Schema(description = "请求发出的时刻（毫秒时间戳）", example = "1735689600000")
+    private long startedAtMillis;
+    
+    /**
+     * 服务器编号（并发下载时填充）
+     */
+    @Schema(description = "服务器编号", example = "sf1")
+    private String serverPrefix;
+    
+    /**
+     * 下载的URL（并发下载时填充）
+     */
+    @Schema(description = "下载的URL", example = "http://www.redtaotao.com/jnd28_sf1_msds.html")
+    private String url;
+    
+    /**
+     * 是否因超过本轮截止时间而被取消
+     */
+    @Schema(description = "是否因超过截止时间被取消", example = "false")
+    private boolean timedOut;
+    
+    /**
+     * 内容是否与上次下载相同（或服务器返回304），相同时不保存文件，也不需要解析和入库
+     */
+    @Schema(description = "内容是否与上次下载相同", example = "false")
+    private boolean unchanged;
+    
     /**
      * 创建成功结果
      * 
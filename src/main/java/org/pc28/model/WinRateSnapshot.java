@@ -0,0 +1,62 @@
+package org.pc28.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * 单个服务器最近N期胜率快照
+ */
+@Data
+@Builder
+@Schema(description = "最近N期胜率快照")
+public class WinRateSnapshot {
+
+    /**
+     * 服务器编号
+     */
+    @Schema(description = "服务器编号", example = "sf1")
+    private String server;
+
+    /**
+     * 计算胜率使用的杀规则集
+     */
+    @Schema(description = "杀规则集", example = "standard")
+    private String killRule;
+
+    /**
+     * 最后一期的期号，没有记录时为-1
+     */
+    @Schema(description = "最后一期的期号", example = "3298081")
+    private int lastPeriod;
+
+    /**
+     * 累计记录的期数
+     */
+    @Schema(description = "累计记录的期数", example = "1500")
+    private long recorded;
+
+    /**
+     * 场次范围（最近N期）
+     */
+    @Schema(description = "场次范围（最近N期）", example = "[10, 20, 30, 50, 100]")
+    private int[] windows;
+
+    /**
+     * 各场次范围内实际的期数（记录不足N期时小于N）
+     */
+    @Schema(description = "各场次范围内实际的期数", example = "[10, 20, 30, 50, 100]")
+    private int[] games;
+
+    /**
+     * 各场次范围内的胜利期数
+     */
+    @Schema(description = "各场次范围内的胜利期数", example = "[6, 11, 17, 29, 55]")
+    private int[] wins;
+
+    /**
+     * 各场次范围的胜率（0-1），没有记录时为0
+     */
+    @Schema(description = "各场次范围的胜率（0-1）", example = "[0.6, 0.55, 0.567, 0.58, 0.55]")
+    private double[] winRates;
+}
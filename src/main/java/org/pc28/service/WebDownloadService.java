@@ -1,7 +1,12 @@
 package org.pc28.service;
 
+import org.pc28.model.ConnectionPoolStats;
+import org.pc28.model.ContentChangeStats;
+import org.pc28.model.DownloadCycleReport;
 import org.pc28.model.WebDownloadResult;
 
+import java.util.List;
+
 /**
  * 网页下载服务接口
  */
@@ -38,4 +43,67 @@ public interface WebDownloadService {
      * @return 成功下载的URL数量
      */
     int downloadAllUrls();
+    
+    /**
+     * 执行一轮下载（并发或顺序，取决于配置），内容未变化的数据源不保存文件
+     *
+     * @return 本轮下载报告
+     */
+    DownloadCycleReport downloadCycle();
+    
+    /**
+     * 执行一轮内存模式下载，网页内容直接保留在结果中，文件按配置在后台异步写入
+     *
+     * @return 本轮下载报告
+     */
+    DownloadCycleReport downloadCycleInMemory();
+    
+    /**
+     * 下载单个数据源，内容未变化时不保存文件并标记为未变化
+     *
+     * @param urlIndex URL索引
+     * @param inMemory 是否为内存模式（网页内容保留在结果中，文件按配置在后台异步写入）
+     * @return 下载结果
+     */
+    WebDownloadResult downloadSource(int urlIndex, boolean inMemory);
+    
+    /**
+     * 使用虚拟线程并发下载所有配置的URL
+     *
+     * @return 本轮下载报告，包含各数据源的结果与耗时
+     */
+    DownloadCycleReport downloadAllUrlsConcurrently();
+    
+    /**
+     * 获取共享HTTP连接池的统计信息
+     *
+     * @return 连接池统计信息
+     */
+    ConnectionPoolStats getConnectionPoolStats();
+    
+    /**
+     * 获取各数据源的内容变化统计（包括跳过解析和入库的周期数）
+     *
+     * @return 统计列表
+     */
+    List<ContentChangeStats> getContentChangeStats();
+    
+    /**
+     * 清除所有数据源的内容校验信息，下一轮下载将强制解析和入库
+     */
+    void resetContentTracking();
+    
+    /**
+     * 清除单个数据源的内容校验信息，下一次下载该数据源时将强制解析和入库
+     *
+     * @param serverPrefix 服务器前缀
+     */
+    void resetContentTracking(String serverPrefix);
+    
+    /**
+     * 确认数据源最近一次有变化的内容已成功入库，之后相同内容的下载将跳过解析和入库
+     *
+     * @param serverPrefix 服务器前缀
+     */
+    void confirmContentSaved(String serverPrefix);
 }
\ No newline at end of file
@@ -0,0 +1,32 @@
+package org.pc28.service.analysis;
+
+/**
+ * 回测的下注方向，决定每期算作赢还是输
+ */
+public enum BacktestBetMode {
+
+    /**
+     * 按 BettingResultAnalyzer 的下注结果：命中盈利和未命中盈利为赢
+     */
+    RESULT("按下注结果"),
+
+    /**
+     * 跟网站预测下注：预测命中且没有杀为赢
+     */
+    FOLLOW("跟预测"),
+
+    /**
+     * 反网站预测下注：预测未命中且没有杀为赢
+     */
+    AGAINST("反预测");
+
+    private final String description;
+
+    BacktestBetMode(String description) {
+        this.description = description;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+}
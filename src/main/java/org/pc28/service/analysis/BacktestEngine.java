@@ -0,0 +1,422 @@
+package org.pc28.service.analysis;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.pc28.model.BacktestGrid;
+import org.pc28.model.BacktestReport;
+import org.pc28.model.BacktestResult;
+import org.pc28.model.DrawSeries;
+import org.pc28.model.ParsedServerPage;
+import org.pc28.service.db.DrawHistoryReader;
+import org.pc28.utils.BettingResultAnalyzer;
+import org.pc28.utils.KillRuleSet;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 注码策略网格回测
+ *
+ * 历史记录只读取一次，按下注方向预先算好每期的输赢（byte数组），
+ * 之后所有参数组合用 fork/join 并行在同一份数组上模拟，模拟过程不分配对象
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class BacktestEngine {
+
+    /**
+     * 单次回测允许的最大参数组合数量
+     */
+    public static final int MAX_COMBINATIONS = 100_000;
+
+    /**
+     * 倍投和斐波那契的最大步数
+     */
+    public static final int MAX_STEPS = 30;
+
+    /**
+     * 每个 fork/join 子任务直接模拟的参数组合数量
+     */
+    private static final int SPLIT_THRESHOLD = 8;
+
+    /**
+     * 斐波那契注码倍数：1, 1, 2, 3, 5...
+     */
+    private static final double[] FIBONACCI = new double[MAX_STEPS + 1];
+
+    /**
+     * 倍投注码倍数：1, 2, 4, 8...
+     */
+    private static final double[] MARTINGALE = new double[MAX_STEPS + 1];
+
+    private static final double[] FLAT = {1.0};
+
+    static {
+        for (int i = 0; i < MARTINGALE.length; i++) {
+            MARTINGALE[i] = 1L << i;
+        }
+        FIBONACCI[0] = 1;
+        FIBONACCI[1] = 1;
+        for (int i = 2; i < FIBONACCI.length; i++) {
+            FIBONACCI[i] = FIBONACCI[i - 1] + FIBONACCI[i - 2];
+        }
+    }
+
+    private final DrawHistoryReader historyReader;
+    private final KillRuleRegistry ruleRegistry;
+
+    /**
+     * 在服务器最近的历史记录上回测参数网格
+     *
+     * @param server 服务器前缀
+     * @param limit 读取的期数
+     * @param grid 参数网格
+     * @return 回测结果
+     * @throws IllegalArgumentException 参数无效或规则集不存在
+     */
+    public BacktestReport run(String server, int limit, BacktestGrid grid) {
+        KillRuleSet killRule = ruleRegistry.get(grid.getKillRule() == null ? KillRuleSet.STANDARD_NAME : grid.getKillRule());
+        List<Combination> combinations = combinations(grid);
+        return run(historyReader.loadRecent(server, limit), killRule, grid, combinations);
+    }
+
+    /**
+     * 在给定的开奖序列上回测参数网格
+     */
+    public static BacktestReport run(DrawSeries series, KillRuleSet killRule, BacktestGrid grid) {
+        return run(series, killRule, grid, combinations(grid));
+    }
+
+    private static BacktestReport run(DrawSeries series, KillRuleSet killRule, BacktestGrid grid,
+                                      List<Combination> combinations) {
+        long start = System.currentTimeMillis();
+        Outcomes outcomes = Outcomes.of(series, killRule);
+
+        BacktestResult[] results = new BacktestResult[combinations.size()];
+        ForkJoinPool.commonPool().invoke(new SimulationTask(outcomes, grid, combinations, results,
+                0, combinations.size()));
+
+        List<BacktestResult> sorted = new ArrayList<>(Arrays.asList(results));
+        sorted.sort(Comparator.comparingDouble(BacktestResult::getFinalProfit).reversed());
+
+        long elapsed = System.currentTimeMillis() - start;
+        log.info("服务器 {} 回测完成，{} 期 × {} 个参数组合，耗时 {} 毫秒",
+                series.getServer(), outcomes.size, combinations.size(), elapsed);
+        return BacktestReport.builder()
+                .server(series.getServer())
+                .killRule(killRule.getName())
+                .games(outcomes.size)
+                .fromPeriod(outcomes.size == 0 ? -1 : outcomes.periods[0])
+                .toPeriod(outcomes.size == 0 ? -1 : outcomes.periods[outcomes.size - 1])
+                .combinations(combinations.size())
+                .elapsedMillis(elapsed)
+                .results(sorted)
+                .build();
+    }
+
+    /**
+     * 展开参数网格，平注不使用步数上限，只生成一次
+     */
+    static List<Combination> combinations(BacktestGrid grid) {
+        requireNotEmpty(grid.getStrategies(), "注码策略");
+        requireNotEmpty(grid.getBetModes(), "下注方向");
+        if (grid.getBaseStakes() == null || grid.getBaseStakes().length == 0) {
+            throw new IllegalArgumentException("基础注码不能为空");
+        }
+        if (grid.getBankrolls() == null || grid.getBankrolls().length == 0) {
+            throw new IllegalArgumentException("初始本金不能为空");
+        }
+        if (grid.getPayout() <= 0) {
+            throw new IllegalArgumentException("赔率必须大于0");
+        }
+        if (grid.getSessionLength() <= 0) {
+            throw new IllegalArgumentException("每局期数必须大于0");
+        }
+        for (double stake : grid.getBaseStakes()) {
+            if (stake <= 0) {
+                throw new IllegalArgumentException("基础注码必须大于0: " + stake);
+            }
+        }
+        for (double bankroll : grid.getBankrolls()) {
+            if (bankroll <= 0) {
+                throw new IllegalArgumentException("初始本金必须大于0: " + bankroll);
+            }
+        }
+        int[] limits = grid.getLimits() == null ? new int[0] : grid.getLimits();
+        for (int limit : limits) {
+            if (limit < 1 || limit > MAX_STEPS) {
+                throw new IllegalArgumentException("步数上限必须在1-" + MAX_STEPS + "之间: " + limit);
+            }
+        }
+
+        List<Combination> combinations = new ArrayList<>();
+        for (BacktestStrategy strategy : grid.getStrategies()) {
+            int[] strategyLimits = strategy.usesLimit() ? limits : new int[]{0};
+            if (strategyLimits.length == 0) {
+                throw new IllegalArgumentException("策略 " + strategy + " 需要步数上限");
+            }
+            for (BacktestBetMode betMode : grid.getBetModes()) {
+                for (double stake : grid.getBaseStakes()) {
+                    for (int limit : strategyLimits) {
+                        for (double bankroll : grid.getBankrolls()) {
+                            combinations.add(new Combination(strategy, betMode, stake, limit, bankroll));
+                            if (combinations.size() > MAX_COMBINATIONS) {
+                                throw new IllegalArgumentException("参数组合超过 " + MAX_COMBINATIONS + " 个");
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return combinations;
+    }
+
+    private static void requireNotEmpty(List<?> values, String name) {
+        if (values == null || values.isEmpty()) {
+            throw new IllegalArgumentException(name + "不能为空");
+        }
+    }
+
+    /**
+     * 一个参数组合
+     */
+    record Combination(BacktestStrategy strategy, BacktestBetMode betMode, double baseStake, int limit,
+                       double bankroll) {
+    }
+
+    /**
+     * 可回测的记录（已开奖且有预测），按下注方向预先算好每期的输赢
+     */
+    static final class Outcomes {
+
+        final int size;
+        final int[] periods;
+
+        /**
+         * wins[betMode.ordinal()][i] 为1表示第i期赢
+         */
+        final byte[][] wins;
+
+        private Outcomes(int size, int[] periods, byte[][] wins) {
+            this.size = size;
+            this.periods = periods;
+            this.wins = wins;
+        }
+
+        static Outcomes of(DrawSeries series, KillRuleSet killRule) {
+            BacktestBetMode[] modes = BacktestBetMode.values();
+            int[] periods = new int[series.getSize()];
+            byte[][] wins = new byte[modes.length][series.getSize()];
+            int size = 0;
+
+            for (int i = 0; i < series.getSize(); i++) {
+                int code = series.codeAt(i);
+                byte prediction = series.predictionAt(i);
+                byte outcome = series.outcomeAt(i);
+                if (code < 0 || prediction == ParsedServerPage.PREDICTION_NONE
+                        || outcome == ParsedServerPage.OUTCOME_PENDING) {
+                    continue;
+                }
+
+                boolean kill = killRule.isKill(code);
+                boolean result = BettingResultAnalyzer.analyzeBettingResult(ParsedServerPage.predictionText(prediction),
+                        ParsedServerPage.outcomeText(outcome), kill).isWin();
+                periods[size] = series.periodAt(i);
+                wins[BacktestBetMode.RESULT.ordinal()][size] = (byte) (result ? 1 : 0);
+                wins[BacktestBetMode.FOLLOW.ordinal()][size] = (byte) (outcome == ParsedServerPage.OUTCOME_HIT && !kill ? 1 : 0);
+                wins[BacktestBetMode.AGAINST.ordinal()][size] = (byte) (outcome == ParsedServerPage.OUTCOME_MISS && !kill ? 1 : 0);
+                size++;
+            }
+            return new Outcomes(size, periods, wins);
+        }
+    }
+
+    /**
+     * 把参数组合按下标区间二分，区间足够小时直接模拟
+     */
+    private static final class SimulationTask extends RecursiveAction {
+
+        private final Outcomes outcomes;
+        private final BacktestGrid grid;
+        private final List<Combination> combinations;
+        private final BacktestResult[] results;
+        private final int from;
+        private final int to;
+
+        SimulationTask(Outcomes outcomes, BacktestGrid grid, List<Combination> combinations,
+                       BacktestResult[] results, int from, int to) {
+            this.outcomes = outcomes;
+            this.grid = grid;
+            this.combinations = combinations;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SPLIT_THRESHOLD) {
+                for (int i = from; i < to; i++) {
+                    results[i] = simulate(outcomes, combinations.get(i), grid);
+                }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SimulationTask(outcomes, grid, combinations, results, from, mid),
+                    new SimulationTask(outcomes, grid, combinations, results, mid, to));
+        }
+    }
+
+    /**
+     * 回测单个参数组合：全部历史跑一遍得到盈亏曲线、回撤和最高点，再按每局期数切分统计破产概率
+     */
+    static BacktestResult simulate(Outcomes outcomes, Combination combination, BacktestGrid grid) {
+        byte[] wins = outcomes.wins[combination.betMode().ordinal()];
+        int n = outcomes.size;
+        double[] curve = new double[Math.min(Math.max(grid.getCurvePoints(), 0), n)];
+
+        Session full = new Session();
+        full.run(wins, 0, n, combination, grid.getPayout(), curve);
+
+        int sessionLength = grid.getSessionLength();
+        int sessions = Math.max(1, n / sessionLength);
+        int ruinedSessions = 0;
+        if (n > 0) {
+            Session session = new Session();
+            for (int s = 0; s < sessions; s++) {
+                session.run(wins, s * sessionLength, Math.min(n, (s + 1) * sessionLength), combination,
+                        grid.getPayout(), null);
+                if (session.ruined) {
+                    ruinedSessions++;
+                }
+            }
+        }
+
+        return BacktestResult.builder()
+                .strategy(combination.strategy())
+                .betMode(combination.betMode())
+                .baseStake(combination.baseStake())
+                .limit(combination.limit())
+                .bankroll(combination.bankroll())
+                .finalProfit(full.bankroll - combination.bankroll())
+                .maxDrawdown(full.maxDrawdown)
+                .peakBankroll(full.peak)
+                .ruined(full.ruined)
+                .ruinProbability(n == 0 ? 0.0 : (double) ruinedSessions / sessions)
+                .bets(full.bets)
+                .wins(full.wins)
+                .curve(curve)
+                .build();
+    }
+
+    /**
+     * 每一步的注码倍数，平注和连输止损始终为第一步
+     */
+    private static double[] multipliers(BacktestStrategy strategy) {
+        return switch (strategy) {
+            case MARTINGALE -> MARTINGALE;
+            case FIBONACCI -> FIBONACCI;
+            default -> FLAT;
+        };
+    }
+
+    /**
+     * 一局模拟的状态，每次 run 都会重置，可以重复使用
+     */
+    static final class Session {
+
+        double bankroll;
+        double peak;
+        double maxDrawdown;
+        int bets;
+        int wins;
+        boolean ruined;
+
+        /**
+         * 模拟 [from, to) 区间的下注
+         *
+         * @param curve 盈亏曲线输出，为null时不采样
+         */
+        void run(byte[] results, int from, int to, Combination combination, double payout, double[] curve) {
+            BacktestStrategy strategy = combination.strategy();
+            boolean progressive = strategy == BacktestStrategy.MARTINGALE || strategy == BacktestStrategy.FIBONACCI;
+            boolean stopAfterLosses = strategy == BacktestStrategy.STOP_AFTER_LOSSES;
+            double[] multipliers = multipliers(strategy);
+            double baseStake = combination.baseStake();
+            double initial = combination.bankroll();
+            int limit = combination.limit();
+            int length = to - from;
+            int points = curve == null ? 0 : curve.length;
+            int point = 0;
+            long nextSample = points == 0 ? Long.MAX_VALUE : from + (long) length / points;
+
+            bankroll = initial;
+            peak = initial;
+            maxDrawdown = 0;
+            bets = 0;
+            wins = 0;
+            ruined = false;
+            int step = 0;
+            int losses = 0;
+            boolean paused = false;
+
+            for (int i = from; i < to; i++) {
+                boolean win = results[i] != 0;
+                if (paused) {
+                    // 连输止损后只观望，等到本应赢的一期再恢复下注
+                    if (win) {
+                        paused = false;
+                        losses = 0;
+                    }
+                } else {
+                    double stake = baseStake * multipliers[step];
+                    if (stake > bankroll) {
+                        ruined = true;
+                        break;
+                    }
+
+                    bets++;
+                    if (win) {
+                        wins++;
+                        bankroll += stake * payout;
+                        losses = 0;
+                        step = strategy == BacktestStrategy.FIBONACCI ? Math.max(0, step - 2) : 0;
+                    } else {
+                        bankroll -= stake;
+                        losses++;
+                        if (progressive) {
+                            // 超过步数上限后回到第一步
+                            step = step + 1 > limit ? 0 : step + 1;
+                        } else if (stopAfterLosses && losses >= limit) {
+                            paused = true;
+                        }
+                    }
+
+                    if (bankroll > peak) {
+                        peak = bankroll;
+                    } else if (peak - bankroll > maxDrawdown) {
+                        maxDrawdown = peak - bankroll;
+                    }
+                }
+
+                if (i + 1 >= nextSample) {
+                    while (point < points && i + 1 - from >= (long) (point + 1) * length / points) {
+                        curve[point++] = bankroll - initial;
+                    }
+                    nextSample = point < points ? from + (long) (point + 1) * length / points : Long.MAX_VALUE;
+                }
+            }
+
+            // 破产后曲线保持破产时的盈亏
+            while (point < points) {
+                curve[point++] = bankroll - initial;
+            }
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.pc28.service.analysis;
+
+/**
+ * 回测的注码策略
+ */
+public enum BacktestStrategy {
+
+    /**
+     * 平注：每期下注基础注码
+     */
+    FLAT("平注", false),
+
+    /**
+     * 倍投：输一期注码翻倍，赢后回到基础注码；连输超过步数上限后也回到基础注码
+     */
+    MARTINGALE("倍投", true),
+
+    /**
+     * 斐波那契：输一期前进一步（1,1,2,3,5...倍），赢一期后退两步；超过步数上限后回到第一步
+     */
+    FIBONACCI("斐波那契", true),
+
+    /**
+     * 连输止损：平注，连输N期后暂停下注，观望到下一期本应赢的结果后再恢复
+     */
+    STOP_AFTER_LOSSES("连输止损", true);
+
+    private final String description;
+    private final boolean usesLimit;
+
+    BacktestStrategy(String description, boolean usesLimit) {
+        this.description = description;
+        this.usesLimit = usesLimit;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    /**
+     * 是否使用步数上限参数（倍投和斐波那契为最大步数，连输止损为连输期数）
+     */
+    public boolean usesLimit() {
+        return usesLimit;
+    }
+}
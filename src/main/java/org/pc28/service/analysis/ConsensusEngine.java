@@ -0,0 +1,393 @@
+package org.pc28.service.analysis;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.pc28.model.ConsensusSnapshot;
+import org.pc28.model.CorrelationReport;
+import org.pc28.model.DrawSeries;
+import org.pc28.model.ParsedServerPage;
+import org.pc28.service.db.DrawHistoryReader;
+import org.pc28.service.db.DrawPersistedEvent;
+import org.pc28.utils.DrawCodeTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 跨服务器预测共识和命中相关性
+ *
+ * 最近 retention 期按期号对 retention 取模放入环形槽位，每个槽位保存各服务器的预测、结果和开奖号码，
+ * 各服务器的记录入库时按期号合并到同一个槽位。
+ * 两两服务器的命中相关性维护累计和（样本数、各自命中数、同时命中数）：
+ * 某个服务器一期的结果确定时加上它与其他服务器的贡献，槽位过期时减去，因此查询只需 O(服务器数²)
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ConsensusEngine {
+
+    /**
+     * 最多支持的服务器数量
+     */
+    public static final int MAX_SERVERS = 16;
+
+    private static final int EMPTY = Integer.MIN_VALUE;
+
+    private final DrawHistoryReader historyReader;
+
+    /**
+     * 保留的期数，共识和相关性都只统计最近这些期
+     */
+    @Value("${pc28.consensus.retention:1000}")
+    private int retention;
+
+    private final List<String> servers = new ArrayList<>();
+
+    private int[] slotPeriods;
+    private short[] slotCodes;
+    private byte[][] slotPredictions;
+    private byte[][] slotOutcomes;
+
+    /**
+     * 两两服务器的累计和，下标 [i][j] 中 i < j
+     */
+    private int[][] pairSamples;
+    private int[][] pairHitsFirst;
+    private int[][] pairHitsSecond;
+    private int[][] pairHitsBoth;
+
+    private int[] serverGames;
+    private int[] serverHits;
+
+    private int latestPeriod = EMPTY;
+
+    private final AtomicBoolean initialized = new AtomicBoolean(false);
+
+    @PostConstruct
+    public synchronized void reset() {
+        if (retention <= 0) {
+            throw new IllegalArgumentException("pc28.consensus.retention必须大于0: " + retention);
+        }
+        slotPeriods = new int[retention];
+        Arrays.fill(slotPeriods, EMPTY);
+        slotCodes = new short[retention];
+        Arrays.fill(slotCodes, DrawSeries.NO_CODE);
+        slotPredictions = new byte[retention][MAX_SERVERS];
+        slotOutcomes = new byte[retention][MAX_SERVERS];
+        pairSamples = new int[MAX_SERVERS][MAX_SERVERS];
+        pairHitsFirst = new int[MAX_SERVERS][MAX_SERVERS];
+        pairHitsSecond = new int[MAX_SERVERS][MAX_SERVERS];
+        pairHitsBoth = new int[MAX_SERVERS][MAX_SERVERS];
+        serverGames = new int[MAX_SERVERS];
+        serverHits = new int[MAX_SERVERS];
+        servers.clear();
+        latestPeriod = EMPTY;
+    }
+
+    /**
+     * 上下文刷新完成后从数据库加载各服务器最近的记录
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void onContextRefreshed() {
+        if (!initialized.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (DataAccessException e) {
+            log.warn("加载共识数据失败，将只统计之后入库的记录: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 保存事务提交后把新入库的记录合并到对应期号
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDrawPersisted(DrawPersistedEvent event) {
+        record(event.server(), event.draws());
+    }
+
+    /**
+     * 清空后从数据库重新加载各服务器最近 retention 期的记录
+     *
+     * @return 加载的记录数量
+     */
+    public synchronized int rebuild() {
+        reset();
+        int loaded = 0;
+        for (String server : historyReader.servers()) {
+            DrawSeries series = historyReader.loadRecent(server, retention);
+            record(server, series);
+            loaded += series.getSize();
+        }
+        log.info("共识数据加载完成，{} 个服务器共 {} 条记录", servers.size(), loaded);
+        return loaded;
+    }
+
+    /**
+     * 合并一个服务器的记录
+     */
+    public synchronized void record(String server, DrawSeries draws) {
+        for (int i = 0; i < draws.getSize(); i++) {
+            record(server, draws.periodAt(i), draws.codeAt(i), draws.predictionAt(i), draws.outcomeAt(i));
+        }
+    }
+
+    /**
+     * 合并一个服务器一期的记录
+     *
+     * @return 是否已合并（期号早于保留范围或服务器过多时返回false）
+     */
+    public synchronized boolean record(String server, int period, int code, byte prediction, byte outcome) {
+        int s = serverIndex(server);
+        if (s < 0) {
+            return false;
+        }
+        int slot = slotOf(period);
+        if (slot < 0) {
+            return false;
+        }
+
+        if (code >= 0) {
+            slotCodes[slot] = (short) code;
+        }
+        if (prediction != ParsedServerPage.PREDICTION_NONE) {
+            slotPredictions[slot][s] = prediction;
+        }
+        byte previous = slotOutcomes[slot][s];
+        if (outcome != ParsedServerPage.OUTCOME_PENDING && outcome != previous) {
+            if (previous != ParsedServerPage.OUTCOME_PENDING) {
+                addOutcome(slot, s, -1);
+            }
+            slotOutcomes[slot][s] = outcome;
+            addOutcome(slot, s, 1);
+        }
+        return true;
+    }
+
+    private int serverIndex(String server) {
+        int index = servers.indexOf(server);
+        if (index >= 0) {
+            return index;
+        }
+        if (servers.size() == MAX_SERVERS) {
+            log.warn("服务器数量超过 {}，忽略服务器 {} 的共识数据", MAX_SERVERS, server);
+            return -1;
+        }
+        servers.add(server);
+        return servers.size() - 1;
+    }
+
+    /**
+     * 期号对应的槽位，必要时推进最新期号并清空过期的槽位
+     *
+     * @return 槽位，期号早于保留范围时返回-1
+     */
+    private int slotOf(int period) {
+        if (latestPeriod != EMPTY && period <= latestPeriod - retention) {
+            return -1;
+        }
+        if (latestPeriod == EMPTY || period > latestPeriod) {
+            // 推进时清空落出保留范围的槽位，最多清空 retention 个
+            int from = latestPeriod == EMPTY ? period : Math.max(latestPeriod + 1, period - retention + 1);
+            for (int p = from; p <= period; p++) {
+                int slot = Math.floorMod(p, retention);
+                if (slotPeriods[slot] != EMPTY) {
+                    evict(slot);
+                }
+            }
+            latestPeriod = period;
+        }
+
+        int slot = Math.floorMod(period, retention);
+        if (slotPeriods[slot] != period) {
+            if (slotPeriods[slot] != EMPTY) {
+                evict(slot);
+            }
+            slotPeriods[slot] = period;
+        }
+        return slot;
+    }
+
+    private void evict(int slot) {
+        for (int s = 0; s < servers.size(); s++) {
+            if (slotOutcomes[slot][s] != ParsedServerPage.OUTCOME_PENDING) {
+                addOutcome(slot, s, -1);
+                slotOutcomes[slot][s] = ParsedServerPage.OUTCOME_PENDING;
+            }
+        }
+        Arrays.fill(slotPredictions[slot], ParsedServerPage.PREDICTION_NONE);
+        slotCodes[slot] = DrawSeries.NO_CODE;
+        slotPeriods[slot] = EMPTY;
+    }
+
+    /**
+     * 加上（delta=1）或减去（delta=-1）服务器 s 在槽位中的结果对各项累计和的贡献
+     */
+    private void addOutcome(int slot, int s, int delta) {
+        byte[] outcomes = slotOutcomes[slot];
+        int hit = outcomes[s] == ParsedServerPage.OUTCOME_HIT ? 1 : 0;
+        serverGames[s] += delta;
+        serverHits[s] += delta * hit;
+
+        for (int t = 0; t < servers.size(); t++) {
+            if (t == s || outcomes[t] == ParsedServerPage.OUTCOME_PENDING) {
+                continue;
+            }
+            int other = outcomes[t] == ParsedServerPage.OUTCOME_HIT ? 1 : 0;
+            int i = Math.min(s, t);
+            int j = Math.max(s, t);
+            pairSamples[i][j] += delta;
+            pairHitsFirst[i][j] += delta * (s == i ? hit : other);
+            pairHitsSecond[i][j] += delta * (s == j ? hit : other);
+            pairHitsBoth[i][j] += delta * hit * other;
+        }
+    }
+
+    /**
+     * 指定期号的共识
+     *
+     * @return 共识，期号不在保留范围内时返回null
+     */
+    public synchronized ConsensusSnapshot consensus(int period) {
+        if (latestPeriod == EMPTY || period <= latestPeriod - retention || period > latestPeriod) {
+            return null;
+        }
+        int slot = Math.floorMod(period, retention);
+        return slotPeriods[slot] == period ? snapshotOf(slot) : null;
+    }
+
+    /**
+     * 最近若干期的共识，从新到旧排列
+     *
+     * @param limit 最多返回的期数
+     */
+    public synchronized List<ConsensusSnapshot> recent(int limit) {
+        List<ConsensusSnapshot> snapshots = new ArrayList<>(Math.min(limit, retention));
+        if (latestPeriod == EMPTY) {
+            return snapshots;
+        }
+        for (int period = latestPeriod; period > latestPeriod - retention && snapshots.size() < limit; period--) {
+            int slot = Math.floorMod(period, retention);
+            if (slotPeriods[slot] == period) {
+                snapshots.add(snapshotOf(slot));
+            }
+        }
+        return snapshots;
+    }
+
+    private ConsensusSnapshot snapshotOf(int slot) {
+        Map<String, String> predictions = new LinkedHashMap<>();
+        int odd = 0;
+        int even = 0;
+        for (int s = 0; s < servers.size(); s++) {
+            byte prediction = slotPredictions[slot][s];
+            if (prediction == ParsedServerPage.PREDICTION_ODD) {
+                odd++;
+            } else if (prediction == ParsedServerPage.PREDICTION_EVEN) {
+                even++;
+            } else {
+                continue;
+            }
+            predictions.put(servers.get(s), ParsedServerPage.predictionText(prediction));
+        }
+
+        String majority = odd > even ? "单" : even > odd ? "双" : odd == 0 ? "" : "平";
+        int code = slotCodes[slot];
+        String actual = code >= 0 ? DrawCodeTable.oddEven(code) : null;
+        Boolean majorityHit = actual == null || odd == even ? null : actual.equals(majority);
+
+        return ConsensusSnapshot.builder()
+                .period(slotPeriods[slot])
+                .predictions(predictions)
+                .oddVotes(odd)
+                .evenVotes(even)
+                .majority(majority)
+                .agreement(odd + even == 0 ? 0.0 : (double) Math.max(odd, even) / (odd + even))
+                .numbers(code >= 0 ? DrawCodeTable.text(code) : null)
+                .actual(actual)
+                .majorityHit(majorityHit)
+                .build();
+    }
+
+    /**
+     * 保留范围内各服务器命中序列的两两相关性
+     */
+    public synchronized CorrelationReport correlation() {
+        int n = servers.size();
+        int[][] samples = new int[n][n];
+        Double[][] correlation = new Double[n][n];
+        double[] hitRates = new double[n];
+
+        for (int i = 0; i < n; i++) {
+            hitRates[i] = serverGames[i] == 0 ? 0.0 : (double) serverHits[i] / serverGames[i];
+            samples[i][i] = serverGames[i];
+            correlation[i][i] = serverGames[i] == 0 ? null : 1.0;
+            for (int j = i + 1; j < n; j++) {
+                samples[i][j] = samples[j][i] = pairSamples[i][j];
+                correlation[i][j] = correlation[j][i] = phi(pairSamples[i][j], pairHitsFirst[i][j],
+                        pairHitsSecond[i][j], pairHitsBoth[i][j]);
+            }
+        }
+
+        int majorityGames = 0;
+        int majorityHits = 0;
+        int fromPeriod = -1;
+        for (int slot = 0; slot < retention; slot++) {
+            if (slotPeriods[slot] == EMPTY) {
+                continue;
+            }
+            fromPeriod = fromPeriod < 0 ? slotPeriods[slot] : Math.min(fromPeriod, slotPeriods[slot]);
+            ConsensusSnapshot snapshot = snapshotOf(slot);
+            if (snapshot.getMajorityHit() != null) {
+                majorityGames++;
+                majorityHits += snapshot.getMajorityHit() ? 1 : 0;
+            }
+        }
+
+        return CorrelationReport.builder()
+                .servers(List.copyOf(servers))
+                .retention(retention)
+                .fromPeriod(fromPeriod)
+                .toPeriod(latestPeriod == EMPTY ? -1 : latestPeriod)
+                .samples(samples)
+                .correlation(correlation)
+                .hitRates(hitRates)
+                .majorityGames(majorityGames)
+                .majorityHitRate(majorityGames == 0 ? 0.0 : (double) majorityHits / majorityGames)
+                .build();
+    }
+
+    /**
+     * 两个0/1序列的phi系数
+     *
+     * @return 相关系数，样本少于2或任一序列不变时返回null
+     */
+    static Double phi(int samples, int hitsFirst, int hitsSecond, int hitsBoth) {
+        if (samples < 2) {
+            return null;
+        }
+        double n = samples;
+        double varianceFirst = n * hitsFirst - (double) hitsFirst * hitsFirst;
+        double varianceSecond = n * hitsSecond - (double) hitsSecond * hitsSecond;
+        if (varianceFirst <= 0 || varianceSecond <= 0) {
+            return null;
+        }
+        return (n * hitsBoth - (double) hitsFirst * hitsSecond) / Math.sqrt(varianceFirst * varianceSecond);
+    }
+
+    public int getRetention() {
+        return retention;
+    }
+}
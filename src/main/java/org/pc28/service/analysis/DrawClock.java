@@ -0,0 +1,181 @@
+package org.pc28.service.analysis;
+
+import lombok.extern.slf4j.Slf4j;
+import org.pc28.model.DrawClockSnapshot;
+import org.pc28.model.DrawSeries;
+import org.pc28.model.ParsedServerPage;
+import org.pc28.service.db.DrawPersistedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 各服务器的开奖时钟
+ *
+ * 从每次解析到的倒计时得到观测：请求发出到收到响应的中点作为页面生成时刻，加上倒计时和半秒（倒计时只显示整秒），
+ * 即为下一期在本机时钟下的开奖时刻。观测交给 {@link DrawClockModel} 拟合，
+ * 采集调度按模型预测的绝对时刻触发，统计分析也可以用它把任意期号换算为开奖时刻
+ */
+@Component
+@Slf4j
+public class DrawClock {
+
+    /**
+     * 每期的间隔（秒），观测不足时使用
+     */
+    @Value("${pc28.clock.period-seconds:210}")
+    private int periodSeconds;
+
+    /**
+     * 参与拟合的最近观测数量
+     */
+    @Value("${pc28.clock.samples:256}")
+    private int samples;
+
+    /**
+     * 观测偏离预测超过多少毫秒算作异常，连续异常时重新拟合
+     */
+    @Value("${pc28.clock.reset-threshold-millis:20000}")
+    private long resetThresholdMillis;
+
+    private final Map<String, DrawClockModel> models = new ConcurrentHashMap<>();
+
+    /**
+     * 记录新入库的已开奖期号
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDrawPersisted(DrawPersistedEvent event) {
+        DrawSeries draws = event.draws();
+        for (int i = draws.getSize() - 1; i >= 0; i--) {
+            if (draws.hasCode(i)) {
+                modelOf(event.server()).drawn(draws.periodAt(i));
+                return;
+            }
+        }
+    }
+
+    /**
+     * 用一次解析结果更新服务器的时钟
+     *
+     * @param server 服务器前缀
+     * @param page 解析结果
+     * @param sampledAtMillis 页面生成的时刻（本机时钟，一般取请求发出到收到响应的中点）
+     * @return 是否得到了有效的观测
+     */
+    public boolean observe(String server, ParsedServerPage page, long sampledAtMillis) {
+        DrawClockModel model = modelOf(server);
+        model.drawn(page.latestDrawnPeriod());
+
+        // 倒计时为0时可能正在开奖，开奖时刻无法确定
+        int countdown = page.countdownTotalSeconds();
+        int period = model.nextPeriod();
+        if (countdown <= 0 || period < 0) {
+            return false;
+        }
+        long drawAt = sampledAtMillis + countdown * 1000L + 500;
+        if (!model.observe(period, drawAt)) {
+            log.debug("服务器 {} 第 {} 期的倒计时观测偏离模型超过 {} 毫秒，暂不采用", server, period, resetThresholdMillis);
+        }
+        return true;
+    }
+
+    /**
+     * 预测期号的开奖时刻
+     *
+     * @param server 服务器前缀
+     * @param period 期号
+     * @return 开奖时刻，模型还没有观测时返回null
+     */
+    public Instant predict(String server, int period) {
+        DrawClockModel model = models.get(server);
+        if (model == null) {
+            return null;
+        }
+        long millis = model.predict(period);
+        return millis == Long.MIN_VALUE ? null : Instant.ofEpochMilli(millis);
+    }
+
+    /**
+     * 预测下一期的开奖时刻
+     *
+     * @param server 服务器前缀
+     * @return 开奖时刻，不知道下一期期号或模型还没有观测时返回null
+     */
+    public Instant nextDraw(String server) {
+        DrawClockModel model = models.get(server);
+        if (model == null || model.nextPeriod() < 0) {
+            return null;
+        }
+        return predict(server, model.nextPeriod());
+    }
+
+    /**
+     * 预测晚于给定时刻的最近一次开奖时刻
+     *
+     * @param server 服务器前缀
+     * @param instant 时刻
+     * @return 开奖时刻，模型还没有观测时返回null
+     */
+    public Instant nextDrawAfter(String server, Instant instant) {
+        DrawClockModel model = models.get(server);
+        if (model == null) {
+            return null;
+        }
+        long millis = model.nextDrawAfter(instant.toEpochMilli());
+        return millis == Long.MIN_VALUE ? null : Instant.ofEpochMilli(millis);
+    }
+
+    /**
+     * 获取服务器时钟模型的快照
+     *
+     * @param server 服务器前缀
+     * @param period 查询的期号，为null时取下一期
+     * @return 快照
+     * @throws IllegalArgumentException 服务器没有时钟数据
+     */
+    public DrawClockSnapshot snapshot(String server, Integer period) {
+        DrawClockModel model = models.get(server);
+        if (model == null) {
+            throw new IllegalArgumentException("服务器 " + server + " 没有开奖时钟数据");
+        }
+        int target = period != null ? period : model.nextPeriod();
+        long drawAt = target < 0 ? Long.MIN_VALUE : model.predict(target);
+        boolean known = drawAt != Long.MIN_VALUE;
+        return DrawClockSnapshot.builder()
+                .server(server)
+                .lastDrawnPeriod(model.getLastDrawnPeriod())
+                .samples(model.getSamples())
+                .observations(model.getObservations())
+                .resets(model.getResets())
+                .intervalMillis(model.getIntervalMillis())
+                .rmsResidualMillis(model.getRmsResidualMillis())
+                .period(target)
+                .drawAt(known ? LocalDateTime.ofInstant(Instant.ofEpochMilli(drawAt), ZoneId.systemDefault()) : null)
+                .drawAtMillis(known ? drawAt : -1)
+                .build();
+    }
+
+    /**
+     * 获取所有服务器时钟模型的快照（查询下一期）
+     *
+     * @return 按服务器前缀排序的快照
+     */
+    public List<DrawClockSnapshot> snapshots() {
+        return models.keySet().stream()
+                .sorted()
+                .map(server -> snapshot(server, null))
+                .toList();
+    }
+
+    private DrawClockModel modelOf(String server) {
+        return models.computeIfAbsent(server, key ->
+                new DrawClockModel(samples, periodSeconds * 1000L, resetThresholdMillis));
+    }
+}
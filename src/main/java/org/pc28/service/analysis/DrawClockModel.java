@@ -0,0 +1,215 @@
+package org.pc28.service.analysis;
+
+/**
+ * 单个服务器的开奖时钟模型：期号到开奖时刻的线性映射
+ *
+ * 每次看到倒计时得到一个观测（下一期期号, 本机时钟下的开奖时刻），在最近 capacity 个观测上做最小二乘拟合
+ * 开奖时刻 = 截距 + 斜率 × 期号，斜率即每期的间隔。单个观测的误差（倒计时只精确到秒、请求延迟）在拟合中被平均掉。
+ * 连续 {@link #OUTLIER_RUN} 个观测都偏离预测超过 resetThresholdMillis 时认为开奖时间表发生了变化（例如维护暂停），
+ * 丢弃旧观测只用新观测重新拟合，保留原来的间隔
+ */
+public class DrawClockModel {
+
+    /**
+     * 连续多少个偏离的观测后重新拟合
+     */
+    static final int OUTLIER_RUN = 2;
+
+    private final int[] periods;
+    private final long[] instants;
+    private final long resetThresholdMillis;
+
+    private int head;
+    private int count;
+
+    private final int[] pendingPeriods = new int[OUTLIER_RUN];
+    private final long[] pendingInstants = new long[OUTLIER_RUN];
+    private int pendingCount;
+
+    /**
+     * 每期的间隔（毫秒）
+     */
+    private double intervalMillis;
+
+    private final double defaultIntervalMillis;
+
+    /**
+     * 拟合的参考点：观测期号和开奖时刻的平均值
+     */
+    private double meanPeriod;
+    private double meanInstant;
+
+    private double rmsResidualMillis;
+
+    private long observations;
+    private int resets;
+
+    private int lastDrawnPeriod = -1;
+
+    /**
+     * @param capacity 参与拟合的最近观测数量
+     * @param defaultIntervalMillis 观测不足时使用的每期间隔（毫秒）
+     * @param resetThresholdMillis 观测偏离预测多少毫秒算作异常
+     */
+    public DrawClockModel(int capacity, long defaultIntervalMillis, long resetThresholdMillis) {
+        if (capacity < OUTLIER_RUN || defaultIntervalMillis <= 0 || resetThresholdMillis <= 0) {
+            throw new IllegalArgumentException("开奖时钟参数无效");
+        }
+        this.periods = new int[capacity];
+        this.instants = new long[capacity];
+        this.defaultIntervalMillis = defaultIntervalMillis;
+        this.intervalMillis = defaultIntervalMillis;
+        this.resetThresholdMillis = resetThresholdMillis;
+    }
+
+    /**
+     * 记录已开奖的期号
+     */
+    public synchronized void drawn(int period) {
+        if (period > lastDrawnPeriod) {
+            lastDrawnPeriod = period;
+        }
+    }
+
+    /**
+     * 加入一个观测
+     *
+     * @param period 期号
+     * @param drawAtMillis 本机时钟下观测到的开奖时刻（毫秒）
+     * @return 是否参与了拟合，暂时判为异常的观测返回false
+     */
+    public synchronized boolean observe(int period, long drawAtMillis) {
+        observations++;
+        if (count > 0 && Math.abs(drawAtMillis - predict(period)) > resetThresholdMillis) {
+            pendingPeriods[pendingCount] = period;
+            pendingInstants[pendingCount] = drawAtMillis;
+            if (++pendingCount < OUTLIER_RUN) {
+                return false;
+            }
+            // 开奖时间表发生变化，只保留这几个新观测
+            count = 0;
+            head = 0;
+            resets++;
+            for (int i = 0; i < pendingCount; i++) {
+                add(pendingPeriods[i], pendingInstants[i]);
+            }
+        } else {
+            add(period, drawAtMillis);
+        }
+        pendingCount = 0;
+        fit();
+        return true;
+    }
+
+    private void add(int period, long drawAtMillis) {
+        periods[head] = period;
+        instants[head] = drawAtMillis;
+        head = (head + 1) % periods.length;
+        if (count < periods.length) {
+            count++;
+        }
+    }
+
+    private void fit() {
+        // 以第一个观测为原点，避免毫秒时间戳相乘损失精度
+        int start = (head - count + periods.length) % periods.length;
+        int basePeriod = periods[start];
+        long baseInstant = instants[start];
+
+        double sumP = 0;
+        double sumT = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = (start + i) % periods.length;
+            sumP += periods[slot] - basePeriod;
+            sumT += instants[slot] - baseInstant;
+        }
+        double meanP = sumP / count;
+        double meanT = sumT / count;
+
+        double covariance = 0;
+        double variance = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = (start + i) % periods.length;
+            double dp = periods[slot] - basePeriod - meanP;
+            covariance += dp * (instants[slot] - baseInstant - meanT);
+            variance += dp * dp;
+        }
+        // 观测都在同一期或斜率明显不合理时沿用原来的间隔，只更新截距
+        if (variance > 0) {
+            double slope = covariance / variance;
+            if (slope >= defaultIntervalMillis / 2 && slope <= defaultIntervalMillis * 2) {
+                intervalMillis = slope;
+            }
+        }
+        meanPeriod = basePeriod + meanP;
+        meanInstant = baseInstant + meanT;
+
+        double squares = 0;
+        for (int i = 0; i < count; i++) {
+            int slot = (start + i) % periods.length;
+            double residual = instants[slot] - predict(periods[slot]);
+            squares += residual * residual;
+        }
+        rmsResidualMillis = Math.sqrt(squares / count);
+    }
+
+    /**
+     * 预测期号的开奖时刻
+     *
+     * @param period 期号
+     * @return 本机时钟下的开奖时刻（毫秒），还没有观测时返回 {@link Long#MIN_VALUE}
+     */
+    public synchronized long predict(int period) {
+        if (count == 0) {
+            return Long.MIN_VALUE;
+        }
+        return Math.round(meanInstant + (period - meanPeriod) * intervalMillis);
+    }
+
+    /**
+     * 晚于给定时刻的最近一次开奖时刻，不依赖已开奖期号
+     *
+     * @param millis 本机时钟下的时刻（毫秒）
+     * @return 开奖时刻（毫秒），还没有观测时返回 {@link Long#MIN_VALUE}
+     */
+    public synchronized long nextDrawAfter(long millis) {
+        if (count == 0) {
+            return Long.MIN_VALUE;
+        }
+        // 满足 predict(period) > millis 的最小期号
+        double period = Math.floor(meanPeriod + (millis - meanInstant) / intervalMillis) + 1;
+        long drawAt = Math.round(meanInstant + (period - meanPeriod) * intervalMillis);
+        return drawAt > millis ? drawAt : Math.round(meanInstant + (period + 1 - meanPeriod) * intervalMillis);
+    }
+
+    /**
+     * 下一期（最后一个已开奖期号之后）的期号，不知道已开奖期号时返回-1
+     */
+    public synchronized int nextPeriod() {
+        return lastDrawnPeriod < 0 ? -1 : lastDrawnPeriod + 1;
+    }
+
+    public synchronized int getLastDrawnPeriod() {
+        return lastDrawnPeriod;
+    }
+
+    public synchronized int getSamples() {
+        return count;
+    }
+
+    public synchronized long getObservations() {
+        return observations;
+    }
+
+    public synchronized int getResets() {
+        return resets;
+    }
+
+    public synchronized double getIntervalMillis() {
+        return intervalMillis;
+    }
+
+    public synchronized double getRmsResidualMillis() {
+        return rmsResidualMillis;
+    }
+}
@@ -0,0 +1,93 @@
+package org.pc28.service.analysis;
+
+import org.pc28.model.PatternReport;
+import org.pc28.model.StreakReport;
+import org.pc28.model.SumStatsSnapshot;
+import org.pc28.model.WinRateSnapshot;
+
+import java.util.List;
+
+/**
+ * 开奖统计服务接口
+ * 统计数据在记录入库时增量更新，查询不访问数据库
+ */
+public interface DrawStatsService {
+
+    /**
+     * 获取服务器最近N期的胜率
+     *
+     * @param server 服务器前缀
+     * @return 胜率快照
+     * @throws IllegalArgumentException 服务器没有统计数据
+     */
+    WinRateSnapshot getWinRates(String server);
+
+    /**
+     * 获取所有服务器最近N期的胜率
+     *
+     * @return 按服务器前缀排序的胜率快照
+     */
+    List<WinRateSnapshot> getAllWinRates();
+
+    /**
+     * 获取服务器全部历史的连胜连败和回撤统计
+     *
+     * @param server 服务器前缀
+     * @return 统计结果，当前连胜连败为到最后一期为止的值
+     * @throws IllegalArgumentException 服务器没有统计数据
+     */
+    StreakReport getStreaks(String server);
+
+    /**
+     * 获取服务器期号区间内的连胜连败和回撤统计
+     *
+     * @param server 服务器前缀
+     * @param fromPeriod 起始期号（包含）
+     * @param toPeriod 结束期号（包含）
+     * @return 统计结果，当前连胜连败为到区间最后一期为止的值
+     * @throws IllegalArgumentException 服务器没有统计数据或区间无效
+     */
+    StreakReport getStreaks(String server, int fromPeriod, int toPeriod);
+
+    /**
+     * 获取所有服务器全部历史的连胜连败和回撤统计
+     *
+     * @return 按服务器前缀排序的统计结果
+     */
+    List<StreakReport> getAllStreaks();
+
+    /**
+     * 获取服务器的总和分布、大小单双和遗漏（未开）统计
+     *
+     * @param server 服务器前缀
+     * @return 统计快照
+     * @throws IllegalArgumentException 服务器没有统计数据
+     */
+    SumStatsSnapshot getSumStats(String server);
+
+    /**
+     * 获取所有服务器的总和分布、大小单双和遗漏（未开）统计
+     *
+     * @return 按服务器前缀排序的统计快照
+     */
+    List<SumStatsSnapshot> getAllSumStats();
+
+    /**
+     * 检索符号序列在服务器历史上的出现次数和下一期的符号分布
+     *
+     * @param server 服务器前缀
+     * @param alphabet 符号表
+     * @param pattern 模式文本，例如"单双单单"或"命中盈利,未命中亏损"
+     * @param limit 最多返回的最近出现期号数量
+     * @return 检索结果
+     * @throws IllegalArgumentException 服务器没有统计数据或模式无法解析
+     */
+    PatternReport findPattern(String server, PatternAlphabet alphabet, String pattern, int limit);
+
+    /**
+     * 从数据库重新加载所有统计数据
+     *
+     * @return 加载的记录数量
+     */
+    int rebuild();
+}
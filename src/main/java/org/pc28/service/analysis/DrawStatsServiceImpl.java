@@ -0,0 +1,297 @@
+package org.pc28.service.analysis;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.pc28.model.DrawSeries;
+import org.pc28.model.ParsedServerPage;
+import org.pc28.model.PatternReport;
+import org.pc28.model.StreakReport;
+import org.pc28.model.SumStatsSnapshot;
+import org.pc28.model.WinRateSnapshot;
+import org.pc28.service.db.DrawHistoryReader;
+import org.pc28.service.db.DrawPersistedEvent;
+import org.pc28.utils.BettingResultAnalyzer;
+import org.pc28.utils.BettingResultAnalyzer.BettingResult;
+import org.pc28.utils.KillRuleSet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 开奖统计服务实现
+ * 启动时流式读取一次全部历史记录，之后只消费入库事件增量更新
+ */
+@Service
+@Slf4j
+@RequiredArgsConstructor
+public class DrawStatsServiceImpl implements DrawStatsService {
+
+    private final DrawHistoryReader historyReader;
+    private final KillRuleRegistry killRuleRegistry;
+
+    /**
+     * 胜率的场次范围（最近N期）
+     */
+    @Value("${pc28.stats.win-rate-windows:10,20,30,50,100}")
+    private int[] winRateWindows;
+
+    /**
+     * 计算下注结果使用的杀规则集
+     */
+    @Value("${pc28.stats.kill-rule:standard}")
+    private String killRuleName;
+
+    /**
+     * 总和分布和遗漏的场次范围（最近N期）
+     */
+    @Value("${pc28.stats.sum-windows:100,500,1000}")
+    private int[] sumWindows;
+
+    /**
+     * 模式索引的最大模式长度，更长的模式按顺序扫描回答
+     */
+    @Value("${pc28.patterns.max-length:12}")
+    private int patternMaxLength;
+
+    /**
+     * 各服务器的统计数据
+     */
+    private final Map<String, ServerStats> serverStats = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean initialized = new AtomicBoolean(false);
+
+    /**
+     * 保护增量统计和重建状态的锁，重建期间只短暂持有，不阻塞入库线程
+     */
+    private final Object eventLock = new Object();
+
+    /**
+     * 是否正在重建统计数据
+     */
+    private boolean rebuilding;
+
+    /**
+     * 重建期间收到的入库事件，重建完成后按顺序补记
+     */
+    private final List<DrawPersistedEvent> pendingEvents = new ArrayList<>();
+
+    /**
+     * 单个服务器的各项增量统计
+     */
+    private record ServerStats(WinRateTracker winRates, StreakIndex streaks, SumStatsTracker sums,
+                               PatternIndex[] patterns) {
+    }
+
+    /**
+     * 上下文刷新完成后从数据库加载统计数据
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void onContextRefreshed() {
+        if (!initialized.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (DataAccessException e) {
+            log.warn("加载统计数据失败，将只统计之后入库的记录: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 保存事务提交后把新入库的已开奖记录计入统计
+     * 重建期间先缓存事件：直接计入会把统计的最新期号推到前面，之后流式读到的较早记录会被当作重复丢弃
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onDrawPersisted(DrawPersistedEvent event) {
+        synchronized (eventLock) {
+            if (rebuilding) {
+                pendingEvents.add(event);
+                return;
+            }
+            record(event.server(), event.draws());
+        }
+    }
+
+    @Override
+    public synchronized int rebuild() {
+        long start = System.currentTimeMillis();
+        KillRuleSet killRule = killRuleRegistry.get(killRuleName);
+        int[] loaded = {0};
+
+        synchronized (eventLock) {
+            rebuilding = true;
+            serverStats.clear();
+        }
+        try {
+            for (String server : historyReader.servers()) {
+                ServerStats stats = statsOf(server, killRule);
+                historyReader.streamAll(server, (period, code, prediction, outcome) -> {
+                    if (record(stats, killRule, period, code, prediction, outcome)) {
+                        loaded[0]++;
+                    }
+                });
+            }
+        } finally {
+            // 已经读到的期号会被跳过，只补记流式读取开始后才提交的记录
+            synchronized (eventLock) {
+                pendingEvents.forEach(event -> record(event.server(), event.draws()));
+                log.debug("重建期间缓存的 {} 个入库事件已补记", pendingEvents.size());
+                pendingEvents.clear();
+                rebuilding = false;
+            }
+        }
+
+        log.info("统计数据加载完成，{} 个服务器共 {} 期记录，耗时 {} 毫秒",
+                serverStats.size(), loaded[0], System.currentTimeMillis() - start);
+        return loaded[0];
+    }
+
+    /**
+     * 按期号从旧到新把已开奖的记录计入统计
+     */
+    private void record(String server, DrawSeries draws) {
+        KillRuleSet killRule = killRuleRegistry.get(killRuleName);
+        ServerStats stats = statsOf(server, killRule);
+        for (int i = 0; i < draws.getSize(); i++) {
+            record(stats, killRule, draws.periodAt(i), draws.codeAt(i), draws.predictionAt(i), draws.outcomeAt(i));
+        }
+    }
+
+    /**
+     * 把一期记录计入统计：未开奖的记录跳过，结果未出的记录只计入总和分布、遗漏和号码的模式索引
+     *
+     * @return 是否已计入下注结果统计
+     */
+    private static boolean record(ServerStats stats, KillRuleSet killRule,
+                                  int period, int code, byte prediction, byte outcome) {
+        if (code < 0) {
+            return false;
+        }
+        stats.sums().record(period, code);
+        BettingResult result = outcome == ParsedServerPage.OUTCOME_PENDING ? null
+                : BettingResultAnalyzer.analyzeBettingResult(
+                        ParsedServerPage.predictionText(prediction),
+                        ParsedServerPage.outcomeText(outcome),
+                        killRule.isKill(code));
+        for (PatternIndex index : stats.patterns()) {
+            int symbol = index.getAlphabet().symbolOf(code, outcome, result);
+            if (symbol >= 0) {
+                index.append(period, symbol);
+            }
+        }
+        if (result == null) {
+            return false;
+        }
+        boolean recorded = stats.winRates().record(period, result);
+        stats.streaks().append(period, result);
+        return recorded;
+    }
+
+    private ServerStats statsOf(String server, KillRuleSet killRule) {
+        return serverStats.computeIfAbsent(server, key -> {
+            PatternAlphabet[] alphabets = PatternAlphabet.values();
+            PatternIndex[] patterns = new PatternIndex[alphabets.length];
+            for (int i = 0; i < alphabets.length; i++) {
+                patterns[i] = new PatternIndex(key, alphabets[i], patternMaxLength);
+            }
+            return new ServerStats(
+                    new WinRateTracker(key, killRule.getName(), winRateWindows),
+                    new StreakIndex(key),
+                    new SumStatsTracker(key, sumWindows),
+                    patterns);
+        });
+    }
+
+    private ServerStats requireStats(String server) {
+        ServerStats stats = serverStats.get(server);
+        if (stats == null) {
+            throw new IllegalArgumentException("服务器 " + server + " 没有统计数据");
+        }
+        return stats;
+    }
+
+    @Override
+    public WinRateSnapshot getWinRates(String server) {
+        return requireStats(server).winRates().snapshot();
+    }
+
+    @Override
+    public List<WinRateSnapshot> getAllWinRates() {
+        return serverStats.keySet().stream()
+                .sorted()
+                .map(this::getWinRates)
+                .toList();
+    }
+
+    @Override
+    public StreakReport getStreaks(String server) {
+        return getStreaks(server, Integer.MIN_VALUE, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public StreakReport getStreaks(String server, int fromPeriod, int toPeriod) {
+        StreakIndex streaks = requireStats(server).streaks();
+        if (fromPeriod > toPeriod) {
+            throw new IllegalArgumentException("起始期号不能大于结束期号: " + fromPeriod + " > " + toPeriod);
+        }
+
+        StreakSegment segment = streaks.query(fromPeriod, toPeriod);
+        return StreakReport.builder()
+                .server(server)
+                .killRule(killRuleName)
+                .fromPeriod(streaks.firstPeriodIn(fromPeriod, toPeriod))
+                .toPeriod(streaks.lastPeriodIn(fromPeriod, toPeriod))
+                .games(segment.getGames())
+                .wins(segment.getWins())
+                .missLosses(segment.getMissLosses())
+                .hitKilled(segment.getHitKilled())
+                .net(segment.getNet())
+                .maxDrawdown(segment.getMaxDrawdown())
+                .currentDrawdown(segment.currentDrawdown())
+                .currentWinRun(segment.currentRun(StreakSegment.RUN_WIN))
+                .maxWinRun(segment.maxRun(StreakSegment.RUN_WIN))
+                .currentLosingRun(segment.currentRun(StreakSegment.RUN_LOSING))
+                .maxLosingRun(segment.maxRun(StreakSegment.RUN_LOSING))
+                .currentMissLossRun(segment.currentRun(StreakSegment.RUN_MISS_LOSS))
+                .maxMissLossRun(segment.maxRun(StreakSegment.RUN_MISS_LOSS))
+                .currentHitKilledRun(segment.currentRun(StreakSegment.RUN_HIT_KILLED))
+                .maxHitKilledRun(segment.maxRun(StreakSegment.RUN_HIT_KILLED))
+                .build();
+    }
+
+    @Override
+    public List<StreakReport> getAllStreaks() {
+        return serverStats.keySet().stream()
+                .sorted()
+                .map(this::getStreaks)
+                .toList();
+    }
+
+    @Override
+    public SumStatsSnapshot getSumStats(String server) {
+        return requireStats(server).sums().snapshot();
+    }
+
+    @Override
+    public List<SumStatsSnapshot> getAllSumStats() {
+        return serverStats.keySet().stream()
+                .sorted()
+                .map(this::getSumStats)
+                .toList();
+    }
+
+    @Override
+    public PatternReport findPattern(String server, PatternAlphabet alphabet, String pattern, int limit) {
+        PatternIndex index = requireStats(server).patterns()[alphabet.ordinal()];
+        return index.query(alphabet.parse(pattern), limit);
+    }
+}
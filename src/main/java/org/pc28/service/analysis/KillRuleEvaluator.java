@@ -0,0 +1,90 @@
+package org.pc28.service.analysis;
+
+import lombok.RequiredArgsConstructor;
+import org.pc28.model.DrawSeries;
+import org.pc28.model.KillRuleReport;
+import org.pc28.model.ParsedServerPage;
+import org.pc28.service.db.DrawHistoryReader;
+import org.pc28.utils.BettingResultAnalyzer;
+import org.pc28.utils.BettingResultAnalyzer.BettingResult;
+import org.pc28.utils.KillRuleSet;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 多个杀规则集并列评估
+ * 历史记录只读取和编码一次，每期对所有规则集各做一次位测试
+ */
+@Component
+@RequiredArgsConstructor
+public class KillRuleEvaluator {
+
+    private final DrawHistoryReader historyReader;
+    private final KillRuleRegistry ruleRegistry;
+
+    /**
+     * 在服务器最近的历史记录上比较所有规则集
+     *
+     * @param server 服务器前缀
+     * @param limit 读取的期数
+     * @param gameRanges 计算胜率的场次范围，如[10, 20, 50, 100]
+     * @return 每个规则集的统计，standard 排在第一位
+     */
+    public List<KillRuleReport> compare(String server, int limit, int[] gameRanges) {
+        return compare(historyReader.loadRecent(server, limit), ruleRegistry.all(), gameRanges);
+    }
+
+    /**
+     * 在给定的开奖序列上比较规则集
+     */
+    public static List<KillRuleReport> compare(DrawSeries series, List<KillRuleSet> ruleSetList, int[] gameRanges) {
+        KillRuleSet[] ruleSets = ruleSetList.toArray(new KillRuleSet[0]);
+        int ruleCount = ruleSets.length;
+
+        // results[r] 按从新到旧排列，与 calculateWinRatesForRanges 取"最近N期"的约定一致
+        BettingResult[][] results = new BettingResult[ruleCount][series.getSize()];
+        int[][] resultCounts = new int[ruleCount][BettingResult.values().length];
+        int[] killed = new int[ruleCount];
+        BettingResult[] row = new BettingResult[ruleCount];
+        int games = 0;
+
+        for (int i = series.getSize() - 1; i >= 0; i--) {
+            int code = series.codeAt(i);
+            byte prediction = series.predictionAt(i);
+            byte outcome = series.outcomeAt(i);
+            if (code < 0 || prediction == ParsedServerPage.PREDICTION_NONE
+                    || outcome == ParsedServerPage.OUTCOME_PENDING) {
+                continue;
+            }
+
+            BettingResultAnalyzer.analyzeWithRuleSets(ParsedServerPage.predictionText(prediction),
+                    ParsedServerPage.outcomeText(outcome), code, ruleSets, row);
+            for (int r = 0; r < ruleCount; r++) {
+                results[r][games] = row[r];
+                resultCounts[r][row[r].ordinal()]++;
+                if (ruleSets[r].isKill(code)) {
+                    killed[r]++;
+                }
+            }
+            games++;
+        }
+
+        List<KillRuleReport> reports = new ArrayList<>(ruleCount);
+        for (int r = 0; r < ruleCount; r++) {
+            BettingResult[] played = Arrays.copyOf(results[r], games);
+            reports.add(KillRuleReport.builder()
+                    .ruleSet(ruleSets[r].getName())
+                    .definition(ruleSets[r].getDefinition())
+                    .killCount(ruleSets[r].getKillCount())
+                    .games(games)
+                    .killed(killed[r])
+                    .resultCounts(resultCounts[r])
+                    .winRates(BettingResultAnalyzer.calculateWinRatesForRanges(played, gameRanges))
+                    .build());
+        }
+        return reports;
+    }
+}
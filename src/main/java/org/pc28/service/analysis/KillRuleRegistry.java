@@ -0,0 +1,139 @@
+package org.pc28.service.analysis;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.pc28.utils.KillRuleSet;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.TreeMap;
+
+/**
+ * 杀规则集注册表
+ *
+ * 规则集来源（后者覆盖前者的同名规则集）：
+ * 1. 内置的 standard 规则集
+ * 2. application.properties 中的 pc28.kill-rules.sets.&lt;名称&gt;=&lt;规则定义&gt;
+ * 3. pc28.kill-rules.file 指定的属性文件，每行 &lt;名称&gt;=&lt;规则定义&gt;
+ * 无法编译的规则集记录错误日志后跳过，不影响其他规则集
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class KillRuleRegistry {
+
+    private final Environment environment;
+
+    /**
+     * 额外的规则集文件路径，为空时不加载
+     */
+    @Value("${pc28.kill-rules.file:}")
+    private String rulesFile;
+
+    private volatile Map<String, KillRuleSet> ruleSets = Map.of(KillRuleSet.STANDARD_NAME, KillRuleSet.STANDARD);
+
+    @PostConstruct
+    public void init() {
+        reload();
+    }
+
+    /**
+     * 重新加载所有规则集
+     *
+     * @return 加载后的规则集数量
+     */
+    public synchronized int reload() {
+        Map<String, String> definitions = new TreeMap<>();
+        definitions.put(KillRuleSet.STANDARD_NAME, KillRuleSet.STANDARD_DEFINITION);
+        definitions.putAll(Binder.get(environment)
+                .bind("pc28.kill-rules.sets", Bindable.mapOf(String.class, String.class))
+                .orElse(Collections.emptyMap()));
+        definitions.putAll(loadFile());
+
+        Map<String, KillRuleSet> compiled = new LinkedHashMap<>();
+        // standard 始终排在第一位，作为并列比较的基准
+        compile(KillRuleSet.STANDARD_NAME, definitions.remove(KillRuleSet.STANDARD_NAME), compiled);
+        for (Map.Entry<String, String> entry : definitions.entrySet()) {
+            compile(entry.getKey(), entry.getValue(), compiled);
+        }
+        if (!compiled.containsKey(KillRuleSet.STANDARD_NAME)) {
+            compiled.put(KillRuleSet.STANDARD_NAME, KillRuleSet.STANDARD);
+        }
+
+        ruleSets = Collections.unmodifiableMap(compiled);
+        log.info("已加载 {} 个杀规则集: {}", compiled.size(), compiled.keySet());
+        return compiled.size();
+    }
+
+    private void compile(String name, String definition, Map<String, KillRuleSet> compiled) {
+        try {
+            KillRuleSet ruleSet = KillRuleSet.compile(name, definition);
+            compiled.put(name, ruleSet);
+            log.debug("杀规则集 {}: {}，杀号码 {} 个", name, ruleSet.getDefinition(), ruleSet.getKillCount());
+        } catch (IllegalArgumentException e) {
+            log.error("杀规则集 {} 编译失败，已跳过: {}", name, e.getMessage());
+        }
+    }
+
+    private Map<String, String> loadFile() {
+        if (rulesFile == null || rulesFile.isBlank()) {
+            return Map.of();
+        }
+
+        Path path = Path.of(rulesFile);
+        if (!Files.exists(path)) {
+            log.warn("杀规则集文件不存在: {}", path.toAbsolutePath());
+            return Map.of();
+        }
+
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            log.error("读取杀规则集文件失败: {}", e.getMessage());
+            return Map.of();
+        }
+
+        Map<String, String> definitions = new TreeMap<>();
+        for (String name : properties.stringPropertyNames()) {
+            definitions.put(name.trim(), properties.getProperty(name));
+        }
+        return definitions;
+    }
+
+    /**
+     * 按名称获取规则集
+     *
+     * @param name 规则集名称
+     * @return 规则集
+     * @throws IllegalArgumentException 规则集不存在
+     */
+    public KillRuleSet get(String name) {
+        KillRuleSet ruleSet = ruleSets.get(name);
+        if (ruleSet == null) {
+            throw new IllegalArgumentException("未知的杀规则集: " + name + "，可用: " + ruleSets.keySet());
+        }
+        return ruleSet;
+    }
+
+    /**
+     * 所有规则集，standard 排在第一位
+     */
+    public List<KillRuleSet> all() {
+        return List.copyOf(ruleSets.values());
+    }
+}
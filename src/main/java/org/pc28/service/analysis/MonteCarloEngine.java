@@ -0,0 +1,287 @@
+package org.pc28.service.analysis;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.pc28.model.BacktestGrid;
+import org.pc28.model.MonteCarloReport;
+import org.pc28.model.MonteCarloResult;
+import org.pc28.model.ParsedServerPage;
+import org.pc28.utils.BettingResultAnalyzer;
+import org.pc28.utils.DrawCodeTable;
+import org.pc28.utils.KillRuleSet;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * 注码策略蒙特卡洛模拟
+ *
+ * 按 NumberAnalysisUtil 假设的模型生成开奖序列：三个数字各自均匀独立，即号码编码在0-999上均匀分布，
+ * 网站预测单双各占一半且与开奖独立。每期只需一次 nextInt(2000) 得到号码和预测，
+ * 再查预先算好的输赢表（1000个号码 × 2种预测）。
+ * 局数按 fork/join 二分，每次拆分时 SplittableRandom.split 出独立的随机数流，结果只取决于种子；
+ * 每局生成的序列由所有参数组合共用（公共随机数），内层循环不分配对象
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class MonteCarloEngine {
+
+    /**
+     * 报告的分位数（百分比）
+     */
+    public static final int[] PERCENTILES = {1, 5, 25, 50, 75, 95, 99};
+
+    /**
+     * 局数 × 参数组合的上限，决定保存每局结果所需的内存
+     */
+    public static final int MAX_CELLS = 4_000_000;
+
+    /**
+     * 每局期数的上限，每个子任务按下注方向 × 每局期数分配开奖结果缓冲
+     */
+    public static final int MAX_SESSION_LENGTH = 100_000;
+
+    /**
+     * 每个 fork/join 子任务直接模拟的局数
+     */
+    private static final int SPLIT_THRESHOLD = 64;
+
+    /**
+     * 95%置信区间的z值
+     */
+    private static final double Z_95 = 1.959964;
+
+    private final KillRuleRegistry ruleRegistry;
+
+    /**
+     * 在模拟的开奖序列上运行参数网格
+     *
+     * @param grid 参数网格，sessionLength 为每局期数，curvePoints 不使用
+     * @param paths 模拟局数
+     * @param seed 随机数种子
+     * @return 模拟结果
+     * @throws IllegalArgumentException 参数无效或规则集不存在
+     */
+    public MonteCarloReport run(BacktestGrid grid, int paths, long seed) {
+        KillRuleSet killRule = ruleRegistry.get(grid.getKillRule() == null ? KillRuleSet.STANDARD_NAME : grid.getKillRule());
+        return run(killRule, grid, paths, seed);
+    }
+
+    /**
+     * 使用给定的杀规则集模拟
+     */
+    public static MonteCarloReport run(KillRuleSet killRule, BacktestGrid grid, int paths, long seed) {
+        List<BacktestEngine.Combination> combinations = BacktestEngine.combinations(grid);
+        if (paths <= 0) {
+            throw new IllegalArgumentException("模拟局数必须大于0");
+        }
+        if ((long) paths * combinations.size() > MAX_CELLS) {
+            throw new IllegalArgumentException("局数 × 参数组合不能超过 " + MAX_CELLS + "，当前为 "
+                    + paths + " × " + combinations.size());
+        }
+        if (grid.getSessionLength() > MAX_SESSION_LENGTH) {
+            throw new IllegalArgumentException("每局期数不能超过 " + MAX_SESSION_LENGTH + "，当前为 "
+                    + grid.getSessionLength());
+        }
+
+        long start = System.currentTimeMillis();
+        int sessionLength = grid.getSessionLength();
+        Simulation simulation = new Simulation(winTable(killRule), combinations, sessionLength, grid.getPayout(), paths);
+        ForkJoinPool.commonPool().invoke(new PathTask(simulation, new SplittableRandom(seed), 0, paths));
+
+        List<MonteCarloResult> results = new ArrayList<>(combinations.size());
+        for (int c = 0; c < combinations.size(); c++) {
+            results.add(summarize(combinations.get(c), simulation.profits[c], simulation.drawdowns[c], simulation.ruined[c]));
+        }
+        results.sort(Comparator.comparingDouble(MonteCarloResult::getMeanProfit).reversed());
+
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        long draws = (long) paths * sessionLength;
+        log.info("蒙特卡洛模拟完成，{} 局 × {} 期 × {} 个参数组合，耗时 {} 毫秒",
+                paths, sessionLength, combinations.size(), elapsed);
+        return MonteCarloReport.builder()
+                .killRule(killRule.getName())
+                .paths(paths)
+                .sessionLength(sessionLength)
+                .draws(draws)
+                .seed(seed)
+                .percentiles(PERCENTILES.clone())
+                .elapsedMillis(elapsed)
+                .drawsPerSecond(draws * 1000 / elapsed)
+                .results(results)
+                .build();
+    }
+
+    /**
+     * 输赢表：wins[betMode.ordinal()][code * 2 + (预测为单 ? 1 : 0)]
+     */
+    static byte[][] winTable(KillRuleSet killRule) {
+        BacktestBetMode[] modes = BacktestBetMode.values();
+        byte[][] wins = new byte[modes.length][DrawCodeTable.SIZE * 2];
+        for (int code = 0; code < DrawCodeTable.SIZE; code++) {
+            boolean kill = killRule.isKill(code);
+            for (int predictOdd = 0; predictOdd < 2; predictOdd++) {
+                boolean hit = (predictOdd == 1) == DrawCodeTable.isOdd(code);
+                byte prediction = predictOdd == 1 ? ParsedServerPage.PREDICTION_ODD : ParsedServerPage.PREDICTION_EVEN;
+                byte outcome = hit ? ParsedServerPage.OUTCOME_HIT : ParsedServerPage.OUTCOME_MISS;
+                boolean result = BettingResultAnalyzer.analyzeBettingResult(ParsedServerPage.predictionText(prediction),
+                        ParsedServerPage.outcomeText(outcome), kill).isWin();
+
+                int index = code * 2 + predictOdd;
+                wins[BacktestBetMode.RESULT.ordinal()][index] = (byte) (result ? 1 : 0);
+                wins[BacktestBetMode.FOLLOW.ordinal()][index] = (byte) (hit && !kill ? 1 : 0);
+                wins[BacktestBetMode.AGAINST.ordinal()][index] = (byte) (!hit && !kill ? 1 : 0);
+            }
+        }
+        return wins;
+    }
+
+    /**
+     * 一次模拟的共享状态，各子任务只写自己负责的局的下标
+     */
+    private static final class Simulation {
+
+        final byte[][] winTable;
+        final BacktestEngine.Combination[] combinations;
+        final int sessionLength;
+        final double payout;
+        final double[][] profits;
+        final double[][] drawdowns;
+        final boolean[][] ruined;
+
+        Simulation(byte[][] winTable, List<BacktestEngine.Combination> combinations, int sessionLength,
+                   double payout, int paths) {
+            this.winTable = winTable;
+            this.combinations = combinations.toArray(new BacktestEngine.Combination[0]);
+            this.sessionLength = sessionLength;
+            this.payout = payout;
+            this.profits = new double[combinations.size()][paths];
+            this.drawdowns = new double[combinations.size()][paths];
+            this.ruined = new boolean[combinations.size()][paths];
+        }
+    }
+
+    /**
+     * 把局数按下标区间二分，每次拆分时右半部分使用 split 出的随机数流
+     */
+    private static final class PathTask extends RecursiveAction {
+
+        private final Simulation simulation;
+        private final SplittableRandom random;
+        private final int from;
+        private final int to;
+
+        PathTask(Simulation simulation, SplittableRandom random, int from, int to) {
+            this.simulation = simulation;
+            this.random = random;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > SPLIT_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                SplittableRandom right = random.split();
+                invokeAll(new PathTask(simulation, random, from, mid), new PathTask(simulation, right, mid, to));
+                return;
+            }
+
+            byte[][] table = simulation.winTable;
+            int modes = table.length;
+            int length = simulation.sessionLength;
+            byte[][] wins = new byte[modes][length];
+            BacktestEngine.Session session = new BacktestEngine.Session();
+            BacktestEngine.Combination[] combinations = simulation.combinations;
+
+            for (int path = from; path < to; path++) {
+                for (int i = 0; i < length; i++) {
+                    int draw = random.nextInt(DrawCodeTable.SIZE * 2);
+                    for (int m = 0; m < modes; m++) {
+                        wins[m][i] = table[m][draw];
+                    }
+                }
+                for (int c = 0; c < combinations.length; c++) {
+                    BacktestEngine.Combination combination = combinations[c];
+                    session.run(wins[combination.betMode().ordinal()], 0, length, combination, simulation.payout, null);
+                    simulation.profits[c][path] = session.bankroll - combination.bankroll();
+                    simulation.drawdowns[c][path] = session.maxDrawdown;
+                    simulation.ruined[c][path] = session.ruined;
+                }
+            }
+        }
+    }
+
+    /**
+     * 汇总单个参数组合的各局结果，profits 和 drawdowns 会被排序
+     */
+    private static MonteCarloResult summarize(BacktestEngine.Combination combination, double[] profits,
+                                              double[] drawdowns, boolean[] ruined) {
+        int n = profits.length;
+        double sum = 0;
+        double sumSquares = 0;
+        int ruinedCount = 0;
+        for (int i = 0; i < n; i++) {
+            sum += profits[i];
+            sumSquares += profits[i] * profits[i];
+            if (ruined[i]) {
+                ruinedCount++;
+            }
+        }
+        double mean = sum / n;
+        double variance = n > 1 ? Math.max(0, (sumSquares - n * mean * mean) / (n - 1)) : 0;
+        double margin = Z_95 * Math.sqrt(variance / n);
+
+        Arrays.sort(profits);
+        Arrays.sort(drawdowns);
+        double ruinRate = (double) ruinedCount / n;
+        double[] ruinInterval = wilson(ruinedCount, n);
+
+        return MonteCarloResult.builder()
+                .strategy(combination.strategy())
+                .betMode(combination.betMode())
+                .baseStake(combination.baseStake())
+                .limit(combination.limit())
+                .bankroll(combination.bankroll())
+                .meanProfit(mean)
+                .meanProfitLow(mean - margin)
+                .meanProfitHigh(mean + margin)
+                .profitPercentiles(percentiles(profits))
+                .drawdownPercentiles(percentiles(drawdowns))
+                .ruinProbability(ruinRate)
+                .ruinProbabilityLow(ruinInterval[0])
+                .ruinProbabilityHigh(ruinInterval[1])
+                .build();
+    }
+
+    /**
+     * 已排序数组的分位数（最近秩法）
+     */
+    static double[] percentiles(double[] sorted) {
+        double[] values = new double[PERCENTILES.length];
+        for (int i = 0; i < PERCENTILES.length; i++) {
+            int rank = (int) Math.ceil(PERCENTILES[i] / 100.0 * sorted.length);
+            values[i] = sorted[Math.min(sorted.length - 1, Math.max(0, rank - 1))];
+        }
+        return values;
+    }
+
+    /**
+     * 比例的95% Wilson置信区间
+     */
+    static double[] wilson(int successes, int n) {
+        double p = (double) successes / n;
+        double z2 = Z_95 * Z_95;
+        double denominator = 1 + z2 / n;
+        double center = (p + z2 / (2.0 * n)) / denominator;
+        double half = Z_95 * Math.sqrt(p * (1 - p) / n + z2 / (4.0 * n * n)) / denominator;
+        return new double[]{Math.max(0, center - half), Math.min(1, center + half)};
+    }
+}
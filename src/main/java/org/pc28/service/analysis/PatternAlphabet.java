@@ -0,0 +1,124 @@
+package org.pc28.service.analysis;
+
+import org.pc28.model.ParsedServerPage;
+import org.pc28.utils.BettingResultAnalyzer.BettingResult;
+import org.pc28.utils.DrawCodeTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 模式检索使用的符号表：把每期记录编码为一个符号（最多4种）
+ */
+public enum PatternAlphabet {
+
+    /**
+     * 开奖总和的单双
+     */
+    ODD_EVEN("单双", new String[]{"单", "双"}, new String[]{"ODD", "EVEN"}),
+
+    /**
+     * 开奖总和的大小（14-27为大）
+     */
+    BIG_SMALL("大小", new String[]{"大", "小"}, new String[]{"BIG", "SMALL"}),
+
+    /**
+     * 网站预测的结果
+     */
+    OUTCOME("中错", new String[]{"中", "错"}, new String[]{"HIT", "MISS"}),
+
+    /**
+     * 下注结果（按统计使用的杀规则集）
+     */
+    RESULT("下注结果",
+            new String[]{"命中盈利", "命中被杀", "未命中盈利", "未命中亏损"},
+            new String[]{"HIT_PROFIT", "HIT_KILLED", "MISS_PROFIT", "MISS_LOSS"});
+
+    private final String description;
+    private final String[] labels;
+    private final String[] codes;
+
+    PatternAlphabet(String description, String[] labels, String[] codes) {
+        this.description = description;
+        this.labels = labels;
+        this.codes = codes;
+    }
+
+    public String getDescription() {
+        return description;
+    }
+
+    public int size() {
+        return labels.length;
+    }
+
+    public String label(int symbol) {
+        return labels[symbol];
+    }
+
+    /**
+     * 一期记录对应的符号
+     *
+     * @param code 号码编码（0-999）
+     * @param outcome 结果编码
+     * @param result 下注结果，结果未出时为null
+     * @return 符号，该期不属于此符号表时返回-1
+     */
+    public int symbolOf(int code, byte outcome, BettingResult result) {
+        return switch (this) {
+            case ODD_EVEN -> DrawCodeTable.isOdd(code) ? 0 : 1;
+            case BIG_SMALL -> DrawCodeTable.isBig(code) ? 0 : 1;
+            case OUTCOME -> outcome == ParsedServerPage.OUTCOME_HIT ? 0 : outcome == ParsedServerPage.OUTCOME_MISS ? 1 : -1;
+            case RESULT -> result == null || result == BettingResult.UNKNOWN ? -1 : result.ordinal();
+        };
+    }
+
+    /**
+     * 解析模式文本
+     * 可以用逗号或空格分隔符号，也可以不分隔直接连写单字符号（如"单双单单"）；
+     * 符号可以写名称（如"命中被杀"）、英文代码（如"HIT_KILLED"）或序号（从0开始）
+     *
+     * @param pattern 模式文本
+     * @return 符号数组
+     * @throws IllegalArgumentException 模式为空或含有无法识别的符号
+     */
+    public int[] parse(String pattern) {
+        String text = pattern == null ? "" : pattern.trim();
+        if (text.isEmpty()) {
+            throw new IllegalArgumentException("模式不能为空");
+        }
+
+        List<String> tokens = new ArrayList<>();
+        if (text.matches(".*[,，\\s].*")) {
+            for (String token : text.split("[,，\\s]+")) {
+                if (!token.isEmpty()) {
+                    tokens.add(token);
+                }
+            }
+        } else if (symbolOf(text) >= 0) {
+            tokens.add(text);
+        } else {
+            text.codePoints().forEach(c -> tokens.add(new String(Character.toChars(c))));
+        }
+
+        int[] symbols = new int[tokens.size()];
+        for (int i = 0; i < symbols.length; i++) {
+            symbols[i] = symbolOf(tokens.get(i));
+            if (symbols[i] < 0) {
+                throw new IllegalArgumentException("符号表 " + name() + " 中没有符号: " + tokens.get(i));
+            }
+        }
+        return symbols;
+    }
+
+    private int symbolOf(String token) {
+        for (int i = 0; i < labels.length; i++) {
+            if (labels[i].equals(token) || codes[i].equals(token.toUpperCase(Locale.ROOT))
+                    || String.valueOf(i).equals(token)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,276 @@
+package org.pc28.service.analysis;
+
+import org.pc28.model.PatternReport;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 单个服务器、单个符号表上的模式索引
+ *
+ * 符号序列按期号从旧到新保存在byte数组中。每个符号占2位，长度不超过 maxLength+1 的子串打包为一个long，
+ * 在开放寻址的哈希表中记录出现次数；追加一个符号时只需把以它结尾的 maxLength+1 个子串计数加1。
+ * 模式P的出现次数就是P的计数，下一期的分布就是 P·x 的计数，查询只需几次哈希查找，与历史长度无关；
+ * 最近出现的期号从序列末尾往前扫描，找够数量或找齐全部出现后即停止。
+ * 超过 maxLength 的模式退化为顺序扫描。
+ * 期号不大于最后一期的记录会被忽略
+ */
+public class PatternIndex {
+
+    /**
+     * 索引支持的最大模式长度（子串长度 maxLength+1 打包在32位内）
+     */
+    public static final int MAX_LENGTH_LIMIT = 15;
+
+    private static final int BITS_PER_SYMBOL = 2;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final String server;
+    private final PatternAlphabet alphabet;
+    private final int maxLength;
+
+    private byte[] symbols = new byte[INITIAL_CAPACITY];
+    private int[] periods = new int[INITIAL_CAPACITY];
+    private int size;
+
+    /**
+     * 哈希表：键为 (子串长度 << 32) | 打包的子串，0表示空位
+     */
+    private long[] keys = new long[INITIAL_CAPACITY];
+    private int[] counts = new int[INITIAL_CAPACITY];
+    private int entries;
+
+    /**
+     * @param server 服务器前缀
+     * @param alphabet 符号表
+     * @param maxLength 索引的最大模式长度（1-15）
+     */
+    public PatternIndex(String server, PatternAlphabet alphabet, int maxLength) {
+        if (maxLength < 1 || maxLength > MAX_LENGTH_LIMIT) {
+            throw new IllegalArgumentException("模式索引长度必须在1-" + MAX_LENGTH_LIMIT + "之间: " + maxLength);
+        }
+        this.server = server;
+        this.alphabet = alphabet;
+        this.maxLength = maxLength;
+    }
+
+    /**
+     * 追加一期的符号
+     *
+     * @param period 期号
+     * @param symbol 符号（0到符号数量-1）
+     * @return 是否已追加，期号不大于最后一期时返回false
+     */
+    public synchronized boolean append(int period, int symbol) {
+        if (symbol < 0 || symbol >= alphabet.size()) {
+            throw new IllegalArgumentException("符号表 " + alphabet.name() + " 中没有序号为 " + symbol + " 的符号");
+        }
+        if (size > 0 && period <= periods[size - 1]) {
+            return false;
+        }
+        if (size == symbols.length) {
+            symbols = Arrays.copyOf(symbols, size * 2);
+            periods = Arrays.copyOf(periods, size * 2);
+        }
+        symbols[size] = (byte) symbol;
+        periods[size] = period;
+        size++;
+
+        // 以新符号结尾的各长度子串：从后往前每次在高位补一个符号
+        long packed = 0;
+        int longest = Math.min(maxLength + 1, size);
+        for (int length = 1; length <= longest; length++) {
+            packed |= (long) symbols[size - length] << (BITS_PER_SYMBOL * (length - 1));
+            increment(((long) length << 32) | packed);
+        }
+        return true;
+    }
+
+    /**
+     * 查询模式的出现次数和下一期的符号分布
+     *
+     * @param pattern 模式的符号数组
+     * @param limit 最多返回的最近出现期号数量
+     * @return 检索结果
+     * @throws IllegalArgumentException 模式为空或含有无效符号
+     */
+    public synchronized PatternReport query(int[] pattern, int limit) {
+        if (pattern.length == 0) {
+            throw new IllegalArgumentException("模式不能为空");
+        }
+        for (int symbol : pattern) {
+            if (symbol < 0 || symbol >= alphabet.size()) {
+                throw new IllegalArgumentException("符号表 " + alphabet.name() + " 中没有序号为 " + symbol + " 的符号");
+            }
+        }
+
+        int[] nextCounts = new int[alphabet.size()];
+        int occurrences;
+        int[] recent;
+        boolean indexed = pattern.length <= maxLength;
+        if (indexed) {
+            long packed = pack(pattern);
+            occurrences = count(((long) pattern.length << 32) | packed);
+            for (int next = 0; next < nextCounts.length; next++) {
+                nextCounts[next] = count(((long) (pattern.length + 1) << 32) | (packed << BITS_PER_SYMBOL) | next);
+            }
+            recent = scan(pattern, Math.max(0, limit), occurrences, null);
+        } else {
+            int[] found = {0};
+            recent = scan(pattern, Math.max(0, limit), Integer.MAX_VALUE, index -> {
+                found[0]++;
+                if (index + 1 < size) {
+                    nextCounts[symbols[index + 1]]++;
+                }
+            });
+            occurrences = found[0];
+        }
+
+        int total = Arrays.stream(nextCounts).sum();
+        double[] nextRates = new double[nextCounts.length];
+        List<String> nextSymbols = new ArrayList<>(nextCounts.length);
+        for (int i = 0; i < nextCounts.length; i++) {
+            nextRates[i] = total == 0 ? 0.0 : (double) nextCounts[i] / total;
+            nextSymbols.add(alphabet.label(i));
+        }
+
+        StringBuilder text = new StringBuilder();
+        for (int symbol : pattern) {
+            if (!text.isEmpty() && alphabet.label(symbol).length() > 1) {
+                text.append(',');
+            }
+            text.append(alphabet.label(symbol));
+        }
+
+        return PatternReport.builder()
+                .server(server)
+                .alphabet(alphabet.name())
+                .pattern(text.toString())
+                .length(pattern.length)
+                .sequenceLength(size)
+                .indexed(indexed)
+                .occurrences(occurrences)
+                .nextSymbols(nextSymbols)
+                .nextCounts(nextCounts)
+                .nextRates(nextRates)
+                .recentPeriods(recent)
+                .build();
+    }
+
+    /**
+     * 从新到旧扫描模式的出现位置
+     *
+     * @param pattern 模式
+     * @param limit 最多返回的期号数量
+     * @param occurrences 已知的出现次数，找齐后提前结束
+     * @param visitor 每个出现位置（模式最后一个符号的下标）的回调，为null时在找够limit个后提前结束
+     * @return 最近出现的期号
+     */
+    private int[] scan(int[] pattern, int limit, int occurrences, MatchVisitor visitor) {
+        int[] recent = new int[Math.min(limit, Math.min(occurrences, size))];
+        int found = 0;
+        int matched = 0;
+        for (int end = size - 1; end >= pattern.length - 1; end--) {
+            if (visitor == null && (found == recent.length || matched == occurrences)) {
+                break;
+            }
+            if (matchesAt(pattern, end)) {
+                matched++;
+                if (found < recent.length) {
+                    recent[found++] = periods[end];
+                }
+                if (visitor != null) {
+                    visitor.visit(end);
+                }
+            }
+        }
+        return found == recent.length ? recent : Arrays.copyOf(recent, found);
+    }
+
+    @FunctionalInterface
+    private interface MatchVisitor {
+        void visit(int index);
+    }
+
+    private boolean matchesAt(int[] pattern, int end) {
+        int start = end - pattern.length + 1;
+        for (int i = pattern.length - 1; i >= 0; i--) {
+            if (symbols[start + i] != pattern[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static long pack(int[] pattern) {
+        long packed = 0;
+        for (int symbol : pattern) {
+            packed = (packed << BITS_PER_SYMBOL) | symbol;
+        }
+        return packed;
+    }
+
+    private int count(long key) {
+        int mask = keys.length - 1;
+        for (int slot = hash(key) & mask; keys[slot] != 0; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return counts[slot];
+            }
+        }
+        return 0;
+    }
+
+    private void increment(long key) {
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                counts[slot]++;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        counts[slot] = 1;
+        if (++entries * 4 > keys.length * 3) {
+            rehash();
+        }
+    }
+
+    private void rehash() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    public PatternAlphabet getAlphabet() {
+        return alphabet;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
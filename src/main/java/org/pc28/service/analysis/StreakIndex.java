@@ -0,0 +1,156 @@
+package org.pc28.service.analysis;
+
+import org.pc28.utils.BettingResultAnalyzer.BettingResult;
+
+import java.util.Arrays;
+
+/**
+ * 单个服务器按期号排列的连胜连败线段树
+ *
+ * 叶子为每期的 {@link StreakSegment}，内部节点为子节点的合并结果。
+ * 新的一期追加在末尾，只更新到根的 O(log n) 个节点；整段历史的汇总就是根节点，
+ * 任意期号区间的汇总合并 O(log n) 个节点得到，不需要重新扫描历史记录。
+ * 期号不大于最后一期的记录会被忽略
+ */
+public class StreakIndex {
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final String server;
+
+    private int[] periods;
+    private int size;
+
+    /**
+     * 线段树，tree[1] 为根，叶子从 tree[capacity] 开始
+     */
+    private StreakSegment[] tree;
+    private int capacity;
+
+    public StreakIndex(String server) {
+        this.server = server;
+        this.capacity = INITIAL_CAPACITY;
+        this.periods = new int[capacity];
+        this.tree = new StreakSegment[capacity * 2];
+        Arrays.fill(tree, StreakSegment.EMPTY);
+    }
+
+    /**
+     * 追加一期的下注结果
+     *
+     * @param period 期号
+     * @param result 下注结果
+     * @return 是否已追加（期号不大于最后一期时返回false）
+     */
+    public synchronized boolean append(int period, BettingResult result) {
+        if (size > 0 && period <= periods[size - 1]) {
+            return false;
+        }
+        if (size == capacity) {
+            grow();
+        }
+
+        periods[size] = period;
+        int node = capacity + size;
+        tree[node] = StreakSegment.of(result);
+        for (node >>= 1; node >= 1; node >>= 1) {
+            tree[node] = StreakSegment.combine(tree[node * 2], tree[node * 2 + 1]);
+        }
+        size++;
+        return true;
+    }
+
+    /**
+     * 容量翻倍，叶子原样复制后自底向上重建内部节点
+     */
+    private void grow() {
+        int newCapacity = capacity * 2;
+        StreakSegment[] newTree = new StreakSegment[newCapacity * 2];
+        Arrays.fill(newTree, StreakSegment.EMPTY);
+        System.arraycopy(tree, capacity, newTree, newCapacity, size);
+        for (int node = newCapacity - 1; node >= 1; node--) {
+            newTree[node] = StreakSegment.combine(newTree[node * 2], newTree[node * 2 + 1]);
+        }
+        periods = Arrays.copyOf(periods, newCapacity);
+        tree = newTree;
+        capacity = newCapacity;
+    }
+
+    /**
+     * 全部记录的汇总
+     */
+    public synchronized StreakSegment total() {
+        return tree[1];
+    }
+
+    /**
+     * 期号区间内记录的汇总
+     *
+     * @param fromPeriod 起始期号（包含）
+     * @param toPeriod 结束期号（包含）
+     * @return 区间汇总，区间内没有记录时为 {@link StreakSegment#EMPTY}
+     */
+    public synchronized StreakSegment query(int fromPeriod, int toPeriod) {
+        int from = lowerBound(fromPeriod);
+        int to = lowerBound(toPeriod == Integer.MAX_VALUE ? toPeriod : toPeriod + 1);
+        return queryIndex(from, to);
+    }
+
+    /**
+     * 下标区间 [from, to) 的汇总，合并时保持从左到右的顺序
+     */
+    private StreakSegment queryIndex(int from, int to) {
+        StreakSegment left = StreakSegment.EMPTY;
+        StreakSegment right = StreakSegment.EMPTY;
+        for (int l = from + capacity, r = to + capacity; l < r; l >>= 1, r >>= 1) {
+            if ((l & 1) == 1) {
+                left = StreakSegment.combine(left, tree[l++]);
+            }
+            if ((r & 1) == 1) {
+                right = StreakSegment.combine(tree[--r], right);
+            }
+        }
+        return StreakSegment.combine(left, right);
+    }
+
+    /**
+     * 第一个期号不小于 period 的下标
+     */
+    private int lowerBound(int period) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (periods[mid] < period) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 期号区间内的第一期，没有记录时为-1
+     */
+    public synchronized int firstPeriodIn(int fromPeriod, int toPeriod) {
+        int index = lowerBound(fromPeriod);
+        return index < size && periods[index] <= toPeriod ? periods[index] : -1;
+    }
+
+    /**
+     * 期号区间内的最后一期，没有记录时为-1
+     */
+    public synchronized int lastPeriodIn(int fromPeriod, int toPeriod) {
+        int index = lowerBound(toPeriod == Integer.MAX_VALUE ? toPeriod : toPeriod + 1) - 1;
+        return index >= 0 && periods[index] >= fromPeriod ? periods[index] : -1;
+    }
+
+    public String getServer() {
+        return server;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+}
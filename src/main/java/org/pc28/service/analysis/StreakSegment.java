@@ -0,0 +1,213 @@
+package org.pc28.service.analysis;
+
+import org.pc28.utils.BettingResultAnalyzer.BettingResult;
+
+/**
+ * 一段连续期数的连胜连败和回撤汇总（不可变）
+ *
+ * 相邻两段的汇总可以用 {@link #combine} 在常数时间内合并，因此可以作为线段树的节点，
+ * 任意期号区间的统计只需合并 O(log n) 个节点。
+ * 资金按每期1个单位计算：胜利+1，未命中亏损和命中被杀-1，无法判断的记录计0并打断所有连续计数
+ */
+public final class StreakSegment {
+
+    /**
+     * 连续计数的种类：胜利（命中盈利或未命中盈利）
+     */
+    public static final int RUN_WIN = 0;
+
+    /**
+     * 连续计数的种类：亏损（未命中亏损或命中被杀）
+     */
+    public static final int RUN_LOSING = 1;
+
+    /**
+     * 连续计数的种类：未命中亏损
+     */
+    public static final int RUN_MISS_LOSS = 2;
+
+    /**
+     * 连续计数的种类：命中被杀
+     */
+    public static final int RUN_HIT_KILLED = 3;
+
+    private static final int RUN_KINDS = 4;
+
+    /**
+     * 空区间
+     */
+    public static final StreakSegment EMPTY = new StreakSegment(0, 0, 0, 0, 0, 0, 0, 0,
+            new int[RUN_KINDS], new int[RUN_KINDS], new int[RUN_KINDS]);
+
+    private static final StreakSegment[] LEAVES = new StreakSegment[BettingResult.values().length];
+
+    static {
+        for (BettingResult result : BettingResult.values()) {
+            LEAVES[result.ordinal()] = leaf(result);
+        }
+    }
+
+    private final int games;
+    private final int wins;
+    private final int missLosses;
+    private final int hitKilled;
+
+    /**
+     * 区间结束时的累计盈亏（单位）
+     */
+    private final int net;
+
+    /**
+     * 区间内累计盈亏的最高点（从0开始，包含起点）
+     */
+    private final int peak;
+
+    /**
+     * 区间内累计盈亏的最低点（从0开始，包含起点）
+     */
+    private final int trough;
+
+    /**
+     * 区间内最大的从高点到其后低点的回撤
+     */
+    private final int maxDrawdown;
+
+    private final int[] runPrefix;
+    private final int[] runSuffix;
+    private final int[] runMax;
+
+    private StreakSegment(int games, int wins, int missLosses, int hitKilled, int net, int peak, int trough,
+                          int maxDrawdown, int[] runPrefix, int[] runSuffix, int[] runMax) {
+        this.games = games;
+        this.wins = wins;
+        this.missLosses = missLosses;
+        this.hitKilled = hitKilled;
+        this.net = net;
+        this.peak = peak;
+        this.trough = trough;
+        this.maxDrawdown = maxDrawdown;
+        this.runPrefix = runPrefix;
+        this.runSuffix = runSuffix;
+        this.runMax = runMax;
+    }
+
+    /**
+     * 单期结果的汇总，同一种结果共享同一个实例
+     */
+    public static StreakSegment of(BettingResult result) {
+        return LEAVES[(result == null ? BettingResult.UNKNOWN : result).ordinal()];
+    }
+
+    private static StreakSegment leaf(BettingResult result) {
+        int[] runs = new int[RUN_KINDS];
+        int delta = 0;
+        if (result.isWin()) {
+            runs[RUN_WIN] = 1;
+            delta = 1;
+        } else if (result == BettingResult.MISS_LOSS) {
+            runs[RUN_LOSING] = 1;
+            runs[RUN_MISS_LOSS] = 1;
+            delta = -1;
+        } else if (result == BettingResult.HIT_KILLED) {
+            runs[RUN_LOSING] = 1;
+            runs[RUN_HIT_KILLED] = 1;
+            delta = -1;
+        }
+        return new StreakSegment(1, result.isWin() ? 1 : 0,
+                result == BettingResult.MISS_LOSS ? 1 : 0, result == BettingResult.HIT_KILLED ? 1 : 0,
+                delta, Math.max(0, delta), Math.min(0, delta), Math.max(0, -delta),
+                runs, runs, runs);
+    }
+
+    /**
+     * 合并相邻的两段，left 在前
+     */
+    public static StreakSegment combine(StreakSegment left, StreakSegment right) {
+        if (left.games == 0) {
+            return right;
+        }
+        if (right.games == 0) {
+            return left;
+        }
+
+        int[] prefix = new int[RUN_KINDS];
+        int[] suffix = new int[RUN_KINDS];
+        int[] max = new int[RUN_KINDS];
+        for (int k = 0; k < RUN_KINDS; k++) {
+            prefix[k] = left.runPrefix[k] == left.games ? left.games + right.runPrefix[k] : left.runPrefix[k];
+            suffix[k] = right.runSuffix[k] == right.games ? right.games + left.runSuffix[k] : right.runSuffix[k];
+            max[k] = Math.max(Math.max(left.runMax[k], right.runMax[k]), left.runSuffix[k] + right.runPrefix[k]);
+        }
+
+        // 右段的累计盈亏从左段的结束值开始
+        int drawdown = Math.max(Math.max(left.maxDrawdown, right.maxDrawdown),
+                left.peak - (left.net + right.trough));
+        return new StreakSegment(
+                left.games + right.games,
+                left.wins + right.wins,
+                left.missLosses + right.missLosses,
+                left.hitKilled + right.hitKilled,
+                left.net + right.net,
+                Math.max(left.peak, left.net + right.peak),
+                Math.min(left.trough, left.net + right.trough),
+                drawdown,
+                prefix, suffix, max);
+    }
+
+    public int getGames() {
+        return games;
+    }
+
+    public int getWins() {
+        return wins;
+    }
+
+    public int getMissLosses() {
+        return missLosses;
+    }
+
+    public int getHitKilled() {
+        return hitKilled;
+    }
+
+    public int getNet() {
+        return net;
+    }
+
+    public int getPeak() {
+        return peak;
+    }
+
+    public int getTrough() {
+        return trough;
+    }
+
+    public int getMaxDrawdown() {
+        return maxDrawdown;
+    }
+
+    /**
+     * 区间末尾的连续计数，即到区间最后一期为止的当前连胜/连败
+     *
+     * @param kind RUN_WIN、RUN_LOSING、RUN_MISS_LOSS 或 RUN_HIT_KILLED
+     */
+    public int currentRun(int kind) {
+        return runSuffix[kind];
+    }
+
+    /**
+     * 区间内最长的连续计数
+     *
+     * @param kind RUN_WIN、RUN_LOSING、RUN_MISS_LOSS 或 RUN_HIT_KILLED
+     */
+    public int maxRun(int kind) {
+        return runMax[kind];
+    }
+
+    /**
+     * 区间结束时距最高点的回撤
+     */
+    public int currentDrawdown() {
+        return peak - net;
+    }
+}
@@ -0,0 +1,296 @@
+package org.pc28.service.analysis;
+
+import org.pc28.model.SumStatsSnapshot;
+import org.pc28.utils.DrawCodeTable;
+
+import java.util.Arrays;
+
+/**
+ * 单个服务器的总和分布和遗漏计数器
+ *
+ * 最近 maxWindow 期的总和保存在环形缓冲区中，每个场次范围维护固定大小的总和直方图（28格）和大小单双计数，
+ * 新增一期时每个范围加上新总和、减去刚滑出范围的总和；遗漏只需记录每个总和和分类最后开出的序号。
+ * 快照在读取时按需生成，历史重建时不会每期都复制直方图。
+ * 期号不大于最后一期的记录会被忽略
+ */
+public class SumStatsTracker {
+
+    /**
+     * 总和的取值数量（0-27）
+     */
+    public static final int SUM_COUNT = 28;
+
+    /**
+     * 大小单双分类名称，与网站"未开"统计的命名一致
+     */
+    public static final String[] CATEGORIES = {"大", "小", "单", "双", "大单", "大双", "小单", "小双"};
+
+    /**
+     * 每个总和所属分类的位掩码
+     */
+    private static final int[] SUM_CATEGORIES = new int[SUM_COUNT];
+
+    /**
+     * 三个数字均匀独立时每个总和对应的号码数量（合计1000）
+     */
+    private static final int[] SUM_WAYS = new int[SUM_COUNT];
+
+    static {
+        for (int sum = 0; sum < SUM_COUNT; sum++) {
+            boolean big = sum >= DrawCodeTable.BIG_MIN_SUM;
+            boolean odd = sum % 2 == 1;
+            SUM_CATEGORIES[sum] = (1 << (big ? 0 : 1)) | (1 << (odd ? 2 : 3))
+                    | (1 << (big ? (odd ? 4 : 5) : (odd ? 6 : 7)));
+        }
+        for (int code = 0; code < DrawCodeTable.SIZE; code++) {
+            SUM_WAYS[DrawCodeTable.sum(code)]++;
+        }
+    }
+
+    private final String server;
+    private final int[] windows;
+    private final byte[] ring;
+    private final int[][] sumCounts;
+    private final int[][] categoryCounts;
+
+    /**
+     * 每个总和和分类最后开出时的序号（从0开始），从未开出时为-1
+     */
+    private final long[] sumLastSeen = new long[SUM_COUNT];
+    private final long[] categoryLastSeen = new long[CATEGORIES.length];
+    private final int[] sumMaxOmissions = new int[SUM_COUNT];
+    private final int[] categoryMaxOmissions = new int[CATEGORIES.length];
+
+    private int head;
+
+    private long recorded;
+
+    private int lastPeriod = -1;
+
+    private SumStatsSnapshot snapshot;
+
+    /**
+     * @param server 服务器前缀
+     * @param windows 场次范围，如[100, 500, 1000]
+     */
+    public SumStatsTracker(String server, int[] windows) {
+        if (windows.length == 0) {
+            throw new IllegalArgumentException("至少需要一个场次范围");
+        }
+        int max = 0;
+        for (int window : windows) {
+            if (window <= 0) {
+                throw new IllegalArgumentException("场次范围必须大于0: " + Arrays.toString(windows));
+            }
+            max = Math.max(max, window);
+        }
+        this.server = server;
+        this.windows = windows.clone();
+        this.ring = new byte[max];
+        this.sumCounts = new int[windows.length][SUM_COUNT];
+        this.categoryCounts = new int[windows.length][CATEGORIES.length];
+        Arrays.fill(sumLastSeen, -1);
+        Arrays.fill(categoryLastSeen, -1);
+    }
+
+    /**
+     * 记录一期开奖号码
+     *
+     * @param period 期号
+     * @param code 号码编码（0-999）
+     * @return 是否已记录（期号不大于最后一期时返回false）
+     */
+    public synchronized boolean record(int period, int code) {
+        if (period <= lastPeriod) {
+            return false;
+        }
+
+        int sum = DrawCodeTable.sum(code);
+        for (int w = 0; w < windows.length; w++) {
+            int window = windows[w];
+            // 范围已满时，减去 window 期之前的那一期
+            if (recorded >= window) {
+                int leaving = ring[Math.floorMod(head - window, ring.length)];
+                sumCounts[w][leaving]--;
+                addCategories(categoryCounts[w], leaving, -1);
+            }
+            sumCounts[w][sum]++;
+            addCategories(categoryCounts[w], sum, 1);
+        }
+
+        long index = recorded;
+        sumMaxOmissions[sum] = Math.max(sumMaxOmissions[sum], omission(sumLastSeen[sum], index));
+        sumLastSeen[sum] = index;
+        int categories = SUM_CATEGORIES[sum];
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            if ((categories & (1 << c)) != 0) {
+                categoryMaxOmissions[c] = Math.max(categoryMaxOmissions[c], omission(categoryLastSeen[c], index));
+                categoryLastSeen[c] = index;
+            }
+        }
+
+        ring[head] = (byte) sum;
+        head = (head + 1) % ring.length;
+        recorded++;
+        lastPeriod = period;
+        snapshot = null;
+        return true;
+    }
+
+    private static void addCategories(int[] counts, int sum, int delta) {
+        int categories = SUM_CATEGORIES[sum];
+        for (int c = 0; c < counts.length; c++) {
+            if ((categories & (1 << c)) != 0) {
+                counts[c] += delta;
+            }
+        }
+    }
+
+    /**
+     * 第 index 期之前连续没有开出的期数
+     */
+    private static int omission(long lastSeen, long index) {
+        return (int) Math.min(Integer.MAX_VALUE, index - lastSeen - 1);
+    }
+
+    /**
+     * 当前统计快照，记录变化后的第一次读取时生成
+     */
+    public synchronized SumStatsSnapshot snapshot() {
+        if (snapshot == null) {
+            snapshot = buildSnapshot();
+        }
+        return snapshot;
+    }
+
+    public String getServer() {
+        return server;
+    }
+
+    private SumStatsSnapshot buildSnapshot() {
+        int[] games = new int[windows.length];
+        int[][] sums = new int[windows.length][];
+        int[][] categories = new int[windows.length][];
+        double[] chiSquare = new double[windows.length];
+        double[] pValues = new double[windows.length];
+        for (int w = 0; w < windows.length; w++) {
+            games[w] = (int) Math.min(recorded, windows[w]);
+            sums[w] = sumCounts[w].clone();
+            categories[w] = categoryCounts[w].clone();
+            chiSquare[w] = chiSquare(sumCounts[w], games[w]);
+            pValues[w] = games[w] == 0 ? 1.0 : chiSquarePValue(chiSquare[w], SUM_COUNT - 1);
+        }
+
+        int[] sumOmissions = new int[SUM_COUNT];
+        for (int s = 0; s < SUM_COUNT; s++) {
+            sumOmissions[s] = omission(sumLastSeen[s], recorded);
+        }
+        int[] categoryOmissions = new int[CATEGORIES.length];
+        int[] categoryMax = new int[CATEGORIES.length];
+        for (int c = 0; c < CATEGORIES.length; c++) {
+            categoryOmissions[c] = omission(categoryLastSeen[c], recorded);
+            categoryMax[c] = Math.max(categoryMaxOmissions[c], categoryOmissions[c]);
+        }
+        int[] sumMax = new int[SUM_COUNT];
+        for (int s = 0; s < SUM_COUNT; s++) {
+            sumMax[s] = Math.max(sumMaxOmissions[s], sumOmissions[s]);
+        }
+
+        return SumStatsSnapshot.builder()
+                .server(server)
+                .lastPeriod(lastPeriod)
+                .recorded(recorded)
+                .windows(windows.clone())
+                .games(games)
+                .sumCounts(sums)
+                .categories(CATEGORIES.clone())
+                .categoryCounts(categories)
+                .sumOmissions(sumOmissions)
+                .sumMaxOmissions(sumMax)
+                .categoryOmissions(categoryOmissions)
+                .categoryMaxOmissions(categoryMax)
+                .chiSquare(chiSquare)
+                .chiSquarePValues(pValues)
+                .build();
+    }
+
+    /**
+     * 总和分布相对均匀模型（总和s的概率为 SUM_WAYS[s]/1000）的卡方统计量
+     */
+    static double chiSquare(int[] counts, int games) {
+        if (games == 0) {
+            return 0.0;
+        }
+        double statistic = 0;
+        for (int s = 0; s < SUM_COUNT; s++) {
+            double expected = games * SUM_WAYS[s] / (double) DrawCodeTable.SIZE;
+            double diff = counts[s] - expected;
+            statistic += diff * diff / expected;
+        }
+        return statistic;
+    }
+
+    /**
+     * 卡方分布的上尾概率 P(X >= x)，即正则化上不完全伽马函数 Q(dof/2, x/2)
+     */
+    static double chiSquarePValue(double x, int dof) {
+        if (x <= 0) {
+            return 1.0;
+        }
+        double a = dof / 2.0;
+        double z = x / 2.0;
+        double logPrefix = -z + a * Math.log(z) - logGamma(a);
+
+        if (z < a + 1) {
+            // 级数展开求 P(a, z)
+            double term = 1.0 / a;
+            double sum = term;
+            for (int n = 1; n < 500; n++) {
+                term *= z / (a + n);
+                sum += term;
+                if (Math.abs(term) < Math.abs(sum) * 1e-15) {
+                    break;
+                }
+            }
+            return Math.max(0.0, 1.0 - sum * Math.exp(logPrefix));
+        }
+
+        // 连分式求 Q(a, z)（Lentz算法）
+        double tiny = 1e-300;
+        double b = z + 1 - a;
+        double c = 1 / tiny;
+        double d = 1 / b;
+        double h = d;
+        for (int i = 1; i < 500; i++) {
+            double an = -i * (i - a);
+            b += 2;
+            d = an * d + b;
+            d = Math.abs(d) < tiny ? tiny : d;
+            c = b + an / c;
+            c = Math.abs(c) < tiny ? tiny : c;
+            d = 1 / d;
+            double delta = d * c;
+            h *= delta;
+            if (Math.abs(delta - 1) < 1e-15) {
+                break;
+            }
+        }
+        return Math.min(1.0, h * Math.exp(logPrefix));
+    }
+
+    /**
+     * ln Γ(x)，Lanczos近似
+     */
+    private static double logGamma(double x) {
+        double[] coefficients = {76.18009172947146, -86.50532032941677, 24.01409824083091,
+                -1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+        double y = x;
+        double tmp = x + 5.5;
+        tmp -= (x + 0.5) * Math.log(tmp);
+        double series = 1.000000000190015;
+        for (double coefficient : coefficients) {
+            series += coefficient / ++y;
+        }
+        return -tmp + Math.log(2.5066282746310005 * series / x);
+    }
+}
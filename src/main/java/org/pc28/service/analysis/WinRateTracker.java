@@ -0,0 +1,132 @@
+package org.pc28.service.analysis;
+
+import org.pc28.model.WinRateSnapshot;
+import org.pc28.utils.BettingResultAnalyzer.BettingResult;
+
+import java.util.Arrays;
+
+/**
+ * 单个服务器的滑动窗口胜率计数器
+ *
+ * 最近 maxWindow 期的结果保存在环形缓冲区中，每个场次范围维护一个胜利计数：
+ * 新增一期时每个范围只需加上新结果、减去刚滑出范围的结果，更新为 O(范围数)。
+ * 快照在记录变化后的第一次读取时生成并缓存，历史重建时不会每期都复制计数数组，仪表盘轮询读取缓存的不可变快照。
+ * 期号不大于最后一期的记录会被忽略，保证重复入库或回填旧期号不会重复计数
+ */
+public class WinRateTracker {
+
+    private final String server;
+    private final String killRule;
+    private final int[] windows;
+    private final boolean[] ring;
+    private final int[] wins;
+
+    /**
+     * 下一个写入位置
+     */
+    private int head;
+
+    private long recorded;
+
+    private int lastPeriod = -1;
+
+    private WinRateSnapshot snapshot;
+
+    /**
+     * @param server 服务器前缀
+     * @param killRule 杀规则集名称（只用于展示）
+     * @param windows 场次范围，如[10, 20, 30, 50, 100]
+     */
+    public WinRateTracker(String server, String killRule, int[] windows) {
+        if (windows.length == 0) {
+            throw new IllegalArgumentException("至少需要一个场次范围");
+        }
+        int[] sorted = windows.clone();
+        Arrays.sort(sorted);
+        if (sorted[0] <= 0) {
+            throw new IllegalArgumentException("场次范围必须大于0: " + Arrays.toString(windows));
+        }
+        this.server = server;
+        this.killRule = killRule;
+        this.windows = windows.clone();
+        this.ring = new boolean[sorted[sorted.length - 1]];
+        this.wins = new int[windows.length];
+    }
+
+    /**
+     * 记录一期的下注结果
+     *
+     * @param period 期号
+     * @param result 下注结果
+     * @return 是否已记录（期号不大于最后一期时返回false）
+     */
+    public synchronized boolean record(int period, BettingResult result) {
+        if (period <= lastPeriod) {
+            return false;
+        }
+
+        boolean win = result != null && result.isWin();
+        for (int i = 0; i < windows.length; i++) {
+            int window = windows[i];
+            // 范围已满时，减去 window 期之前的那一期
+            if (recorded >= window && ring[Math.floorMod(head - window, ring.length)]) {
+                wins[i]--;
+            }
+            if (win) {
+                wins[i]++;
+            }
+        }
+
+        ring[head] = win;
+        head = (head + 1) % ring.length;
+        recorded++;
+        lastPeriod = period;
+        snapshot = null;
+        return true;
+    }
+
+    /**
+     * 清空所有记录
+     */
+    public synchronized void reset() {
+        Arrays.fill(ring, false);
+        Arrays.fill(wins, 0);
+        head = 0;
+        recorded = 0;
+        lastPeriod = -1;
+        snapshot = null;
+    }
+
+    /**
+     * 当前胜率快照，记录变化后的第一次读取时生成
+     */
+    public synchronized WinRateSnapshot snapshot() {
+        if (snapshot == null) {
+            snapshot = buildSnapshot();
+        }
+        return snapshot;
+    }
+
+    public String getServer() {
+        return server;
+    }
+
+    private WinRateSnapshot buildSnapshot() {
+        int[] games = new int[windows.length];
+        double[] winRates = new double[windows.length];
+        for (int i = 0; i < windows.length; i++) {
+            games[i] = (int) Math.min(recorded, windows[i]);
+            winRates[i] = games[i] == 0 ? 0.0 : (double) wins[i] / games[i];
+        }
+        return WinRateSnapshot.builder()
+                .server(server)
+                .killRule(killRule)
+                .lastPeriod(lastPeriod)
+                .recorded(recorded)
+                .windows(windows.clone())
+                .games(games)
+                .wins(wins.clone())
+                .winRates(winRates)
+                .build();
+    }
+}
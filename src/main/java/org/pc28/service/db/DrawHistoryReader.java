@@ -0,0 +1,183 @@
+package org.pc28.service.db;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.pc28.model.DrawSeries;
+import org.pc28.model.ParsedServerPage;
+import org.pc28.utils.DrawCodeTable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * 开奖历史读取器
+ * 按存储模式从分服务器表或统一表读取期号、号码、预测和结果，直接组装为列式的 DrawSeries，供统计和回测使用
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class DrawHistoryReader {
+
+    /**
+     * 非MySQL数据库流式读取时每批取回的行数
+     */
+    private static final int STREAM_FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 历史记录存储模式，只写统一表时从统一表读取，否则从旧表读取（迁移过渡期旧表的数据最完整）
+     */
+    @Value("${pc28.persistence.storage-mode:legacy}")
+    private HistoryStorageMode storageMode;
+
+    /**
+     * 可读取的服务器前缀
+     */
+    public List<String> servers() {
+        if (storageMode.writesLegacy()) {
+            return HistoryBatchWriter.legacyServers();
+        }
+        return jdbcTemplate.queryForList("SELECT DISTINCT server FROM " + HistoryBatchWriter.UNIFIED_TABLE
+                + " ORDER BY server", String.class);
+    }
+
+    /**
+     * 读取服务器最近的若干期记录
+     *
+     * @param server 服务器前缀
+     * @param limit 最多读取的期数
+     * @return 按期号从旧到新排列的序列
+     */
+    public DrawSeries loadRecent(String server, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("limit必须大于0");
+        }
+
+        List<Object[]> rows = new ArrayList<>(Math.min(limit, 10_000));
+        RowCallbackHandler handler = rs -> rows.add(new Object[]{
+                rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4)});
+
+        if (storageMode.writesLegacy()) {
+            String tableName = requireLegacyTable(server);
+            jdbcTemplate.query("SELECT period, numbers, prediction, outcome FROM " + tableName
+                    + " ORDER BY period DESC LIMIT ?", handler, limit);
+        } else {
+            jdbcTemplate.query("SELECT period, numbers, prediction, outcome FROM " + HistoryBatchWriter.UNIFIED_TABLE
+                    + " WHERE server = ? ORDER BY period DESC LIMIT ?", handler, server, limit);
+        }
+
+        // 查询结果从新到旧，倒序装入序列
+        DrawSeries series = new DrawSeries(server, rows.size());
+        for (int i = rows.size() - 1; i >= 0; i--) {
+            Object[] row = rows.get(i);
+            series.add((Integer) row[0], (String) row[1], (String) row[2], (String) row[3]);
+        }
+        log.debug("读取服务器 {} 最近 {} 期记录，期号 {} - {}", server, series.getSize(),
+                series.firstPeriod(), series.lastPeriod());
+        return series;
+    }
+
+    /**
+     * 读取服务器期号区间内的记录
+     *
+     * @param server 服务器前缀
+     * @param fromPeriod 起始期号（包含）
+     * @param toPeriod 结束期号（包含）
+     * @return 按期号从旧到新排列的序列
+     */
+    public DrawSeries loadRange(String server, int fromPeriod, int toPeriod) {
+        DrawSeries series = new DrawSeries(server, Math.max(16, Math.min(toPeriod - fromPeriod + 1, 100_000)));
+        RowCallbackHandler handler = rs -> series.add(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getString(4));
+
+        if (storageMode.writesLegacy()) {
+            String tableName = requireLegacyTable(server);
+            jdbcTemplate.query("SELECT period, numbers, prediction, outcome FROM " + tableName
+                    + " WHERE period BETWEEN ? AND ? ORDER BY period", handler, fromPeriod, toPeriod);
+        } else {
+            jdbcTemplate.query("SELECT period, numbers, prediction, outcome FROM " + HistoryBatchWriter.UNIFIED_TABLE
+                    + " WHERE server = ? AND period BETWEEN ? AND ? ORDER BY period", handler, server, fromPeriod, toPeriod);
+        }
+        return series;
+    }
+
+    /**
+     * 按期号从旧到新流式读取服务器的全部记录，结果集逐行从数据库取回，不在内存中整体缓存
+     *
+     * @param server 服务器前缀
+     * @param handler 每行记录的处理器
+     * @return 读取的记录数量
+     */
+    public int streamAll(String server, DrawRowHandler handler) {
+        String sql;
+        Object[] args;
+        if (storageMode.writesLegacy()) {
+            sql = "SELECT period, numbers, prediction, outcome FROM " + requireLegacyTable(server) + " ORDER BY period";
+            args = new Object[0];
+        } else {
+            sql = "SELECT period, numbers, prediction, outcome FROM " + HistoryBatchWriter.UNIFIED_TABLE
+                    + " WHERE server = ? ORDER BY period";
+            args = new Object[]{server};
+        }
+
+        int[] count = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement ps = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(streamingFetchSize(connection));
+            for (int i = 0; i < args.length; i++) {
+                ps.setObject(i + 1, args[i]);
+            }
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            int code = DrawCodeTable.encode(rs.getString(2));
+            handler.accept(rs.getInt(1), code == DrawCodeTable.INVALID ? DrawSeries.NO_CODE : code,
+                    ParsedServerPage.predictionCode(rs.getString(3)), ParsedServerPage.outcomeCode(rs.getString(4)));
+            count[0]++;
+        });
+        return count[0];
+    }
+
+    /**
+     * 流式读取时每行记录的处理器
+     */
+    @FunctionalInterface
+    public interface DrawRowHandler {
+
+        /**
+         * @param period 期号
+         * @param code 号码编码，未开奖或格式不标准时为 {@link DrawSeries#NO_CODE}
+         * @param prediction 预测编码（ParsedServerPage.PREDICTION_*）
+         * @param outcome 结果编码（ParsedServerPage.OUTCOME_*）
+         */
+        void accept(int period, int code, byte prediction, byte outcome);
+    }
+
+    /**
+     * 流式读取使用的 fetchSize：MySQL 驱动在 Integer.MIN_VALUE 时逐行返回结果，
+     * 其他数据库（如基准测试使用的H2）不接受负数，按普通的分批大小读取
+     */
+    private static int streamingFetchSize(Connection connection) throws SQLException {
+        String product = connection.getMetaData().getDatabaseProductName();
+        if (product != null && product.toLowerCase(Locale.ROOT).contains("mysql")) {
+            return Integer.MIN_VALUE;
+        }
+        return STREAM_FETCH_SIZE;
+    }
+
+    private static String requireLegacyTable(String server) {
+        String tableName = HistoryBatchWriter.tableNameOf(server);
+        if (tableName == null) {
+            throw new IllegalArgumentException("未知的服务器前缀: " + server);
+        }
+        return tableName;
+    }
+}
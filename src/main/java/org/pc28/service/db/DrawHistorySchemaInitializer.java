@@ -0,0 +1,75 @@
+package org.pc28.service.db;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 统一历史记录表的分区初始化
+ * 表结构由JPA自动创建，这里在MySQL上把 draw_history 转换为按服务器的 KEY 分区表。
+ * 主键（server, period）包含分区列，满足MySQL分区表对唯一键的要求；
+ * 按服务器查询只扫描单个分区，跨服务器按期号查询走 (period, server) 索引
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class DrawHistorySchemaInitializer {
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final AtomicBoolean initialized = new AtomicBoolean(false);
+    
+    /**
+     * 是否自动为统一表建立分区
+     */
+    @Value("${pc28.persistence.partition-enabled:true}")
+    private boolean partitionEnabled;
+    
+    /**
+     * 分区数量
+     */
+    @Value("${pc28.persistence.partition-count:8}")
+    private int partitionCount;
+    
+    /**
+     * 上下文刷新完成后（JPA已建表、命令行启动前）检查并建立分区
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void onContextRefreshed() {
+        if (!partitionEnabled || !initialized.compareAndSet(false, true)) {
+            return;
+        }
+        
+        try {
+            String product = jdbcTemplate.execute(
+                    (ConnectionCallback<String>) con -> con.getMetaData().getDatabaseProductName());
+            if (product == null || !product.toLowerCase().contains("mysql")) {
+                log.info("当前数据库 {} 不支持KEY分区，跳过统一历史表分区", product);
+                return;
+            }
+            
+            Integer partitions = jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM information_schema.PARTITIONS WHERE TABLE_SCHEMA = DATABASE() " +
+                    "AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL",
+                    Integer.class, HistoryBatchWriter.UNIFIED_TABLE);
+            if (partitions != null && partitions > 0) {
+                log.debug("统一历史表已分区，分区数: {}", partitions);
+                return;
+            }
+            
+            log.info("为统一历史表 {} 建立 {} 个按服务器的KEY分区", HistoryBatchWriter.UNIFIED_TABLE, partitionCount);
+            jdbcTemplate.execute("ALTER TABLE " + HistoryBatchWriter.UNIFIED_TABLE +
+                    " PARTITION BY KEY(server) PARTITIONS " + partitionCount);
+        } catch (DataAccessException e) {
+            log.warn("统一历史表分区失败，继续使用未分区的表: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package org.pc28.service.db;
+
+import org.pc28.model.DrawSeries;
+
+/**
+ * 开奖记录入库事件
+ * 包含本次写入的记录，按期号从旧到新排列；未开奖的记录号码编码为 DrawSeries.NO_CODE，
+ * 只关心开奖结果的监听方应跳过这些记录。
+ * 事件在保存事务内发布，监听方应使用 @TransactionalEventListener 在提交后处理
+ *
+ * @param server 服务器前缀
+ * @param draws 本次入库的记录
+ */
+public record DrawPersistedEvent(String server, DrawSeries draws) {
+}
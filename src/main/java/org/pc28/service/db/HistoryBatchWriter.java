@@ -0,0 +1,280 @@
+package org.pc28.service.db;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 历史记录批量写入器
+ * 一次查询取出期号区间内的已有记录，再用一个JDBC批次执行 INSERT ... ON DUPLICATE KEY UPDATE
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class HistoryBatchWriter {
+    
+    /**
+     * 服务器前缀与历史记录表名的对应关系
+     */
+    private static final Map<String, String> TABLE_NAMES = Map.of(
+            "sf1", "sf1_history",
+            "sf3", "sf3_history",
+            "sf4", "sf4_history",
+            "sf5", "sf5_history",
+            "sf6", "sf6_history",
+            "sf7", "sf7_history"
+    );
+    
+    private static final String UPSERT_SQL_TEMPLATE =
+            "INSERT INTO %s (period, numbers, prediction, outcome, total_number, kill_number, " +
+            "betting_result, open_result, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE numbers = VALUES(numbers), prediction = VALUES(prediction), " +
+            "outcome = VALUES(outcome), total_number = VALUES(total_number), kill_number = VALUES(kill_number), " +
+            "betting_result = VALUES(betting_result), open_result = VALUES(open_result), updated_at = VALUES(updated_at)";
+    
+    /**
+     * 统一历史记录表名
+     */
+    public static final String UNIFIED_TABLE = "draw_history";
+    
+    private static final String UNIFIED_UPSERT_SQL =
+            "INSERT INTO " + UNIFIED_TABLE + " (server, period, numbers, prediction, outcome, total_number, kill_number, " +
+            "betting_result, open_result, created_at, updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON DUPLICATE KEY UPDATE numbers = VALUES(numbers), prediction = VALUES(prediction), " +
+            "outcome = VALUES(outcome), total_number = VALUES(total_number), kill_number = VALUES(kill_number), " +
+            "betting_result = VALUES(betting_result), open_result = VALUES(open_result), updated_at = VALUES(updated_at)";
+    
+    /**
+     * 旧表整表复制到统一表：统一表中已有真实号码的记录保持不变，只覆盖占位记录。
+     * INSERT ... SELECT 的更新子句中未限定的列名同时匹配两张表（MySQL 1052），统一表的列必须写成 draw_history.列名；
+     * MySQL按从左到右的顺序执行赋值，numbers 必须放在最后，前面的条件判断才能看到旧值。
+     * 服务器前缀来自 {@link #TABLE_NAMES} 的校验结果，直接写入查询列，避免选择列表中的参数没有类型
+     */
+    private static final String PLACEHOLDER_CONDITION = "CASE WHEN " + UNIFIED_TABLE + ".numbers IN ('---', '-') ";
+    
+    private static final String MIGRATE_SQL_TEMPLATE =
+            "INSERT INTO " + UNIFIED_TABLE + " (server, period, numbers, prediction, outcome, total_number, kill_number, " +
+            "betting_result, open_result, created_at, updated_at) " +
+            "SELECT '%s', period, numbers, prediction, outcome, total_number, kill_number, betting_result, open_result, " +
+            "created_at, updated_at FROM %s WHERE period BETWEEN ? AND ? " +
+            "ON DUPLICATE KEY UPDATE " +
+            "prediction = " + keepUnlessPlaceholder("prediction") + ", " +
+            "outcome = " + keepUnlessPlaceholder("outcome") + ", " +
+            "total_number = " + keepUnlessPlaceholder("total_number") + ", " +
+            "kill_number = " + keepUnlessPlaceholder("kill_number") + ", " +
+            "betting_result = " + keepUnlessPlaceholder("betting_result") + ", " +
+            "open_result = " + keepUnlessPlaceholder("open_result") + ", " +
+            "updated_at = " + keepUnlessPlaceholder("updated_at") + ", " +
+            "numbers = " + keepUnlessPlaceholder("numbers");
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    /**
+     * 获取服务器对应的历史记录表名
+     *
+     * @param serverPrefix 服务器前缀
+     * @return 表名，未知的服务器返回null
+     */
+    public static String tableNameOf(String serverPrefix) {
+        return TABLE_NAMES.get(serverPrefix);
+    }
+    
+    /**
+     * 获取所有已知的旧表服务器前缀（按名称排序）
+     */
+    public static List<String> legacyServers() {
+        return TABLE_NAMES.keySet().stream().sorted().toList();
+    }
+    
+    /**
+     * 一次查询取出期号区间内已有记录的号码
+     *
+     * @param tableName 表名
+     * @param minPeriod 最小期号
+     * @param maxPeriod 最大期号
+     * @return 期号到号码的映射
+     */
+    public Map<Integer, String> loadExistingNumbers(String tableName, int minPeriod, int maxPeriod) {
+        Map<Integer, String> existing = new HashMap<>();
+        jdbcTemplate.query("SELECT period, numbers FROM " + tableName + " WHERE period BETWEEN ? AND ?",
+                (RowCallbackHandler) rs -> existing.put(rs.getInt(1), rs.getString(2)),
+                minPeriod, maxPeriod);
+        return existing;
+    }
+    
+    /**
+     * 逐行扫描旧表的期号和号码，用于预热内存索引
+     *
+     * @param tableName 表名
+     * @param handler 行处理器，列依次为 period, numbers
+     */
+    public void scanLegacy(String tableName, RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT period, numbers FROM " + tableName, handler);
+    }
+    
+    /**
+     * 逐行扫描统一表的服务器、期号和号码，用于预热内存索引
+     *
+     * @param handler 行处理器，列依次为 server, period, numbers
+     */
+    public void scanUnified(RowCallbackHandler handler) {
+        jdbcTemplate.query("SELECT server, period, numbers FROM " + UNIFIED_TABLE, handler);
+    }
+    
+    /**
+     * 一次查询取出统一表中指定服务器期号区间内已有记录的号码
+     *
+     * @param server 服务器前缀
+     * @param minPeriod 最小期号
+     * @param maxPeriod 最大期号
+     * @return 期号到号码的映射
+     */
+    public Map<Integer, String> loadExistingNumbersUnified(String server, int minPeriod, int maxPeriod) {
+        Map<Integer, String> existing = new HashMap<>();
+        jdbcTemplate.query("SELECT period, numbers FROM " + UNIFIED_TABLE + " WHERE server = ? AND period BETWEEN ? AND ?",
+                (RowCallbackHandler) rs -> existing.put(rs.getInt(1), rs.getString(2)),
+                server, minPeriod, maxPeriod);
+        return existing;
+    }
+    
+    /**
+     * 以一个JDBC批次插入新记录或更新已有记录
+     *
+     * @param tableName 表名
+     * @param rows 需要写入的记录
+     * @return 写入的记录数量
+     */
+    public int upsert(String tableName, List<HistoryRow> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(String.format(UPSERT_SQL_TEMPLATE, tableName), rows, rows.size(), (ps, row) -> {
+            ps.setInt(1, row.getPeriod());
+            ps.setString(2, row.getNumbers());
+            ps.setString(3, row.getPrediction());
+            ps.setString(4, row.getOutcome());
+            if (row.getTotalNumber() != null) {
+                ps.setInt(5, row.getTotalNumber());
+            } else {
+                ps.setNull(5, Types.INTEGER);
+            }
+            ps.setString(6, row.getKillNumber());
+            ps.setString(7, row.getBettingResult());
+            ps.setString(8, row.getOpenResult());
+            ps.setTimestamp(9, now);
+            ps.setTimestamp(10, now);
+        });
+        
+        log.debug("批量写入 {} 条记录到表 {}", rows.size(), tableName);
+        return rows.size();
+    }
+    
+    /**
+     * 以一个JDBC批次向统一表插入新记录或更新已有记录
+     *
+     * @param server 服务器前缀
+     * @param rows 需要写入的记录
+     * @return 写入的记录数量
+     */
+    public int upsertUnified(String server, List<HistoryRow> rows) {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(UNIFIED_UPSERT_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setString(1, server);
+            ps.setInt(2, row.getPeriod());
+            ps.setString(3, row.getNumbers());
+            ps.setString(4, row.getPrediction());
+            ps.setString(5, row.getOutcome());
+            if (row.getTotalNumber() != null) {
+                ps.setInt(6, row.getTotalNumber());
+            } else {
+                ps.setNull(6, Types.INTEGER);
+            }
+            ps.setString(7, row.getKillNumber());
+            ps.setString(8, row.getBettingResult());
+            ps.setString(9, row.getOpenResult());
+            ps.setTimestamp(10, now);
+            ps.setTimestamp(11, now);
+        });
+        
+        log.debug("批量写入 {} 条记录到统一表，服务器: {}", rows.size(), server);
+        return rows.size();
+    }
+    
+    /**
+     * 查询旧表的期号范围
+     *
+     * @param tableName 表名
+     * @return [最小期号, 最大期号]，空表返回null
+     */
+    public int[] periodRangeOf(String tableName) {
+        return jdbcTemplate.query("SELECT MIN(period), MAX(period) FROM " + tableName, (ResultSetExtractor<int[]>) rs -> {
+            if (!rs.next()) {
+                return null;
+            }
+            int min = rs.getInt(1);
+            if (rs.wasNull()) {
+                return null;
+            }
+            return new int[]{min, rs.getInt(2)};
+        });
+    }
+    
+    /**
+     * 把旧表中一个期号区间的记录用一条 INSERT ... SELECT 复制到统一表
+     *
+     * @param server 服务器前缀
+     * @param fromPeriod 起始期号（包含）
+     * @param toPeriod 结束期号（包含）
+     * @return 受影响的行数（MySQL中更新的行计为2）
+     */
+    public int copyLegacyRange(String server, int fromPeriod, int toPeriod) {
+        String tableName = tableNameOf(server);
+        if (tableName == null) {
+            throw new IllegalArgumentException("未知的服务器前缀: " + server);
+        }
+        return jdbcTemplate.update(String.format(MIGRATE_SQL_TEMPLATE, server, tableName), fromPeriod, toPeriod);
+    }
+    
+    /**
+     * 统一表中是占位记录时取旧表的值，否则保留统一表的值
+     */
+    private static String keepUnlessPlaceholder(String column) {
+        return PLACEHOLDER_CONDITION + "THEN VALUES(" + column + ") ELSE " + UNIFIED_TABLE + "." + column + " END";
+    }
+    
+    /**
+     * 待写入的历史记录行
+     */
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class HistoryRow {
+        private int period;
+        private String numbers;
+        private String prediction;
+        private String outcome;
+        private Integer totalNumber;
+        private String killNumber;
+        private String bettingResult;
+        private String openResult;
+    }
+}
@@ -1,5 +1,7 @@
 package org.pc28.service.db;
 
+import org.pc28.model.ParsedServerPage;
+
 import java.util.List;
 import java.util.Map;
 
@@ -24,4 +26,67 @@ public interface HistoryDataService {
      * @return 各服务器保存的记录数量
      */
     Map<String, Integer> saveAllServersData(List<Map<String, Object>> allResults);
+    
+    /**
+     * 保存单个服务器的列式解析结果
+     * 
+     * @param page 解析结果
+     * @return 保存的记录数量
+     */
+    int saveServerPage(ParsedServerPage page);
+    
+    /**
+     * 分析单个服务器的列式解析结果，得到待写入的记录行（杀、单双、下注结果），不访问数据库
+     * 
+     * @param page 解析结果
+     * @return 分析结果，交给 {@link #savePreparedPage} 入库
+     */
+    PreparedServerPage prepareServerPage(ParsedServerPage page);
+    
+    /**
+     * 保存 {@link #prepareServerPage} 分析好的记录行
+     * 
+     * @param prepared 分析结果
+     * @return 保存的记录数量
+     */
+    int savePreparedPage(PreparedServerPage prepared);
+    
+    /**
+     * 保存所有服务器的列式解析结果
+     * 
+     * @param allPages 所有服务器的解析结果
+     * @return 各服务器保存的记录数量
+     */
+    Map<String, Integer> saveAllServerPages(List<ParsedServerPage> allPages);
+    
+    /**
+     * 把分服务器的旧表（sf1_history ...）批量复制到统一表 draw_history
+     * 统一表中已有真实号码的记录不会被覆盖，可以重复执行
+     * 
+     * @param chunkSize 每条 INSERT ... SELECT 复制的期号区间大小
+     * @return 各服务器受影响的行数
+     */
+    Map<String, Integer> migrateToUnifiedTable(int chunkSize);
+    
+    /**
+     * 获取当前的历史记录存储模式
+     * 
+     * @return 存储模式
+     */
+    HistoryStorageMode getStorageMode();
+    
+    /**
+     * 从数据库重新加载各服务器已入库期号的内存索引
+     * 
+     * @return 加载的记录数量
+     */
+    int warmPresenceIndex();
+    
+    /**
+     * 获取增量解析可以停止的期号水位，页面上不大于该期号的行都已以真实号码入库
+     * 
+     * @param serverPrefix 服务器前缀
+     * @return 水位期号，未知时返回-1（需要完整解析）
+     */
+    int getFinalWatermark(String serverPrefix);
 }
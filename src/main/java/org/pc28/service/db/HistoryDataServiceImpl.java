@@ -3,14 +3,28 @@ package org.pc28.service.db;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.pc28.entity.*;
+import org.pc28.model.DrawSeries;
+import org.pc28.model.ParsedServerPage;
+import org.pc28.utils.DrawCodeTable;
 import org.pc28.utils.NumberAnalysisUtil;
 import org.pc28.utils.BettingResultAnalyzer;
 import org.pc28.utils.BettingResultAnalyzer.BettingResult;
 import org.pc28.repository.*;
+import org.pc28.service.db.HistoryBatchWriter.HistoryRow;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -22,12 +36,86 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class HistoryDataServiceImpl implements HistoryDataService {
 
+    /**
+     * 计算增量解析水位时回看的期数，与页面上的历史记录行数一致
+     */
+    private static final int WATERMARK_WINDOW = 100;
+    
     private final Sf1HistoryRepository sf1Repository;
     private final Sf3HistoryRepository sf3Repository;
     private final Sf4HistoryRepository sf4Repository;
     private final Sf5HistoryRepository sf5Repository;
     private final Sf6HistoryRepository sf6Repository;
     private final Sf7HistoryRepository sf7Repository;
+    private final HistoryBatchWriter batchWriter;
+    private final PeriodPresenceIndex presenceIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    
+    /**
+     * 是否使用批量写入（一次查询 + 一个JDBC批次），关闭时逐行查询和保存
+     */
+    @Value("${pc28.persistence.batch-enabled:true}")
+    private boolean batchEnabled;
+    
+    /**
+     * 历史记录存储模式：legacy（分服务器表）、unified（统一表）、dual（两者都写）
+     */
+    @Value("${pc28.persistence.storage-mode:legacy}")
+    private HistoryStorageMode storageMode;
+    
+    /**
+     * 是否使用内存期号索引跳过已入库记录的数据库查询
+     */
+    @Value("${pc28.persistence.presence-index-enabled:true}")
+    private boolean presenceIndexEnabled;
+    
+    /**
+     * 上下文刷新完成后从数据库预热期号索引
+     */
+    @EventListener(ContextRefreshedEvent.class)
+    public void onContextRefreshed() {
+        if (presenceIndexEnabled) {
+            try {
+                warmPresenceIndex();
+            } catch (DataAccessException e) {
+                log.warn("预热期号索引失败，将直接查询数据库: {}", e.getMessage());
+                presenceIndex.clearAll();
+            }
+        }
+    }
+    
+    @Override
+    public int getFinalWatermark(String serverPrefix) {
+        if (!presenceIndexEnabled) {
+            return -1;
+        }
+        return presenceIndex.finalWatermark(serverPrefix, WATERMARK_WINDOW);
+    }
+    
+    @Override
+    public int warmPresenceIndex() {
+        long start = System.currentTimeMillis();
+        presenceIndex.clearAll();
+        int[] rowCount = {0};
+        
+        // 统一表是主存储时从统一表预热，否则从各服务器的旧表预热
+        if (storageMode.writesUnified()) {
+            batchWriter.scanUnified(rs -> {
+                presenceIndex.mark(rs.getString(1), rs.getInt(2), isPlaceholder(rs.getString(3)));
+                rowCount[0]++;
+            });
+        } else {
+            for (String server : HistoryBatchWriter.legacyServers()) {
+                batchWriter.scanLegacy(HistoryBatchWriter.tableNameOf(server), rs -> {
+                    presenceIndex.mark(server, rs.getInt(1), isPlaceholder(rs.getString(2)));
+                    rowCount[0]++;
+                });
+            }
+        }
+        
+        log.info("期号索引预热完成，共 {} 条记录，耗时 {} 毫秒", rowCount[0], System.currentTimeMillis() - start);
+        return rowCount[0];
+    }
     
     @Override
     @Transactional
@@ -37,6 +125,11 @@ public class HistoryDataServiceImpl implements HistoryDataService {
             return 0;
         }
         
+        if (data.containsKey("unchanged")) {
+            log.info("服务器 {} 的内容与上次相同，跳过保存", serverPrefix);
+            return 0;
+        }
+        
         if (data.containsKey("error")) {
             log.error("解析数据存在错误，无法保存。服务器前缀: {}, 错误: {}", 
                     serverPrefix, data.get("error"));
@@ -52,7 +145,82 @@ public class HistoryDataServiceImpl implements HistoryDataService {
             return 0;
         }
         
+        // 统一表只有批量写入路径
+        if (batchEnabled || storageMode.writesUnified()) {
+            int savedCount = saveServerPageBatch(serverPrefix, ParsedServerPage.fromMap(serverPrefix, data));
+            log.info("批量保存服务器 {} 的数据完成，共写入 {} 条历史记录", serverPrefix, savedCount);
+            return savedCount;
+        }
+        
+        return saveServerDataLegacy(serverPrefix, data, historyCount);
+    }
+    
+    @Override
+    @Transactional
+    public int saveServerPage(ParsedServerPage page) {
+        if (page == null) {
+            log.warn("没有数据需要保存");
+            return 0;
+        }
+        
+        String serverPrefix = page.getServer();
+        if (page.isUnchanged()) {
+            log.info("服务器 {} 的内容与上次相同，跳过保存", serverPrefix);
+            return 0;
+        }
+        
+        if (page.hasError()) {
+            log.error("解析数据存在错误，无法保存。服务器前缀: {}, 错误: {}", serverPrefix, page.getError());
+            return 0;
+        }
+        
+        log.info("开始保存服务器 {} 的解析数据", serverPrefix);
+        
+        if (page.getRowCount() <= 0) {
+            log.warn("没有找到历史记录数据，服务器前缀: {}", serverPrefix);
+            return 0;
+        }
+        
+        if (batchEnabled || storageMode.writesUnified()) {
+            int savedCount = saveServerPageBatch(serverPrefix, page);
+            log.info("批量保存服务器 {} 的数据完成，共写入 {} 条历史记录", serverPrefix, savedCount);
+            return savedCount;
+        }
+        
+        // 逐行保存路径仍按旧的Map格式处理
+        return saveServerDataLegacy(serverPrefix, page.toMap(), page.getRowCount());
+    }
+    
+    @Override
+    public PreparedServerPage prepareServerPage(ParsedServerPage page) {
+        // 只有批量写入路径使用预先分析好的行，逐行保存路径仍在入库时按旧的Map格式处理
+        if (page == null || page.isUnchanged() || page.hasError() || page.getRowCount() <= 0
+                || !(batchEnabled || storageMode.writesUnified())) {
+            return new PreparedServerPage(page, null);
+        }
+        return new PreparedServerPage(page, extractRows(page.getServer(), page));
+    }
+    
+    @Override
+    @Transactional
+    public int savePreparedPage(PreparedServerPage prepared) {
+        if (prepared.rows() == null) {
+            return saveServerPage(prepared.page());
+        }
+        
+        String serverPrefix = prepared.page().getServer();
+        log.info("开始保存服务器 {} 的解析数据", serverPrefix);
+        int savedCount = saveRowsBatch(serverPrefix, prepared.rows());
+        log.info("批量保存服务器 {} 的数据完成，共写入 {} 条历史记录", serverPrefix, savedCount);
+        return savedCount;
+    }
+    
+    /**
+     * 逐行查询和保存单个服务器的历史数据（关闭批量写入时使用）
+     */
+    private int saveServerDataLegacy(String serverPrefix, Map<String, Object> data, int historyCount) {
         int savedCount = 0;
+        List<HistoryRow> savedRows = new ArrayList<>();
         
         // 遍历历史记录并保存
         for (int i = 0; i < historyCount; i++) {
@@ -89,18 +257,248 @@ public class HistoryDataServiceImpl implements HistoryDataService {
                     log.debug("检测到杀: {}, 号码: {}", period, numbers);
                 }
                 
+                // 内存索引中已是最终号码（或仍是占位）的期号不需要访问数据库
+                Integer periodInt = parsePeriodOrNull(period);
+                if (presenceIndexEnabled && periodInt != null
+                        && presenceIndex.canSkip(serverPrefix, periodInt, isPlaceholder(numbers))) {
+                    continue;
+                }
+                
                 // 保存历史记录
                 boolean saved = saveHistoryRecord(serverPrefix, period, numbers, prediction, outcome, totalNumber, killNumber);
                 if (saved) {
                     savedCount++;
+                    if (periodInt != null) {
+                        markAfterCommit(serverPrefix, List.of(periodInt), List.of(isPlaceholder(numbers)));
+                        savedRows.add(new HistoryRow(periodInt, numbers, prediction, outcome, null, killNumber, null, null));
+                    }
                 }
             }
         }
         
+        publishPersisted(serverPrefix, savedRows);
         log.info("保存服务器 {} 的数据完成，共保存 {} 条历史记录", serverPrefix, savedCount);
         return savedCount;
     }
     
+    /**
+     * 批量保存单个服务器的历史数据
+     * 一次查询取出本页期号区间内的已有记录，只写入新期号以及从"---"变为真实号码的占位记录。
+     * 按存储模式写入分服务器表、统一表或两者，统一表不需要为新服务器增加任何代码
+     */
+    private int saveServerPageBatch(String serverPrefix, ParsedServerPage page) {
+        return saveRowsBatch(serverPrefix, extractRows(serverPrefix, page));
+    }
+    
+    /**
+     * 批量保存单个服务器已分析好的历史记录行
+     */
+    private int saveRowsBatch(String serverPrefix, List<HistoryRow> rows) {
+        String tableName = HistoryBatchWriter.tableNameOf(serverPrefix);
+        if (tableName == null && !storageMode.writesUnified()) {
+            log.warn("未知的服务器前缀: {}", serverPrefix);
+            return 0;
+        }
+        
+        if (rows.isEmpty()) {
+            return 0;
+        }
+        
+        int minPeriod = Integer.MAX_VALUE;
+        int maxPeriod = Integer.MIN_VALUE;
+        for (HistoryRow row : rows) {
+            minPeriod = Math.min(minPeriod, row.getPeriod());
+            maxPeriod = Math.max(maxPeriod, row.getPeriod());
+        }
+        
+        // 双写时两张表分别判断需要写入的记录，写入数量相加，事件和索引使用两张表的合并结果
+        int savedCount = 0;
+        List<HistoryRow> savedRows = new ArrayList<>();
+        Map<Integer, Boolean> storedPlaceholders = null;
+        if (storageMode.writesLegacy() && tableName != null) {
+            Map<Integer, String> existingNumbers = batchWriter.loadExistingNumbers(tableName, minPeriod, maxPeriod);
+            List<HistoryRow> pendingRows = selectPendingRows(serverPrefix, rows, existingNumbers);
+            savedCount += batchWriter.upsert(tableName, pendingRows);
+            savedRows.addAll(pendingRows);
+            storedPlaceholders = mergeStored(storedPlaceholders, existingNumbers, pendingRows);
+        }
+        if (storageMode.writesUnified()) {
+            Map<Integer, String> existingNumbers = batchWriter.loadExistingNumbersUnified(serverPrefix, minPeriod, maxPeriod);
+            List<HistoryRow> pendingRows = selectPendingRows(serverPrefix, rows, existingNumbers);
+            savedCount += batchWriter.upsertUnified(serverPrefix, pendingRows);
+            savedRows.addAll(pendingRows);
+            storedPlaceholders = mergeStored(storedPlaceholders, existingNumbers, pendingRows);
+        }
+        
+        if (presenceIndexEnabled && storedPlaceholders != null) {
+            // 数据库中已有的记录和本次写入的记录都记入索引，下一轮不再查询
+            List<Integer> periods = new ArrayList<>(storedPlaceholders.keySet());
+            List<Boolean> placeholders = new ArrayList<>(storedPlaceholders.values());
+            markAfterCommit(serverPrefix, periods, placeholders);
+        }
+        publishPersisted(serverPrefix, savedRows);
+        return savedCount;
+    }
+    
+    /**
+     * 合并一张表写入后的期号状态（期号 → 是否为占位号码）。
+     * 只有每张表都已有的期号才算已入库，任一张表仍是占位时按占位处理，索引不会让另一张表漏掉更新
+     *
+     * @param merged 之前各表的合并结果，第一张表时为null
+     * @param existingNumbers 该表写入前已有的记录
+     * @param pendingRows 本次写入该表的记录
+     * @return 合并后的期号状态
+     */
+    private static Map<Integer, Boolean> mergeStored(Map<Integer, Boolean> merged, Map<Integer, String> existingNumbers,
+                                                     List<HistoryRow> pendingRows) {
+        Map<Integer, Boolean> stored = new HashMap<>();
+        existingNumbers.forEach((period, numbers) -> stored.put(period, isPlaceholder(numbers)));
+        for (HistoryRow row : pendingRows) {
+            stored.put(row.getPeriod(), isPlaceholder(row.getNumbers()));
+        }
+        if (merged == null) {
+            return stored;
+        }
+        
+        Map<Integer, Boolean> result = new HashMap<>();
+        merged.forEach((period, placeholder) -> {
+            Boolean other = stored.get(period);
+            if (other != null) {
+                result.put(period, placeholder || other);
+            }
+        });
+        return result;
+    }
+    
+    /**
+     * 发布本次写入的记录，统计等监听方在事务提交后增量更新
+     */
+    private void publishPersisted(String serverPrefix, List<HistoryRow> savedRows) {
+        if (savedRows.isEmpty()) {
+            return;
+        }
+        
+        // 网页上的记录从新到旧排列，事件中按期号从旧到新
+        List<HistoryRow> rows = new ArrayList<>(savedRows);
+        rows.sort(Comparator.comparingInt(HistoryRow::getPeriod));
+        DrawSeries draws = new DrawSeries(serverPrefix, rows.size());
+        for (HistoryRow row : rows) {
+            if (draws.isEmpty() || row.getPeriod() > draws.lastPeriod()) {
+                draws.add(row.getPeriod(), row.getNumbers(), row.getPrediction(), row.getOutcome());
+            }
+        }
+        eventPublisher.publishEvent(new DrawPersistedEvent(serverPrefix, draws));
+    }
+    
+    /**
+     * 事务提交后再更新期号索引，回滚时索引不会记下未入库的期号
+     */
+    private void markAfterCommit(String serverPrefix, List<Integer> periods, List<Boolean> placeholders) {
+        Runnable mark = () -> {
+            for (int i = 0; i < periods.size(); i++) {
+                presenceIndex.mark(serverPrefix, periods.get(i), placeholders.get(i));
+            }
+        };
+        
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    mark.run();
+                }
+            });
+        } else {
+            mark.run();
+        }
+    }
+    
+    /**
+     * 期号字符串转换为整数，无法转换时返回null
+     */
+    private static Integer parsePeriodOrNull(String period) {
+        try {
+            return Integer.parseInt(period);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
+    /**
+     * 过滤出需要写入的记录：新期号，以及已有记录是占位符而本页已有真实号码的期号
+     */
+    private List<HistoryRow> selectPendingRows(String serverPrefix, List<HistoryRow> rows, Map<Integer, String> existingNumbers) {
+        List<HistoryRow> pendingRows = new ArrayList<>();
+        for (HistoryRow row : rows) {
+            if (!existingNumbers.containsKey(row.getPeriod())) {
+                pendingRows.add(row);
+            } else if (isPlaceholder(existingNumbers.get(row.getPeriod())) && !isPlaceholder(row.getNumbers())) {
+                log.info("发现无效记录，进行更新: {}, period: {}, 新号码: {}", serverPrefix, row.getPeriod(), row.getNumbers());
+                pendingRows.add(row);
+            }
+        }
+        
+        log.debug("服务器 {} 本页 {} 条记录，已存在 {} 条，需要写入 {} 条", 
+                serverPrefix, rows.size(), existingNumbers.size(), pendingRows.size());
+        return pendingRows;
+    }
+    
+    /**
+     * 从列式解析结果中提取需要处理的历史记录行，并完成总数、杀号、下注结果和开奖结果的计算。
+     * 期号索引的判断直接使用int期号和占位标记，被跳过的行不会生成任何字符串
+     */
+    private List<HistoryRow> extractRows(String serverPrefix, ParsedServerPage page) {
+        int rowCount = page.getRowCount();
+        List<HistoryRow> rows = new ArrayList<>(rowCount);
+        int skipped = 0;
+        
+        for (int i = 0; i < rowCount; i++) {
+            if (!page.hasValidPeriod(i)) {
+                log.error("期号转换为整数失败: {}", page.periodTextAt(i));
+                continue;
+            }
+            
+            int period = page.periodAt(i);
+            if (presenceIndexEnabled && presenceIndex.canSkip(serverPrefix, period, page.isPlaceholderAt(i))) {
+                skipped++;
+                continue;
+            }
+            
+            String numbers = page.numbersAt(i);
+            String prediction = page.predictionTextAt(i);
+            String outcome = page.outcomeTextAt(i);
+            int total = page.totalNumberAt(i);
+            Integer totalNumberInt = total >= 0 ? total : null;
+            
+            // 标准格式的号码直接查表，不再经过正则
+            int code = page.numbersCodeAt(i);
+            String killNumber;
+            String openResult;
+            if (code >= 0) {
+                killNumber = DrawCodeTable.killMark(code);
+                openResult = DrawCodeTable.oddEven(code);
+            } else {
+                killNumber = NumberAnalysisUtil.checkIfKill(numbers);
+                openResult = total >= 0 ? NumberAnalysisUtil.determineOddEven(total) : "";
+            }
+            BettingResult bettingResult = BettingResultAnalyzer.analyzeFromHistoryRecord(prediction, outcome, killNumber);
+            
+            rows.add(new HistoryRow(period, numbers, prediction, outcome, totalNumberInt, killNumber,
+                    bettingResult.getDescription(), openResult));
+        }
+        
+        if (presenceIndexEnabled) {
+            log.debug("服务器 {} 本页 {} 条记录，期号索引跳过 {} 条", serverPrefix, rowCount, skipped);
+        }
+        return rows;
+    }
+    
+    /**
+     * 判断号码是否为未开奖的占位符
+     */
+    private static boolean isPlaceholder(String numbers) {
+        return "---".equals(numbers) || "-".equals(numbers);
+    }
+    
     @Override
     @Transactional
     public Map<String, Integer> saveAllServersData(List<Map<String, Object>> allResults) {
@@ -128,8 +526,70 @@ public class HistoryDataServiceImpl implements HistoryDataService {
         return savedCounts;
     }
     
+    @Override
+    @Transactional
+    public Map<String, Integer> saveAllServerPages(List<ParsedServerPage> allPages) {
+        Map<String, Integer> savedCounts = new HashMap<>();
+        
+        if (allPages == null || allPages.isEmpty()) {
+            log.warn("没有数据需要保存");
+            return savedCounts;
+        }
+        
+        log.info("开始保存所有服务器的解析数据...");
+        
+        for (ParsedServerPage page : allPages) {
+            if (page.getServer() == null) {
+                log.warn("跳过无服务器标识的数据");
+                continue;
+            }
+            
+            savedCounts.put(page.getServer(), saveServerPage(page));
+        }
+        
+        log.info("所有服务器数据保存完成");
+        return savedCounts;
+    }
+    
+    @Override
+    public Map<String, Integer> migrateToUnifiedTable(int chunkSize) {
+        if (chunkSize <= 0) {
+            throw new IllegalArgumentException("chunkSize必须大于0");
+        }
+        
+        Map<String, Integer> migrated = new LinkedHashMap<>();
+        for (String server : HistoryBatchWriter.legacyServers()) {
+            String tableName = HistoryBatchWriter.tableNameOf(server);
+            int[] range = batchWriter.periodRangeOf(tableName);
+            if (range == null) {
+                log.info("表 {} 为空，跳过迁移", tableName);
+                migrated.put(server, 0);
+                continue;
+            }
+            
+            long start = System.currentTimeMillis();
+            int affected = 0;
+            // 按期号区间分块复制，每块一条 INSERT ... SELECT，避免单个大事务
+            for (long from = range[0]; from <= range[1]; from += chunkSize) {
+                int to = (int) Math.min(from + chunkSize - 1, range[1]);
+                affected += batchWriter.copyLegacyRange(server, (int) from, to);
+            }
+            
+            log.info("表 {} 迁移到统一表完成，期号 {} - {}，受影响行数 {}，耗时 {} 毫秒",
+                    tableName, range[0], range[1], affected, System.currentTimeMillis() - start);
+            migrated.put(server, affected);
+        }
+        return migrated;
+    }
+    
+    @Override
+    public HistoryStorageMode getStorageMode() {
+        return storageMode;
+    }
+    
     /**
      * 根据服务器前缀保存对应的历史记录
+     * 数据库异常不在这里吞掉，整页入库失败后内容哈希不会生效
      */
     private boolean saveHistoryRecord(String serverPrefix, String period, String numbers, 
                                       String prediction, String outcome, String totalNumber, String killNumber) {
@@ -635,10 +1095,11 @@ public class HistoryDataServiceImpl implements HistoryDataService {
                     log.warn("未知的服务器前缀: {}", serverPrefix);
                     return false;
             }
-        } catch (Exception e) {
+        } catch (RuntimeException e) {
+            // 向上抛出使本页入库失败，调用方清除内容校验信息，下一轮重新解析
             log.error("保存历史记录时发生错误: {}, 服务器: {}, 期号: {}", 
                     e.getMessage(), serverPrefix, period, e);
-            return false;
+            throw e;
         }
     }
 }
@@ -0,0 +1,36 @@
+package org.pc28.service.db;
+
+/**
+ * 历史记录存储模式
+ */
+public enum HistoryStorageMode {
+    
+    /**
+     * 每个服务器一张表（sf1_history、sf3_history ...）
+     */
+    LEGACY,
+    
+    /**
+     * 所有服务器写入统一的 draw_history 表
+     */
+    UNIFIED,
+    
+    /**
+     * 同时写入旧表和统一表，用于迁移过渡期
+     */
+    DUAL;
+    
+    /**
+     * 是否写入旧的分服务器表
+     */
+    public boolean writesLegacy() {
+        return this != UNIFIED;
+    }
+    
+    /**
+     * 是否写入统一表
+     */
+    public boolean writesUnified() {
+        return this != LEGACY;
+    }
+}
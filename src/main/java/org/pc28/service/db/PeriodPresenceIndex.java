@@ -0,0 +1,186 @@
+package org.pc28.service.db;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 各服务器已入库期号的内存索引
+ * 每个服务器两个以基准期号为偏移的位图：一个记录已有真实号码的期号，一个记录"---"占位的期号。
+ * 抓取到的页面绝大多数行已经入库，先查这里就能跳过数据库查询，只有新期号和已知占位记录才会访问数据库
+ */
+@Component
+@Slf4j
+public class PeriodPresenceIndex {
+    
+    private final Map<String, ServerBitmap> servers = new ConcurrentHashMap<>();
+    
+    /**
+     * 指定期号是否已经以真实号码入库
+     */
+    public boolean isFinal(String server, int period) {
+        ServerBitmap bitmap = servers.get(server);
+        return bitmap != null && bitmap.isFinal(period);
+    }
+    
+    /**
+     * 指定期号是否以占位号码入库
+     */
+    public boolean isPlaceholder(String server, int period) {
+        ServerBitmap bitmap = servers.get(server);
+        return bitmap != null && bitmap.isPlaceholder(period);
+    }
+    
+    /**
+     * 判断页面上的一行是否无需访问数据库：
+     * 已是最终号码的期号，或者数据库和页面上都还是占位号码的期号
+     *
+     * @param server 服务器前缀
+     * @param period 期号
+     * @param pagePlaceholder 页面上该行是否为占位号码
+     * @return 是否可以跳过
+     */
+    public boolean canSkip(String server, int period, boolean pagePlaceholder) {
+        ServerBitmap bitmap = servers.get(server);
+        if (bitmap == null) {
+            return false;
+        }
+        return bitmap.isFinal(period) || (pagePlaceholder && bitmap.isPlaceholder(period));
+    }
+    
+    /**
+     * 记录期号的入库状态
+     *
+     * @param server 服务器前缀
+     * @param period 期号
+     * @param placeholder 入库的号码是否为占位号码
+     */
+    public void mark(String server, int period, boolean placeholder) {
+        servers.computeIfAbsent(server, k -> new ServerBitmap()).mark(period, placeholder);
+    }
+    
+    /**
+     * 清空指定服务器的索引
+     */
+    public void clear(String server) {
+        servers.remove(server);
+    }
+    
+    /**
+     * 清空所有服务器的索引
+     */
+    public void clearAll() {
+        servers.clear();
+    }
+    
+    /**
+     * 获取指定服务器已入库真实号码的期号数量
+     */
+    public int finalCount(String server) {
+        ServerBitmap bitmap = servers.get(server);
+        return bitmap == null ? 0 : bitmap.finalCount();
+    }
+    
+    /**
+     * 获取指定服务器已知的最大期号，未知返回-1
+     */
+    public int maxPeriod(String server) {
+        ServerBitmap bitmap = servers.get(server);
+        return bitmap == null ? -1 : bitmap.maxPeriod();
+    }
+    
+    /**
+     * 获取可以安全停止解析的期号水位：最近 window 期内第一个未以真实号码入库的期号之前一期。
+     * 水位以下（含）在最近窗口内的期号都已是最终号码，中间有缺口或占位记录时水位会停在缺口之前
+     *
+     * @param server 服务器前缀
+     * @param window 回看的期数，一般为页面上的历史记录行数
+     * @return 水位期号，未知返回-1
+     */
+    public int finalWatermark(String server, int window) {
+        ServerBitmap bitmap = servers.get(server);
+        return bitmap == null ? -1 : bitmap.finalWatermark(window);
+    }
+    
+    /**
+     * 单个服务器的位图，期号减去基准期号作为下标。
+     * 出现比基准更小的期号时整体平移，基准之前通常只有一次预热
+     */
+    private static final class ServerBitmap {
+        
+        private int basePeriod = -1;
+        private int maxPeriod = -1;
+        private BitSet finals = new BitSet();
+        private BitSet placeholders = new BitSet();
+        
+        synchronized boolean isFinal(int period) {
+            int offset = period - basePeriod;
+            return basePeriod >= 0 && offset >= 0 && finals.get(offset);
+        }
+        
+        synchronized boolean isPlaceholder(int period) {
+            int offset = period - basePeriod;
+            return basePeriod >= 0 && offset >= 0 && placeholders.get(offset);
+        }
+        
+        synchronized void mark(int period, boolean placeholder) {
+            if (period < 0) {
+                return;
+            }
+            if (basePeriod < 0) {
+                basePeriod = period;
+            } else if (period < basePeriod) {
+                rebase(period);
+            }
+            
+            int offset = period - basePeriod;
+            if (placeholder) {
+                // 已有真实号码的期号不会退回占位状态
+                if (!finals.get(offset)) {
+                    placeholders.set(offset);
+                }
+            } else {
+                finals.set(offset);
+                placeholders.clear(offset);
+            }
+            maxPeriod = Math.max(maxPeriod, period);
+        }
+        
+        synchronized int finalCount() {
+            return finals.cardinality();
+        }
+        
+        synchronized int maxPeriod() {
+            return maxPeriod;
+        }
+        
+        synchronized int finalWatermark(int window) {
+            if (basePeriod < 0) {
+                return -1;
+            }
+            int from = Math.max(0, maxPeriod - basePeriod - window + 1);
+            int firstGap = finals.nextClearBit(from);
+            int lastOffset = maxPeriod - basePeriod;
+            // 窗口内全部为最终号码时水位就是最大期号
+            return firstGap > lastOffset ? maxPeriod : basePeriod + firstGap - 1;
+        }
+        
+        private void rebase(int newBase) {
+            int shift = basePeriod - newBase;
+            finals = shift(finals, shift);
+            placeholders = shift(placeholders, shift);
+            basePeriod = newBase;
+        }
+        
+        private static BitSet shift(BitSet source, int shift) {
+            BitSet shifted = new BitSet(source.length() + shift);
+            for (int i = source.nextSetBit(0); i >= 0; i = source.nextSetBit(i + 1)) {
+                shifted.set(i + shift);
+            }
+            return shifted;
+        }
+    }
+}
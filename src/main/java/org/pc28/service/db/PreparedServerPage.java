@@ -0,0 +1,17 @@
+package org.pc28.service.db;
+
+import org.pc28.model.ParsedServerPage;
+import org.pc28.service.db.HistoryBatchWriter.HistoryRow;
+
+import java.util.List;
+
+/**
+ * 分析好、等待入库的单个服务器解析结果
+ * 记录行的杀、单双和下注结果在入库前算好，入库时只需要查询已有记录和写入
+ *
+ * @param page 解析结果
+ * @param rows 待写入的记录行，为null时入库按 {@link HistoryDataService#saveServerPage} 的方式处理
+ *             （内容未变化、解析出错或使用逐行保存路径）
+ */
+public record PreparedServerPage(ParsedServerPage page, List<HistoryRow> rows) {
+}
@@ -1,14 +1,32 @@
 package org.pc28.service.impl;
 
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.pc28.constants.WebConstants;
 import org.pc28.exception.WebDownloadException;
+import org.pc28.model.ConnectionPoolStats;
+import org.pc28.model.ContentChangeStats;
+import org.pc28.model.DownloadCycleReport;
+import org.pc28.model.HttpFetchResult;
 import org.pc28.model.WebDownloadResult;
 import org.pc28.service.WebDownloadService;
+import org.pc28.utils.ContentChangeTracker;
 import org.pc28.utils.FileUtils;
 import org.pc28.utils.HttpUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
 /**
  * 网页下载服务实现类
  */
@@ -16,6 +34,44 @@ import org.springframework.stereotype.Service;
 @Slf4j
 public class WebDownloadServiceImpl implements WebDownloadService {
     
+    /**
+     * 是否启用并发下载模式
+     */
+    @Value("${pc28.download.concurrent-enabled:true}")
+    private boolean concurrentEnabled;
+    
+    /**
+     * 并发下载的最大并发数
+     */
+    @Value("${pc28.download.max-concurrency:" + WebConstants.DOWNLOAD_MAX_CONCURRENCY + "}")
+    private int maxConcurrency;
+    
+    /**
+     * 并发下载单轮的截止时间（毫秒）
+     */
+    @Value("${pc28.download.cycle-deadline-millis:" + WebConstants.DOWNLOAD_CYCLE_DEADLINE_MILLIS + "}")
+    private long cycleDeadlineMillis;
+    
+    /**
+     * 内存模式下是否在后台异步保存网页文件
+     */
+    @Value("${pc28.download.persist-html-async:true}")
+    private boolean persistHtmlAsync;
+    
+    /**
+     * 各数据源的内容变化跟踪器
+     */
+    private final ContentChangeTracker changeTracker = new ContentChangeTracker();
+    
+    /**
+     * 内存模式下异步写入网页文件的后台线程
+     */
+    private final ExecutorService fileWriter = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "pc28-html-writer");
+        thread.setDaemon(true);
+        return thread;
+    });
+    
     /**
      * 下载网页并保存到本地
      *
@@ -118,19 +174,360 @@ public class WebDownloadServiceImpl implements WebDownloadService {
      *
      * @return 成功下载的URL数量
      */
+    @Override
     public int downloadAllUrls() {
-        int successCount = 0;
+        return downloadCycle().getSuccessCount();
+    }
+    
+    /**
+     * 执行一轮下载
+     * 启用并发模式时委托给{@link #downloadAllUrlsConcurrently()}，否则逐个顺序下载
+     *
+     * @return 本轮下载报告
+     */
+    @Override
+    public DownloadCycleReport downloadCycle() {
+        return concurrentEnabled ? downloadConcurrently(false) : downloadSequentially(false);
+    }
+    
+    /**
+     * 执行一轮内存模式下载
+     * 网页内容保留在结果中直接交给解析器，文件按配置在后台异步写入，不阻塞采集流程
+     *
+     * @return 本轮下载报告，成功结果的content为网页内容
+     */
+    @Override
+    public DownloadCycleReport downloadCycleInMemory() {
+        return concurrentEnabled ? downloadConcurrently(true) : downloadSequentially(true);
+    }
+    
+    /**
+     * 逐个顺序下载所有配置的URL
+     *
+     * @param inMemory 是否为内存模式（文件异步写入）
+     * @return 本轮下载报告
+     */
+    private DownloadCycleReport downloadSequentially(boolean inMemory) {
+        long cycleStart = System.currentTimeMillis();
+        List<WebDownloadResult> results = new ArrayList<>(WebConstants.TARGET_URLS.length);
         
         for (int i = 0; i < WebConstants.TARGET_URLS.length; i++) {
-            WebDownloadResult result = downloadWithTimestamp(i);
+            long start = System.currentTimeMillis();
+            results.add(downloadIfChanged(i, inMemory).toBuilder()
+                    .downloadTimeMillis(System.currentTimeMillis() - start)
+                    .startedAtMillis(start)
+                    .build());
+        }
+        
+        return buildReport(results, cycleStart, 1);
+    }
+    
+    /**
+     * 下载单个数据源，供按服务器独立调度的采集流水线使用
+     *
+     * @param urlIndex URL索引
+     * @param inMemory 是否为内存模式
+     * @return 下载结果
+     */
+    @Override
+    public WebDownloadResult downloadSource(int urlIndex, boolean inMemory) {
+        long start = System.currentTimeMillis();
+        return downloadIfChanged(urlIndex, inMemory).toBuilder()
+                .downloadTimeMillis(System.currentTimeMillis() - start)
+                .startedAtMillis(start)
+                .build();
+    }
+    
+    /**
+     * 使用虚拟线程并发下载所有配置的URL
+     * 并发数受信号量限制，超过本轮截止时间仍未完成的下载会被取消并记为超时
+     *
+     * @return 本轮下载报告
+     */
+    @Override
+    public DownloadCycleReport downloadAllUrlsConcurrently() {
+        return downloadConcurrently(false);
+    }
+    
+    /**
+     * 使用虚拟线程并发下载所有配置的URL
+     *
+     * @param inMemory 是否为内存模式（文件异步写入）
+     * @return 本轮下载报告
+     */
+    private DownloadCycleReport downloadConcurrently(boolean inMemory) {
+        int total = WebConstants.TARGET_URLS.length;
+        int concurrency = Math.max(1, maxConcurrency);
+        long cycleStart = System.currentTimeMillis();
+        long deadline = cycleStart + cycleDeadlineMillis;
+        
+        log.info("开始并发下载 {} 个网页，最大并发数: {}，截止时间: {}毫秒", total, concurrency, cycleDeadlineMillis);
+        
+        Semaphore permits = new Semaphore(concurrency);
+        List<Future<WebDownloadResult>> futures = new ArrayList<>(total);
+        List<WebDownloadResult> results = new ArrayList<>(total);
+        
+        // 不使用try-with-resources，避免close()等待被取消的任务而拖过截止时间
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (int i = 0; i < total; i++) {
+                final int urlIndex = i;
+                futures.add(executor.submit(() -> downloadWithPermit(urlIndex, inMemory, permits)));
+            }
+            
+            for (int i = 0; i < total; i++) {
+                results.add(awaitResult(i, futures.get(i), cycleStart, deadline));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        return buildReport(results, cycleStart, concurrency);
+    }
+    
+    /**
+     * 下载指定索引的URL，内容与上次相同时不保存文件并标记为未变化
+     * 请求携带上次响应的ETag/Last-Modified，服务器返回304时直接跳过
+     *
+     * @param urlIndex URL索引
+     * @param inMemory 是否为内存模式，内存模式下文件交给后台线程写入
+     * @return 下载结果
+     */
+    private WebDownloadResult downloadIfChanged(int urlIndex, boolean inMemory) {
+        String serverPrefix = WebConstants.getServerPrefix(urlIndex);
+        String url = WebConstants.TARGET_URLS[urlIndex];
+        
+        try {
+            long startTime = System.currentTimeMillis();
+            HttpFetchResult fetchResult = HttpUtils.sendConditionalGetRequest(
+                    url, changeTracker.getEtag(serverPrefix), changeTracker.getLastModified(serverPrefix));
+            
+            if (fetchResult.isNotModified()) {
+                changeTracker.recordNotModified(serverPrefix);
+                log.info("服务器 {} 返回304，内容未修改", serverPrefix);
+                return unchangedResult(serverPrefix, url, null, System.currentTimeMillis() - startTime);
+            }
+            
+            String content = fetchResult.getContent();
+            if (content == null || content.isEmpty()) {
+                log.warn("【错误】服务器 {} 获取到的网页内容为空", serverPrefix);
+                return WebDownloadResult.failure("获取到的网页内容为空").toBuilder()
+                        .serverPrefix(serverPrefix)
+                        .url(url)
+                        .build();
+            }
+            
+            if (!changeTracker.recordContent(serverPrefix, content, fetchResult.getEtag(), fetchResult.getLastModified())) {
+                log.info("服务器 {} 的历史记录内容与上次相同，跳过保存", serverPrefix);
+                return unchangedResult(serverPrefix, url, content, System.currentTimeMillis() - startTime);
+            }
+            
+            String fileName = WebConstants.getTimestampedFileName(urlIndex);
+            String filePath = null;
+            if (!inMemory) {
+                FileUtils.saveToFile(WebConstants.SAVE_PATH, fileName, content);
+                filePath = FileUtils.getAbsolutePath(WebConstants.SAVE_PATH, fileName);
+            } else if (persistHtmlAsync) {
+                saveToFileAsync(serverPrefix, fileName, content);
+            }
+            
+            return WebDownloadResult.success(content, filePath, System.currentTimeMillis() - startTime).toBuilder()
+                    .serverPrefix(serverPrefix)
+                    .url(url)
+                    .build();
+        } catch (Exception e) {
+            log.error("【错误】下载服务器 {} 时发生异常: {}", serverPrefix, e.getMessage(), e);
+            return WebDownloadResult.failure("下载过程中发生错误: " + e.getMessage()).toBuilder()
+                    .serverPrefix(serverPrefix)
+                    .url(url)
+                    .build();
+        }
+    }
+    
+    /**
+     * 在后台线程保存网页文件，并删除该服务器较旧的文件，只保留最新一份
+     */
+    private void saveToFileAsync(String serverPrefix, String fileName, String content) {
+        try {
+            fileWriter.execute(() -> {
+                try {
+                    FileUtils.saveToFile(WebConstants.SAVE_PATH, fileName, content);
+                    FileUtils.deleteOlderFiles(WebConstants.SAVE_PATH,
+                            WebConstants.FILE_NAME_BASE + "_" + serverPrefix + "_", WebConstants.FILE_EXTENSION, fileName);
+                } catch (Exception e) {
+                    log.warn("后台保存服务器 {} 的网页文件失败: {}", serverPrefix, e.getMessage());
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            log.warn("后台文件写入线程已关闭，跳过保存: {}", fileName);
+        }
+    }
+    
+    /**
+     * 关闭后台文件写入线程，等待已提交的文件写完
+     */
+    @PreDestroy
+    public void shutdownFileWriter() throws InterruptedException {
+        fileWriter.shutdown();
+        if (!fileWriter.awaitTermination(5, TimeUnit.SECONDS)) {
+            log.warn("后台文件写入线程未能在5秒内完成");
+        }
+    }
+    
+    /**
+     * 创建内容未变化的下载结果
+     */
+    private WebDownloadResult unchangedResult(String serverPrefix, String url, String content, long downloadTimeMillis) {
+        return WebDownloadResult.builder()
+                .success(true)
+                .unchanged(true)
+                .content(content)
+                .serverPrefix(serverPrefix)
+                .url(url)
+                .downloadTimeMillis(downloadTimeMillis)
+                .build();
+    }
+    
+    /**
+     * 汇总各数据源结果生成本轮下载报告
+     */
+    private DownloadCycleReport buildReport(List<WebDownloadResult> results, long cycleStart, int concurrency) {
+        int successCount = 0;
+        int timedOutCount = 0;
+        int unchangedCount = 0;
+        for (WebDownloadResult result : results) {
             if (result.isSuccess()) {
                 successCount++;
-                log.info("成功下载 URL[{}]: {}", i, WebConstants.TARGET_URLS[i]);
-            } else {
-                log.error("下载 URL[{}] 失败: {}", i, result.getErrorMessage());
+                if (result.isUnchanged()) {
+                    unchangedCount++;
+                }
+            } else if (result.isTimedOut()) {
+                timedOutCount++;
             }
         }
         
-        return successCount;
+        DownloadCycleReport report = DownloadCycleReport.builder()
+                .results(results)
+                .wallTimeMillis(System.currentTimeMillis() - cycleStart)
+                .deadlineMillis(cycleDeadlineMillis)
+                .maxConcurrency(concurrency)
+                .successCount(successCount)
+                .timedOutCount(timedOutCount)
+                .unchangedCount(unchangedCount)
+                .build();
+        
+        log.info("下载完成，成功: {}（其中未变化: {}），超时: {}，失败: {}，总耗时: {}毫秒", 
+                successCount, unchangedCount, timedOutCount, results.size() - successCount - timedOutCount,
+                report.getWallTimeMillis());
+        for (WebDownloadResult result : results) {
+            log.info("  {} -> {}，耗时: {}毫秒{}", result.getServerPrefix(),
+                    result.isSuccess() ? (result.isUnchanged() ? "未变化" : "成功") : (result.isTimedOut() ? "超时" : "失败"),
+                    result.getDownloadTimeMillis(),
+                    result.isSuccess() ? "" : "，原因: " + result.getErrorMessage());
+        }
+        
+        return report;
+    }
+    
+    /**
+     * 获取各数据源的内容变化统计
+     *
+     * @return 统计列表
+     */
+    @Override
+    public List<ContentChangeStats> getContentChangeStats() {
+        return changeTracker.getStats();
+    }
+    
+    /**
+     * 清除所有数据源的内容校验信息，下一轮下载将强制解析和入库
+     */
+    @Override
+    public void resetContentTracking() {
+        changeTracker.invalidateAll();
+    }
+    
+    /**
+     * 清除单个数据源的内容校验信息
+     *
+     * @param serverPrefix 服务器前缀
+     */
+    @Override
+    public void resetContentTracking(String serverPrefix) {
+        changeTracker.invalidate(serverPrefix);
+    }
+    
+    /**
+     * 确认数据源最近一次有变化的内容已成功入库
+     *
+     * @param serverPrefix 服务器前缀
+     */
+    @Override
+    public void confirmContentSaved(String serverPrefix) {
+        changeTracker.confirm(serverPrefix);
+    }
+    
+    /**
+     * 获取共享HTTP连接池的统计信息
+     *
+     * @return 连接池统计信息
+     */
+    @Override
+    public ConnectionPoolStats getConnectionPoolStats() {
+        return HttpUtils.getPoolStats();
+    }
+    
+    /**
+     * 获取并发许可后下载指定索引的URL，并记录该数据源的实际耗时
+     */
+    private WebDownloadResult downloadWithPermit(int urlIndex, boolean inMemory, Semaphore permits) throws InterruptedException {
+        permits.acquire();
+        try {
+            long start = System.currentTimeMillis();
+            WebDownloadResult result = downloadIfChanged(urlIndex, inMemory);
+            return result.toBuilder()
+                    .serverPrefix(WebConstants.getServerPrefix(urlIndex))
+                    .url(WebConstants.TARGET_URLS[urlIndex])
+                    .downloadTimeMillis(System.currentTimeMillis() - start)
+                    .startedAtMillis(start)
+                    .build();
+        } finally {
+            permits.release();
+        }
+    }
+    
+    /**
+     * 在截止时间内等待单个数据源的下载结果，超时则取消该任务
+     */
+    private WebDownloadResult awaitResult(int urlIndex, Future<WebDownloadResult> future, long cycleStart, long deadline) {
+        String serverPrefix = WebConstants.getServerPrefix(urlIndex);
+        String url = WebConstants.TARGET_URLS[urlIndex];
+        String errorMessage;
+        boolean timedOut = false;
+        
+        try {
+            long remaining = Math.max(0, deadline - System.currentTimeMillis());
+            return future.get(remaining, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            timedOut = true;
+            errorMessage = "超过本轮下载截止时间 " + cycleDeadlineMillis + " 毫秒";
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            errorMessage = "下载过程中发生错误: " + cause.getMessage();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            errorMessage = "等待下载结果被中断";
+        }
+        
+        return WebDownloadResult.builder()
+                .success(false)
+                .timedOut(timedOut)
+                .errorMessage(errorMessage)
+                .serverPrefix(serverPrefix)
+                .url(url)
+                .downloadTimeMillis(System.currentTimeMillis() - cycleStart)
+                .build();
     }
 }
\ No newline at end of file
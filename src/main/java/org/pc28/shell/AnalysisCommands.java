@@ -0,0 +1,301 @@
+package org.pc28.shell;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.pc28.model.BacktestGrid;
+import org.pc28.model.BacktestReport;
+import org.pc28.model.BacktestResult;
+import org.pc28.model.ConsensusSnapshot;
+import org.pc28.model.CorrelationReport;
+import org.pc28.model.KillRuleReport;
+import org.pc28.model.MonteCarloReport;
+import org.pc28.model.MonteCarloResult;
+import org.pc28.model.PatternReport;
+import org.pc28.service.analysis.BacktestBetMode;
+import org.pc28.service.analysis.BacktestEngine;
+import org.pc28.service.analysis.BacktestStrategy;
+import org.pc28.service.analysis.ConsensusEngine;
+import org.pc28.service.analysis.DrawStatsService;
+import org.pc28.service.analysis.KillRuleEvaluator;
+import org.pc28.service.analysis.KillRuleRegistry;
+import org.pc28.service.analysis.MonteCarloEngine;
+import org.pc28.service.analysis.PatternAlphabet;
+import org.pc28.utils.BettingResultAnalyzer.BettingResult;
+import org.pc28.utils.KillRuleSet;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 历史数据分析相关命令
+ */
+@ShellComponent
+@Slf4j
+@RequiredArgsConstructor
+public class AnalysisCommands {
+
+    private static final int[] GAME_RANGES = {10, 20, 30, 50, 100};
+
+    private final KillRuleRegistry killRuleRegistry;
+    private final KillRuleEvaluator killRuleEvaluator;
+    private final BacktestEngine backtestEngine;
+    private final MonteCarloEngine monteCarloEngine;
+    private final ConsensusEngine consensusEngine;
+    private final DrawStatsService drawStatsService;
+
+    /**
+     * 列出已加载的杀规则集
+     */
+    @ShellMethod(key = {"kill-rules"}, value = "列出已加载的杀规则集")
+    public String listKillRules(
+            @ShellOption(value = {"-r", "--reload"}, defaultValue = "false", help = "是否先重新加载规则集") boolean reload) {
+        if (reload) {
+            killRuleRegistry.reload();
+        }
+
+        StringBuilder result = new StringBuilder("杀规则集:\n");
+        for (KillRuleSet ruleSet : killRuleRegistry.all()) {
+            result.append(String.format("%-12s 杀号码 %3d/1000  %s\n",
+                    ruleSet.getName(), ruleSet.getKillCount(), ruleSet.getDefinition()));
+        }
+        return result.toString();
+    }
+
+    /**
+     * 在最近的历史记录上并列比较所有杀规则集的下注结果
+     */
+    @ShellMethod(key = {"kill-rules-compare"}, value = "在历史记录上比较各杀规则集的下注结果")
+    public String compareKillRules(
+            @ShellOption(value = {"-s", "--server"}, defaultValue = "sf1", help = "服务器前缀") String server,
+            @ShellOption(value = {"-n", "--limit"}, defaultValue = "1000", help = "读取最近的期数") int limit) {
+        try {
+            List<KillRuleReport> reports = killRuleEvaluator.compare(server, limit, GAME_RANGES);
+            if (reports.isEmpty() || reports.get(0).getGames() == 0) {
+                return "服务器 " + server + " 没有可统计的历史记录";
+            }
+
+            StringBuilder result = new StringBuilder(String.format("服务器 %s 最近 %d 期（已开奖且有预测）杀规则比较:\n",
+                    server, reports.get(0).getGames()));
+            result.append(String.format("%-12s %6s %8s %8s %8s %8s", "规则集", "杀", "命中盈利", "命中被杀", "未中盈利", "未中亏损"));
+            for (int range : GAME_RANGES) {
+                result.append(String.format(" %7s", "近" + range));
+            }
+            result.append('\n');
+
+            for (KillRuleReport report : reports) {
+                int[] counts = report.getResultCounts();
+                result.append(String.format("%-12s %6d %8d %8d %8d %8d", report.getRuleSet(), report.getKilled(),
+                        counts[BettingResult.HIT_PROFIT.ordinal()], counts[BettingResult.HIT_KILLED.ordinal()],
+                        counts[BettingResult.MISS_PROFIT.ordinal()], counts[BettingResult.MISS_LOSS.ordinal()]));
+                for (double winRate : report.getWinRates()) {
+                    result.append(String.format(" %6.1f%%", winRate * 100));
+                }
+                result.append('\n');
+            }
+            return result.toString();
+        } catch (Exception e) {
+            log.error("比较杀规则集时发生错误: {}", e.getMessage(), e);
+            return "比较错误: " + e.getMessage();
+        }
+    }
+
+    /**
+     * 在最近的历史记录上回测注码策略参数网格
+     */
+    @ShellMethod(key = {"backtest"}, value = "在历史记录上并行回测注码策略参数网格")
+    public String backtest(
+            @ShellOption(value = {"-s", "--server"}, defaultValue = "sf1", help = "服务器前缀") String server,
+            @ShellOption(value = {"-n", "--limit"}, defaultValue = "100000", help = "读取最近的期数") int limit,
+            @ShellOption(value = {"--strategies"}, defaultValue = "FLAT,MARTINGALE,FIBONACCI,STOP_AFTER_LOSSES",
+                    help = "注码策略，逗号分隔") String strategies,
+            @ShellOption(value = {"--modes"}, defaultValue = "RESULT,FOLLOW,AGAINST", help = "下注方向，逗号分隔") String modes,
+            @ShellOption(value = {"--stakes"}, defaultValue = "1", help = "基础注码，逗号分隔") String stakes,
+            @ShellOption(value = {"--limits"}, defaultValue = "3,5,8", help = "步数上限，逗号分隔") String limits,
+            @ShellOption(value = {"--bankrolls"}, defaultValue = "100,1000", help = "初始本金，逗号分隔") String bankrolls,
+            @ShellOption(value = {"--payout"}, defaultValue = "1.0", help = "赢一期的净赔率") double payout,
+            @ShellOption(value = {"--session"}, defaultValue = "1000", help = "计算破产概率时每局的期数") int sessionLength,
+            @ShellOption(value = {"--top"}, defaultValue = "20", help = "显示最终盈亏最高的前N个组合") int top,
+            @ShellOption(value = {"-k", "--kill-rule"}, defaultValue = KillRuleSet.STANDARD_NAME, help = "杀规则集") String killRule) {
+        try {
+            BacktestGrid grid = grid(killRule, strategies, modes, stakes, limits, bankrolls, payout, sessionLength);
+            BacktestReport report = backtestEngine.run(server, limit, grid);
+            if (report.getGames() == 0) {
+                return "服务器 " + server + " 没有可回测的历史记录";
+            }
+
+            StringBuilder result = new StringBuilder(String.format("服务器 %s 期号 %d - %d 共 %d 期，%d 个参数组合，耗时 %d 毫秒\n",
+                    server, report.getFromPeriod(), report.getToPeriod(), report.getGames(),
+                    report.getCombinations(), report.getElapsedMillis()));
+            result.append(String.format("%-10s %-8s %6s %4s %8s %10s %9s %10s %7s %7s\n",
+                    "策略", "方向", "注码", "上限", "本金", "最终盈亏", "最大回撤", "本金最高", "破产", "破产率"));
+            for (BacktestResult r : report.getResults().subList(0, Math.min(top, report.getResults().size()))) {
+                result.append(String.format("%-10s %-8s %6.1f %4d %8.0f %10.1f %9.1f %10.1f %7s %6.1f%%\n",
+                        r.getStrategy().getDescription(), r.getBetMode().getDescription(), r.getBaseStake(),
+                        r.getLimit(), r.getBankroll(), r.getFinalProfit(), r.getMaxDrawdown(), r.getPeakBankroll(),
+                        r.isRuined() ? "是" : "否", r.getRuinProbability() * 100));
+            }
+            return result.toString();
+        } catch (Exception e) {
+            log.error("回测时发生错误: {}", e.getMessage(), e);
+            return "回测错误: " + e.getMessage();
+        }
+    }
+
+    /**
+     * 在模拟的开奖序列上运行注码策略参数网格，给出盈亏分布和破产概率的置信区间
+     */
+    @ShellMethod(key = {"monte-carlo"}, value = "在模拟开奖序列上并行模拟注码策略，输出分位数和置信区间")
+    public String monteCarlo(
+            @ShellOption(value = {"-p", "--paths"}, defaultValue = "10000", help = "模拟局数") int paths,
+            @ShellOption(value = {"--session"}, defaultValue = "1000", help = "每局期数") int sessionLength,
+            @ShellOption(value = {"--seed"}, defaultValue = "28", help = "随机数种子") long seed,
+            @ShellOption(value = {"--strategies"}, defaultValue = "FLAT,MARTINGALE,FIBONACCI,STOP_AFTER_LOSSES",
+                    help = "注码策略，逗号分隔") String strategies,
+            @ShellOption(value = {"--modes"}, defaultValue = "RESULT", help = "下注方向，逗号分隔") String modes,
+            @ShellOption(value = {"--stakes"}, defaultValue = "1", help = "基础注码，逗号分隔") String stakes,
+            @ShellOption(value = {"--limits"}, defaultValue = "5", help = "步数上限，逗号分隔") String limits,
+            @ShellOption(value = {"--bankrolls"}, defaultValue = "1000", help = "初始本金，逗号分隔") String bankrolls,
+            @ShellOption(value = {"--payout"}, defaultValue = "1.0", help = "赢一期的净赔率") double payout,
+            @ShellOption(value = {"--top"}, defaultValue = "20", help = "显示平均盈亏最高的前N个组合") int top,
+            @ShellOption(value = {"-k", "--kill-rule"}, defaultValue = KillRuleSet.STANDARD_NAME, help = "杀规则集") String killRule) {
+        try {
+            BacktestGrid grid = grid(killRule, strategies, modes, stakes, limits, bankrolls, payout, sessionLength);
+            MonteCarloReport report = monteCarloEngine.run(grid, paths, seed);
+
+            StringBuilder result = new StringBuilder(String.format("模拟 %d 局 × %d 期（共 %d 期），%d 个参数组合，耗时 %d 毫秒，每秒 %d 期\n",
+                    report.getPaths(), report.getSessionLength(), report.getDraws(), report.getResults().size(),
+                    report.getElapsedMillis(), report.getDrawsPerSecond()));
+            result.append(String.format("%-10s %-8s %6s %4s %8s %22s", "策略", "方向", "注码", "上限", "本金", "平均盈亏(95%区间)"));
+            for (int percentile : report.getPercentiles()) {
+                result.append(String.format(" %8s", "P" + percentile));
+            }
+            result.append(String.format(" %20s\n", "破产率(95%区间)"));
+
+            for (MonteCarloResult r : report.getResults().subList(0, Math.min(top, report.getResults().size()))) {
+                result.append(String.format("%-10s %-8s %6.1f %4d %8.0f %8.1f[%6.1f,%6.1f]",
+                        r.getStrategy().getDescription(), r.getBetMode().getDescription(), r.getBaseStake(),
+                        r.getLimit(), r.getBankroll(), r.getMeanProfit(), r.getMeanProfitLow(), r.getMeanProfitHigh()));
+                for (double value : r.getProfitPercentiles()) {
+                    result.append(String.format(" %8.1f", value));
+                }
+                result.append(String.format(" %5.1f%%[%5.1f%%,%5.1f%%]\n", r.getRuinProbability() * 100,
+                        r.getRuinProbabilityLow() * 100, r.getRuinProbabilityHigh() * 100));
+            }
+            return result.toString();
+        } catch (Exception e) {
+            log.error("蒙特卡洛模拟时发生错误: {}", e.getMessage(), e);
+            return "模拟错误: " + e.getMessage();
+        }
+    }
+
+    /**
+     * 显示最近若干期各服务器预测的共识
+     */
+    @ShellMethod(key = {"consensus"}, value = "显示最近若干期各服务器预测的共识")
+    public String consensus(
+            @ShellOption(value = {"-n", "--limit"}, defaultValue = "10", help = "显示的期数") int limit) {
+        List<ConsensusSnapshot> snapshots = consensusEngine.recent(limit);
+        if (snapshots.isEmpty()) {
+            return "没有共识数据";
+        }
+
+        StringBuilder result = new StringBuilder(String.format("%-10s %-4s %-4s %-6s %-7s %-12s %-4s %s\n",
+                "期号", "单", "双", "多数", "一致率", "开奖号码", "开奖", "多数命中"));
+        for (ConsensusSnapshot snapshot : snapshots) {
+            result.append(String.format("%-10d %-4d %-4d %-6s %6.1f%% %-12s %-4s %s\n",
+                    snapshot.getPeriod(), snapshot.getOddVotes(), snapshot.getEvenVotes(),
+                    snapshot.getMajority().isEmpty() ? "-" : snapshot.getMajority(), snapshot.getAgreement() * 100,
+                    snapshot.getNumbers() == null ? "-" : snapshot.getNumbers(),
+                    snapshot.getActual() == null ? "-" : snapshot.getActual(),
+                    snapshot.getMajorityHit() == null ? "-" : snapshot.getMajorityHit() ? "中" : "错"));
+        }
+        return result.toString();
+    }
+
+    /**
+     * 显示各服务器命中序列的两两相关系数
+     */
+    @ShellMethod(key = {"server-correlation"}, value = "显示各服务器命中序列的两两相关系数")
+    public String serverCorrelation() {
+        CorrelationReport report = consensusEngine.correlation();
+        List<String> servers = report.getServers();
+        if (servers.isEmpty()) {
+            return "没有相关性数据";
+        }
+
+        StringBuilder result = new StringBuilder(String.format("期号 %d - %d（最多保留 %d 期）命中序列相关系数:\n",
+                report.getFromPeriod(), report.getToPeriod(), report.getRetention()));
+        result.append(String.format("%-6s", ""));
+        for (String server : servers) {
+            result.append(String.format(" %7s", server));
+        }
+        result.append(String.format(" %7s\n", "命中率"));
+        for (int i = 0; i < servers.size(); i++) {
+            result.append(String.format("%-6s", servers.get(i)));
+            for (int j = 0; j < servers.size(); j++) {
+                Double value = report.getCorrelation()[i][j];
+                result.append(value == null ? String.format(" %7s", "-") : String.format(" %7.3f", value));
+            }
+            result.append(String.format(" %6.1f%%\n", report.getHitRates()[i] * 100));
+        }
+        result.append(String.format("多数预测 %d 期，命中率 %.1f%%\n", report.getMajorityGames(), report.getMajorityHitRate() * 100));
+        return result.toString();
+    }
+
+    /**
+     * 检索结果序列在历史上出现的次数和下一期的分布
+     */
+    @ShellMethod(key = {"pattern"}, value = "检索结果序列在历史上出现的次数和下一期的分布")
+    public String pattern(
+            @ShellOption(value = {"-s", "--server"}, defaultValue = "sf1", help = "服务器前缀") String server,
+            @ShellOption(value = {"-a", "--alphabet"}, defaultValue = "ODD_EVEN",
+                    help = "符号表：ODD_EVEN（单双）、BIG_SMALL（大小）、OUTCOME（中错）、RESULT（下注结果）") String alphabet,
+            @ShellOption(value = {"-p", "--pattern"}, help = "模式，例如 单双单单，下注结果用逗号分隔") String pattern,
+            @ShellOption(value = {"-n", "--limit"}, defaultValue = "10", help = "显示最近出现的期号数量") int limit) {
+        try {
+            long start = System.nanoTime();
+            PatternReport report = drawStatsService.findPattern(server,
+                    PatternAlphabet.valueOf(alphabet.toUpperCase().replace('-', '_')), pattern, limit);
+            long elapsed = System.nanoTime() - start;
+
+            StringBuilder result = new StringBuilder(String.format("服务器 %s 模式 %s（%d 期历史）出现 %d 次，耗时 %.3f 毫秒%s\n",
+                    report.getServer(), report.getPattern(), report.getSequenceLength(), report.getOccurrences(),
+                    elapsed / 1_000_000.0, report.isIndexed() ? "" : "（顺序扫描）"));
+            result.append("下一期分布:\n");
+            for (int i = 0; i < report.getNextSymbols().size(); i++) {
+                result.append(String.format("  %-8s %8d  %6.2f%%\n", report.getNextSymbols().get(i),
+                        report.getNextCounts()[i], report.getNextRates()[i] * 100));
+            }
+            if (report.getRecentPeriods().length > 0) {
+                result.append("最近出现（模式最后一期）: ")
+                        .append(Arrays.toString(report.getRecentPeriods()))
+                        .append('\n');
+            }
+            return result.toString();
+        } catch (IllegalArgumentException e) {
+            return "参数错误: " + e.getMessage();
+        }
+    }
+
+    private static BacktestGrid grid(String killRule, String strategies, String modes, String stakes, String limits,
+                                     String bankrolls, double payout, int sessionLength) {
+        return BacktestGrid.builder()
+                .killRule(killRule)
+                .strategies(splitList(strategies).stream().map(v -> BacktestStrategy.valueOf(v.toUpperCase())).toList())
+                .betModes(splitList(modes).stream().map(v -> BacktestBetMode.valueOf(v.toUpperCase())).toList())
+                .baseStakes(splitList(stakes).stream().mapToDouble(Double::parseDouble).toArray())
+                .limits(splitList(limits).stream().mapToInt(Integer::parseInt).toArray())
+                .bankrolls(splitList(bankrolls).stream().mapToDouble(Double::parseDouble).toArray())
+                .payout(payout)
+                .sessionLength(sessionLength)
+                .curvePoints(0)
+                .build();
+    }
+
+    private static List<String> splitList(String value) {
+        return Arrays.stream(value.split(",")).map(String::trim).filter(v -> !v.isEmpty()).toList();
+    }
+}
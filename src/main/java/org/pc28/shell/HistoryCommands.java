@@ -0,0 +1,51 @@
+package org.pc28.shell;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.pc28.service.db.HistoryDataService;
+import org.springframework.shell.standard.ShellComponent;
+import org.springframework.shell.standard.ShellMethod;
+import org.springframework.shell.standard.ShellOption;
+
+import java.util.Map;
+
+/**
+ * 历史数据库维护相关命令
+ */
+@ShellComponent
+@Slf4j
+@RequiredArgsConstructor
+public class HistoryCommands {
+
+    private final HistoryDataService historyDataService;
+    
+    /**
+     * 把分服务器的旧表批量复制到统一历史表
+     */
+    @ShellMethod(key = {"migrate-history"}, value = "把sf1_history等旧表批量迁移到统一表draw_history")
+    public String migrateHistory(
+            @ShellOption(value = {"-c", "--chunk"}, defaultValue = "10000", help = "每条INSERT ... SELECT复制的期号区间大小") int chunkSize) {
+        log.info("======== 开始迁移历史数据到统一表 ========");
+        
+        try {
+            long start = System.currentTimeMillis();
+            Map<String, Integer> migrated = historyDataService.migrateToUnifiedTable(chunkSize);
+            
+            StringBuilder result = new StringBuilder("历史数据迁移结果:\n");
+            int total = 0;
+            for (Map.Entry<String, Integer> entry : migrated.entrySet()) {
+                result.append(String.format("服务器 %s: 受影响 %d 行\n", entry.getKey(), entry.getValue()));
+                total += entry.getValue();
+            }
+            result.append(String.format("\n总计受影响行数: %d，耗时 %d 毫秒", total, System.currentTimeMillis() - start));
+            result.append(String.format("\n当前存储模式: %s（迁移完成后可设置 pc28.persistence.storage-mode=unified）",
+                    historyDataService.getStorageMode().name().toLowerCase()));
+            
+            log.info("======== 历史数据迁移完成 ========");
+            return result.toString();
+        } catch (Exception e) {
+            log.error("迁移历史数据时发生错误: {}", e.getMessage(), e);
+            return "迁移错误: " + e.getMessage();
+        }
+    }
+}
@@ -5,6 +5,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.pc28.constants.WebConstants;
 import org.pc28.model.DrawResult;
+import org.pc28.model.ParsedServerPage;
 import org.pc28.service.db.HistoryDataService;
 import org.pc28.utils.HtmlParser;
 import org.pc28.utils.SimpleHtmlParser;
@@ -14,6 +15,7 @@ import org.springframework.shell.standard.ShellOption;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -209,7 +211,8 @@ public class HtmlParserCommands {
         log.info("======== 开始解析所有服务器的数据 ========");
         
         try {
-            List<Map<String, Object>> allResults = SimpleHtmlParser.parseAllServers();
+            List<ParsedServerPage> allPages = SimpleHtmlParser.parseAllServerPages(Collections.emptySet(), server -> -1);
+            List<Map<String, Object>> allResults = SimpleHtmlParser.toMaps(allPages);
             SimpleHtmlParser.compareServerResults(allResults);
             
             // 转换为JSON格式以便深入分析
@@ -217,11 +220,11 @@ public class HtmlParserCommands {
             
             // 保存到数据库
             StringBuilder resultMessage = new StringBuilder();
-            resultMessage.append(String.format("解析结果:\n服务器数: %d\n", allResults.size()));
+            resultMessage.append(String.format("解析结果:\n服务器数: %d\n", allPages.size()));
             
             if (saveToDatabase) {
                 log.info("开始将解析结果保存到数据库...");
-                Map<String, Integer> savedCounts = historyDataService.saveAllServersData(allResults);
+                Map<String, Integer> savedCounts = historyDataService.saveAllServerPages(allPages);
                 
                 resultMessage.append("数据库保存结果:\n");
                 for (Map.Entry<String, Integer> entry : savedCounts.entrySet()) {
@@ -250,10 +253,10 @@ public class HtmlParserCommands {
         log.info("======== 开始将数据保存到数据库 ========");
         
         try {
-            List<Map<String, Object>> allResults = SimpleHtmlParser.parseAllServers();
+            List<ParsedServerPage> allPages = SimpleHtmlParser.parseAllServerPages(Collections.emptySet(), server -> -1);
             
-            log.info("成功解析服务器数量: {}", allResults.size());
-            Map<String, Integer> savedCounts = historyDataService.saveAllServersData(allResults);
+            log.info("成功解析服务器数量: {}", allPages.size());
+            Map<String, Integer> savedCounts = historyDataService.saveAllServerPages(allPages);
             
             StringBuilder result = new StringBuilder("数据库保存结果:\n");
             int totalSaved = 0;
@@ -3,6 +3,8 @@ package org.pc28.shell;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.pc28.constants.WebConstants;
+import org.pc28.model.ConnectionPoolStats;
+import org.pc28.model.DownloadCycleReport;
 import org.pc28.model.WebDownloadResult;
 import org.pc28.service.WebDownloadService;
 import org.pc28.service.impl.WebDownloadServiceImpl;
@@ -117,4 +119,67 @@ public class WebDownloadCommands {
             WebConstants.SAVE_PATH
         );
     }
+    
+    /**
+     * 并发下载所有目标网页并输出各数据源的耗时报告
+     */
+    @ShellMethod(key = {"download-report"}, value = "并发下载所有目标网页并输出各数据源耗时")
+    public String downloadAllWithReport() {
+        log.info("======== 开始执行并发网页下载任务 ========");
+        
+        DownloadCycleReport report = webDownloadService.downloadAllUrlsConcurrently();
+        
+        StringBuilder output = new StringBuilder();
+        output.append(String.format(
+            "并发下载结果:\n" +
+            "总目标数量: %d\n" +
+            "成功下载: %d\n" +
+            "超时取消: %d\n" +
+            "最大并发数: %d\n" +
+            "总耗时: %d毫秒 (截止时间 %d毫秒)\n",
+            report.getTotalCount(),
+            report.getSuccessCount(),
+            report.getTimedOutCount(),
+            report.getMaxConcurrency(),
+            report.getWallTimeMillis(),
+            report.getDeadlineMillis()
+        ));
+        
+        for (WebDownloadResult result : report.getResults()) {
+            String status = result.isSuccess() ? (result.isUnchanged() ? "未变化" : "成功") : (result.isTimedOut() ? "超时" : "失败");
+            output.append(String.format("%-6s %-4s %6d毫秒 %s\n",
+                    result.getServerPrefix(),
+                    status,
+                    result.getDownloadTimeMillis(),
+                    result.isSuccess() ? (result.getFilePath() != null ? result.getFilePath() : "-") : result.getErrorMessage()));
+        }
+        
+        log.info("======== 并发网页下载任务完成 ========");
+        return output.toString();
+    }
+    
+    /**
+     * 查看HTTP连接池统计信息
+     */
+    @ShellMethod(key = {"pool-stats"}, value = "查看HTTP连接池统计信息")
+    public String poolStats() {
+        ConnectionPoolStats stats = webDownloadService.getConnectionPoolStats();
+        return String.format(
+            "HTTP连接池统计:\n" +
+            "使用中连接: %d\n" +
+            "空闲连接: %d\n" +
+            "等待获取连接: %d\n" +
+            "最大连接数: %d\n" +
+            "请求数: %d\n" +
+            "新建连接数: %d\n" +
+            "连接复用率: %.1f%%",
+            stats.getLeased(),
+            stats.getAvailable(),
+            stats.getPending(),
+            stats.getMax(),
+            stats.getRequestCount(),
+            stats.getConnectionsCreated(),
+            stats.getReuseRate() * 100
+        );
+    }
 }
\ No newline at end of file
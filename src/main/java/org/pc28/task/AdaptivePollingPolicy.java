@@ -0,0 +1,82 @@
+package org.pc28.task;
+
+import org.pc28.constants.WebConstants;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.random.RandomGenerator;
+
+/**
+ * 开奖前后的自适应轮询策略
+ *
+ * 距预计开奖时刻还早时稀疏轮询（最长 quietIntervalMillis 一次，用于刷新倒计时），
+ * 从开奖前 leadMillis 开始按 burstIntervalMillis（带随机抖动）密集轮询，直到看到新一期号码；
+ * 超过开奖时刻 burstWindowMillis 仍未看到时退回默认间隔，不再持续高频请求
+ */
+public class AdaptivePollingPolicy {
+
+    /**
+     * 密集轮询的最小间隔（毫秒），抖动后不低于此值
+     */
+    private static final long MIN_BURST_INTERVAL_MILLIS = 50;
+
+    private final long leadMillis;
+    private final long burstIntervalMillis;
+    private final long jitterMillis;
+    private final long burstWindowMillis;
+    private final long quietIntervalMillis;
+
+    /**
+     * @param leadMillis 预计开奖前多久开始密集轮询
+     * @param burstIntervalMillis 密集轮询的间隔
+     * @param jitterMillis 密集轮询间隔的随机抖动（正负）
+     * @param burstWindowMillis 预计开奖后最多密集轮询多久
+     * @param quietIntervalMillis 稀疏轮询的最长间隔
+     */
+    public AdaptivePollingPolicy(long leadMillis, long burstIntervalMillis, long jitterMillis,
+                                 long burstWindowMillis, long quietIntervalMillis) {
+        if (burstIntervalMillis <= 0 || quietIntervalMillis <= 0) {
+            throw new IllegalArgumentException("轮询间隔必须大于0");
+        }
+        this.leadMillis = Math.max(0, leadMillis);
+        this.burstIntervalMillis = burstIntervalMillis;
+        this.jitterMillis = Math.max(0, jitterMillis);
+        this.burstWindowMillis = Math.max(0, burstWindowMillis);
+        this.quietIntervalMillis = quietIntervalMillis;
+    }
+
+    /**
+     * 计算下一次轮询的延迟
+     *
+     * @param expectedDrawAt 预计的下一期开奖时刻，不知道时为null
+     * @param now 当前时刻
+     * @param random 抖动使用的随机数
+     * @return 延迟毫秒数
+     */
+    public long nextDelayMillis(Instant expectedDrawAt, Instant now, RandomGenerator random) {
+        if (expectedDrawAt == null) {
+            return WebConstants.TASK_DEFAULT_INTERVAL * 1000L;
+        }
+
+        long untilDraw = Duration.between(now, expectedDrawAt).toMillis();
+        if (untilDraw > leadMillis) {
+            return Math.min(untilDraw - leadMillis, quietIntervalMillis);
+        }
+        if (untilDraw >= -burstWindowMillis) {
+            long jitter = jitterMillis == 0 ? 0 : random.nextLong(-jitterMillis, jitterMillis + 1);
+            return Math.max(MIN_BURST_INTERVAL_MILLIS, burstIntervalMillis + jitter);
+        }
+        return WebConstants.TASK_DEFAULT_INTERVAL * 1000L;
+    }
+
+    /**
+     * 当前是否处于密集轮询阶段
+     */
+    public boolean isBursting(Instant expectedDrawAt, Instant now) {
+        if (expectedDrawAt == null) {
+            return false;
+        }
+        long untilDraw = Duration.between(now, expectedDrawAt).toMillis();
+        return untilDraw <= leadMillis && untilDraw >= -burstWindowMillis;
+    }
+}
@@ -0,0 +1,29 @@
+package org.pc28.task;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+/**
+ * 在截止时间内并发执行一轮采集的子任务
+ *
+ * 每个子任务在独立的虚拟线程中运行，到截止时间仍未完成的子任务被中断取消，
+ * 已完成的子任务照常返回结果，一个子任务失败不影响其他子任务
+ */
+public interface CollectionCycleRunner {
+
+    /**
+     * 执行一轮子任务
+     *
+     * @param tasks 子任务
+     * @param deadline 截止时刻
+     * @return 各子任务的结果，顺序与 tasks 一致
+     * @throws InterruptedException 等待时当前线程被中断，此时所有子任务都被取消
+     */
+    <T> List<CycleSubtaskResult<T>> runAll(List<Callable<T>> tasks, Instant deadline) throws InterruptedException;
+
+    /**
+     * 执行方式的名称，用于日志
+     */
+    String name();
+}
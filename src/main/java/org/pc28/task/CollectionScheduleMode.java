@@ -0,0 +1,17 @@
+package org.pc28.task;
+
+/**
+ * 数据采集的调度方式
+ */
+public enum CollectionScheduleMode {
+
+    /**
+     * 所有服务器一起下载、解析和入库，按第一个带倒计时的服务器安排下一轮
+     */
+    FLEET,
+
+    /**
+     * 每个服务器一条独立的流水线，按各自的倒计时调度，互不等待
+     */
+    PER_SERVER
+}
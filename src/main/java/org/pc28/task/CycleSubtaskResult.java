@@ -0,0 +1,43 @@
+package org.pc28.task;
+
+/**
+ * 一轮采集中单个子任务的结果
+ *
+ * @param state 子任务状态
+ * @param value 成功时的返回值，其余状态为null
+ * @param error 失败时抛出的异常，其余状态为null
+ */
+public record CycleSubtaskResult<T>(State state, T value, Throwable error) {
+
+    /**
+     * 子任务状态
+     */
+    public enum State {
+        /**
+         * 在截止时间前完成
+         */
+        SUCCESS,
+
+        /**
+         * 在截止时间前抛出异常
+         */
+        FAILED,
+
+        /**
+         * 到截止时间仍未完成，已被取消
+         */
+        CANCELLED
+    }
+
+    public static <T> CycleSubtaskResult<T> success(T value) {
+        return new CycleSubtaskResult<>(State.SUCCESS, value, null);
+    }
+
+    public static <T> CycleSubtaskResult<T> failed(Throwable error) {
+        return new CycleSubtaskResult<>(State.FAILED, null, error);
+    }
+
+    public static <T> CycleSubtaskResult<T> cancelled() {
+        return new CycleSubtaskResult<>(State.CANCELLED, null, null);
+    }
+}
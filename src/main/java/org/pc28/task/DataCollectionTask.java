@@ -1,12 +1,18 @@
 package org.pc28.task;
 
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.pc28.constants.WebConstants;
+import org.pc28.model.ParsedServerPage;
+import org.pc28.model.WebDownloadResult;
 import org.pc28.service.WebDownloadService;
+import org.pc28.service.analysis.DrawClock;
 import org.pc28.service.db.HistoryDataService;
 import org.pc28.utils.SimpleHtmlParser;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Component;
 
@@ -15,10 +21,14 @@ import java.time.Duration;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Timer;
 import java.util.TimerTask;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -35,6 +45,65 @@ public class DataCollectionTask {
     private final WebDownloadService webDownloadService;
     private final HistoryDataService historyDataService;
     private final TaskScheduler taskScheduler;
+    private final MeterRegistry meterRegistry;
+    private final ServerCollectionPipelines serverPipelines;
+    private final DrawClock drawClock;
+    private final CollectionCycleRunner cycleRunner;
+    private final StagedIngestionPipeline ingestionPipeline;
+    
+    /**
+     * 调度方式：FLEET 按第一个服务器的倒计时统一采集，PER_SERVER 每个服务器独立采集
+     */
+    @Value("${pc28.collection.schedule-mode:fleet}")
+    private CollectionScheduleMode scheduleMode;
+    
+    /**
+     * 是否启用定时数据采集
+     */
+    @Value("${pc28.collection.enabled:true}")
+    private boolean enabled;
+    
+    /**
+     * 是否使用内存模式：下载内容直接解析，文件只作为可选的异步副本
+     */
+    @Value("${pc28.collection.in-memory:true}")
+    private boolean inMemory;
+    
+    /**
+     * 增量解析：历史记录扫描到已入库的最终号码水位即停止
+     */
+    @Value("${pc28.collection.incremental-parse:true}")
+    private boolean incrementalParse;
+    
+    /**
+     * 流式解析：不构建DOM直接扫描网页字符，页面结构不符时回退到jsoup
+     */
+    @Value("${pc28.collection.streaming-parse:true}")
+    private boolean streamingParse;
+    
+    /**
+     * 是否通过分阶段流水线（下载 → 解析 → 分析 → 入库）采集，关闭时每个数据源在自己的子任务中依次执行各步骤
+     */
+    @Value("${pc28.ingestion.enabled:true}")
+    private boolean stagedIngestion;
+    
+    /**
+     * 一轮采集的最长时间（毫秒），开奖时钟还没有观测时即为本轮的预算
+     */
+    @Value("${pc28.collection.cycle.max-budget-millis:60000}")
+    private long cycleMaxBudgetMillis;
+    
+    /**
+     * 一轮采集的最短时间（毫秒），下一次开奖离得太近时改为以再下一次开奖为准
+     */
+    @Value("${pc28.collection.cycle.min-budget-millis:5000}")
+    private long cycleMinBudgetMillis;
+    
+    /**
+     * 一轮采集须在下一次开奖前多久结束（毫秒）
+     */
+    @Value("${pc28.collection.cycle.draw-margin-millis:5000}")
+    private long cycleDrawMarginMillis;
     
     // 用于防止任务重叠执行
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
@@ -56,13 +125,23 @@ public class DataCollectionTask {
      */
     @PostConstruct
     public void init() {
-        log.info("数据采集任务调度器启动，10秒后执行第一次采集");
+        if (!enabled) {
+            log.info("数据采集任务已禁用（pc28.collection.enabled=false）");
+            return;
+        }
+        if (scheduleMode == CollectionScheduleMode.PER_SERVER) {
+            serverPipelines.start(10, inMemory, this::watermarkOf);
+            return;
+        }
+        log.info("数据采集任务调度器启动，采集周期执行方式: {}，10秒后执行第一次采集", cycleRunner.name());
         // 启动10秒后执行第一次任务
         scheduleNextTask(10);
     }
     
     /**
      * 执行数据采集任务
+     * 每个数据源的下载、解析、入库作为一个子任务并发执行，整轮有一个由下一次开奖时刻决定的截止时间：
+     * 到截止时间仍未完成的数据源被取消并记为部分结果，已完成的数据源照常入库
      */
     public void collectData() {
         // 停止倒计时显示
@@ -79,35 +158,77 @@ public class DataCollectionTask {
             String now = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss"));
             log.info("===== 开始第{}次数据采集任务 [{}] =====", executionCount, now);
             
-            // 1. 清理旧文件
-            log.info("步骤1: 清理下载文件夹中的旧文件");
-            int deletedCount = cleanDownloadFolder();
-            log.info("成功删除 {} 个旧HTML文件", deletedCount);
+            // 1. 按下一次开奖时刻确定本轮的截止时间
+            Instant start = Instant.now();
+            Instant deadline = cycleDeadline(start, earliestNextDraw(start.plusMillis(cycleMinBudgetMillis + cycleDrawMarginMillis)),
+                    cycleDrawMarginMillis, cycleMinBudgetMillis, cycleMaxBudgetMillis);
+            long budgetMillis = Duration.between(start, deadline).toMillis();
+            log.info("步骤1: 本轮采集截止时间 {}，预算 {} 毫秒", deadline, budgetMillis);
             
-            // 2. 下载最新数据
-            log.info("步骤2: 下载所有目标网页");
-            int downloadedCount = webDownloadService.downloadAllUrls();
-            log.info("成功下载 {} 个网页", downloadedCount);
+            if (!inMemory) {
+                log.info("清理下载文件夹中的旧文件");
+                int deletedCount = cleanDownloadFolder();
+                log.info("成功删除 {} 个旧HTML文件", deletedCount);
+            }
             
-            // 等待一秒确保文件写入完成
-            try {
-                Thread.sleep(1000);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-                log.warn("等待被中断");
+            // 2. 各数据源并发下载、解析并保存到数据库
+            log.info("步骤2: 并发下载、解析并保存所有数据源（{}{}）", cycleRunner.name(), stagedIngestion ? "，分阶段流水线" : "");
+            int total = WebConstants.TARGET_URLS.length;
+            List<Callable<SourceCollection>> tasks = new ArrayList<>(total);
+            for (int i = 0; i < total; i++) {
+                final int urlIndex = i;
+                tasks.add(() -> collectSource(urlIndex));
             }
+            List<CycleSubtaskResult<SourceCollection>> results = cycleRunner.runAll(tasks, deadline);
+            long elapsedMillis = Duration.between(start, Instant.now()).toMillis();
             
-            // 3. 解析数据
-            log.info("步骤3: 解析最新下载的HTML文件");
-            List<Map<String, Object>> allResults = SimpleHtmlParser.parseAllServers();
-            log.info("成功解析 {} 个服务器的数据", allResults.size());
+            // 3. 汇总本轮结果，未完成的数据源下一轮强制重新解析
+            List<ParsedServerPage> allPages = new ArrayList<>(total);
+            Map<String, Long> sampleTimes = new HashMap<>();
+            Map<String, Integer> savedCounts = new LinkedHashMap<>();
+            List<String> partialServers = new ArrayList<>();
+            for (int i = 0; i < total; i++) {
+                String server = WebConstants.getServerPrefix(i);
+                CycleSubtaskResult<SourceCollection> result = results.get(i);
+                switch (result.state()) {
+                    case SUCCESS -> {
+                        SourceCollection collection = result.value();
+                        ParsedServerPage page = collection.page();
+                        allPages.add(page);
+                        if (page.hasError()) {
+                            webDownloadService.resetContentTracking(server);
+                            log.warn("服务器 {} 采集失败: {}", server, page.getError());
+                        } else {
+                            // 入库成功后内容哈希才生效，之前失败的数据源下一轮仍会重新解析
+                            webDownloadService.confirmContentSaved(server);
+                            savedCounts.put(server, collection.saved());
+                            if (collection.sampledAtMillis() > 0) {
+                                sampleTimes.put(server, collection.sampledAtMillis());
+                            }
+                        }
+                    }
+                    case FAILED -> {
+                        webDownloadService.resetContentTracking(server);
+                        log.error("服务器 {} 采集异常: {}", server, result.error().getMessage(), result.error());
+                    }
+                    case CANCELLED -> {
+                        webDownloadService.resetContentTracking(server);
+                        partialServers.add(server);
+                        meterRegistry.counter("pc28.collection.cycle.cancelled", "server", server).increment();
+                    }
+                }
+            }
+            recordBudgetUsage(elapsedMillis, budgetMillis);
+            log.info("成功解析 {} 个服务器的数据，耗时 {} 毫秒，占预算 {}%", allPages.size(), elapsedMillis,
+                    budgetMillis > 0 ? elapsedMillis * 100 / budgetMillis : 100);
+            if (!partialServers.isEmpty()) {
+                log.warn("本轮为部分结果：服务器 {} 超过截止时间被取消，下一轮重新采集", partialServers);
+            }
+            recordRowsVisited(allPages);
+            observeDrawClock(allPages, sampleTimes);
             
             // 获取倒计时信息
-            int nextExecutionSeconds = calculateNextExecutionTime(allResults);
-            
-            // 4. 保存到数据库
-            log.info("步骤4: 将解析结果保存到数据库");
-            Map<String, Integer> savedCounts = historyDataService.saveAllServersData(allResults);
+            int nextExecutionSeconds = calculateNextExecutionTime(allPages);
             
             // 统计总保存记录数
             int totalSaved = savedCounts.values().stream().mapToInt(Integer::intValue).sum();
@@ -117,15 +238,22 @@ public class DataCollectionTask {
                 log.info("服务器 {}: 保存 {} 条记录", entry.getKey(), entry.getValue());
             }
             
-            // 5. 任务结束日志
+            // 4. 任务结束日志
             log.info("数据采集任务已完成，最新数据已保存");
             log.info("===== 第{}次数据采集任务完成 =====", executionCount);
             
-            // 6. 根据倒计时调度下一次任务
+            // 5. 根据倒计时调度下一次任务
             scheduleNextTask(nextExecutionSeconds);
             
+        } catch (InterruptedException e) {
+            // 应用关闭时调度线程被中断，子任务已取消，不再调度
+            Thread.currentThread().interrupt();
+            webDownloadService.resetContentTracking();
+            log.warn("数据采集任务被中断");
         } catch (Exception e) {
             log.error("数据采集任务执行异常: {}", e.getMessage(), e);
+            // 本轮数据可能未入库，清除内容校验信息，下一轮强制重新解析
+            webDownloadService.resetContentTracking();
             // 出错时，30秒后重试
             scheduleNextTask(30);
         } finally {
@@ -134,37 +262,143 @@ public class DataCollectionTask {
         }
     }
     
+    /**
+     * 下载、解析并保存单个数据源，在采集周期的子任务中执行
+     * 启用分阶段流水线时交给 {@link StagedIngestionPipeline}，各数据源的不同阶段在流水线中重叠执行；
+     * 以请求发出到收到响应的中点作为页面生成时刻的估计值，倒计时从这一刻算起，
+     * 之后的解析和入库耗时不影响开奖时刻的计算
+     */
+    private SourceCollection collectSource(int urlIndex) throws Exception {
+        if (stagedIngestion) {
+            return ingestionPipeline.ingest(urlIndex, inMemory, this::watermarkOf);
+        }
+        WebDownloadResult download = webDownloadService.downloadSource(urlIndex, inMemory);
+        ParsedServerPage page = SimpleHtmlParser.parseDownloaded(download, this::watermarkOf, streamingParse);
+        int saved = page.hasError() ? 0 : historyDataService.saveServerPage(page);
+        long sampledAt = download.isSuccess() && download.getStartedAtMillis() > 0
+                ? download.getStartedAtMillis() + download.getDownloadTimeMillis() / 2 : -1;
+        return new SourceCollection(page, sampledAt, saved);
+    }
+    
+    /**
+     * 计算一轮采集的截止时刻：下一次开奖前 marginMillis 毫秒，且预算在 minBudgetMillis 和 maxBudgetMillis 之间
+     *
+     * @param start 本轮开始时刻
+     * @param nextDraw 预计的下一次开奖时刻，不知道时为null
+     * @param marginMillis 须在开奖前多久结束（毫秒）
+     * @param minBudgetMillis 最短预算（毫秒）
+     * @param maxBudgetMillis 最长预算（毫秒）
+     * @return 截止时刻
+     */
+    static Instant cycleDeadline(Instant start, Instant nextDraw, long marginMillis,
+                                 long minBudgetMillis, long maxBudgetMillis) {
+        Instant deadline = start.plusMillis(maxBudgetMillis);
+        if (nextDraw != null && nextDraw.minusMillis(marginMillis).isBefore(deadline)) {
+            deadline = nextDraw.minusMillis(marginMillis);
+        }
+        Instant earliest = start.plusMillis(Math.min(minBudgetMillis, maxBudgetMillis));
+        return deadline.isBefore(earliest) ? earliest : deadline;
+    }
+    
+    /**
+     * 各服务器的开奖时钟预测的、晚于给定时刻的最早一次开奖时刻
+     *
+     * @return 开奖时刻，所有服务器都还没有时钟观测时返回null
+     */
+    private Instant earliestNextDraw(Instant after) {
+        Instant earliest = null;
+        for (int i = 0; i < WebConstants.TARGET_URLS.length; i++) {
+            Instant nextDraw = drawClock.nextDrawAfter(WebConstants.getServerPrefix(i), after);
+            if (nextDraw != null && (earliest == null || nextDraw.isBefore(earliest))) {
+                earliest = nextDraw;
+            }
+        }
+        return earliest;
+    }
+    
+    /**
+     * 记录本轮耗时占截止时间预算的比例，超过1表示等待被取消的子任务退出时越过了截止时间
+     */
+    private void recordBudgetUsage(long elapsedMillis, long budgetMillis) {
+        DistributionSummary.builder("pc28.collection.cycle.budget.usage")
+                .description("每轮采集耗时占截止时间预算的比例")
+                .publishPercentiles(0.5, 0.9, 0.99)
+                .register(meterRegistry)
+                .record(budgetMillis > 0 ? (double) elapsedMillis / budgetMillis : 1.0);
+        meterRegistry.summary("pc28.collection.cycle.budget.millis").record(budgetMillis);
+    }
+    
+    /**
+     * 增量解析的水位期号，关闭增量解析时返回-1（完整解析）
+     */
+    private int watermarkOf(String serverPrefix) {
+        return incrementalParse ? historyDataService.getFinalWatermark(serverPrefix) : -1;
+    }
+    
+    /**
+     * 记录本轮各服务器解析时访问的历史记录行数
+     */
+    private void recordRowsVisited(List<ParsedServerPage> allPages) {
+        int totalVisited = 0;
+        for (ParsedServerPage page : allPages) {
+            int rows = page.getRowsVisited();
+            if (rows >= 0) {
+                totalVisited += rows;
+                meterRegistry.summary("pc28.parse.rows.visited", "server", String.valueOf(page.getServer()))
+                        .record(rows);
+            }
+        }
+        meterRegistry.summary("pc28.parse.rows.visited.cycle").record(totalVisited);
+        log.info("本轮解析共访问 {} 行历史记录", totalVisited);
+    }
+    
+    /**
+     * 用本轮解析到的倒计时更新各服务器的开奖时钟
+     */
+    private void observeDrawClock(List<ParsedServerPage> allPages, Map<String, Long> sampleTimes) {
+        for (ParsedServerPage page : allPages) {
+            Long sampledAt = sampleTimes.get(page.getServer());
+            if (sampledAt != null && !page.hasError() && !page.isUnchanged()) {
+                drawClock.observe(page.getServer(), page, sampledAt);
+            }
+        }
+    }
+    
     /**
      * 根据解析结果计算下一次执行时间
-     * @param allResults 所有服务器的解析结果
+     * @param allPages 所有服务器的解析结果
      * @return 下一次执行的秒数
      */
-    private int calculateNextExecutionTime(List<Map<String, Object>> allResults) {
-        if (allResults.isEmpty()) {
+    private int calculateNextExecutionTime(List<ParsedServerPage> allPages) {
+        if (allPages.isEmpty()) {
             log.warn("没有解析结果，使用默认间隔{}秒", WebConstants.TASK_DEFAULT_INTERVAL);
             return WebConstants.TASK_DEFAULT_INTERVAL;
         }
         
-        // 获取第一个服务器的倒计时信息
-        Map<String, Object> firstResult = allResults.get(0);
-        String countdownMinutes = (String) firstResult.get("countdown_minutes");
-        String countdownSeconds = (String) firstResult.get("countdown_seconds");
+        // 优先按开奖时钟模型预测的下一期开奖时刻调度，不受本轮下载和解析耗时影响
+        Instant now = Instant.now();
+        for (ParsedServerPage page : allPages) {
+            Instant nextDraw = drawClock.nextDraw(page.getServer());
+            if (nextDraw != null && nextDraw.isAfter(now)) {
+                int nextExecutionSeconds = (int) ((Duration.between(now, nextDraw).toMillis() + 999) / 1000)
+                        + WebConstants.TASK_BUFFER_SECONDS;
+                log.info("服务器 {} 的下一期预计在 {} 开奖，增加{}秒缓冲时间，下次执行将在{}秒后",
+                        page.getServer(), nextDraw, WebConstants.TASK_BUFFER_SECONDS, nextExecutionSeconds);
+                return nextExecutionSeconds;
+            }
+        }
         
-        if (countdownMinutes != null && countdownSeconds != null) {
-            try {
-                int minutes = Integer.parseInt(countdownMinutes);
-                int seconds = Integer.parseInt(countdownSeconds);
-                int totalSeconds = minutes * 60 + seconds;
-                
+        // 获取第一个带倒计时的服务器的倒计时信息（内容未变化的服务器不解析，没有倒计时）
+        for (ParsedServerPage page : allPages) {
+            int totalSeconds = countdownSeconds(page);
+            if (totalSeconds >= 0) {
                 // 使用配置的缓冲时间
                 int nextExecutionSeconds = totalSeconds + WebConstants.TASK_BUFFER_SECONDS;
                 
                 log.info("解析到倒计时: {}分{}秒（总计{}秒），增加{}秒缓冲时间，下次执行将在{}秒后", 
-                    minutes, seconds, totalSeconds, WebConstants.TASK_BUFFER_SECONDS, nextExecutionSeconds);
+                    totalSeconds / 60, totalSeconds % 60, totalSeconds, WebConstants.TASK_BUFFER_SECONDS, nextExecutionSeconds);
                 
                 return nextExecutionSeconds;
-            } catch (NumberFormatException e) {
-                log.error("解析倒计时失败: {} 分 {} 秒", countdownMinutes, countdownSeconds);
             }
         }
         
@@ -172,6 +406,19 @@ public class DataCollectionTask {
         return WebConstants.TASK_DEFAULT_INTERVAL;
     }
     
+    /**
+     * 解析页面上的开奖倒计时
+     * @param page 解析结果
+     * @return 倒计时总秒数，页面没有倒计时或格式错误时返回-1
+     */
+    static int countdownSeconds(ParsedServerPage page) {
+        int totalSeconds = page.countdownTotalSeconds();
+        if (totalSeconds < 0 && page.getCountdownMinutes() != null && page.getCountdownSeconds() != null) {
+            log.error("解析倒计时失败: {} 分 {} 秒", page.getCountdownMinutes(), page.getCountdownSeconds());
+        }
+        return totalSeconds;
+    }
+    
     /**
      * 调度下一次任务执行
      * @param delaySeconds 延迟秒数
@@ -0,0 +1,314 @@
+package org.pc28.task;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.pc28.constants.WebConstants;
+import org.pc28.model.ParsedServerPage;
+import org.pc28.model.WebDownloadResult;
+import org.pc28.service.WebDownloadService;
+import org.pc28.service.analysis.DrawClock;
+import org.pc28.service.db.HistoryDataService;
+import org.pc28.utils.SimpleHtmlParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.ToIntFunction;
+
+/**
+ * 按服务器独立调度的采集流水线
+ *
+ * 每个数据源一条流水线：下载、解析、入库后按本服务器页面上的倒计时安排下一次采集，
+ * 各自有防重叠标记和失败退避，所有流水线共享一个固定大小的线程池。
+ * 某个服务器变慢或出错只影响它自己的下一次采集时间。
+ * 预计开奖时刻取自 {@link DrawClock} 按倒计时观测拟合的模型，调度按预测的绝对时刻触发，不累计相对延迟的误差；
+ * 启用密集轮询时按 {@link AdaptivePollingPolicy} 在预计开奖时刻前后高频请求，
+ * 并把预计开奖时刻到新一期入库的延迟记录到 pc28.collection.draw.latency 直方图
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ServerCollectionPipelines {
+
+    private final WebDownloadService webDownloadService;
+    private final HistoryDataService historyDataService;
+    private final MeterRegistry meterRegistry;
+    private final DrawClock drawClock;
+
+    /**
+     * 流水线共享线程池的线程数
+     */
+    @Value("${pc28.collection.pipeline-threads:4}")
+    private int threads;
+
+    /**
+     * 失败后第一次重试的等待秒数，连续失败时翻倍
+     */
+    @Value("${pc28.collection.failure-backoff-seconds:5}")
+    private int failureBackoffSeconds;
+
+    /**
+     * 连续失败时重试等待的上限（秒）
+     */
+    @Value("${pc28.collection.max-backoff-seconds:120}")
+    private int maxBackoffSeconds;
+
+    /**
+     * 是否在预计开奖时刻前后密集轮询，关闭时只在倒计时结束后加缓冲时间采集一次
+     */
+    @Value("${pc28.collection.burst.enabled:true}")
+    private boolean burstEnabled;
+
+    /**
+     * 预计开奖前多久开始密集轮询（毫秒）
+     */
+    @Value("${pc28.collection.burst.lead-millis:2000}")
+    private long burstLeadMillis;
+
+    /**
+     * 密集轮询的间隔（毫秒）
+     */
+    @Value("${pc28.collection.burst.interval-millis:500}")
+    private long burstIntervalMillis;
+
+    /**
+     * 密集轮询间隔的随机抖动（毫秒，正负）
+     */
+    @Value("${pc28.collection.burst.jitter-millis:100}")
+    private long burstJitterMillis;
+
+    /**
+     * 预计开奖后最多密集轮询多久（毫秒），之后退回默认间隔
+     */
+    @Value("${pc28.collection.burst.window-millis:30000}")
+    private long burstWindowMillis;
+
+    /**
+     * 距开奖较远时稀疏轮询的最长间隔（秒）
+     */
+    @Value("${pc28.collection.quiet-interval-seconds:60}")
+    private int quietIntervalSeconds;
+
+    /**
+     * 流式解析：不构建DOM直接扫描网页字符，页面结构不符时回退到jsoup
+     */
+    @Value("${pc28.collection.streaming-parse:true}")
+    private boolean streamingParse;
+
+    private final List<Pipeline> pipelines = new ArrayList<>();
+
+    private AdaptivePollingPolicy pollingPolicy;
+
+    private ScheduledThreadPoolExecutor executor;
+
+    /**
+     * 为每个配置的数据源启动一条流水线
+     *
+     * @param initialDelaySeconds 第一次采集前等待的秒数
+     * @param inMemory 是否使用内存模式
+     * @param watermarkOf 增量解析的水位期号，返回值小于等于0时完整解析
+     */
+    public synchronized void start(int initialDelaySeconds, boolean inMemory, ToIntFunction<String> watermarkOf) {
+        if (executor != null) {
+            return;
+        }
+        AtomicInteger threadCount = new AtomicInteger();
+        executor = new ScheduledThreadPoolExecutor(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "pc28-pipeline-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.setRemoveOnCancelPolicy(true);
+        pollingPolicy = new AdaptivePollingPolicy(burstLeadMillis, burstIntervalMillis, burstJitterMillis,
+                burstWindowMillis, quietIntervalSeconds * 1000L);
+
+        for (int i = 0; i < WebConstants.TARGET_URLS.length; i++) {
+            Pipeline pipeline = new Pipeline(i, inMemory, watermarkOf);
+            pipelines.add(pipeline);
+            pipeline.schedule(initialDelaySeconds * 1000L);
+        }
+        log.info("按服务器独立调度的采集流水线已启动，共 {} 条，共享线程数: {}，密集轮询: {}，{}秒后执行第一次采集",
+                pipelines.size(), executor.getCorePoolSize(), burstEnabled ? "开启" : "关闭", initialDelaySeconds);
+    }
+
+    /**
+     * 停止所有流水线，正在执行的采集会被中断
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        executor = null;
+        pipelines.clear();
+    }
+
+    /**
+     * 根据本服务器的倒计时计算下一次采集的延迟
+     *
+     * @param countdownSeconds 页面上的倒计时秒数，没有时为-1
+     * @param expectedDrawAt 上次解析到的下一期开奖时刻，没有时为null
+     * @param now 当前时刻
+     * @return 延迟秒数
+     */
+    static int nextDelaySeconds(int countdownSeconds, Instant expectedDrawAt, Instant now) {
+        if (countdownSeconds >= 0) {
+            return countdownSeconds + WebConstants.TASK_BUFFER_SECONDS;
+        }
+        // 内容未变化的页面不解析，没有倒计时，按上次的倒计时推算的开奖时刻等待
+        if (expectedDrawAt != null && expectedDrawAt.isAfter(now)) {
+            return (int) Duration.between(now, expectedDrawAt).toSeconds() + WebConstants.TASK_BUFFER_SECONDS;
+        }
+        return WebConstants.TASK_DEFAULT_INTERVAL;
+    }
+
+    /**
+     * 连续失败后的重试延迟：从 baseSeconds 开始每次翻倍，不超过 maxSeconds
+     */
+    static int backoffSeconds(int failures, int baseSeconds, int maxSeconds) {
+        int base = Math.max(1, baseSeconds);
+        int shift = Math.min(Math.max(0, failures - 1), 20);
+        return (int) Math.min((long) base << shift, Math.max(base, maxSeconds));
+    }
+
+    /**
+     * 单个服务器的采集流水线
+     */
+    private final class Pipeline {
+
+        private final int urlIndex;
+        private final String server;
+        private final boolean inMemory;
+        private final ToIntFunction<String> watermarkOf;
+
+        /**
+         * 防止同一服务器的采集重叠执行
+         */
+        private final AtomicBoolean running = new AtomicBoolean(false);
+
+        private int consecutiveFailures;
+
+        private Instant expectedDrawAt;
+
+        /**
+         * 已看到的最新开奖期号，没有时为-1
+         */
+        private int lastDrawnPeriod = -1;
+
+        private final Timer drawLatency;
+
+        private Pipeline(int urlIndex, boolean inMemory, ToIntFunction<String> watermarkOf) {
+            this.urlIndex = urlIndex;
+            this.server = WebConstants.getServerPrefix(urlIndex);
+            this.inMemory = inMemory;
+            this.watermarkOf = watermarkOf;
+            this.drawLatency = Timer.builder("pc28.collection.draw.latency")
+                    .description("预计开奖时刻到新一期号码入库的延迟")
+                    .tag("server", server)
+                    .publishPercentiles(0.5, 0.9, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry);
+        }
+
+        private void schedule(long delayMillis) {
+            ScheduledThreadPoolExecutor current = executor;
+            if (current == null || current.isShutdown()) {
+                return;
+            }
+            current.schedule(this::collect, delayMillis, TimeUnit.MILLISECONDS);
+            log.debug("服务器 {} 的下一次采集安排在 {} 毫秒后", server, delayMillis);
+        }
+
+        private void collect() {
+            if (!running.compareAndSet(false, true)) {
+                log.warn("服务器 {} 的上一次采集还未完成，跳过本次执行", server);
+                return;
+            }
+
+            long delayMillis;
+            try {
+                long start = System.currentTimeMillis();
+                WebDownloadResult download = webDownloadService.downloadSource(urlIndex, inMemory);
+                ParsedServerPage page = SimpleHtmlParser.parseDownloaded(download, watermarkOf, streamingParse);
+                if (page.hasError()) {
+                    throw new IllegalStateException(page.getError());
+                }
+                if (page.getRowsVisited() >= 0) {
+                    meterRegistry.summary("pc28.parse.rows.visited", "server", server).record(page.getRowsVisited());
+                }
+
+                int saved = historyDataService.saveServerPage(page);
+                webDownloadService.confirmContentSaved(server);
+                consecutiveFailures = 0;
+
+                Instant now = Instant.now();
+                int drawn = page.latestDrawnPeriod();
+                if (drawn > lastDrawnPeriod) {
+                    // 第一次采集只建立基线，之后每看到新一期就记录离预计开奖时刻的延迟
+                    Instant expected = drawClock.predict(server, drawn);
+                    if (expected == null) {
+                        expected = expectedDrawAt;
+                    }
+                    if (lastDrawnPeriod >= 0 && expected != null) {
+                        recordDrawLatency(drawn, Duration.between(expected, now));
+                    }
+                    lastDrawnPeriod = drawn;
+                    expectedDrawAt = null;
+                }
+
+                drawClock.observe(server, page, download.getStartedAtMillis() + download.getDownloadTimeMillis() / 2);
+                Instant predicted = drawClock.nextDraw(server);
+                int countdown = DataCollectionTask.countdownSeconds(page);
+                if (predicted != null) {
+                    expectedDrawAt = predicted;
+                } else if (countdown >= 0) {
+                    expectedDrawAt = now.plusSeconds(countdown);
+                }
+
+                if (burstEnabled) {
+                    delayMillis = pollingPolicy.nextDelayMillis(expectedDrawAt, now, ThreadLocalRandom.current());
+                } else {
+                    delayMillis = nextDelaySeconds(predicted != null ? -1 : countdown, expectedDrawAt, now) * 1000L;
+                }
+                if (page.isUnchanged() && burstEnabled && pollingPolicy.isBursting(expectedDrawAt, now)) {
+                    log.debug("服务器 {} 等待新一期号码，{}毫秒后再次采集", server, delayMillis);
+                } else {
+                    log.info("服务器 {} 采集完成，保存 {} 条记录，耗时 {} 毫秒，{}毫秒后再次采集",
+                            server, saved, System.currentTimeMillis() - start, delayMillis);
+                }
+            } catch (Exception e) {
+                consecutiveFailures++;
+                meterRegistry.counter("pc28.collection.pipeline.failures", "server", server).increment();
+                // 本次数据可能未入库，清除内容校验信息，下一次强制重新解析
+                webDownloadService.resetContentTracking(server);
+                int backoff = backoffSeconds(consecutiveFailures, failureBackoffSeconds, maxBackoffSeconds);
+                delayMillis = backoff * 1000L;
+                log.error("服务器 {} 采集失败（连续 {} 次），{}秒后重试: {}",
+                        server, consecutiveFailures, backoff, e.getMessage(), e);
+            } finally {
+                running.set(false);
+            }
+            schedule(delayMillis);
+        }
+
+        /**
+         * 记录预计开奖时刻到新一期入库的延迟，网站提前公布时记为0
+         */
+        private void recordDrawLatency(int period, Duration latency) {
+            drawLatency.record(latency.isNegative() ? Duration.ZERO : latency);
+            log.info("服务器 {} 第 {} 期号码在预计开奖时刻后 {} 毫秒入库", server, period, latency.toMillis());
+        }
+    }
+}
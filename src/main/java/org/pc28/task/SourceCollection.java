@@ -0,0 +1,13 @@
+package org.pc28.task;
+
+import org.pc28.model.ParsedServerPage;
+
+/**
+ * 一轮采集中单个数据源的结果
+ *
+ * @param page 解析结果
+ * @param sampledAtMillis 页面生成时刻的估计值（请求发出到收到响应的中点），下载失败时为-1
+ * @param saved 保存的记录数
+ */
+public record SourceCollection(ParsedServerPage page, long sampledAtMillis, int saved) {
+}
@@ -0,0 +1,468 @@
+package org.pc28.task;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.pc28.constants.WebConstants;
+import org.pc28.model.IngestionStageStats;
+import org.pc28.model.ParsedServerPage;
+import org.pc28.model.WebDownloadResult;
+import org.pc28.service.WebDownloadService;
+import org.pc28.service.db.HistoryDataService;
+import org.pc28.service.db.PreparedServerPage;
+import org.pc28.utils.SimpleHtmlParser;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.ToIntFunction;
+
+/**
+ * 分阶段的采集入库流水线：下载 → 解析 → 分析 → 入库
+ *
+ * 每个阶段有固定数量的工作线程和一个有界队列，一个服务器在解析或入库时，其他服务器可以同时下载。
+ * 下游队列满时上游工作线程阻塞等待空位，数据库变慢时下载随之放缓，
+ * 在途的网页数量不超过各阶段队列容量与工作线程数之和。
+ * 各阶段的队列深度和处理耗时记录在 pc28.ingestion.queue.depth 和 pc28.ingestion.stage.latency 指标中
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class StagedIngestionPipeline {
+
+    private final WebDownloadService webDownloadService;
+    private final HistoryDataService historyDataService;
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 下载阶段的工作线程数
+     */
+    @Value("${pc28.ingestion.fetch.workers:4}")
+    private int fetchWorkers;
+
+    /**
+     * 等待下载的队列容量
+     */
+    @Value("${pc28.ingestion.fetch.queue-capacity:8}")
+    private int fetchQueueCapacity;
+
+    /**
+     * 解析阶段的工作线程数
+     */
+    @Value("${pc28.ingestion.parse.workers:2}")
+    private int parseWorkers;
+
+    /**
+     * 等待解析的队列容量
+     */
+    @Value("${pc28.ingestion.parse.queue-capacity:4}")
+    private int parseQueueCapacity;
+
+    /**
+     * 分析阶段的工作线程数
+     */
+    @Value("${pc28.ingestion.analyze.workers:1}")
+    private int analyzeWorkers;
+
+    /**
+     * 等待分析的队列容量
+     */
+    @Value("${pc28.ingestion.analyze.queue-capacity:4}")
+    private int analyzeQueueCapacity;
+
+    /**
+     * 入库阶段的工作线程数
+     */
+    @Value("${pc28.ingestion.persist.workers:2}")
+    private int persistWorkers;
+
+    /**
+     * 等待入库的队列容量
+     */
+    @Value("${pc28.ingestion.persist.queue-capacity:2}")
+    private int persistQueueCapacity;
+
+    /**
+     * 流式解析：不构建DOM直接扫描网页字符，页面结构不符时回退到jsoup
+     */
+    @Value("${pc28.collection.streaming-parse:true}")
+    private boolean streamingParse;
+
+    private final Map<Stage, StageWorkers> stages = new EnumMap<>(Stage.class);
+
+    private volatile boolean stopped;
+
+    /**
+     * 流水线阶段
+     */
+    public enum Stage {
+        FETCH("下载"),
+        PARSE("解析"),
+        ANALYZE("分析"),
+        PERSIST("入库");
+
+        private final String description;
+
+        Stage(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * 把一个数据源交给流水线，等待它经过各阶段完成
+     * 下载队列已满时阻塞等待空位；等待期间当前线程被中断（例如超过采集周期的截止时间）时，
+     * 取消该数据源并中断正在处理它的工作线程
+     *
+     * @param urlIndex URL索引
+     * @param inMemory 是否为内存模式
+     * @param watermarkOf 增量解析的水位期号，返回值小于等于0时完整解析
+     * @return 采集结果
+     * @throws InterruptedException 等待时当前线程被中断
+     * @throws Exception 某个阶段处理失败
+     */
+    public SourceCollection ingest(int urlIndex, boolean inMemory, ToIntFunction<String> watermarkOf) throws Exception {
+        Ingestion ingestion = new Ingestion(urlIndex, inMemory, watermarkOf);
+        try {
+            stage(Stage.FETCH).enqueue(ingestion);
+            return ingestion.result.get();
+        } catch (InterruptedException e) {
+            ingestion.cancel();
+            throw e;
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    /**
+     * 获取各阶段的统计信息，流水线还没有启动时返回空列表
+     *
+     * @return 按阶段顺序排列的统计信息
+     */
+    public synchronized List<IngestionStageStats> getStageStats() {
+        List<IngestionStageStats> stats = new ArrayList<>(stages.size());
+        for (StageWorkers workers : stages.values()) {
+            stats.add(workers.stats());
+        }
+        return stats;
+    }
+
+    /**
+     * 停止所有工作线程，正在处理的数据源会被中断，还在队列中的数据源以失败结束，等待方不会一直阻塞
+     */
+    @PreDestroy
+    public synchronized void stop() {
+        stopped = true;
+        for (StageWorkers workers : stages.values()) {
+            workers.interruptAll();
+        }
+        int dropped = 0;
+        for (StageWorkers workers : stages.values()) {
+            dropped += workers.failQueued();
+        }
+        if (dropped > 0) {
+            log.info("采集流水线已停止，{} 个排队中的数据源未处理", dropped);
+        }
+    }
+
+    /**
+     * 获取阶段的工作线程组，第一次使用时启动所有阶段
+     */
+    private synchronized StageWorkers stage(Stage stage) {
+        if (stopped) {
+            throw stoppedException();
+        }
+        if (stages.isEmpty()) {
+            start();
+        }
+        return stages.get(stage);
+    }
+
+    private void start() {
+        stages.put(Stage.FETCH, new StageWorkers(Stage.FETCH, fetchWorkers, fetchQueueCapacity));
+        stages.put(Stage.PARSE, new StageWorkers(Stage.PARSE, parseWorkers, parseQueueCapacity));
+        stages.put(Stage.ANALYZE, new StageWorkers(Stage.ANALYZE, analyzeWorkers, analyzeQueueCapacity));
+        stages.put(Stage.PERSIST, new StageWorkers(Stage.PERSIST, persistWorkers, persistQueueCapacity));
+        for (StageWorkers workers : stages.values()) {
+            workers.startAll();
+        }
+        log.info("分阶段采集流水线已启动，各阶段工作线程数/队列容量: 下载 {}/{}，解析 {}/{}，分析 {}/{}，入库 {}/{}",
+                fetchWorkers, fetchQueueCapacity, parseWorkers, parseQueueCapacity,
+                analyzeWorkers, analyzeQueueCapacity, persistWorkers, persistQueueCapacity);
+    }
+
+    private static IllegalStateException stoppedException() {
+        return new IllegalStateException("采集流水线已停止");
+    }
+
+    /**
+     * 在阶段中处理数据源
+     *
+     * @return 下一个阶段，已经完成时返回null
+     */
+    private Stage process(Stage stage, Ingestion ingestion) {
+        switch (stage) {
+            case FETCH -> {
+                WebDownloadResult download = webDownloadService.downloadSource(ingestion.urlIndex, ingestion.inMemory);
+                if (download.isSuccess() && download.getStartedAtMillis() > 0) {
+                    ingestion.sampledAtMillis = download.getStartedAtMillis() + download.getDownloadTimeMillis() / 2;
+                }
+                ingestion.download = download;
+                return Stage.PARSE;
+            }
+            case PARSE -> {
+                ingestion.page = SimpleHtmlParser.parseDownloaded(ingestion.download, ingestion.watermarkOf, streamingParse);
+                // 网页内容不再需要，尽早释放
+                ingestion.download = null;
+                if (ingestion.page.hasError() || ingestion.page.isUnchanged()) {
+                    return null;
+                }
+                return Stage.ANALYZE;
+            }
+            case ANALYZE -> {
+                ingestion.prepared = historyDataService.prepareServerPage(ingestion.page);
+                return Stage.PERSIST;
+            }
+            default -> {
+                ingestion.saved = historyDataService.savePreparedPage(ingestion.prepared);
+                ingestion.prepared = null;
+                return null;
+            }
+        }
+    }
+
+    /**
+     * 单个阶段的有界队列和工作线程
+     */
+    private final class StageWorkers {
+
+        private final Stage stage;
+        private final int workerCount;
+        private final int capacity;
+        private final BlockingQueue<Ingestion> queue;
+        private final List<Thread> threads = new ArrayList<>();
+        private final AtomicInteger busy = new AtomicInteger();
+        private final AtomicLong processed = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final Timer latency;
+        private final Timer queueWait;
+        private final Timer blocked;
+
+        private StageWorkers(Stage stage, int workerCount, int capacity) {
+            this.stage = stage;
+            this.workerCount = Math.max(1, workerCount);
+            this.capacity = Math.max(1, capacity);
+            this.queue = new ArrayBlockingQueue<>(this.capacity);
+            String tag = stage.name().toLowerCase(Locale.ROOT);
+            Gauge.builder("pc28.ingestion.queue.depth", queue, BlockingQueue::size)
+                    .description("采集流水线各阶段排队的数据源数量")
+                    .tag("stage", tag)
+                    .register(meterRegistry);
+            Gauge.builder("pc28.ingestion.workers.busy", busy, AtomicInteger::get)
+                    .description("采集流水线各阶段正在处理的工作线程数")
+                    .tag("stage", tag)
+                    .register(meterRegistry);
+            this.latency = Timer.builder("pc28.ingestion.stage.latency")
+                    .description("采集流水线各阶段的处理耗时")
+                    .tag("stage", tag)
+                    .publishPercentiles(0.5, 0.9, 0.99)
+                    .register(meterRegistry);
+            this.queueWait = Timer.builder("pc28.ingestion.queue.wait")
+                    .description("数据源在各阶段队列中的等待时间")
+                    .tag("stage", tag)
+                    .register(meterRegistry);
+            this.blocked = Timer.builder("pc28.ingestion.stage.blocked")
+                    .description("数据源等待进入各阶段队列的时间（下游已满时的背压）")
+                    .tag("stage", tag)
+                    .register(meterRegistry);
+        }
+
+        private void startAll() {
+            String prefix = "pc28-ingest-" + stage.name().toLowerCase(Locale.ROOT) + "-";
+            for (int i = 0; i < workerCount; i++) {
+                Thread thread = new Thread(this::work, prefix + (i + 1));
+                thread.setDaemon(true);
+                threads.add(thread);
+                thread.start();
+            }
+        }
+
+        private void interruptAll() {
+            for (Thread thread : threads) {
+                thread.interrupt();
+            }
+        }
+
+        /**
+         * 放入本阶段的队列，队列满时阻塞等待
+         */
+        private void enqueue(Ingestion ingestion) throws InterruptedException {
+            long start = System.nanoTime();
+            queue.put(ingestion);
+            ingestion.enqueuedAtNanos = System.nanoTime();
+            blocked.record(ingestion.enqueuedAtNanos - start, TimeUnit.NANOSECONDS);
+            // 停止时已经清空过队列，之后才放入的数据源没有工作线程处理
+            if (stopped && queue.remove(ingestion)) {
+                ingestion.result.completeExceptionally(stoppedException());
+            }
+        }
+
+        /**
+         * 清空队列，让排队中的数据源以失败结束
+         *
+         * @return 清出的数据源数量
+         */
+        private int failQueued() {
+            List<Ingestion> remaining = new ArrayList<>();
+            queue.drainTo(remaining);
+            for (Ingestion ingestion : remaining) {
+                ingestion.result.completeExceptionally(stoppedException());
+            }
+            return remaining.size();
+        }
+
+        private void work() {
+            while (!stopped) {
+                Ingestion ingestion;
+                try {
+                    ingestion = queue.take();
+                } catch (InterruptedException e) {
+                    continue;
+                }
+                queueWait.record(System.nanoTime() - ingestion.enqueuedAtNanos, TimeUnit.NANOSECONDS);
+                // 在队列中等待时已被取消
+                if (!ingestion.claim(Thread.currentThread())) {
+                    continue;
+                }
+
+                busy.incrementAndGet();
+                try {
+                    long start = System.nanoTime();
+                    Stage next = process(stage, ingestion);
+                    latency.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    processed.incrementAndGet();
+                    if (next == null) {
+                        ingestion.complete();
+                    } else {
+                        // 下游队列满时在这里等待，背压逐级传回下载阶段
+                        stages.get(next).enqueue(ingestion);
+                    }
+                } catch (InterruptedException e) {
+                    // 被取消时结果已经完成，流水线停止时让等待方结束等待
+                    ingestion.result.completeExceptionally(e);
+                    log.debug("服务器 {} 在{}阶段被中断", ingestion.server, stage.getDescription());
+                } catch (Throwable e) {
+                    // 取消时中断下载或入库会表现为IO或JDBC异常，不计为失败
+                    if (ingestion.result.isCancelled()) {
+                        log.debug("服务器 {} 在{}阶段被取消: {}", ingestion.server, stage.getDescription(), e.getMessage());
+                    } else {
+                        failed.incrementAndGet();
+                        log.error("服务器 {} 在{}阶段处理失败: {}", ingestion.server, stage.getDescription(), e.getMessage(), e);
+                        ingestion.result.completeExceptionally(e);
+                    }
+                    // 任何错误都先结束等待方，只有虚拟机级别的错误才结束工作线程
+                    if (e instanceof VirtualMachineError error) {
+                        throw error;
+                    }
+                } finally {
+                    busy.decrementAndGet();
+                    ingestion.release();
+                }
+            }
+        }
+
+        private IngestionStageStats stats() {
+            return IngestionStageStats.builder()
+                    .stage(stage.name())
+                    .description(stage.getDescription())
+                    .workers(workerCount)
+                    .busyWorkers(busy.get())
+                    .queueCapacity(capacity)
+                    .queueDepth(queue.size())
+                    .processed(processed.get())
+                    .failed(failed.get())
+                    .meanLatencyMillis(latency.mean(TimeUnit.MILLISECONDS))
+                    .maxLatencyMillis(latency.max(TimeUnit.MILLISECONDS))
+                    .meanQueueWaitMillis(queueWait.mean(TimeUnit.MILLISECONDS))
+                    .meanBlockedMillis(blocked.mean(TimeUnit.MILLISECONDS))
+                    .build();
+        }
+    }
+
+    /**
+     * 在流水线中流转的单个数据源，各阶段依次填入中间结果
+     */
+    private static final class Ingestion {
+
+        private final int urlIndex;
+        private final String server;
+        private final boolean inMemory;
+        private final ToIntFunction<String> watermarkOf;
+        private final CompletableFuture<SourceCollection> result = new CompletableFuture<>();
+
+        private WebDownloadResult download;
+        private ParsedServerPage page;
+        private PreparedServerPage prepared;
+        private long sampledAtMillis = -1;
+        private int saved;
+        private volatile long enqueuedAtNanos;
+
+        /**
+         * 正在处理它的工作线程
+         */
+        private Thread worker;
+
+        private Ingestion(int urlIndex, boolean inMemory, ToIntFunction<String> watermarkOf) {
+            this.urlIndex = urlIndex;
+            this.server = WebConstants.getServerPrefix(urlIndex);
+            this.inMemory = inMemory;
+            this.watermarkOf = watermarkOf;
+        }
+
+        /**
+         * 工作线程开始处理，已取消或已完成时返回false
+         */
+        private synchronized boolean claim(Thread thread) {
+            if (result.isDone()) {
+                return false;
+            }
+            worker = thread;
+            return true;
+        }
+
+        /**
+         * 工作线程处理结束，清除取消时可能留下的中断标记，不影响它处理下一个数据源
+         */
+        private synchronized void release() {
+            worker = null;
+            Thread.interrupted();
+        }
+
+        private synchronized void cancel() {
+            if (result.cancel(false) && worker != null) {
+                worker.interrupt();
+            }
+        }
+
+        private void complete() {
+            result.complete(new SourceCollection(page, sampledAtMillis, saved));
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package org.pc28.task;
+
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 基于虚拟线程执行器的采集周期执行器
+ *
+ * 默认的执行器，不需要预览特性；用 structured-concurrency profile 编译并设置
+ * pc28.collection.structured-concurrency=true 时由基于结构化并发的执行器替代。被取消的子任务只发出中断，不等待它们退出
+ */
+@Component
+public class VirtualThreadCycleRunner implements CollectionCycleRunner {
+
+    @Override
+    public <T> List<CycleSubtaskResult<T>> runAll(List<Callable<T>> tasks, Instant deadline) throws InterruptedException {
+        List<Future<T>> futures = new ArrayList<>(tasks.size());
+        List<CycleSubtaskResult<T>> results = new ArrayList<>(tasks.size());
+
+        // 不使用try-with-resources，避免close()等待被取消的任务而拖过截止时间
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        try {
+            for (Callable<T> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            for (Future<T> future : futures) {
+                results.add(await(future, deadline));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        return results;
+    }
+
+    @Override
+    public String name() {
+        return "虚拟线程";
+    }
+
+    private static <T> CycleSubtaskResult<T> await(Future<T> future, Instant deadline) throws InterruptedException {
+        try {
+            long remaining = Math.max(0, Duration.between(Instant.now(), deadline).toMillis());
+            return CycleSubtaskResult.success(future.get(remaining, TimeUnit.MILLISECONDS));
+        } catch (TimeoutException | CancellationException e) {
+            future.cancel(true);
+            return CycleSubtaskResult.cancelled();
+        } catch (ExecutionException e) {
+            return CycleSubtaskResult.failed(e.getCause() != null ? e.getCause() : e);
+        }
+    }
+}
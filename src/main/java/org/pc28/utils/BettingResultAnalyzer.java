@@ -44,6 +44,13 @@ public class BettingResultAnalyzer {
         public String getDescription() {
             return description;
         }
+        
+        /**
+         * 是否算作胜利（命中盈利和未命中盈利）
+         */
+        public boolean isWin() {
+            return this == HIT_PROFIT || this == MISS_PROFIT;
+        }
     }
     
     /**
@@ -88,7 +95,7 @@ public class BettingResultAnalyzer {
         // 统计胜利场次（命中盈利和未命中盈利都算作胜利）
         int wins = 0;
         for (int i = 0; i < actualGames; i++) {
-            if (results[i] == BettingResult.HIT_PROFIT || results[i] == BettingResult.MISS_PROFIT) {
+            if (results[i] != null && results[i].isWin()) {
                 wins++;
             }
         }
@@ -113,6 +120,36 @@ public class BettingResultAnalyzer {
         return analyzeBettingResult(predictionType, outcome, hasKill);
     }
     
+    /**
+     * 按指定的杀规则集分析下注结果
+     *
+     * @param prediction 预测结果字符串
+     * @param outcome 结果，“中”或“错”
+     * @param code 号码编码（0-999），未开奖或格式不标准时为负数
+     * @param ruleSet 杀规则集
+     * @return 下注结果
+     */
+    public static BettingResult analyzeWithRuleSet(String prediction, String outcome, int code, KillRuleSet ruleSet) {
+        return analyzeBettingResult(extractPredictionType(prediction), outcome, ruleSet.isKill(code));
+    }
+
+    /**
+     * 同一条记录按多个杀规则集并列分析，号码只需编码一次
+     *
+     * @param prediction 预测结果字符串
+     * @param outcome 结果，“中”或“错”
+     * @param code 号码编码（0-999），未开奖或格式不标准时为负数
+     * @param ruleSets 杀规则集
+     * @param results 输出数组，长度不小于规则集数量，第i个元素为第i个规则集下的结果
+     */
+    public static void analyzeWithRuleSets(String prediction, String outcome, int code,
+                                           KillRuleSet[] ruleSets, BettingResult[] results) {
+        String predictionType = extractPredictionType(prediction);
+        for (int i = 0; i < ruleSets.length; i++) {
+            results[i] = analyzeBettingResult(predictionType, outcome, ruleSets[i].isKill(code));
+        }
+    }
+
     /**
      * 从预测字符串中提取预测类型（单或双）
      *
@@ -0,0 +1,202 @@
+package org.pc28.utils;
+
+import org.pc28.model.ContentChangeStats;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 数据源内容变化跟踪器
+ * 按服务器记录上次响应的ETag/Last-Modified和内容哈希，用于判断本次下载是否需要解析和入库
+ */
+public class ContentChangeTracker {
+    
+    /**
+     * 历史记录表格的起始标记
+     */
+    private static final String FORECAST_START_MARKER = "id=\"forecast\"";
+    
+    /**
+     * 历史记录表格之后的走势表格标记
+     */
+    private static final String FORECAST_END_MARKER = "id=\"trend\"";
+    
+    private final Map<String, SourceState> states = new ConcurrentHashMap<>();
+    
+    /**
+     * 获取服务器上次响应的ETag
+     *
+     * @param serverPrefix 服务器前缀
+     * @return ETag，没有则返回null
+     */
+    public String getEtag(String serverPrefix) {
+        SourceState state = states.get(serverPrefix);
+        return state != null ? state.etag : null;
+    }
+    
+    /**
+     * 获取服务器上次响应的Last-Modified
+     *
+     * @param serverPrefix 服务器前缀
+     * @return Last-Modified，没有则返回null
+     */
+    public String getLastModified(String serverPrefix) {
+        SourceState state = states.get(serverPrefix);
+        return state != null ? state.lastModified : null;
+    }
+    
+    /**
+     * 记录一次304响应
+     *
+     * @param serverPrefix 服务器前缀
+     */
+    public void recordNotModified(String serverPrefix) {
+        SourceState state = stateOf(serverPrefix);
+        state.fetchCount.incrementAndGet();
+        state.notModifiedCount.incrementAndGet();
+    }
+    
+    /**
+     * 记录一次完整响应，并判断内容是否与上次入库的内容相同
+     * 只对历史记录表格部分计算哈希，页面上每秒变化的倒计时不影响判断。
+     * 内容有变化时新的哈希和ETag/Last-Modified先作为待确认状态保存，
+     * 入库成功后调用 {@link #confirm(String)} 才生效，解析或入库失败时下一次下载仍会重新处理
+     *
+     * @param serverPrefix 服务器前缀
+     * @param content 响应内容
+     * @param etag 响应的ETag
+     * @param lastModified 响应的Last-Modified
+     * @return 内容有变化返回true，与上次相同返回false
+     */
+    public boolean recordContent(String serverPrefix, String content, String etag, String lastModified) {
+        byte[] hash = hashRelevantContent(content);
+        SourceState state = stateOf(serverPrefix);
+        state.fetchCount.incrementAndGet();
+        
+        synchronized (state) {
+            if (Arrays.equals(state.contentHash, hash)) {
+                state.etag = etag;
+                state.lastModified = lastModified;
+                state.unchangedCount.incrementAndGet();
+                return false;
+            }
+            state.pendingHash = hash;
+            state.pendingEtag = etag;
+            state.pendingLastModified = lastModified;
+        }
+        state.changedCount.incrementAndGet();
+        return true;
+    }
+    
+    /**
+     * 确认服务器最近一次有变化的内容已经入库，之后相同内容的下载将被跳过
+     *
+     * @param serverPrefix 服务器前缀
+     */
+    public void confirm(String serverPrefix) {
+        SourceState state = states.get(serverPrefix);
+        if (state != null) {
+            synchronized (state) {
+                if (state.pendingHash == null) {
+                    return;
+                }
+                state.contentHash = state.pendingHash;
+                state.etag = state.pendingEtag;
+                state.lastModified = state.pendingLastModified;
+                clearPending(state);
+            }
+        }
+    }
+    
+    /**
+     * 清除服务器的校验信息，下一次下载将强制解析和入库
+     *
+     * @param serverPrefix 服务器前缀
+     */
+    public void invalidate(String serverPrefix) {
+        SourceState state = states.get(serverPrefix);
+        if (state != null) {
+            synchronized (state) {
+                state.etag = null;
+                state.lastModified = null;
+                state.contentHash = null;
+                clearPending(state);
+            }
+        }
+    }
+    
+    /**
+     * 清除所有服务器的校验信息
+     */
+    public void invalidateAll() {
+        states.keySet().forEach(this::invalidate);
+    }
+    
+    /**
+     * 获取各服务器的内容变化统计
+     *
+     * @return 统计列表
+     */
+    public List<ContentChangeStats> getStats() {
+        List<ContentChangeStats> stats = new ArrayList<>();
+        states.forEach((serverPrefix, state) -> stats.add(ContentChangeStats.builder()
+                .serverPrefix(serverPrefix)
+                .fetchCount(state.fetchCount.get())
+                .notModifiedCount(state.notModifiedCount.get())
+                .unchangedCount(state.unchangedCount.get())
+                .changedCount(state.changedCount.get())
+                .skippedCycles(state.notModifiedCount.get() + state.unchangedCount.get())
+                .build()));
+        stats.sort((a, b) -> a.getServerPrefix().compareTo(b.getServerPrefix()));
+        return stats;
+    }
+    
+    private static void clearPending(SourceState state) {
+        state.pendingHash = null;
+        state.pendingEtag = null;
+        state.pendingLastModified = null;
+    }
+    
+    private SourceState stateOf(String serverPrefix) {
+        return states.computeIfAbsent(serverPrefix, key -> new SourceState());
+    }
+    
+    /**
+     * 计算历史记录表格部分的SHA-256哈希，找不到表格时对整个页面计算
+     */
+    private static byte[] hashRelevantContent(String content) {
+        int start = content.indexOf(FORECAST_START_MARKER);
+        int end = start >= 0 ? content.indexOf(FORECAST_END_MARKER, start) : -1;
+        String relevant = (start >= 0 && end > start) ? content.substring(start, end) : content;
+        
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(relevant.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            // 每个JVM都必须提供SHA-256
+            throw new IllegalStateException("SHA-256不可用", e);
+        }
+    }
+    
+    /**
+     * 单个服务器的跟踪状态
+     */
+    private static class SourceState {
+        private volatile String etag;
+        private volatile String lastModified;
+        private byte[] contentHash;
+        private byte[] pendingHash;
+        private String pendingEtag;
+        private String pendingLastModified;
+        private final AtomicLong fetchCount = new AtomicLong();
+        private final AtomicLong notModifiedCount = new AtomicLong();
+        private final AtomicLong unchangedCount = new AtomicLong();
+        private final AtomicLong changedCount = new AtomicLong();
+    }
+}
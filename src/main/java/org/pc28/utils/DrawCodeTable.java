@@ -0,0 +1,209 @@
+package org.pc28.utils;
+
+/**
+ * 开奖号码查找表
+ *
+ * 三个一位数字的号码共1000种，编码为 a*100+b*10+c（0-999）。
+ * 总数、杀、单双、大小、对子、顺子、豹子在类加载时一次算好，查询只是一次数组访问，不分配对象。
+ * 号码文本用手写扫描器解析，只接受 "a+b+c=s"（s等于三数之和、没有前导零）的标准格式，
+ * 其余格式返回 {@link #INVALID}，由调用方按原有的正则方式处理
+ */
+public final class DrawCodeTable {
+
+    /**
+     * 号码格式不标准，无法编码
+     */
+    public static final int INVALID = -1;
+
+    /**
+     * 号码编码的数量
+     */
+    public static final int SIZE = 1000;
+
+    /**
+     * 大的最小总数（14-27为大，0-13为小）
+     */
+    public static final int BIG_MIN_SUM = 14;
+
+    private static final int SUM_MASK = 0x1F;
+    private static final int KILL = 1 << 5;
+    private static final int ODD = 1 << 6;
+    private static final int BIG = 1 << 7;
+    private static final int PAIR = 1 << 8;
+    private static final int STRAIGHT = 1 << 9;
+    private static final int LEOPARD = 1 << 10;
+
+    /**
+     * 每个编码的总数（低5位）和各项标记
+     */
+    private static final short[] FLAGS = new short[SIZE];
+
+    /**
+     * 每个编码的号码文本，例如 118 对应 "1+1+8=10"
+     */
+    private static final String[] TEXT = new String[SIZE];
+
+    /**
+     * 总数0-27的文本
+     */
+    private static final String[] SUM_TEXT = new String[28];
+
+    static {
+        for (int sum = 0; sum < SUM_TEXT.length; sum++) {
+            SUM_TEXT[sum] = String.valueOf(sum);
+        }
+
+        for (int code = 0; code < SIZE; code++) {
+            int a = code / 100;
+            int b = code / 10 % 10;
+            int c = code % 10;
+            int sum = a + b + c;
+            int min = Math.min(a, Math.min(b, c));
+            int max = Math.max(a, Math.max(b, c));
+
+            int flags = sum;
+            boolean leopard = a == b && b == c;
+            boolean pair = !leopard && (a == b || a == c || b == c);
+            // 三个数字互不相同且最大最小相差2，即为顺子（不考虑顺序）
+            boolean straight = !leopard && !pair && max - min == 2;
+            if (leopard) {
+                flags |= LEOPARD;
+            }
+            if (pair) {
+                flags |= PAIR;
+            }
+            if (straight) {
+                flags |= STRAIGHT;
+            }
+            // 杀：总和为13或14，或有对子、豹子、顺子，与 NumberAnalysisUtil.checkIfKill 的规则一致
+            if (sum == 13 || sum == 14 || leopard || pair || straight) {
+                flags |= KILL;
+            }
+            if (sum % 2 == 1) {
+                flags |= ODD;
+            }
+            if (sum >= BIG_MIN_SUM) {
+                flags |= BIG;
+            }
+
+            FLAGS[code] = (short) flags;
+            TEXT[code] = a + "+" + b + "+" + c + "=" + sum;
+        }
+    }
+
+    private DrawCodeTable() {
+    }
+
+    /**
+     * 把号码文本编码为 0-999
+     *
+     * @param numbers 号码字符串，例如 "1+2+3=6"
+     * @return 号码编码，格式不标准时返回 {@link #INVALID}
+     */
+    public static int encode(CharSequence numbers) {
+        return numbers == null ? INVALID : encode(numbers, 0, numbers.length());
+    }
+
+    /**
+     * 把文本区间中的号码编码为 0-999，不分配对象
+     *
+     * @param text 文本
+     * @param from 起始位置（包含）
+     * @param to 结束位置（不包含）
+     * @return 号码编码，格式不标准时返回 {@link #INVALID}
+     */
+    public static int encode(CharSequence text, int from, int to) {
+        int length = to - from;
+        if (length < 7 || length > 8 || text.charAt(from + 1) != '+' || text.charAt(from + 3) != '+'
+                || text.charAt(from + 5) != '=') {
+            return INVALID;
+        }
+
+        int a = digit(text.charAt(from));
+        int b = digit(text.charAt(from + 2));
+        int c = digit(text.charAt(from + 4));
+        int s1 = digit(text.charAt(from + 6));
+        if (a < 0 || b < 0 || c < 0 || s1 < 0) {
+            return INVALID;
+        }
+
+        int sum = s1;
+        if (length == 8) {
+            int s2 = digit(text.charAt(from + 7));
+            if (s1 == 0 || s2 < 0) {
+                return INVALID;
+            }
+            sum = s1 * 10 + s2;
+        }
+        return sum == a + b + c ? a * 100 + b * 10 + c : INVALID;
+    }
+
+    private static int digit(char c) {
+        return c >= '0' && c <= '9' ? c - '0' : -1;
+    }
+
+    /**
+     * 号码文本，例如 118 对应 "1+1+8=10"
+     */
+    public static String text(int code) {
+        return TEXT[code];
+    }
+
+    public static int sum(int code) {
+        return FLAGS[code] & SUM_MASK;
+    }
+
+    /**
+     * 总数文本，例如 "10"
+     */
+    public static String sumText(int code) {
+        return SUM_TEXT[sum(code)];
+    }
+
+    public static boolean isKill(int code) {
+        return (FLAGS[code] & KILL) != 0;
+    }
+
+    public static boolean isOdd(int code) {
+        return (FLAGS[code] & ODD) != 0;
+    }
+
+    public static boolean isBig(int code) {
+        return (FLAGS[code] & BIG) != 0;
+    }
+
+    /**
+     * 对子：恰好两个数字相同（不含豹子）
+     */
+    public static boolean isPair(int code) {
+        return (FLAGS[code] & PAIR) != 0;
+    }
+
+    /**
+     * 顺子：三个连续的数字，不考虑顺序
+     */
+    public static boolean isStraight(int code) {
+        return (FLAGS[code] & STRAIGHT) != 0;
+    }
+
+    /**
+     * 豹子：三个数字相同
+     */
+    public static boolean isLeopard(int code) {
+        return (FLAGS[code] & LEOPARD) != 0;
+    }
+
+    /**
+     * 杀标记文本："杀"或空字符串
+     */
+    public static String killMark(int code) {
+        return isKill(code) ? "杀" : "";
+    }
+
+    /**
+     * 单双文本："单"或"双"
+     */
+    public static String oddEven(int code) {
+        return isOdd(code) ? "单" : "双";
+    }
+}
@@ -71,4 +71,32 @@ public class FileUtils {
         log.info("【文件路径】文件的绝对路径: {}", absolutePath);
         return absolutePath;
     }
+    
+    /**
+     * 删除目录中与指定前缀和扩展名匹配、但不是保留文件的其他文件
+     *
+     * @param directory 目录路径
+     * @param prefix 文件名前缀
+     * @param extension 文件扩展名
+     * @param keepFileName 需要保留的文件名
+     * @return 删除的文件数量
+     */
+    public static int deleteOlderFiles(String directory, String prefix, String extension, String keepFileName) {
+        File dir = new File(directory);
+        File[] files = dir.listFiles((d, name) ->
+                name.startsWith(prefix) && name.endsWith(extension) && !name.equals(keepFileName));
+        if (files == null) {
+            return 0;
+        }
+        
+        int deletedCount = 0;
+        for (File file : files) {
+            if (file.delete()) {
+                deletedCount++;
+            } else {
+                log.warn("无法删除文件: {}", file.getName());
+            }
+        }
+        return deletedCount;
+    }
 }
\ No newline at end of file
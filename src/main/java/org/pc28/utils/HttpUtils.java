@@ -1,18 +1,30 @@
 package org.pc28.utils;
 
 import lombok.extern.slf4j.Slf4j;
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpHeaders;
+import org.apache.http.HttpStatus;
 import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpGet;
+import org.apache.http.conn.HttpConnectionFactory;
+import org.apache.http.conn.ManagedHttpClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.ManagedHttpClientConnectionFactory;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.pool.PoolStats;
 import org.apache.http.util.EntityUtils;
 import org.pc28.constants.WebConstants;
 import org.pc28.exception.WebDownloadException;
+import org.pc28.model.ConnectionPoolStats;
+import org.pc28.model.HttpFetchResult;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * HTTP请求工具类
@@ -20,10 +32,106 @@ import java.nio.charset.StandardCharsets;
 @Slf4j
 public class HttpUtils {
     
+    /**
+     * 共享的连接池HTTP客户端，由HttpClientConfig在启动时注册
+     */
+    private static volatile CloseableHttpClient sharedClient;
+    
+    /**
+     * 共享客户端使用的连接池管理器
+     */
+    private static volatile PoolingHttpClientConnectionManager sharedConnectionManager;
+    
+    /**
+     * 已发送的请求数（含重试）
+     */
+    private static final LongAdder REQUEST_COUNT = new LongAdder();
+    
+    /**
+     * 新建的TCP连接数
+     */
+    private static final LongAdder CONNECTIONS_CREATED = new LongAdder();
+    
     private HttpUtils() {
         // 私有构造函数，防止实例化
     }
     
+    /**
+     * 注册共享的连接池HTTP客户端，之后所有下载都复用该客户端的连接
+     *
+     * @param client HTTP客户端
+     * @param connectionManager 该客户端使用的连接池管理器
+     */
+    public static void useSharedClient(CloseableHttpClient client, PoolingHttpClientConnectionManager connectionManager) {
+        sharedConnectionManager = connectionManager;
+        sharedClient = client;
+        log.info("HTTP下载已切换为共享连接池客户端");
+    }
+    
+    /**
+     * 创建统计新建连接数的连接工厂，用于计算连接复用率
+     *
+     * @return 连接工厂
+     */
+    public static HttpConnectionFactory<HttpRoute, ManagedHttpClientConnection> countingConnectionFactory() {
+        return (route, config) -> {
+            CONNECTIONS_CREATED.increment();
+            return ManagedHttpClientConnectionFactory.INSTANCE.create(route, config);
+        };
+    }
+    
+    /**
+     * 获取连接池统计信息
+     *
+     * @return 连接池统计信息
+     */
+    public static ConnectionPoolStats getPoolStats() {
+        getHttpClient();
+        PoolStats totals = sharedConnectionManager.getTotalStats();
+        long requests = REQUEST_COUNT.sum();
+        long created = CONNECTIONS_CREATED.sum();
+        double reuseRate = requests > 0 ? Math.max(0.0, 1.0 - (double) created / requests) : 0.0;
+        
+        return ConnectionPoolStats.builder()
+                .leased(totals.getLeased())
+                .available(totals.getAvailable())
+                .pending(totals.getPending())
+                .max(totals.getMax())
+                .routes(sharedConnectionManager.getRoutes().size())
+                .requestCount(requests)
+                .connectionsCreated(created)
+                .reuseRate(reuseRate)
+                .build();
+    }
+    
+    /**
+     * 获取共享HTTP客户端，未经Spring注册时（例如命令行工具）延迟创建一个默认的连接池客户端
+     */
+    private static CloseableHttpClient getHttpClient() {
+        CloseableHttpClient client = sharedClient;
+        if (client != null) {
+            return client;
+        }
+        synchronized (HttpUtils.class) {
+            if (sharedClient == null) {
+                PoolingHttpClientConnectionManager connectionManager =
+                        new PoolingHttpClientConnectionManager(countingConnectionFactory());
+                RequestConfig requestConfig = RequestConfig.custom()
+                        .setConnectTimeout(WebConstants.CONNECTION_TIMEOUT)
+                        .setSocketTimeout(WebConstants.READ_TIMEOUT)
+                        .setConnectionRequestTimeout(WebConstants.CONNECTION_TIMEOUT)
+                        .build();
+                sharedConnectionManager = connectionManager;
+                sharedClient = HttpClients.custom()
+                        .setConnectionManager(connectionManager)
+                        .setDefaultRequestConfig(requestConfig)
+                        .build();
+                log.info("未注册共享HTTP客户端，已创建默认连接池客户端");
+            }
+            return sharedClient;
+        }
+    }
+    
     /**
      * 发送HTTP GET请求
      *
@@ -44,29 +152,72 @@ public class HttpUtils {
      * @throws WebDownloadException 如果所有重试都失败
      */
     public static String sendGetRequestWithRetry(String url, int maxRetries) throws WebDownloadException {
+        return sendConditionalGetRequestWithRetry(url, null, null, maxRetries).getContent();
+    }
+    
+    /**
+     * 发送条件GET请求（If-None-Match / If-Modified-Since）
+     * 服务器返回304时结果标记为未修改且不含内容
+     *
+     * @param url 请求URL
+     * @param etag 上次响应的ETag，可为null
+     * @param lastModified 上次响应的Last-Modified，可为null
+     * @return 请求结果
+     * @throws WebDownloadException 如果所有重试都失败
+     */
+    public static HttpFetchResult sendConditionalGetRequest(String url, String etag, String lastModified) throws WebDownloadException {
+        return sendConditionalGetRequestWithRetry(url, etag, lastModified, WebConstants.MAX_RETRY_COUNT);
+    }
+    
+    /**
+     * 发送带重试机制的条件GET请求
+     *
+     * @param url 请求URL
+     * @param etag 上次响应的ETag，可为null
+     * @param lastModified 上次响应的Last-Modified，可为null
+     * @param maxRetries 最大重试次数
+     * @return 请求结果
+     * @throws WebDownloadException 如果所有重试都失败
+     */
+    private static HttpFetchResult sendConditionalGetRequestWithRetry(String url, String etag, String lastModified,
+                                                                      int maxRetries) throws WebDownloadException {
         log.info("【HTTP步骤1】准备发送GET请求到URL: {}, 最大重试次数: {}", url, maxRetries);
         log.info("【HTTP步骤1】请求超时设置: 连接超时={}ms, 读取超时={}ms", WebConstants.CONNECTION_TIMEOUT, WebConstants.READ_TIMEOUT);
         log.info("【HTTP步骤1】User-Agent: {}", WebConstants.USER_AGENT);
         
-        try (CloseableHttpClient httpClient = HttpClients.createDefault()) {
-            log.info("【HTTP步骤2】已创建HTTP客户端");
+        try {
+            CloseableHttpClient httpClient = getHttpClient();
+            log.info("【HTTP步骤2】使用共享连接池HTTP客户端");
             
+            // 超时设置来自客户端的默认请求配置
             HttpGet httpGet = new HttpGet(url);
             httpGet.setHeader("User-Agent", WebConstants.USER_AGENT);
-            
-            // 设置请求配置
-            RequestConfig requestConfig = RequestConfig.custom()
-                    .setConnectTimeout(WebConstants.CONNECTION_TIMEOUT)
-                    .setSocketTimeout(WebConstants.READ_TIMEOUT)
-                    .build();
-            httpGet.setConfig(requestConfig);
+            if (etag != null) {
+                httpGet.setHeader(HttpHeaders.IF_NONE_MATCH, etag);
+            }
+            if (lastModified != null) {
+                httpGet.setHeader(HttpHeaders.IF_MODIFIED_SINCE, lastModified);
+            }
             log.info("【HTTP步骤3】HTTP请求已配置好，准备发送");
             
+            REQUEST_COUNT.increment();
             try (CloseableHttpResponse response = httpClient.execute(httpGet)) {
                 int statusCode = response.getStatusLine().getStatusCode();
                 log.info("【HTTP步骤4】收到HTTP响应，状态码: {}", statusCode);
                 
+                if (statusCode == HttpStatus.SC_NOT_MODIFIED) {
+                    EntityUtils.consumeQuietly(response.getEntity());
+                    log.info("【HTTP步骤5】网页内容未修改(304)，跳过读取");
+                    return HttpFetchResult.builder()
+                            .notModified(true)
+                            .etag(etag)
+                            .lastModified(lastModified)
+                            .build();
+                }
+                
                 if (statusCode != 200) {
+                    // 读完响应体，让连接可以归还连接池复用
+                    EntityUtils.consumeQuietly(response.getEntity());
                     log.error("【HTTP错误】HTTP请求失败，状态码: {}", statusCode);
                     throw new WebDownloadException("HTTP请求失败，状态码: " + statusCode);
                 }
@@ -81,23 +232,29 @@ public class HttpUtils {
                 String content = EntityUtils.toString(entity, StandardCharsets.UTF_8);
                 log.info("【HTTP步骤6】成功读取响应内容，大小: {} 字节", content.length());
                 
-                return content;
+                return HttpFetchResult.builder()
+                        .content(content)
+                        .etag(headerValue(response.getFirstHeader(HttpHeaders.ETAG)))
+                        .lastModified(headerValue(response.getFirstHeader(HttpHeaders.LAST_MODIFIED)))
+                        .build();
             }
         } catch (IOException e) {
             log.error("【HTTP错误】HTTP请求发生IO异常: {}", e.getMessage(), e);
             
             // 如果还有重试次数，则重试
-            if (maxRetries > 0) {
+            if (maxRetries > 0 && !Thread.currentThread().isInterrupted()) {
                 log.info("【HTTP重试】将在{}ms后重试, 剩余重试次数: {}", WebConstants.RETRY_WAIT_TIME, maxRetries - 1);
                 
                 try {
                     Thread.sleep(WebConstants.RETRY_WAIT_TIME);
                 } catch (InterruptedException ie) {
+                    // 被取消（例如超过并发下载截止时间）时不再继续重试
                     Thread.currentThread().interrupt();
                     log.error("【HTTP错误】重试等待被中断", ie);
+                    throw new WebDownloadException("HTTP请求重试等待被中断", ie);
                 }
                 
-                return sendGetRequestWithRetry(url, maxRetries - 1);
+                return sendConditionalGetRequestWithRetry(url, etag, lastModified, maxRetries - 1);
             }
             
             throw new WebDownloadException("HTTP请求失败，已重试最大次数: " + e.getMessage(), e);
@@ -105,20 +262,29 @@ public class HttpUtils {
             log.error("【HTTP错误】HTTP请求发生未预期的异常: {}", e.getMessage(), e);
             
             // 对于非IO异常，也提供重试机制
-            if (maxRetries > 0) {
+            if (maxRetries > 0 && !Thread.currentThread().isInterrupted()) {
                 log.info("【HTTP重试】将在{}ms后重试, 剩余重试次数: {}", WebConstants.RETRY_WAIT_TIME, maxRetries - 1);
                 
                 try {
                     Thread.sleep(WebConstants.RETRY_WAIT_TIME);
                 } catch (InterruptedException ie) {
+                    // 被取消（例如超过并发下载截止时间）时不再继续重试
                     Thread.currentThread().interrupt();
                     log.error("【HTTP错误】重试等待被中断", ie);
+                    throw new WebDownloadException("HTTP请求重试等待被中断", ie);
                 }
                 
-                return sendGetRequestWithRetry(url, maxRetries - 1);
+                return sendConditionalGetRequestWithRetry(url, etag, lastModified, maxRetries - 1);
             }
             
             throw new WebDownloadException("HTTP请求发生未预期的异常，已重试最大次数: " + e.getMessage(), e);
         }
     }
-}
\ No newline at end of file
+    
+    /**
+     * 获取响应头的值
+     */
+    private static String headerValue(Header header) {
+        return header != null ? header.getValue() : null;
+    }
+}
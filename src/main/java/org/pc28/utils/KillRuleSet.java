@@ -0,0 +1,196 @@
+package org.pc28.utils;
+
+import java.util.Locale;
+
+/**
+ * 编译后的"杀"规则集
+ *
+ * 规则定义由分号分隔的若干条规则组成，号码满足任意一条即为"杀"：
+ * <ul>
+ *   <li>sum=13,14 或 sum=12-15：总和在列表或区间内</li>
+ *   <li>pair：对子（恰好两个数字相同）</li>
+ *   <li>leopard：豹子（三个数字相同）</li>
+ *   <li>straight：顺子（三个连续的数字，不考虑顺序）</li>
+ *   <li>straight-wrap：顺子，并把 8-9-0、9-0-1 这样跨过9和0的组合也算作顺子</li>
+ *   <li>code=118,200-209：直接指定号码编码（a*100+b*10+c）</li>
+ * </ul>
+ * 例如默认规则为 "sum=13,14; pair; leopard; straight"。
+ * 定义在创建时编译为覆盖全部1000个号码编码的位图，判断只需要一次位测试
+ */
+public final class KillRuleSet {
+
+    /**
+     * 默认规则集名称
+     */
+    public static final String STANDARD_NAME = "standard";
+
+    /**
+     * 默认规则定义，与 NumberAnalysisUtil.checkIfKill 一致
+     */
+    public static final String STANDARD_DEFINITION = "sum=13,14; pair; leopard; straight";
+
+    /**
+     * 默认规则集
+     */
+    public static final KillRuleSet STANDARD = compile(STANDARD_NAME, STANDARD_DEFINITION);
+
+    private final String name;
+    private final String definition;
+    private final long[] bits;
+    private final int killCount;
+
+    private KillRuleSet(String name, String definition, long[] bits) {
+        this.name = name;
+        this.definition = definition;
+        this.bits = bits;
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        this.killCount = count;
+    }
+
+    /**
+     * 编译规则定义
+     *
+     * @param name 规则集名称
+     * @param definition 规则定义，空字符串表示没有任何号码为"杀"
+     * @return 编译后的规则集
+     * @throws IllegalArgumentException 规则定义无法识别
+     */
+    public static KillRuleSet compile(String name, String definition) {
+        long[] bits = new long[(DrawCodeTable.SIZE + 63) / 64];
+        String text = definition == null ? "" : definition.trim();
+
+        for (String rawRule : text.split(";")) {
+            String rule = rawRule.trim().toLowerCase(Locale.ROOT);
+            if (rule.isEmpty()) {
+                continue;
+            }
+
+            int eq = rule.indexOf('=');
+            String key = eq < 0 ? rule : rule.substring(0, eq).trim();
+            String value = eq < 0 ? null : rule.substring(eq + 1).trim();
+
+            switch (key) {
+                case "sum" -> {
+                    boolean[] sums = parseList(requireValue(key, value), 0, 27, rawRule);
+                    for (int code = 0; code < DrawCodeTable.SIZE; code++) {
+                        if (sums[DrawCodeTable.sum(code)]) {
+                            set(bits, code);
+                        }
+                    }
+                }
+                case "code" -> {
+                    boolean[] codes = parseList(requireValue(key, value), 0, DrawCodeTable.SIZE - 1, rawRule);
+                    for (int code = 0; code < DrawCodeTable.SIZE; code++) {
+                        if (codes[code]) {
+                            set(bits, code);
+                        }
+                    }
+                }
+                case "pair", "leopard", "straight", "straight-wrap" -> {
+                    if (value != null) {
+                        throw new IllegalArgumentException("规则 " + key + " 不需要参数: " + rawRule.trim());
+                    }
+                    for (int code = 0; code < DrawCodeTable.SIZE; code++) {
+                        if (matchesShape(key, code)) {
+                            set(bits, code);
+                        }
+                    }
+                }
+                default -> throw new IllegalArgumentException("无法识别的杀规则: " + rawRule.trim());
+            }
+        }
+
+        return new KillRuleSet(name, text, bits);
+    }
+
+    private static boolean matchesShape(String shape, int code) {
+        return switch (shape) {
+            case "pair" -> DrawCodeTable.isPair(code);
+            case "leopard" -> DrawCodeTable.isLeopard(code);
+            case "straight" -> DrawCodeTable.isStraight(code);
+            default -> DrawCodeTable.isStraight(code) || isWrapStraight(code);
+        };
+    }
+
+    /**
+     * 跨过9和0的顺子：{8,9,0} 和 {9,0,1}
+     */
+    private static boolean isWrapStraight(int code) {
+        int mask = (1 << (code / 100)) | (1 << (code / 10 % 10)) | (1 << (code % 10));
+        return mask == ((1 << 8) | (1 << 9) | 1) || mask == ((1 << 9) | 1 | (1 << 1));
+    }
+
+    private static String requireValue(String key, String value) {
+        if (value == null || value.isEmpty()) {
+            throw new IllegalArgumentException("规则 " + key + " 缺少参数");
+        }
+        return value;
+    }
+
+    /**
+     * 解析 "13,14" 或 "12-15" 这样的列表和区间
+     */
+    private static boolean[] parseList(String value, int min, int max, String rawRule) {
+        boolean[] selected = new boolean[max + 1];
+        for (String item : value.split(",")) {
+            String part = item.trim();
+            int dash = part.indexOf('-', 1);
+            try {
+                int from = Integer.parseInt((dash < 0 ? part : part.substring(0, dash)).trim());
+                int to = dash < 0 ? from : Integer.parseInt(part.substring(dash + 1).trim());
+                if (from < min || to > max || from > to) {
+                    throw new IllegalArgumentException("取值超出范围 " + min + "-" + max + ": " + rawRule.trim());
+                }
+                for (int i = from; i <= to; i++) {
+                    selected[i] = true;
+                }
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("无法解析的数值: " + rawRule.trim());
+            }
+        }
+        return selected;
+    }
+
+    private static void set(long[] bits, int code) {
+        bits[code >>> 6] |= 1L << code;
+    }
+
+    /**
+     * 号码编码是否为"杀"
+     *
+     * @param code 号码编码（0-999），其余值返回false
+     */
+    public boolean isKill(int code) {
+        return code >= 0 && code < DrawCodeTable.SIZE && (bits[code >>> 6] & (1L << code)) != 0;
+    }
+
+    /**
+     * 号码字符串是否为"杀"，格式不标准的号码返回false
+     */
+    public boolean isKill(String numbers) {
+        return isKill(DrawCodeTable.encode(numbers));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getDefinition() {
+        return definition;
+    }
+
+    /**
+     * 1000个号码中为"杀"的数量，也即每期开出"杀"的概率（千分之）
+     */
+    public int getKillCount() {
+        return killCount;
+    }
+
+    @Override
+    public String toString() {
+        return name + "[" + definition + "]";
+    }
+}
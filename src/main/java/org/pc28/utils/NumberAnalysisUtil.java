@@ -1,12 +1,12 @@
 package org.pc28.utils;
 
-import java.util.Arrays;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
 /**
  * 号码分析工具类
- * 用于分析开奖号码，提取总数和判断是否为"杀"
+ * 用于分析开奖号码，提取总数和判断是否为"杀"。
+ * 标准格式的号码通过 DrawCodeTable 查表得到结果，只有不标准的格式才使用正则表达式
  */
 public class NumberAnalysisUtil {
     
@@ -21,6 +21,10 @@ public class NumberAnalysisUtil {
      * @return 总数字符串，如果格式不匹配则返回空字符串
      */
     public static String extractTotalNumber(String numbers) {
+        int code = DrawCodeTable.encode(numbers);
+        if (code != DrawCodeTable.INVALID) {
+            return DrawCodeTable.sumText(code);
+        }
         if (numbers == null || numbers.isEmpty() || "---".equals(numbers) || "-".equals(numbers)) {
             return "";
         }
@@ -44,6 +48,10 @@ public class NumberAnalysisUtil {
      * @return 如果是"杀"返回"杀"，否则返回空字符串
      */
     public static String checkIfKill(String numbers) {
+        int code = DrawCodeTable.encode(numbers);
+        if (code != DrawCodeTable.INVALID) {
+            return DrawCodeTable.killMark(code);
+        }
         if (numbers == null || numbers.isEmpty() || "---".equals(numbers) || "-".equals(numbers)) {
             return "";
         }
@@ -69,10 +77,10 @@ public class NumberAnalysisUtil {
             return "杀";
         }
         
-        // 判断是否有顺子（三个连续的数字）
-        int[] nums = new int[]{num1, num2, num3};
-        Arrays.sort(nums);
-        if (nums[1] == nums[0] + 1 && nums[2] == nums[1] + 1) {
+        // 判断是否有顺子（三个连续的数字），此时三个数字互不相同
+        int min = Math.min(num1, Math.min(num2, num3));
+        int max = Math.max(num1, Math.max(num2, num3));
+        if (max - min == 2) {
             return "杀";
         }
         
@@ -86,6 +94,10 @@ public class NumberAnalysisUtil {
      * @return 长度为2的字符串数组，第一个元素是总数，第二个元素是杀标记（"杀"或空字符串）
      */
     public static String[] analyzeNumbers(String numbers) {
+        int code = DrawCodeTable.encode(numbers);
+        if (code != DrawCodeTable.INVALID) {
+            return new String[]{DrawCodeTable.sumText(code), DrawCodeTable.killMark(code)};
+        }
         String totalNumber = extractTotalNumber(numbers);
         String killMark = checkIfKill(numbers);
         return new String[]{totalNumber, killMark};
@@ -110,4 +122,14 @@ public class NumberAnalysisUtil {
             return "";
         }
     }
+    
+    /**
+     * 判断总数是单数还是双数
+     * 
+     * @param totalNumber 总数
+     * @return 单数返回“单”，双数返回“双”
+     */
+    public static String determineOddEven(int totalNumber) {
+        return (totalNumber % 2 == 0) ? "双" : "单";
+    }
 }
@@ -5,19 +5,33 @@ import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
 import org.pc28.constants.WebConstants;
+import org.pc28.model.DownloadCycleReport;
+import org.pc28.model.ParsedServerPage;
+import org.pc28.model.WebDownloadResult;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.function.ToIntFunction;
 
 /**
  * 简单HTML解析器 - 直接解析HTML文件内容
  */
 public class SimpleHtmlParser {
 
+    /**
+     * 不指定解析方式时优先使用不构建DOM的流式提取器，页面结构不符时自动回退到jsoup。
+     * 解析方式由调用方逐次传入，不保存在静态状态中
+     */
+    private static final boolean STREAMING_BY_DEFAULT = true;
+
     /**
      * 解析开奖结果和历史记录
      * 
@@ -25,26 +39,168 @@ public class SimpleHtmlParser {
      * @return 解析结果
      */
     public static Map<String, Object> parseHtml(String htmlFile) {
-        Map<String, Object> result = new HashMap<>();
-        
+        return parseHtml(htmlFile, -1);
+    }
+    
+    /**
+     * 增量解析HTML文件，遇到不大于水位期号的历史记录行即停止
+     * 
+     * @param htmlFile HTML文件路径
+     * @param finalWatermark 已入库的最终号码水位期号，小于等于0时完整解析
+     * @return 解析结果
+     */
+    public static Map<String, Object> parseHtml(String htmlFile, int finalWatermark) {
+        return parseHtml(htmlFile, finalWatermark, STREAMING_BY_DEFAULT);
+    }
+    
+    /**
+     * 增量解析HTML文件，指定是否优先使用流式提取器
+     * 
+     * @param htmlFile HTML文件路径
+     * @param finalWatermark 已入库的最终号码水位期号，小于等于0时完整解析
+     * @param streaming 是否优先使用流式提取器，false时直接使用jsoup
+     * @return 解析结果
+     */
+    public static Map<String, Object> parseHtml(String htmlFile, int finalWatermark, boolean streaming) {
         try {
             File input = new File(htmlFile);
-            Document doc = Jsoup.parse(input, "UTF-8");
-            
-            // 1. 解析当前期开奖信息
-            parsePrimaryResultInfo(doc, result);
-            
-            // 2. 解析历史记录
-            parseHistoryResults(doc, result);
-            
-            System.out.println("===== 解析完成 =====");
-            return result;
+            if (streaming) {
+                return parseHtmlContent(new String(Files.readAllBytes(input.toPath()), StandardCharsets.UTF_8), finalWatermark, true);
+            }
+            return parseDocument(Jsoup.parse(input, "UTF-8"), finalWatermark);
         } catch (IOException e) {
             System.err.println("解析HTML文件时出错: " + e.getMessage());
-            return result;
+            return new HashMap<>();
         }
     }
     
+    /**
+     * 直接解析内存中的HTML内容，不经过文件
+     * 
+     * @param html HTML内容
+     * @return 解析结果
+     */
+    public static Map<String, Object> parseHtmlContent(String html) {
+        return parseHtmlContent(html, -1);
+    }
+    
+    /**
+     * 增量解析内存中的HTML内容：历史记录按期号从新到旧排列，
+     * 遇到不大于水位期号（已以真实号码入库）的行就停止扫描
+     * 
+     * @param html HTML内容
+     * @param finalWatermark 已入库的最终号码水位期号，小于等于0时完整解析
+     * @return 解析结果，history_rows_visited 为本次实际访问的行数
+     */
+    public static Map<String, Object> parseHtmlContent(String html, int finalWatermark) {
+        return parseHtmlContent(html, finalWatermark, STREAMING_BY_DEFAULT);
+    }
+    
+    /**
+     * 增量解析内存中的HTML内容，指定是否优先使用流式提取器
+     * 
+     * @param html HTML内容
+     * @param finalWatermark 已入库的最终号码水位期号，小于等于0时完整解析
+     * @param streaming 是否优先使用流式提取器，false时直接使用jsoup
+     * @return 解析结果
+     */
+    public static Map<String, Object> parseHtmlContent(String html, int finalWatermark, boolean streaming) {
+        if (streaming) {
+            Map<String, Object> result = StreamingForecastExtractor.extract(html, finalWatermark);
+            if (result != null) {
+                return result;
+            }
+            System.out.println("页面结构与流式提取器不匹配，回退到jsoup解析");
+        }
+        return parseDocument(Jsoup.parse(html), finalWatermark);
+    }
+    
+    /**
+     * 增量解析内存中的HTML内容，结果为列式的 ParsedServerPage
+     * 
+     * @param serverPrefix 服务器前缀
+     * @param html HTML内容
+     * @param finalWatermark 已入库的最终号码水位期号，小于等于0时完整解析
+     * @return 列式解析结果
+     */
+    public static ParsedServerPage parsePage(String serverPrefix, String html, int finalWatermark) {
+        return parsePage(serverPrefix, html, finalWatermark, STREAMING_BY_DEFAULT);
+    }
+    
+    /**
+     * 增量解析内存中的HTML内容，结果为列式的 ParsedServerPage，指定是否优先使用流式提取器
+     * 
+     * @param serverPrefix 服务器前缀
+     * @param html HTML内容
+     * @param finalWatermark 已入库的最终号码水位期号，小于等于0时完整解析
+     * @param streaming 是否优先使用流式提取器，false时直接使用jsoup
+     * @return 列式解析结果
+     */
+    public static ParsedServerPage parsePage(String serverPrefix, String html, int finalWatermark, boolean streaming) {
+        if (streaming) {
+            ParsedServerPage page = StreamingForecastExtractor.extractPage(serverPrefix, html, finalWatermark);
+            if (page != null) {
+                return page;
+            }
+            System.out.println("页面结构与流式提取器不匹配，回退到jsoup解析");
+        }
+        return ParsedServerPage.fromMap(serverPrefix, parseDocument(Jsoup.parse(html), finalWatermark));
+    }
+    
+    /**
+     * 增量解析HTML文件，结果为列式的 ParsedServerPage
+     * 
+     * @param serverPrefix 服务器前缀
+     * @param htmlFile HTML文件路径
+     * @param finalWatermark 已入库的最终号码水位期号，小于等于0时完整解析
+     * @return 列式解析结果，读取失败时不包含任何记录
+     */
+    public static ParsedServerPage parseHtmlPage(String serverPrefix, String htmlFile, int finalWatermark) {
+        return parseHtmlPage(serverPrefix, htmlFile, finalWatermark, STREAMING_BY_DEFAULT);
+    }
+    
+    /**
+     * 增量解析HTML文件，结果为列式的 ParsedServerPage，指定是否优先使用流式提取器
+     * 
+     * @param serverPrefix 服务器前缀
+     * @param htmlFile HTML文件路径
+     * @param finalWatermark 已入库的最终号码水位期号，小于等于0时完整解析
+     * @param streaming 是否优先使用流式提取器，false时直接使用jsoup
+     * @return 列式解析结果，读取失败时不包含任何记录
+     */
+    public static ParsedServerPage parseHtmlPage(String serverPrefix, String htmlFile, int finalWatermark, boolean streaming) {
+        ParsedServerPage page;
+        try {
+            File input = new File(htmlFile);
+            if (streaming) {
+                page = parsePage(serverPrefix, new String(Files.readAllBytes(input.toPath()), StandardCharsets.UTF_8), finalWatermark, true);
+            } else {
+                page = ParsedServerPage.fromMap(serverPrefix, parseDocument(Jsoup.parse(input, "UTF-8"), finalWatermark));
+            }
+        } catch (IOException e) {
+            System.err.println("解析HTML文件时出错: " + e.getMessage());
+            page = ParsedServerPage.fromMap(serverPrefix, new HashMap<>());
+        }
+        page.setFilePath(htmlFile);
+        return page;
+    }
+    
+    /**
+     * 解析开奖结果和历史记录
+     */
+    private static Map<String, Object> parseDocument(Document doc, int finalWatermark) {
+        Map<String, Object> result = new HashMap<>();
+        
+        // 1. 解析当前期开奖信息
+        parsePrimaryResultInfo(doc, result);
+        
+        // 2. 解析历史记录
+        parseHistoryResults(doc, result, finalWatermark);
+        
+        System.out.println("===== 解析完成 =====");
+        return result;
+    }
+    
     /**
      * 解析主要开奖信息
      */
@@ -109,8 +265,10 @@ public class SimpleHtmlParser {
     
     /**
      * 解析历史记录表格
+     * 
+     * @param finalWatermark 水位期号，大于0时遇到不大于该期号的行即停止
      */
-    private static void parseHistoryResults(Document doc, Map<String, Object> result) {
+    private static void parseHistoryResults(Document doc, Map<String, Object> result, int finalWatermark) {
         Element forecastTable = doc.selectFirst("div.result-table#forecast");
         if (forecastTable == null) {
             System.out.println("未找到历史记录表格");
@@ -121,7 +279,19 @@ public class SimpleHtmlParser {
         System.out.println("解析历史记录，共 " + historyRows.size() + " 条");
         
         int count = 0;
+        int rowsVisited = 0;
         for (Element row : historyRows) {
+            rowsVisited++;
+            
+            // 增量模式：只读取期号，已入库的行及其后更旧的行都不再解析
+            if (finalWatermark > 0) {
+                Element periodSpan = row.selectFirst("span");
+                if (periodSpan != null && parsePeriodOrDefault(periodSpan.text().trim(), Integer.MAX_VALUE) <= finalWatermark) {
+                    result.put("history_stopped_at", finalWatermark);
+                    break;
+                }
+            }
+            
             Elements spans = row.select("span");
             if (spans.size() < 4) continue;
             
@@ -218,7 +388,19 @@ public class SimpleHtmlParser {
         }
         
         result.put("history_count", count);
-        System.out.println("共解析 " + count + " 条历史记录");
+        result.put("history_rows_visited", rowsVisited);
+        System.out.println("共解析 " + count + " 条历史记录，访问 " + rowsVisited + " 行");
+    }
+    
+    /**
+     * 期号字符串转换为整数，无法转换时返回默认值
+     */
+    private static int parsePeriodOrDefault(String periodStr, int defaultValue) {
+        try {
+            return Integer.parseInt(periodStr);
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
     }
     
     /**
@@ -227,35 +409,172 @@ public class SimpleHtmlParser {
      * @return 每个服务器的解析结果列表
      */
     public static List<Map<String, Object>> parseAllServers() {
-        List<Map<String, Object>> allResults = new ArrayList<>();
+        return parseAllServers(Collections.emptySet());
+    }
+    
+    /**
+     * 解析所有服务器的最新HTML文件，跳过内容未变化的服务器
+     * 
+     * @param unchangedServers 内容与上次相同、无需解析的服务器前缀
+     * @return 每个服务器的解析结果列表，未变化的服务器只包含server和unchanged标记
+     */
+    public static List<Map<String, Object>> parseAllServers(Set<String> unchangedServers) {
+        return parseAllServers(unchangedServers, serverPrefix -> -1);
+    }
+    
+    /**
+     * 增量解析所有服务器的最新HTML文件，每个服务器遇到已入库水位期号即停止扫描历史记录
+     * 
+     * @param unchangedServers 内容与上次相同、无需解析的服务器前缀
+     * @param watermarkOf 服务器前缀到水位期号的映射，返回值小于等于0时完整解析
+     * @return 每个服务器的解析结果列表（旧的Map格式）
+     */
+    public static List<Map<String, Object>> parseAllServers(Set<String> unchangedServers,
+                                                            ToIntFunction<String> watermarkOf) {
+        return toMaps(parseAllServerPages(unchangedServers, watermarkOf));
+    }
+    
+    /**
+     * 增量解析所有服务器的最新HTML文件，结果为列式的 ParsedServerPage
+     * 
+     * @param unchangedServers 内容与上次相同、无需解析的服务器前缀
+     * @param watermarkOf 服务器前缀到水位期号的映射，返回值小于等于0时完整解析
+     * @return 每个服务器的解析结果列表
+     */
+    public static List<ParsedServerPage> parseAllServerPages(Set<String> unchangedServers,
+                                                             ToIntFunction<String> watermarkOf) {
+        List<ParsedServerPage> allPages = new ArrayList<>();
         
         System.out.println("===== 开始解析所有服务器数据 =====");
         for (int i = 0; i < WebConstants.TARGET_URLS.length; i++) {
-            // 从URL中提取服务器编号
-            String url = WebConstants.TARGET_URLS[i];
-            // 提取形如sf1, sf6等服务器编号
-            String serverPrefix = url.contains("_sf") ? "sf" + url.split("_sf")[1].split("_")[0] : "sf" + (i + 1);
+            String serverPrefix = WebConstants.getServerPrefix(i);
+            
+            if (unchangedServers.contains(serverPrefix)) {
+                System.out.println("\n服务器 " + serverPrefix + " 的内容未变化，跳过解析");
+                allPages.add(ParsedServerPage.unchanged(serverPrefix));
+                continue;
+            }
             
             String latestFile = WebConstants.getLatestHtmlFile(WebConstants.SAVE_PATH, serverPrefix);
             
             if (latestFile != null) {
                 System.out.println("\n解析服务器 " + serverPrefix + " 的最新数据文件: " + latestFile);
-                Map<String, Object> result = parseHtml(latestFile);
-                result.put("server", serverPrefix);
-                result.put("file_path", latestFile);
-                allResults.add(result);
+                allPages.add(parseHtmlPage(serverPrefix, latestFile, watermarkOf.applyAsInt(serverPrefix)));
             } else {
                 System.out.println("\n未找到服务器 " + serverPrefix + " 的HTML文件");
-                Map<String, Object> emptyResult = new HashMap<>();
-                emptyResult.put("server", serverPrefix);
-                emptyResult.put("error", "文件不存在");
-                allResults.add(emptyResult);
+                allPages.add(ParsedServerPage.failed(serverPrefix, "文件不存在"));
+            }
+        }
+        
+        System.out.println("\n===== 所有服务器数据解析完成 =====");
+        System.out.println("共解析服务器数量: " + allPages.size());
+        
+        return allPages;
+    }
+    
+    /**
+     * 直接解析一轮下载得到的内存内容，不读取download目录
+     * 
+     * @param report 本轮下载报告（结果中需包含网页内容）
+     * @return 每个服务器的解析结果列表，顺序与下载结果一致
+     */
+    public static List<Map<String, Object>> parseDownloadedResults(DownloadCycleReport report) {
+        return parseDownloadedResults(report, serverPrefix -> -1);
+    }
+    
+    /**
+     * 增量解析一轮下载得到的内存内容，每个服务器遇到已入库水位期号即停止扫描历史记录
+     * 
+     * @param report 本轮下载报告（结果中需包含网页内容）
+     * @param watermarkOf 服务器前缀到水位期号的映射，返回值小于等于0时完整解析
+     * @return 每个服务器的解析结果列表（旧的Map格式），顺序与下载结果一致
+     */
+    public static List<Map<String, Object>> parseDownloadedResults(DownloadCycleReport report,
+                                                                   ToIntFunction<String> watermarkOf) {
+        return toMaps(parseDownloadedPages(report, watermarkOf));
+    }
+    
+    /**
+     * 增量解析一轮下载得到的内存内容，结果为列式的 ParsedServerPage
+     * 
+     * @param report 本轮下载报告（结果中需包含网页内容）
+     * @param watermarkOf 服务器前缀到水位期号的映射，返回值小于等于0时完整解析
+     * @return 每个服务器的解析结果列表，顺序与下载结果一致
+     */
+    public static List<ParsedServerPage> parseDownloadedPages(DownloadCycleReport report,
+                                                              ToIntFunction<String> watermarkOf) {
+        List<ParsedServerPage> allPages = new ArrayList<>();
+        
+        System.out.println("===== 开始解析所有服务器数据（内存模式） =====");
+        for (WebDownloadResult download : report.getResults()) {
+            String serverPrefix = download.getServerPrefix();
+            
+            if (!download.isSuccess() || (download.getContent() == null && !download.isUnchanged())) {
+                System.out.println("\n服务器 " + serverPrefix + " 下载失败，无法解析");
+                allPages.add(ParsedServerPage.failed(serverPrefix,
+                        download.getErrorMessage() != null ? download.getErrorMessage() : "下载内容为空"));
+            } else if (download.isUnchanged()) {
+                System.out.println("\n服务器 " + serverPrefix + " 的内容未变化，跳过解析");
+                allPages.add(ParsedServerPage.unchanged(serverPrefix));
+            } else {
+                System.out.println("\n解析服务器 " + serverPrefix + " 的下载内容，大小: " + download.getContent().length() + " 字节");
+                allPages.add(parsePage(serverPrefix, download.getContent(), watermarkOf.applyAsInt(serverPrefix)));
             }
         }
         
         System.out.println("\n===== 所有服务器数据解析完成 =====");
-        System.out.println("共解析服务器数量: " + allResults.size());
+        System.out.println("共解析服务器数量: " + allPages.size());
         
+        return allPages;
+    }
+    
+    /**
+     * 增量解析单个数据源的下载结果，内存模式解析下载内容，文件模式解析保存的文件
+     * 
+     * @param download 下载结果
+     * @param watermarkOf 服务器前缀到水位期号的映射，返回值小于等于0时完整解析
+     * @return 解析结果，下载失败时为错误结果，内容未变化时为未变化结果
+     */
+    public static ParsedServerPage parseDownloaded(WebDownloadResult download, ToIntFunction<String> watermarkOf) {
+        return parseDownloaded(download, watermarkOf, STREAMING_BY_DEFAULT);
+    }
+    
+    /**
+     * 增量解析单个数据源的下载结果，指定是否优先使用流式提取器
+     * 
+     * @param download 下载结果
+     * @param watermarkOf 服务器前缀到水位期号的映射，返回值小于等于0时完整解析
+     * @param streaming 是否优先使用流式提取器，false时直接使用jsoup
+     * @return 解析结果，下载失败时为错误结果，内容未变化时为未变化结果
+     */
+    public static ParsedServerPage parseDownloaded(WebDownloadResult download, ToIntFunction<String> watermarkOf,
+                                                   boolean streaming) {
+        String serverPrefix = download.getServerPrefix();
+        if (!download.isSuccess()) {
+            return ParsedServerPage.failed(serverPrefix,
+                    download.getErrorMessage() != null ? download.getErrorMessage() : "下载失败");
+        }
+        if (download.isUnchanged()) {
+            return ParsedServerPage.unchanged(serverPrefix);
+        }
+        int watermark = watermarkOf.applyAsInt(serverPrefix);
+        if (download.getContent() != null) {
+            return parsePage(serverPrefix, download.getContent(), watermark, streaming);
+        }
+        if (download.getFilePath() != null) {
+            return parseHtmlPage(serverPrefix, download.getFilePath(), watermark, streaming);
+        }
+        return ParsedServerPage.failed(serverPrefix, "下载内容为空");
+    }
+    
+    /**
+     * 列式解析结果转换为旧的Map格式（兼容适配）
+     */
+    public static List<Map<String, Object>> toMaps(List<ParsedServerPage> pages) {
+        List<Map<String, Object>> allResults = new ArrayList<>(pages.size());
+        for (ParsedServerPage page : pages) {
+            allResults.add(page.toMap());
+        }
         return allResults;
     }
     
@@ -278,6 +597,11 @@ public class SimpleHtmlParser {
                 continue;
             }
             
+            if (result.containsKey("unchanged")) {
+                System.out.println(String.format("%-8s %s", server, "内容未变化"));
+                continue;
+            }
+            
             String period = (String) result.get("period");
             String numbers = (String) result.get("draw_numbers");
             String drawResult = (String) result.get("draw_result");
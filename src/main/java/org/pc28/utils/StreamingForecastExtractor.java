@@ -0,0 +1,830 @@
+package org.pc28.utils;
+
+import lombok.extern.slf4j.Slf4j;
+import org.pc28.model.ParsedServerPage;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * 流式预测表提取器 - 不构建DOM，直接扫描网页字符
+ *
+ * 只识别 SimpleHtmlParser 用到的标记：id="times"、.period、.number、.result-dxds、.not-open p、
+ * div.result-table#forecast 以及其中 .result-tr 行的 span（yc-yes/yc-no、yc-yes2/yc-no2），
+ * 结果直接写入列式的 ParsedServerPage，转换为Map后与 SimpleHtmlParser 的jsoup路径完全相同。
+ * 页面结构校验不通过（找不到预测表、标签不闭合、未知实体等）时返回null，由调用方回退到jsoup解析
+ */
+@Slf4j
+public final class StreamingForecastExtractor {
+
+    /**
+     * jsoup 在提取文本时视为块级、会在前后补空格的标签
+     */
+    private static final String[] BLOCK_TAGS = {
+            "address", "article", "aside", "blockquote", "body", "br", "center", "dd", "details", "dir",
+            "div", "dl", "dt", "fieldset", "figcaption", "figure", "footer", "form", "h1", "h2", "h3",
+            "h4", "h5", "h6", "header", "hgroup", "hr", "html", "li", "main", "menu", "nav", "ol", "p",
+            "pre", "section", "summary", "table", "tbody", "td", "tfoot", "th", "thead", "tr", "ul"};
+
+    /**
+     * 没有结束标签的空元素
+     */
+    private static final String[] VOID_TAGS = {
+            "area", "base", "br", "col", "embed", "hr", "img", "input", "link", "meta", "param",
+            "source", "track", "wbr"};
+
+    /**
+     * 内容按原始文本处理的元素，扫描时整体跳过
+     */
+    private static final String[] RAW_TEXT_TAGS = {"script", "style", "textarea"};
+
+    /**
+     * 页面结构与预期不符，需要回退到jsoup
+     */
+    private static final LayoutMismatch LAYOUT_MISMATCH = new LayoutMismatch();
+
+    /**
+     * 历史记录表的常见行数，用作列数组的初始容量
+     */
+    private static final int EXPECTED_ROWS = 128;
+
+    private StreamingForecastExtractor() {
+    }
+
+    /**
+     * 完整提取开奖信息和历史记录
+     *
+     * @param html 网页内容
+     * @return 解析结果，页面结构校验不通过时返回null
+     */
+    public static Map<String, Object> extract(String html) {
+        return extract(html, -1);
+    }
+
+    /**
+     * 提取开奖信息和历史记录，历史记录遇到不大于水位期号的行即停止
+     *
+     * @param html 网页内容
+     * @param finalWatermark 已入库的最终号码水位期号，小于等于0时完整解析
+     * @return 解析结果（旧的 history_i_* Map 格式），页面结构校验不通过时返回null
+     */
+    public static Map<String, Object> extract(String html, int finalWatermark) {
+        ParsedServerPage page = extractPage(html, finalWatermark);
+        return page == null ? null : page.toMap();
+    }
+
+    /**
+     * 提取开奖信息和历史记录，历史记录直接写入列式结果，期号和号码尽量不经过字符串
+     *
+     * @param html 网页内容
+     * @param finalWatermark 已入库的最终号码水位期号，小于等于0时完整解析
+     * @return 列式解析结果（未设置服务器），页面结构校验不通过时返回null
+     */
+    public static ParsedServerPage extractPage(String html, int finalWatermark) {
+        return extractPage(null, html, finalWatermark);
+    }
+
+    /**
+     * 提取指定服务器的开奖信息和历史记录
+     *
+     * @param server 服务器前缀
+     * @param html 网页内容
+     * @param finalWatermark 已入库的最终号码水位期号，小于等于0时完整解析
+     * @return 列式解析结果，页面结构校验不通过时返回null
+     */
+    public static ParsedServerPage extractPage(String server, String html, int finalWatermark) {
+        if (html == null || html.isEmpty()) {
+            return null;
+        }
+
+        try {
+            Markers markers = scanMarkers(html);
+            if (markers.forecast < 0) {
+                return null;
+            }
+
+            ParsedServerPage page = new ParsedServerPage(server, EXPECTED_ROWS);
+            extractPrimaryResultInfo(html, markers, page);
+            extractHistoryResults(html, markers.forecast, page, finalWatermark);
+            return page;
+        } catch (LayoutMismatch e) {
+            return null;
+        }
+    }
+
+    /**
+     * 一次扫描整个页面的标签，记录各个标记第一次出现的位置
+     */
+    private static Markers scanMarkers(String html) {
+        Markers markers = new Markers();
+        Tag tag = new Tag();
+        int pos = 0;
+
+        while (nextTag(html, pos, html.length(), tag)) {
+            pos = tag.end;
+            if (tag.closing) {
+                continue;
+            }
+
+            if (markers.times < 0 && attributeEquals(html, tag, "id", "times")) {
+                markers.times = tag.start;
+            }
+            long classRange = attributeRange(html, tag, "class");
+            if (classRange < 0) {
+                continue;
+            }
+            if (markers.forecast < 0 && tag.nameIs(html, "div") && attributeEquals(html, tag, "id", "forecast")
+                    && hasClass(html, classRange, "result-table")) {
+                markers.forecast = tag.start;
+            }
+            if (markers.period < 0 && hasClass(html, classRange, "period")) {
+                markers.period = tag.start;
+            }
+            if (markers.number < 0 && hasClass(html, classRange, "number")) {
+                markers.number = tag.start;
+            }
+            if (markers.resultDxds < 0 && hasClass(html, classRange, "result-dxds")) {
+                markers.resultDxds = tag.start;
+            }
+            if (hasClass(html, classRange, "not-open")) {
+                markers.addNotOpen(tag.start);
+            }
+        }
+        return markers;
+    }
+
+    /**
+     * 提取主要开奖信息，键与 SimpleHtmlParser.parsePrimaryResultInfo 相同
+     */
+    private static void extractPrimaryResultInfo(String html, Markers markers, ParsedServerPage page) {
+        Tag tag = new Tag();
+
+        if (markers.period >= 0) {
+            page.setPeriod(elementText(html, markers.period, tag).trim());
+        }
+
+        if (markers.times >= 0) {
+            parseTagAt(html, markers.times, tag);
+            int contentStart = tag.end;
+            int contentEnd = elementEnd(html, tag, html.length());
+
+            String minutes = null;
+            String seconds = null;
+            Tag inner = new Tag();
+            int pos = contentStart;
+            while (seconds == null && nextTag(html, pos, contentEnd, inner)) {
+                pos = inner.end;
+                if (!inner.closing && inner.nameIs(html, "b")) {
+                    String value = elementText(html, inner.start, new Tag()).trim();
+                    if (minutes == null) {
+                        minutes = value;
+                    } else {
+                        seconds = value;
+                    }
+                }
+            }
+            if (seconds != null) {
+                page.setCountdownMinutes(minutes);
+                page.setCountdownSeconds(seconds);
+            }
+        }
+
+        if (markers.number >= 0) {
+            page.setDrawNumbers(elementText(html, markers.number, tag).trim());
+        }
+
+        if (markers.resultDxds >= 0) {
+            page.setDrawResult(elementText(html, markers.resultDxds, tag).trim());
+        }
+
+        for (int i = 0; i < markers.notOpenCount; i++) {
+            parseTagAt(html, markers.notOpen[i], tag);
+            int contentEnd = elementEnd(html, tag, html.length());
+            Tag inner = new Tag();
+            int pos = tag.end;
+            while (nextTag(html, pos, contentEnd, inner)) {
+                pos = inner.end;
+                if (inner.closing || !inner.nameIs(html, "p")) {
+                    continue;
+                }
+                String id = attribute(html, inner, "id");
+                if (id != null && !id.isEmpty()) {
+                    page.putNotOpen(id.toLowerCase(), elementText(html, inner.start, new Tag()).trim());
+                }
+            }
+        }
+    }
+
+    /**
+     * 提取历史记录到列式结果，行的取舍与 SimpleHtmlParser.parseHistoryResults 相同
+     */
+    private static void extractHistoryResults(String html, int forecastStart, ParsedServerPage page,
+                                              int finalWatermark) {
+        Tag table = new Tag();
+        parseTagAt(html, forecastStart, table);
+        int tableEnd = elementEnd(html, table, html.length());
+
+        Tag tag = new Tag();
+        Tag spanTag = new Tag();
+        SpanList spans = new SpanList();
+        int rowsVisited = 0;
+        int pos = table.end;
+
+        while (nextTag(html, pos, tableEnd, tag)) {
+            pos = tag.end;
+            if (tag.closing || !hasClass(html, tag, "result-tr")) {
+                continue;
+            }
+
+            int rowEnd = elementEnd(html, tag, tableEnd);
+            pos = rowEnd;
+            rowsVisited++;
+
+            // 增量模式：只读取期号，已入库的行及其后更旧的行都不再解析
+            if (finalWatermark > 0 && collectSpans(html, tag.end, rowEnd, spanTag, spans, 1) > 0) {
+                int period = periodOf(html, spans.starts[0], spanTag);
+                if (period != ParsedServerPage.PERIOD_INVALID && period <= finalWatermark) {
+                    page.setStoppedAt(finalWatermark);
+                    break;
+                }
+            }
+
+            int spanCount = collectSpans(html, tag.end, rowEnd, spanTag, spans, Integer.MAX_VALUE);
+            int[] spanStarts = spans.starts;
+            if (spanCount < 4) {
+                continue;
+            }
+            if (spanCount < 6) {
+                // jsoup路径读取第6个span会越界，交给jsoup按原有方式处理
+                throw LAYOUT_MISMATCH;
+            }
+
+            int period = periodOf(html, spanStarts[0], spanTag);
+            String rawPeriod = period == ParsedServerPage.PERIOD_INVALID
+                    ? elementText(html, spanStarts[0], spanTag).trim() : null;
+
+            // 标准格式的号码直接在网页字符上编码，只有不规则的号码才生成字符串
+            long numbersRange = contentRange(html, spanStarts[1], spanTag);
+            int numbersCode = ParsedServerPage.encodeNumbers(html, (int) (numbersRange >>> 32), (int) numbersRange);
+            String rawNumbers = null;
+            if (numbersCode == ParsedServerPage.NUMBERS_IRREGULAR) {
+                rawNumbers = elementText(html, spanStarts[1], spanTag).trim();
+                numbersCode = ParsedServerPage.encodeNumbers(rawNumbers, 0, rawNumbers.length());
+            }
+
+            byte prediction = ParsedServerPage.predictionCode(elementText(html, spanStarts[2], spanTag));
+
+            String outcomeText = elementText(html, spanStarts[5], spanTag).trim();
+            byte outcome;
+            if (outcomeText.contains("中")) {
+                outcome = ParsedServerPage.OUTCOME_HIT;
+            } else if (outcomeText.contains("错")) {
+                outcome = ParsedServerPage.OUTCOME_MISS;
+            } else {
+                parseTagAt(html, spanStarts[5], spanTag);
+                if (hasClass(html, spanTag, "yc-yes2")) {
+                    outcome = ParsedServerPage.OUTCOME_HIT;
+                } else if (hasClass(html, spanTag, "yc-no2")) {
+                    outcome = ParsedServerPage.OUTCOME_MISS;
+                } else {
+                    outcome = ParsedServerPage.OUTCOME_PENDING;
+                }
+            }
+
+            page.addRow(period, rawPeriod, numbersCode, rawNumbers, prediction, outcome);
+        }
+
+        page.setRowsVisited(rowsVisited);
+        log.debug("流式解析 {} 条历史记录，访问 {} 行", page.getRowCount(), rowsVisited);
+    }
+
+    /**
+     * 读取 start 位置元素中的期号：纯数字内容直接在网页字符上转换，其余情况按元素文本转换
+     *
+     * @return 期号，无法转换为整数时返回 {@link ParsedServerPage#PERIOD_INVALID}
+     */
+    private static int periodOf(String html, int start, Tag tag) {
+        long range = contentRange(html, start, tag);
+        int from = (int) (range >>> 32);
+        int to = (int) range;
+        if (to > from && to - from <= 9) {
+            int value = 0;
+            int pos = from;
+            while (pos < to && html.charAt(pos) >= '0' && html.charAt(pos) <= '9') {
+                value = value * 10 + (html.charAt(pos) - '0');
+                pos++;
+            }
+            if (pos == to) {
+                return value;
+            }
+        }
+        try {
+            return Integer.parseInt(elementText(html, start, tag).trim());
+        } catch (NumberFormatException e) {
+            return ParsedServerPage.PERIOD_INVALID;
+        }
+    }
+
+    /**
+     * 查找 start 位置元素内容去掉首尾空白后的区间（不解码、不处理内部标签）
+     *
+     * @return 高32位为起始位置、低32位为结束位置
+     */
+    private static long contentRange(String html, int start, Tag tag) {
+        parseTagAt(html, start, tag);
+        int from = tag.end;
+        int to = elementEnd(html, tag, html.length());
+        while (from < to && isWhitespace(html.charAt(from))) {
+            from++;
+        }
+        while (to > from && isWhitespace(html.charAt(to - 1))) {
+            to--;
+        }
+        return ((long) from << 32) | to;
+    }
+
+    /**
+     * 按文档顺序收集行内的span（包括嵌套的span）
+     *
+     * @param max 最多收集的数量
+     * @return 收集到的数量
+     */
+    private static int collectSpans(String html, int from, int rowEnd, Tag tag, SpanList spans, int max) {
+        spans.count = 0;
+        int pos = from;
+        while (spans.count < max && nextTag(html, pos, rowEnd, tag)) {
+            pos = tag.end;
+            if (tag.closing) {
+                continue;
+            }
+            if (hasClass(html, tag, "result-tr")) {
+                // 嵌套的记录行，jsoup会把它当作单独一行
+                throw LAYOUT_MISMATCH;
+            }
+            if (tag.nameIs(html, "span")) {
+                spans.add(tag.start);
+            }
+        }
+        return spans.count;
+    }
+
+    /**
+     * 从 from 开始查找下一个标签（跳过注释、声明和原始文本元素的内容）
+     *
+     * @return 找到标签返回true，tag中保存标签位置
+     */
+    private static boolean nextTag(String html, int from, int limit, Tag tag) {
+        int pos = from;
+        while (pos < limit) {
+            int lt = html.indexOf('<', pos);
+            if (lt < 0 || lt >= limit) {
+                return false;
+            }
+            if (html.startsWith("<!--", lt)) {
+                int close = html.indexOf("-->", lt + 4);
+                if (close < 0) {
+                    throw LAYOUT_MISMATCH;
+                }
+                pos = close + 3;
+                continue;
+            }
+            if (parseTagAt(html, lt, tag)) {
+                if (tag.end > limit) {
+                    throw LAYOUT_MISMATCH;
+                }
+                return true;
+            }
+            pos = lt + 1;
+        }
+        return false;
+    }
+
+    /**
+     * 解析 start 位置的标签
+     *
+     * @return 该位置是开始或结束标签时返回true；声明（<!DOCTYPE>）会被跳过并返回false
+     */
+    private static boolean parseTagAt(String html, int start, Tag tag) {
+        int length = html.length();
+        int pos = start + 1;
+        if (pos >= length) {
+            return false;
+        }
+
+        boolean closing = false;
+        if (html.charAt(pos) == '/') {
+            closing = true;
+            pos++;
+        }
+        if (pos >= length || !isAsciiLetter(html.charAt(pos))) {
+            return false;
+        }
+
+        int nameStart = pos;
+        while (pos < length && isNameChar(html.charAt(pos))) {
+            pos++;
+        }
+        int nameEnd = pos;
+
+        // 查找标签结束的'>'，跳过引号中的属性值
+        char quote = 0;
+        while (pos < length) {
+            char c = html.charAt(pos);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+            } else if (c == '>') {
+                break;
+            }
+            pos++;
+        }
+        if (pos >= length) {
+            throw LAYOUT_MISMATCH;
+        }
+
+        tag.start = start;
+        tag.nameStart = nameStart;
+        tag.nameEnd = nameEnd;
+        tag.closing = closing;
+        tag.selfClosing = html.charAt(pos - 1) == '/';
+        tag.end = pos + 1;
+
+        // 原始文本元素整体跳过，结束位置放在对应结束标签之后
+        if (!closing && tag.nameIn(html, RAW_TEXT_TAGS)) {
+            String closeTag = "</" + html.substring(nameStart, nameEnd);
+            int close = indexOfIgnoreCase(html, closeTag, tag.end);
+            if (close < 0) {
+                throw LAYOUT_MISMATCH;
+            }
+            int closeEnd = html.indexOf('>', close);
+            if (closeEnd < 0) {
+                throw LAYOUT_MISMATCH;
+            }
+            tag.end = closeEnd + 1;
+            tag.rawText = true;
+        } else {
+            tag.rawText = false;
+        }
+        return true;
+    }
+
+    /**
+     * 查找元素对应结束标签的起始位置（同名标签按层级计数）
+     */
+    private static int elementEnd(String html, Tag open, int limit) {
+        if (open.rawText || open.nameIn(html, VOID_TAGS)) {
+            return open.end;
+        }
+        if (open.selfClosing) {
+            throw LAYOUT_MISMATCH;
+        }
+
+        Tag tag = new Tag();
+        int depth = 1;
+        int pos = open.end;
+        while (nextTag(html, pos, limit, tag)) {
+            pos = tag.end;
+            if (!tag.sameName(html, open)) {
+                continue;
+            }
+            if (tag.closing) {
+                if (--depth == 0) {
+                    return tag.start;
+                }
+            } else if (tag.selfClosing) {
+                throw LAYOUT_MISMATCH;
+            } else {
+                depth++;
+            }
+        }
+        throw LAYOUT_MISMATCH;
+    }
+
+    /**
+     * 提取 start 位置元素的文本，规则与 jsoup 的 Element.text() 一致：
+     * 空白折叠为一个空格、块级标签前后补空格、首尾空白去掉
+     */
+    private static String elementText(String html, int start, Tag tag) {
+        parseTagAt(html, start, tag);
+        int from = tag.end;
+        int to = elementEnd(html, tag, html.length());
+
+        StringBuilder text = new StringBuilder(Math.max(16, to - from));
+        int pos = from;
+        while (pos < to) {
+            char c = html.charAt(pos);
+            if (c == '<') {
+                if (html.startsWith("<!--", pos)) {
+                    int close = html.indexOf("-->", pos + 4);
+                    if (close < 0 || close >= to) {
+                        throw LAYOUT_MISMATCH;
+                    }
+                    pos = close + 3;
+                    continue;
+                }
+                if (parseTagAt(html, pos, tag)) {
+                    if (tag.nameIn(html, BLOCK_TAGS)) {
+                        appendSpace(text);
+                    }
+                    pos = tag.end;
+                    continue;
+                }
+            }
+
+            if (c == '&') {
+                pos = appendEntity(html, pos, to, text);
+                continue;
+            }
+
+            if (isWhitespace(c)) {
+                appendSpace(text);
+            } else {
+                text.append(c);
+            }
+            pos++;
+        }
+
+        int length = text.length();
+        if (length > 0 && text.charAt(length - 1) == ' ') {
+            text.setLength(length - 1);
+        }
+        return text.toString();
+    }
+
+    /**
+     * 解码常见实体，无法确认含义的实体视为结构不符
+     *
+     * @return 实体之后的位置
+     */
+    private static int appendEntity(String html, int pos, int limit, StringBuilder text) {
+        int next = pos + 1;
+        if (next >= limit || !(isAsciiLetter(html.charAt(next)) || html.charAt(next) == '#')) {
+            text.append('&');
+            return next;
+        }
+
+        int semicolon = html.indexOf(';', next);
+        if (semicolon < 0 || semicolon >= limit || semicolon - next > 10) {
+            throw LAYOUT_MISMATCH;
+        }
+
+        String name = html.substring(next, semicolon);
+        int codePoint;
+        switch (name) {
+            case "amp": codePoint = '&'; break;
+            case "lt": codePoint = '<'; break;
+            case "gt": codePoint = '>'; break;
+            case "quot": codePoint = '"'; break;
+            case "apos": codePoint = '\''; break;
+            case "nbsp": codePoint = 160; break;
+            default:
+                if (name.length() < 2 || name.charAt(0) != '#') {
+                    throw LAYOUT_MISMATCH;
+                }
+                try {
+                    codePoint = name.charAt(1) == 'x' || name.charAt(1) == 'X'
+                            ? Integer.parseInt(name.substring(2), 16)
+                            : Integer.parseInt(name.substring(1));
+                } catch (NumberFormatException e) {
+                    throw LAYOUT_MISMATCH;
+                }
+                if (!Character.isValidCodePoint(codePoint)) {
+                    throw LAYOUT_MISMATCH;
+                }
+        }
+
+        if (codePoint < Character.MIN_SUPPLEMENTARY_CODE_POINT && isWhitespace((char) codePoint)) {
+            appendSpace(text);
+        } else {
+            text.appendCodePoint(codePoint);
+        }
+        return semicolon + 1;
+    }
+
+    /**
+     * 读取标签的属性值（属性名不区分大小写，重复属性取第一个），不存在时返回null
+     */
+    private static String attribute(String html, Tag tag, String name) {
+        long range = attributeRange(html, tag, name);
+        return range < 0 ? null : html.substring((int) (range >>> 32), (int) range);
+    }
+
+    /**
+     * 判断标签的属性值是否等于指定值（区分大小写），不分配字符串
+     */
+    private static boolean attributeEquals(String html, Tag tag, String name, String value) {
+        long range = attributeRange(html, tag, name);
+        if (range < 0) {
+            return false;
+        }
+        int start = (int) (range >>> 32);
+        return (int) range - start == value.length() && html.startsWith(value, start);
+    }
+
+    /**
+     * 判断标签的class属性中是否包含指定的类名（不区分大小写，与jsoup的hasClass一致），不分配字符串
+     */
+    private static boolean hasClass(String html, Tag tag, String className) {
+        return hasClass(html, attributeRange(html, tag, "class"), className);
+    }
+
+    /**
+     * 判断class属性值区间中是否包含指定的类名
+     */
+    private static boolean hasClass(String html, long range, String className) {
+        if (range < 0) {
+            return false;
+        }
+        int end = (int) range;
+        int pos = (int) (range >>> 32);
+        while (pos < end) {
+            while (pos < end && isWhitespace(html.charAt(pos))) {
+                pos++;
+            }
+            int start = pos;
+            while (pos < end && !isWhitespace(html.charAt(pos))) {
+                pos++;
+            }
+            if (pos - start == className.length() && html.regionMatches(true, start, className, 0, className.length())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 查找属性值在网页中的位置
+     *
+     * @return 高32位为起始位置、低32位为结束位置，属性不存在返回-1
+     */
+    private static long attributeRange(String html, Tag tag, String name) {
+        int pos = tag.nameEnd;
+        int end = tag.end - 1;
+
+        while (pos < end) {
+            char c = html.charAt(pos);
+            if (isWhitespace(c) || c == '/') {
+                pos++;
+                continue;
+            }
+
+            int attrStart = pos;
+            while (pos < end && !isWhitespace(html.charAt(pos)) && html.charAt(pos) != '='
+                    && html.charAt(pos) != '/') {
+                pos++;
+            }
+            int attrEnd = pos;
+
+            while (pos < end && isWhitespace(html.charAt(pos))) {
+                pos++;
+            }
+
+            int valueStart = pos;
+            int valueEnd = pos;
+            if (pos < end && html.charAt(pos) == '=') {
+                pos++;
+                while (pos < end && isWhitespace(html.charAt(pos))) {
+                    pos++;
+                }
+                if (pos < end && (html.charAt(pos) == '"' || html.charAt(pos) == '\'')) {
+                    char quote = html.charAt(pos);
+                    valueStart = pos + 1;
+                    valueEnd = html.indexOf(quote, valueStart);
+                    if (valueEnd < 0 || valueEnd > end) {
+                        throw LAYOUT_MISMATCH;
+                    }
+                    pos = valueEnd + 1;
+                } else {
+                    valueStart = pos;
+                    while (pos < end && !isWhitespace(html.charAt(pos))) {
+                        pos++;
+                    }
+                    valueEnd = pos;
+                }
+            }
+
+            if (attrEnd - attrStart == name.length() && html.regionMatches(true, attrStart, name, 0, name.length())) {
+                for (int i = valueStart; i < valueEnd; i++) {
+                    if (html.charAt(i) == '&') {
+                        // 属性值中的实体不做解码，交给jsoup
+                        throw LAYOUT_MISMATCH;
+                    }
+                }
+                return ((long) valueStart << 32) | valueEnd;
+            }
+        }
+        return -1;
+    }
+
+    private static void appendSpace(StringBuilder text) {
+        int length = text.length();
+        if (length > 0 && text.charAt(length - 1) != ' ') {
+            text.append(' ');
+        }
+    }
+
+    private static int indexOfIgnoreCase(String html, String target, int from) {
+        int last = html.length() - target.length();
+        for (int i = html.indexOf('<', from); i >= 0 && i <= last; i = html.indexOf('<', i + 1)) {
+            if (html.regionMatches(true, i, target, 0, target.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 与 jsoup 的空白判断一致（包含不换行空格）
+     */
+    private static boolean isWhitespace(char c) {
+        return c == ' ' || c == '\t' || c == '\n' || c == '\f' || c == '\r' || c == 160;
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isNameChar(char c) {
+        return isAsciiLetter(c) || (c >= '0' && c <= '9') || c == '-' || c == ':' || c == '_';
+    }
+
+    /**
+     * 标签位置信息，可重复使用以减少对象分配
+     */
+    private static final class Tag {
+        int start;
+        int end;
+        int nameStart;
+        int nameEnd;
+        boolean closing;
+        boolean selfClosing;
+        boolean rawText;
+
+        boolean nameIs(String html, String name) {
+            return nameEnd - nameStart == name.length()
+                    && html.regionMatches(true, nameStart, name, 0, name.length());
+        }
+
+        boolean nameIn(String html, String[] names) {
+            for (String name : names) {
+                if (nameIs(html, name)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        boolean sameName(String html, Tag other) {
+            int length = nameEnd - nameStart;
+            return length == other.nameEnd - other.nameStart
+                    && html.regionMatches(true, nameStart, html, other.nameStart, length);
+        }
+    }
+
+    /**
+     * 行内span起始位置列表，每行复用
+     */
+    private static final class SpanList {
+        int[] starts = new int[8];
+        int count;
+
+        void add(int start) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count * 2);
+            }
+            starts[count++] = start;
+        }
+    }
+
+    /**
+     * 页面中各标记第一次出现的位置，-1表示不存在
+     */
+    private static final class Markers {
+        int times = -1;
+        int forecast = -1;
+        int period = -1;
+        int number = -1;
+        int resultDxds = -1;
+        int[] notOpen = new int[2];
+        int notOpenCount;
+
+        void addNotOpen(int start) {
+            if (notOpenCount == notOpen.length) {
+                notOpen = Arrays.copyOf(notOpen, notOpenCount * 2);
+            }
+            notOpen[notOpenCount++] = start;
+        }
+    }
+
+    /**
+     * 页面结构不符合预期，不记录堆栈
+     */
+    private static final class LayoutMismatch extends RuntimeException {
+        LayoutMismatch() {
+            super("页面结构与流式提取器不匹配", null, false, false);
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package org.pc28.task;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * 基于结构化并发（JDK 24 预览特性，JEP 499）的采集周期执行器
+ *
+ * 一轮采集的所有子任务在同一个任务作用域中派生，作用域到截止时间关闭：未完成的子任务被中断，
+ * 作用域退出前等待它们全部结束，一轮采集结束后不会留下仍在下载或入库的线程。
+ * 只在 structured-concurrency profile 下编译，并且只在 pc28.collection.structured-concurrency=true 时注册，
+ * 运行时需要 --enable-preview；默认使用 {@link VirtualThreadCycleRunner}
+ */
+@Component
+@Primary
+@ConditionalOnProperty(name = "pc28.collection.structured-concurrency", havingValue = "true")
+public class StructuredCycleRunner implements CollectionCycleRunner {
+
+    @Override
+    public <T> List<CycleSubtaskResult<T>> runAll(List<Callable<T>> tasks, Instant deadline) throws InterruptedException {
+        try (StructuredTaskScope<T> scope = new StructuredTaskScope<>()) {
+            List<Subtask<T>> subtasks = new ArrayList<>(tasks.size());
+            for (Callable<T> task : tasks) {
+                subtasks.add(scope.fork(task));
+            }
+
+            try {
+                scope.joinUntil(deadline);
+            } catch (TimeoutException e) {
+                // 关闭作用域取消未完成的子任务，再次join后才能读取已完成子任务的结果
+                scope.shutdown();
+                scope.join();
+            }
+
+            List<CycleSubtaskResult<T>> results = new ArrayList<>(subtasks.size());
+            for (Subtask<T> subtask : subtasks) {
+                results.add(switch (subtask.state()) {
+                    case SUCCESS -> CycleSubtaskResult.success(subtask.get());
+                    case FAILED -> CycleSubtaskResult.failed(subtask.exception());
+                    case UNAVAILABLE -> CycleSubtaskResult.cancelled();
+                });
+            }
+            return results;
+        }
+    }
+
+    @Override
+    public String name() {
+        return "结构化并发";
+    }
+}
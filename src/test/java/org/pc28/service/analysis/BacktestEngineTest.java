@@ -0,0 +1,153 @@
+package org.pc28.service.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.pc28.model.BacktestGrid;
+import org.pc28.model.BacktestReport;
+import org.pc28.model.BacktestResult;
+import org.pc28.model.DrawSeries;
+import org.pc28.model.ParsedServerPage;
+import org.pc28.utils.DrawCodeTable;
+import org.pc28.utils.KillRuleSet;
+
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 注码策略回测测试
+ */
+class BacktestEngineTest {
+
+    /**
+     * 没有杀的号码：0+1+5=6
+     */
+    private static final int WIN_CODE = 15;
+
+    /**
+     * 对子，为杀：1+1+5=7
+     */
+    private static final int LOSE_CODE = 115;
+
+    @Test
+    void flatStakeTracksProfitAndDrawdown() {
+        BacktestResult result = single(series("WLLWW"), BacktestStrategy.FLAT, 0, 10);
+        assertEquals(1.0, result.getFinalProfit());
+        assertEquals(11.0, result.getPeakBankroll());
+        assertEquals(2.0, result.getMaxDrawdown());
+        assertEquals(5, result.getBets());
+        assertEquals(3, result.getWins());
+        assertFalse(result.isRuined());
+    }
+
+    @Test
+    void martingaleDoublesAfterLossAndResetsAfterWin() {
+        // 10 -> 11 -> 10 -> 8 -> 12 -> 13
+        BacktestResult result = single(series("WLLWW"), BacktestStrategy.MARTINGALE, 3, 10);
+        assertEquals(3.0, result.getFinalProfit());
+        assertEquals(13.0, result.getPeakBankroll());
+        assertEquals(3.0, result.getMaxDrawdown());
+    }
+
+    @Test
+    void stopAfterLossesSitsOutUntilNextWin() {
+        // 10 -> 11 -> 10 -> 9，暂停，观望到赢的一期后恢复，最后一期下注 -> 10
+        BacktestResult result = single(series("WLLLWW"), BacktestStrategy.STOP_AFTER_LOSSES, 2, 10);
+        assertEquals(0.0, result.getFinalProfit());
+        assertEquals(4, result.getBets());
+    }
+
+    @Test
+    void martingaleRunsOutOfBankroll() {
+        BacktestResult result = single(series("LLLL"), BacktestStrategy.MARTINGALE, 5, 2);
+        assertTrue(result.isRuined());
+        assertEquals(-1.0, result.getFinalProfit());
+        assertEquals(1.0, result.getRuinProbability());
+        assertEquals(4, result.getCurve().length);
+        assertArrayEquals(new double[]{-1, -1, -1, -1}, result.getCurve());
+    }
+
+    @Test
+    void gridResultsMatchSequentialSimulation() {
+        SplittableRandom random = new SplittableRandom(28);
+        StringBuilder pattern = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            pattern.append(random.nextInt(100) < 55 ? 'W' : 'L');
+        }
+        DrawSeries series = series(pattern.toString());
+        BacktestGrid grid = grid(List.of(BacktestStrategy.values()), new int[]{2, 4, 6}, new double[]{20, 200});
+
+        BacktestReport report = BacktestEngine.run(series, KillRuleSet.STANDARD, grid);
+        List<BacktestEngine.Combination> combinations = BacktestEngine.combinations(grid);
+        assertEquals(combinations.size(), report.getCombinations());
+        assertEquals(5000, report.getGames());
+
+        BacktestEngine.Outcomes outcomes = BacktestEngine.Outcomes.of(series, KillRuleSet.STANDARD);
+        for (BacktestEngine.Combination combination : combinations) {
+            BacktestResult expected = BacktestEngine.simulate(outcomes, combination, grid);
+            BacktestResult actual = report.getResults().stream()
+                    .filter(r -> r.getStrategy() == combination.strategy() && r.getBetMode() == combination.betMode()
+                            && r.getLimit() == combination.limit() && r.getBankroll() == combination.bankroll())
+                    .findFirst().orElseThrow();
+            assertEquals(expected.getFinalProfit(), actual.getFinalProfit());
+            assertEquals(expected.getRuinProbability(), actual.getRuinProbability());
+        }
+        for (int i = 1; i < report.getResults().size(); i++) {
+            assertTrue(report.getResults().get(i - 1).getFinalProfit() >= report.getResults().get(i).getFinalProfit());
+        }
+    }
+
+    @Test
+    void rejectsInvalidGrid() {
+        assertThrows(IllegalArgumentException.class, () -> BacktestEngine.combinations(
+                grid(List.of(BacktestStrategy.MARTINGALE), new int[0], new double[]{100})));
+        assertThrows(IllegalArgumentException.class, () -> BacktestEngine.combinations(
+                grid(List.of(BacktestStrategy.MARTINGALE), new int[]{BacktestEngine.MAX_STEPS + 1}, new double[]{100})));
+    }
+
+    private static BacktestResult single(DrawSeries series, BacktestStrategy strategy, int limit, double bankroll) {
+        BacktestGrid grid = BacktestGrid.builder()
+                .strategies(List.of(strategy))
+                .betModes(List.of(BacktestBetMode.RESULT))
+                .baseStakes(new double[]{1})
+                .limits(new int[]{Math.max(limit, 1)})
+                .bankrolls(new double[]{bankroll})
+                .payout(1.0)
+                .sessionLength(1000)
+                .curvePoints(series.getSize())
+                .build();
+        BacktestReport report = BacktestEngine.run(series, KillRuleSet.STANDARD, grid);
+        assertEquals(1, report.getResults().size());
+        return report.getResults().get(0);
+    }
+
+    private static BacktestGrid grid(List<BacktestStrategy> strategies, int[] limits, double[] bankrolls) {
+        return BacktestGrid.builder()
+                .strategies(strategies)
+                .betModes(List.of(BacktestBetMode.values()))
+                .baseStakes(new double[]{1})
+                .limits(limits)
+                .bankrolls(bankrolls)
+                .payout(0.95)
+                .sessionLength(500)
+                .curvePoints(20)
+                .build();
+    }
+
+    /**
+     * 按 W/L 模式生成开奖序列，W 为没有杀的号码，L 为杀
+     */
+    private static DrawSeries series(String pattern) {
+        DrawSeries series = new DrawSeries("sf1", pattern.length());
+        for (int i = 0; i < pattern.length(); i++) {
+            int code = pattern.charAt(i) == 'W' ? WIN_CODE : LOSE_CODE;
+            series.add(1000 + i, code, ParsedServerPage.PREDICTION_ODD,
+                    DrawCodeTable.isOdd(code) ? ParsedServerPage.OUTCOME_HIT : ParsedServerPage.OUTCOME_MISS);
+        }
+        return series;
+    }
+}
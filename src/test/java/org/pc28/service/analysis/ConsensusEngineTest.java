@@ -0,0 +1,111 @@
+package org.pc28.service.analysis;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pc28.model.ConsensusSnapshot;
+import org.pc28.model.CorrelationReport;
+import org.pc28.model.ParsedServerPage;
+import org.pc28.utils.DrawCodeTable;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 跨服务器共识和相关性测试
+ */
+class ConsensusEngineTest {
+
+    private static final int RETENTION = 50;
+
+    private static final String[] SERVERS = {"sf1", "sf3", "sf4"};
+
+    private ConsensusEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        engine = new ConsensusEngine(null);
+        ReflectionTestUtils.setField(engine, "retention", RETENTION);
+        engine.reset();
+    }
+
+    @Test
+    void correlationMatchesRecalculationOverRetention() {
+        SplittableRandom random = new SplittableRandom(28);
+        int count = 180;
+        byte[][] outcomes = new byte[SERVERS.length][count];
+
+        for (int p = 0; p < count; p++) {
+            int code = random.nextInt(DrawCodeTable.SIZE);
+            for (int s = 0; s < SERVERS.length; s++) {
+                // sf3 大多跟随 sf1，制造正相关；部分期没有结果
+                boolean hit = s == 1 && random.nextInt(10) < 8 ? outcomes[0][p] == ParsedServerPage.OUTCOME_HIT
+                        : random.nextBoolean();
+                outcomes[s][p] = random.nextInt(10) == 0 ? ParsedServerPage.OUTCOME_PENDING
+                        : hit ? ParsedServerPage.OUTCOME_HIT : ParsedServerPage.OUTCOME_MISS;
+                engine.record(SERVERS[s], 1000 + p, code, ParsedServerPage.PREDICTION_ODD, outcomes[s][p]);
+            }
+        }
+
+        CorrelationReport report = engine.correlation();
+        assertEquals(1000 + count - RETENTION, report.getFromPeriod());
+        for (int i = 0; i < SERVERS.length; i++) {
+            for (int j = i + 1; j < SERVERS.length; j++) {
+                int n = 0;
+                int a = 0;
+                int b = 0;
+                int ab = 0;
+                for (int p = count - RETENTION; p < count; p++) {
+                    if (outcomes[i][p] == ParsedServerPage.OUTCOME_PENDING || outcomes[j][p] == ParsedServerPage.OUTCOME_PENDING) {
+                        continue;
+                    }
+                    int x = outcomes[i][p] == ParsedServerPage.OUTCOME_HIT ? 1 : 0;
+                    int y = outcomes[j][p] == ParsedServerPage.OUTCOME_HIT ? 1 : 0;
+                    n++;
+                    a += x;
+                    b += y;
+                    ab += x * y;
+                }
+                assertEquals(n, report.getSamples()[i][j]);
+                assertEquals(ConsensusEngine.phi(n, a, b, ab), report.getCorrelation()[i][j]);
+            }
+        }
+        assertTrue(report.getCorrelation()[0][1] > 0.3);
+    }
+
+    @Test
+    void consensusJoinsServersOnPeriod() {
+        int code = DrawCodeTable.encode("1+2+4=7");
+        engine.record("sf1", 2000, DrawCodeTable.INVALID, ParsedServerPage.PREDICTION_ODD, ParsedServerPage.OUTCOME_PENDING);
+        engine.record("sf3", 2000, DrawCodeTable.INVALID, ParsedServerPage.PREDICTION_ODD, ParsedServerPage.OUTCOME_PENDING);
+        engine.record("sf4", 2000, DrawCodeTable.INVALID, ParsedServerPage.PREDICTION_EVEN, ParsedServerPage.OUTCOME_PENDING);
+
+        ConsensusSnapshot pending = engine.consensus(2000);
+        assertEquals("单", pending.getMajority());
+        assertEquals(2.0 / 3, pending.getAgreement(), 1e-9);
+        assertNull(pending.getMajorityHit());
+
+        engine.record("sf1", 2000, code, ParsedServerPage.PREDICTION_ODD, ParsedServerPage.OUTCOME_HIT);
+        ConsensusSnapshot drawn = engine.consensus(2000);
+        assertEquals("单", drawn.getActual());
+        assertTrue(drawn.getMajorityHit());
+        assertEquals(3, drawn.getPredictions().size());
+    }
+
+    @Test
+    void dropsPeriodsOutsideRetention() {
+        engine.record("sf1", 3000, DrawCodeTable.INVALID, ParsedServerPage.PREDICTION_ODD, ParsedServerPage.OUTCOME_MISS);
+        engine.record("sf3", 3000, DrawCodeTable.INVALID, ParsedServerPage.PREDICTION_ODD, ParsedServerPage.OUTCOME_MISS);
+        engine.record("sf1", 3000 + RETENTION, DrawCodeTable.INVALID, ParsedServerPage.PREDICTION_ODD, ParsedServerPage.OUTCOME_HIT);
+
+        assertNull(engine.consensus(3000));
+        assertFalse(engine.record("sf3", 3000, DrawCodeTable.INVALID, ParsedServerPage.PREDICTION_ODD,
+                ParsedServerPage.OUTCOME_HIT));
+        assertEquals(0, engine.correlation().getSamples()[0][1]);
+        assertEquals(1, engine.recent(10).size());
+    }
+}
@@ -0,0 +1,92 @@
+package org.pc28.service.analysis;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 开奖时钟模型测试
+ */
+class DrawClockModelTest {
+
+    private static final long ORIGIN = 1_735_689_600_000L;
+
+    private static final int FIRST_PERIOD = 3_298_000;
+
+    @Test
+    void fitsScheduleFromNoisyObservations() {
+        // 实际间隔 209.5 秒，观测误差 ±800 毫秒
+        SplittableRandom random = new SplittableRandom(28);
+        DrawClockModel model = new DrawClockModel(256, 210_000, 20_000);
+        for (int i = 0; i < 300; i++) {
+            int period = FIRST_PERIOD + i;
+            long actual = ORIGIN + Math.round(i * 209_500.0);
+            for (int sample = 0; sample < 3; sample++) {
+                assertTrue(model.observe(period, actual + random.nextLong(-800, 801)));
+            }
+        }
+
+        assertEquals(209_500, model.getIntervalMillis(), 5);
+        long expected = ORIGIN + Math.round(400 * 209_500.0);
+        assertEquals(expected, model.predict(FIRST_PERIOD + 400), 300);
+        assertTrue(model.getRmsResidualMillis() < 600);
+        assertEquals(256, model.getSamples());
+    }
+
+    @Test
+    void usesDefaultIntervalUntilPeriodsDiffer() {
+        DrawClockModel model = new DrawClockModel(16, 210_000, 20_000);
+        assertEquals(Long.MIN_VALUE, model.predict(FIRST_PERIOD));
+        model.observe(FIRST_PERIOD, ORIGIN);
+        model.observe(FIRST_PERIOD, ORIGIN + 400);
+        assertEquals(ORIGIN + 200 + 2 * 210_000, model.predict(FIRST_PERIOD + 2));
+    }
+
+    @Test
+    void refitsAfterScheduleShift() {
+        DrawClockModel model = new DrawClockModel(64, 210_000, 20_000);
+        for (int i = 0; i < 50; i++) {
+            model.observe(FIRST_PERIOD + i, ORIGIN + i * 210_000L);
+        }
+
+        // 单个偏离的观测暂不采用
+        long shift = 3_600_000;
+        assertFalse(model.observe(FIRST_PERIOD + 50, ORIGIN + 50 * 210_000L + shift));
+        assertEquals(ORIGIN + 51 * 210_000L, model.predict(FIRST_PERIOD + 51));
+
+        // 连续偏离后只用新观测拟合，保留原来的间隔
+        assertTrue(model.observe(FIRST_PERIOD + 51, ORIGIN + 51 * 210_000L + shift));
+        assertEquals(1, model.getResets());
+        assertEquals(2, model.getSamples());
+        assertEquals(ORIGIN + 60 * 210_000L + shift, model.predict(FIRST_PERIOD + 60), 1);
+    }
+
+    @Test
+    void tracksNextPeriod() {
+        DrawClockModel model = new DrawClockModel(16, 210_000, 20_000);
+        assertEquals(-1, model.nextPeriod());
+        model.drawn(FIRST_PERIOD);
+        model.drawn(FIRST_PERIOD - 5);
+        assertEquals(FIRST_PERIOD + 1, model.nextPeriod());
+    }
+
+    @Test
+    void findsNextDrawAfterInstant() {
+        DrawClockModel model = new DrawClockModel(16, 210_000, 20_000);
+        assertEquals(Long.MIN_VALUE, model.nextDrawAfter(ORIGIN));
+        for (int i = 0; i < 10; i++) {
+            model.observe(FIRST_PERIOD + i, ORIGIN + i * 210_000L);
+        }
+
+        assertEquals(ORIGIN + 210_000, model.nextDrawAfter(ORIGIN), 1);
+        assertEquals(ORIGIN + 210_000, model.nextDrawAfter(ORIGIN + 1), 1);
+        assertEquals(ORIGIN + 210_000, model.nextDrawAfter(ORIGIN + 209_998), 1);
+        // 远在观测之后也只需一次计算
+        assertEquals(ORIGIN + 1_001 * 210_000L, model.nextDrawAfter(ORIGIN + 1_000 * 210_000L + 5), 1);
+        assertTrue(model.nextDrawAfter(ORIGIN + 210_000) > ORIGIN + 210_000);
+    }
+}
@@ -0,0 +1,87 @@
+package org.pc28.service.analysis;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pc28.model.DrawSeries;
+import org.pc28.model.WinRateSnapshot;
+import org.pc28.service.db.DrawHistoryReader;
+import org.pc28.service.db.DrawHistoryReader.DrawRowHandler;
+import org.pc28.service.db.DrawPersistedEvent;
+import org.pc28.utils.KillRuleSet;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 开奖统计服务测试
+ */
+class DrawStatsServiceImplTest {
+
+    private final DrawHistoryReader historyReader = mock(DrawHistoryReader.class);
+
+    private final KillRuleRegistry killRuleRegistry = mock(KillRuleRegistry.class);
+
+    private DrawStatsServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new DrawStatsServiceImpl(historyReader, killRuleRegistry);
+        ReflectionTestUtils.setField(service, "winRateWindows", new int[]{10});
+        ReflectionTestUtils.setField(service, "killRuleName", "standard");
+        ReflectionTestUtils.setField(service, "sumWindows", new int[]{10});
+        ReflectionTestUtils.setField(service, "patternMaxLength", 4);
+        when(killRuleRegistry.get(anyString())).thenReturn(KillRuleSet.STANDARD);
+        when(historyReader.servers()).thenReturn(List.of("sf1"));
+    }
+
+    @Test
+    void replaysDrawsPersistedDuringRebuild() {
+        DrawSeries stored = series(100, 101, 102);
+        when(historyReader.streamAll(anyString(), any())).thenAnswer(invocation -> {
+            DrawRowHandler handler = invocation.getArgument(1);
+            emit(stored, 0, handler);
+            // 读到一半时有新记录入库：这时计入会让后面的 101、102 被当作旧记录丢弃
+            service.onDrawPersisted(new DrawPersistedEvent("sf1", series(103)));
+            emit(stored, 1, handler);
+            emit(stored, 2, handler);
+            return stored.getSize();
+        });
+
+        service.rebuild();
+
+        WinRateSnapshot winRates = service.getWinRates("sf1");
+        assertEquals(103, winRates.getLastPeriod());
+        assertEquals(4, winRates.getRecorded());
+    }
+
+    @Test
+    void recordsDrawsAfterRebuild() {
+        when(historyReader.streamAll(anyString(), any())).thenReturn(0);
+        service.rebuild();
+
+        service.onDrawPersisted(new DrawPersistedEvent("sf1", series(200, 201)));
+        // 已经计入的期号再次入库时不重复统计
+        service.onDrawPersisted(new DrawPersistedEvent("sf1", series(201)));
+
+        assertEquals(2, service.getWinRates("sf1").getRecorded());
+    }
+
+    private static DrawSeries series(int... periods) {
+        DrawSeries series = new DrawSeries("sf1", periods.length);
+        for (int period : periods) {
+            series.add(period, "1+2+3=6", "双", "中");
+        }
+        return series;
+    }
+
+    private static void emit(DrawSeries series, int index, DrawRowHandler handler) {
+        handler.accept(series.periodAt(index), series.codeAt(index),
+                series.predictionAt(index), series.outcomeAt(index));
+    }
+}
@@ -0,0 +1,104 @@
+package org.pc28.service.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.pc28.model.BacktestGrid;
+import org.pc28.model.MonteCarloReport;
+import org.pc28.model.MonteCarloResult;
+import org.pc28.utils.DrawCodeTable;
+import org.pc28.utils.KillRuleSet;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 注码策略蒙特卡洛模拟测试
+ */
+class MonteCarloEngineTest {
+
+    @Test
+    void winTableFollowsKillAndParity() {
+        byte[][] table = MonteCarloEngine.winTable(KillRuleSet.STANDARD);
+        int resultWins = 0;
+        int followWins = 0;
+        int againstWins = 0;
+        for (int index = 0; index < DrawCodeTable.SIZE * 2; index++) {
+            resultWins += table[BacktestBetMode.RESULT.ordinal()][index];
+            followWins += table[BacktestBetMode.FOLLOW.ordinal()][index];
+            againstWins += table[BacktestBetMode.AGAINST.ordinal()][index];
+        }
+        int safe = DrawCodeTable.SIZE - KillRuleSet.STANDARD.getKillCount();
+        assertEquals(2 * safe, resultWins);
+        // 每个号码对两种预测恰好一种命中
+        assertEquals(safe, followWins);
+        assertEquals(safe, againstWins);
+    }
+
+    @Test
+    void flatStakeMeanMatchesExpectation() {
+        MonteCarloReport report = MonteCarloEngine.run(KillRuleSet.STANDARD,
+                grid(List.of(BacktestStrategy.FLAT), 1000), 2000, 28L);
+        MonteCarloResult result = report.getResults().get(0);
+
+        // 每期赢的概率为 1 - 杀号码数/1000，平注的期望盈亏为 期数 × (2p - 1)
+        double p = 1 - KillRuleSet.STANDARD.getKillCount() / 1000.0;
+        double expected = 1000 * (2 * p - 1);
+        assertEquals(expected, result.getMeanProfit(), 5.0);
+        assertTrue(result.getMeanProfitLow() < result.getMeanProfit());
+        assertTrue(result.getMeanProfitHigh() > result.getMeanProfit());
+        assertEquals(2_000_000L, report.getDraws());
+        double[] percentiles = result.getProfitPercentiles();
+        for (int i = 1; i < percentiles.length; i++) {
+            assertTrue(percentiles[i - 1] <= percentiles[i]);
+        }
+    }
+
+    @Test
+    void sameSeedGivesSameResults() {
+        BacktestGrid grid = grid(List.of(BacktestStrategy.values()), 200);
+        MonteCarloReport first = MonteCarloEngine.run(KillRuleSet.STANDARD, grid, 500, 7L);
+        MonteCarloReport second = MonteCarloEngine.run(KillRuleSet.STANDARD, grid, 500, 7L);
+        for (int i = 0; i < first.getResults().size(); i++) {
+            assertArrayEquals(first.getResults().get(i).getProfitPercentiles(),
+                    second.getResults().get(i).getProfitPercentiles());
+            assertEquals(first.getResults().get(i).getRuinProbability(), second.getResults().get(i).getRuinProbability());
+        }
+    }
+
+    @Test
+    void wilsonIntervalContainsRate() {
+        double[] interval = MonteCarloEngine.wilson(0, 100);
+        assertEquals(0.0, interval[0]);
+        assertTrue(interval[1] > 0 && interval[1] < 0.05);
+
+        interval = MonteCarloEngine.wilson(50, 100);
+        assertTrue(interval[0] < 0.5 && interval[1] > 0.5);
+    }
+
+    @Test
+    void rejectsTooManyCells() {
+        assertThrows(IllegalArgumentException.class, () -> MonteCarloEngine.run(KillRuleSet.STANDARD,
+                grid(List.of(BacktestStrategy.FLAT), 10), MonteCarloEngine.MAX_CELLS + 1, 1L));
+    }
+
+    @Test
+    void rejectsTooLongSessions() {
+        assertThrows(IllegalArgumentException.class, () -> MonteCarloEngine.run(KillRuleSet.STANDARD,
+                grid(List.of(BacktestStrategy.FLAT), MonteCarloEngine.MAX_SESSION_LENGTH + 1), 1, 1L));
+    }
+
+    private static BacktestGrid grid(List<BacktestStrategy> strategies, int sessionLength) {
+        return BacktestGrid.builder()
+                .strategies(strategies)
+                .betModes(List.of(BacktestBetMode.RESULT))
+                .baseStakes(new double[]{1})
+                .limits(new int[]{4})
+                .bankrolls(new double[]{50})
+                .payout(1.0)
+                .sessionLength(sessionLength)
+                .build();
+    }
+}
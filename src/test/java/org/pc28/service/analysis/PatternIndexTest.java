@@ -0,0 +1,117 @@
+package org.pc28.service.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.pc28.model.PatternReport;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 模式索引测试
+ */
+class PatternIndexTest {
+
+    @Test
+    void matchesBruteForceScan() {
+        for (PatternAlphabet alphabet : new PatternAlphabet[]{PatternAlphabet.ODD_EVEN, PatternAlphabet.RESULT}) {
+            SplittableRandom random = new SplittableRandom(28);
+            PatternIndex index = new PatternIndex("sf3", alphabet, 6);
+            List<Integer> symbols = new ArrayList<>();
+            List<Integer> periods = new ArrayList<>();
+
+            for (int n = 0; n < 3000; n++) {
+                int period = 5000 + n * 2;
+                int symbol = random.nextInt(alphabet.size());
+                assertTrue(index.append(period, symbol));
+                symbols.add(symbol);
+                periods.add(period);
+                if (n % 97 != 0) {
+                    continue;
+                }
+
+                // 覆盖索引范围内外的各种长度
+                for (int length = 1; length <= 9; length++) {
+                    int[] pattern = new int[length];
+                    for (int i = 0; i < length; i++) {
+                        pattern[i] = random.nextInt(alphabet.size());
+                    }
+                    assertMatches(alphabet, symbols, periods, pattern, index.query(pattern, 5));
+                }
+            }
+        }
+    }
+
+    @Test
+    void countsOverlappingOccurrencesAndTrailingMatch() {
+        PatternIndex index = new PatternIndex("sf1", PatternAlphabet.ODD_EVEN, 4);
+        // 单单单双单单
+        int[] sequence = {0, 0, 0, 1, 0, 0};
+        for (int i = 0; i < sequence.length; i++) {
+            index.append(100 + i, sequence[i]);
+        }
+
+        PatternReport report = index.query(PatternAlphabet.ODD_EVEN.parse("单单"), 10);
+        assertEquals(3, report.getOccurrences());
+        // 最后一次出现在序列末尾，没有下一期
+        assertArrayEquals(new int[]{1, 1}, report.getNextCounts());
+        assertArrayEquals(new int[]{105, 102, 101}, report.getRecentPeriods());
+        assertEquals("单单", report.getPattern());
+        assertTrue(report.isIndexed());
+    }
+
+    @Test
+    void ignoresOldPeriods() {
+        PatternIndex index = new PatternIndex("sf1", PatternAlphabet.BIG_SMALL, 4);
+        assertTrue(index.append(10, 0));
+        assertFalse(index.append(10, 1));
+        assertFalse(index.append(9, 1));
+        assertEquals(1, index.size());
+        assertEquals(0, index.query(new int[]{1}, 10).getOccurrences());
+    }
+
+    @Test
+    void parsesPatternText() {
+        assertArrayEquals(new int[]{0, 1, 0, 0}, PatternAlphabet.ODD_EVEN.parse("单双单单"));
+        assertArrayEquals(new int[]{1, 0}, PatternAlphabet.BIG_SMALL.parse("小, 大"));
+        assertArrayEquals(new int[]{0, 3, 1}, PatternAlphabet.RESULT.parse("命中盈利,MISS_LOSS,1"));
+        assertArrayEquals(new int[]{1}, PatternAlphabet.RESULT.parse("命中被杀"));
+        assertThrows(IllegalArgumentException.class, () -> PatternAlphabet.ODD_EVEN.parse("单大"));
+        assertThrows(IllegalArgumentException.class, () -> PatternAlphabet.OUTCOME.parse(" "));
+    }
+
+    private static void assertMatches(PatternAlphabet alphabet, List<Integer> symbols, List<Integer> periods,
+                                      int[] pattern, PatternReport report) {
+        int occurrences = 0;
+        int[] next = new int[alphabet.size()];
+        List<Integer> recent = new ArrayList<>();
+        for (int end = symbols.size() - 1; end >= pattern.length - 1; end--) {
+            boolean match = true;
+            for (int i = 0; i < pattern.length && match; i++) {
+                match = symbols.get(end - pattern.length + 1 + i) == pattern[i];
+            }
+            if (!match) {
+                continue;
+            }
+            occurrences++;
+            if (end + 1 < symbols.size()) {
+                next[symbols.get(end + 1)]++;
+            }
+            if (recent.size() < 5) {
+                recent.add(periods.get(end));
+            }
+        }
+
+        assertEquals(occurrences, report.getOccurrences(), "模式长度 " + pattern.length);
+        assertArrayEquals(next, report.getNextCounts(), "模式长度 " + pattern.length);
+        assertArrayEquals(recent.stream().mapToInt(Integer::intValue).toArray(), report.getRecentPeriods());
+        assertEquals(pattern.length <= 6, report.isIndexed());
+        assertEquals(symbols.size(), report.getSequenceLength());
+    }
+}
@@ -0,0 +1,96 @@
+package org.pc28.service.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.pc28.utils.BettingResultAnalyzer.BettingResult;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * 连胜连败线段树测试
+ */
+class StreakIndexTest {
+
+    @Test
+    void rangeQueriesMatchLinearScan() {
+        SplittableRandom random = new SplittableRandom(28);
+        BettingResult[] values = BettingResult.values();
+        int count = 3000;
+        int[] periods = new int[count];
+        BettingResult[] results = new BettingResult[count];
+        StreakIndex index = new StreakIndex("sf1");
+
+        int period = 3_000_000;
+        for (int i = 0; i < count; i++) {
+            period += 1 + random.nextInt(3);
+            periods[i] = period;
+            // 偏向同一结果，制造较长的连续段
+            results[i] = i > 0 && random.nextInt(3) > 0 ? results[i - 1] : values[random.nextInt(values.length)];
+            index.append(periods[i], results[i]);
+        }
+
+        assertSame(scan(results, 0, count), index.total());
+        for (int n = 0; n < 500; n++) {
+            int from = random.nextInt(count);
+            int to = from + random.nextInt(count - from);
+            assertSame(scan(results, from, to + 1), index.query(periods[from], periods[to]));
+        }
+        assertEquals(0, index.query(periods[count - 1] + 1, Integer.MAX_VALUE).getGames());
+    }
+
+    @Test
+    void ignoresDuplicateAndOlderPeriods() {
+        StreakIndex index = new StreakIndex("sf1");
+        index.append(100, BettingResult.MISS_LOSS);
+        assertFalse(index.append(100, BettingResult.HIT_PROFIT));
+        assertFalse(index.append(99, BettingResult.HIT_PROFIT));
+        assertEquals(1, index.size());
+        assertEquals(1, index.total().currentRun(StreakSegment.RUN_MISS_LOSS));
+        assertEquals(1, index.total().getMaxDrawdown());
+    }
+
+    /**
+     * 逐期扫描得到的期望值
+     */
+    private record Expected(int games, int wins, int net, int maxDrawdown, int currentDrawdown,
+                            int[] currentRuns, int[] maxRuns) {
+    }
+
+    private static void assertSame(Expected expected, StreakSegment actual) {
+        assertEquals(expected.games(), actual.getGames());
+        assertEquals(expected.wins(), actual.getWins());
+        assertEquals(expected.net(), actual.getNet());
+        assertEquals(expected.maxDrawdown(), actual.getMaxDrawdown());
+        assertEquals(expected.currentDrawdown(), actual.currentDrawdown());
+        for (int kind = StreakSegment.RUN_WIN; kind <= StreakSegment.RUN_HIT_KILLED; kind++) {
+            assertEquals(expected.currentRuns()[kind], actual.currentRun(kind));
+            assertEquals(expected.maxRuns()[kind], actual.maxRun(kind));
+        }
+    }
+
+    private static Expected scan(BettingResult[] results, int from, int to) {
+        int wins = 0;
+        int net = 0;
+        int peak = 0;
+        int maxDrawdown = 0;
+        int[] current = new int[4];
+        int[] max = new int[4];
+        for (int i = from; i < to; i++) {
+            BettingResult result = results[i];
+            boolean losing = result == BettingResult.MISS_LOSS || result == BettingResult.HIT_KILLED;
+            wins += result.isWin() ? 1 : 0;
+            net += result.isWin() ? 1 : losing ? -1 : 0;
+            peak = Math.max(peak, net);
+            maxDrawdown = Math.max(maxDrawdown, peak - net);
+            boolean[] matches = {result.isWin(), losing,
+                    result == BettingResult.MISS_LOSS, result == BettingResult.HIT_KILLED};
+            for (int k = 0; k < 4; k++) {
+                current[k] = matches[k] ? current[k] + 1 : 0;
+                max[k] = Math.max(max[k], current[k]);
+            }
+        }
+        return new Expected(to - from, wins, net, maxDrawdown, peak - net, current, max);
+    }
+}
@@ -0,0 +1,100 @@
+package org.pc28.service.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.pc28.model.SumStatsSnapshot;
+import org.pc28.utils.DrawCodeTable;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 总和分布和遗漏计数器测试
+ */
+class SumStatsTrackerTest {
+
+    private static final int[] WINDOWS = {10, 50, 200};
+
+    @Test
+    void matchesFullRecalculation() {
+        SplittableRandom random = new SplittableRandom(28);
+        int count = 700;
+        int[] sums = new int[count];
+        SumStatsTracker tracker = new SumStatsTracker("sf1", WINDOWS);
+
+        for (int n = 0; n < count; n++) {
+            int code = random.nextInt(DrawCodeTable.SIZE);
+            sums[n] = DrawCodeTable.sum(code);
+            tracker.record(1000 + n, code);
+            if (n % 37 != 0 && n != count - 1) {
+                continue;
+            }
+
+            SumStatsSnapshot snapshot = tracker.snapshot();
+            for (int w = 0; w < WINDOWS.length; w++) {
+                int[] expected = new int[SumStatsTracker.SUM_COUNT];
+                int[] expectedCategories = new int[SumStatsTracker.CATEGORIES.length];
+                for (int i = Math.max(0, n + 1 - WINDOWS[w]); i <= n; i++) {
+                    expected[sums[i]]++;
+                    for (int c = 0; c < expectedCategories.length; c++) {
+                        expectedCategories[c] += inCategory(sums[i], SumStatsTracker.CATEGORIES[c]) ? 1 : 0;
+                    }
+                }
+                assertArrayEquals(expected, snapshot.getSumCounts()[w], "第" + n + "期");
+                assertArrayEquals(expectedCategories, snapshot.getCategoryCounts()[w], "第" + n + "期");
+            }
+
+            for (int s = 0; s < SumStatsTracker.SUM_COUNT; s++) {
+                int omission = 0;
+                for (int i = n; i >= 0 && sums[i] != s; i--) {
+                    omission++;
+                }
+                assertEquals(omission, snapshot.getSumOmissions()[s]);
+            }
+        }
+    }
+
+    @Test
+    void ignoresDuplicateAndOlderPeriods() {
+        SumStatsTracker tracker = new SumStatsTracker("sf1", WINDOWS);
+        assertTrue(tracker.record(100, DrawCodeTable.encode("1+2+3=6")));
+        assertFalse(tracker.record(100, DrawCodeTable.encode("9+9+9=27")));
+        assertFalse(tracker.record(99, DrawCodeTable.encode("9+9+9=27")));
+        assertEquals(1, tracker.snapshot().getRecorded());
+        assertEquals(1, tracker.snapshot().getSumCounts()[0][6]);
+    }
+
+    @Test
+    void chiSquarePValueMatchesTables() {
+        // 自由度27的卡方分布：中位数约26.34，0.05分位点约40.11
+        assertEquals(0.5, SumStatsTracker.chiSquarePValue(26.336, 27), 1e-3);
+        assertEquals(0.05, SumStatsTracker.chiSquarePValue(40.113, 27), 1e-3);
+        assertEquals(0.01, SumStatsTracker.chiSquarePValue(46.963, 27), 1e-3);
+        assertEquals(1.0, SumStatsTracker.chiSquarePValue(0, 27));
+
+        // 完全按期望比例出现时统计量为0
+        int[] counts = new int[SumStatsTracker.SUM_COUNT];
+        for (int code = 0; code < DrawCodeTable.SIZE; code++) {
+            counts[DrawCodeTable.sum(code)]++;
+        }
+        assertEquals(0.0, SumStatsTracker.chiSquare(counts, DrawCodeTable.SIZE), 1e-9);
+    }
+
+    private static boolean inCategory(int sum, String category) {
+        boolean big = sum >= DrawCodeTable.BIG_MIN_SUM;
+        boolean odd = sum % 2 == 1;
+        return switch (category) {
+            case "大" -> big;
+            case "小" -> !big;
+            case "单" -> odd;
+            case "双" -> !odd;
+            case "大单" -> big && odd;
+            case "大双" -> big && !odd;
+            case "小单" -> !big && odd;
+            default -> !big && !odd;
+        };
+    }
+}
@@ -0,0 +1,74 @@
+package org.pc28.service.analysis;
+
+import org.junit.jupiter.api.Test;
+import org.pc28.model.WinRateSnapshot;
+import org.pc28.utils.BettingResultAnalyzer;
+import org.pc28.utils.BettingResultAnalyzer.BettingResult;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * 滑动窗口胜率计数器测试
+ */
+class WinRateTrackerTest {
+
+    private static final int[] WINDOWS = {10, 20, 30, 50, 100};
+
+    @Test
+    void matchesFullRecalculation() {
+        SplittableRandom random = new SplittableRandom(28);
+        BettingResult[] values = BettingResult.values();
+        BettingResult[] history = new BettingResult[350];
+        WinRateTracker tracker = new WinRateTracker("sf1", "standard", WINDOWS);
+
+        for (int n = 0; n < history.length; n++) {
+            history[n] = values[random.nextInt(values.length)];
+            tracker.record(1000 + n, history[n]);
+
+            // calculateWinRate 按从新到旧的数组计算
+            BettingResult[] newestFirst = new BettingResult[n + 1];
+            for (int i = 0; i <= n; i++) {
+                newestFirst[i] = history[n - i];
+            }
+            double[] expected = BettingResultAnalyzer.calculateWinRatesForRanges(newestFirst, WINDOWS);
+            assertArrayEquals(expected, tracker.snapshot().getWinRates(), 1e-12, "第" + n + "期");
+        }
+    }
+
+    @Test
+    void ignoresDuplicateAndOlderPeriods() {
+        WinRateTracker tracker = new WinRateTracker("sf1", "standard", WINDOWS);
+        tracker.record(100, BettingResult.HIT_PROFIT);
+        assertFalse(tracker.record(100, BettingResult.MISS_LOSS));
+        assertFalse(tracker.record(99, BettingResult.MISS_LOSS));
+
+        WinRateSnapshot snapshot = tracker.snapshot();
+        assertEquals(1, snapshot.getRecorded());
+        assertEquals(100, snapshot.getLastPeriod());
+        assertEquals(1.0, snapshot.getWinRates()[0]);
+    }
+
+    @Test
+    void reusesSnapshotUntilNextRecord() {
+        WinRateTracker tracker = new WinRateTracker("sf1", "standard", WINDOWS);
+        tracker.record(100, BettingResult.HIT_PROFIT);
+
+        WinRateSnapshot first = tracker.snapshot();
+        assertSame(first, tracker.snapshot());
+        // 被忽略的旧期号不会使快照失效
+        tracker.record(99, BettingResult.MISS_LOSS);
+        assertSame(first, tracker.snapshot());
+
+        tracker.record(101, BettingResult.MISS_LOSS);
+        WinRateSnapshot second = tracker.snapshot();
+        assertNotSame(first, second);
+        assertEquals(2, second.getRecorded());
+        assertEquals(1, first.getRecorded());
+    }
+}
@@ -0,0 +1,61 @@
+package org.pc28.service.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pc28.model.DrawSeries;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 开奖历史读取器测试
+ * 在H2的MySQL兼容模式下流式读取，确认非MySQL数据库也能完整读出全部记录
+ */
+class DrawHistoryReaderTest {
+
+    private SingleConnectionDataSource dataSource;
+
+    private DrawHistoryReader reader;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:pc28reader;MODE=MySQL;DATABASE_TO_LOWER=TRUE", true);
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        reader = new DrawHistoryReader(jdbcTemplate);
+        ReflectionTestUtils.setField(reader, "storageMode", HistoryStorageMode.LEGACY);
+
+        jdbcTemplate.execute("CREATE TABLE sf1_history (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "period INT NOT NULL UNIQUE, numbers VARCHAR(255) NOT NULL, prediction VARCHAR(255), "
+                + "outcome VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO sf1_history (period, numbers, prediction, outcome) VALUES "
+                + "(102, '---', '单', ''), (100, '1+2+3=6', '双', '中'), (101, '4+5+6=15', '单', '错')");
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void streamsAllRowsInPeriodOrder() {
+        List<Integer> periods = new ArrayList<>();
+        List<Integer> codes = new ArrayList<>();
+
+        int count = reader.streamAll("sf1", (period, code, prediction, outcome) -> {
+            periods.add(period);
+            codes.add(code);
+        });
+
+        assertEquals(3, count);
+        assertEquals(List.of(100, 101, 102), periods);
+        assertEquals(123, codes.get(0));
+        assertEquals((int) DrawSeries.NO_CODE, codes.get(2));
+    }
+}
@@ -0,0 +1,112 @@
+package org.pc28.service.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 旧表迁移到统一表的SQL测试
+ * 在H2的MySQL兼容模式下按实体的表结构建表，执行真实的 INSERT ... SELECT ... ON DUPLICATE KEY UPDATE
+ */
+class HistoryBatchWriterMigrationTest {
+
+    private SingleConnectionDataSource dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private HistoryBatchWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new SingleConnectionDataSource(
+                "jdbc:h2:mem:pc28migrate;MODE=MySQL;DATABASE_TO_LOWER=TRUE", true);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        writer = new HistoryBatchWriter(jdbcTemplate);
+
+        jdbcTemplate.execute("CREATE TABLE sf1_history (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "period INT NOT NULL UNIQUE, numbers VARCHAR(255) NOT NULL, prediction VARCHAR(255), "
+                + "outcome VARCHAR(255), total_number INT, kill_number VARCHAR(255), betting_result VARCHAR(255), "
+                + "open_result VARCHAR(255), created_at TIMESTAMP, updated_at TIMESTAMP)");
+        jdbcTemplate.execute("CREATE TABLE draw_history (server VARCHAR(16) NOT NULL, period INT NOT NULL, "
+                + "numbers VARCHAR(255) NOT NULL, prediction VARCHAR(255), outcome VARCHAR(255), total_number INT, "
+                + "kill_number VARCHAR(255), betting_result VARCHAR(255), open_result VARCHAR(255), "
+                + "created_at TIMESTAMP, updated_at TIMESTAMP, PRIMARY KEY (server, period))");
+
+        insertLegacy(100, "1+2+3=6", "单");
+        insertLegacy(101, "4+5+6=15", "双");
+        insertLegacy(102, "7+8+9=24", "单");
+        insertLegacy(103, "0+0+1=1", "单");
+
+        insertUnified("sf1", 101, "---", null);
+        insertUnified("sf1", 102, "0+0+0=0", "双");
+        insertUnified("sf3", 101, "---", null);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.destroy();
+    }
+
+    @Test
+    void copiesNewRowsAndUpgradesPlaceholders() {
+        writer.copyLegacyRange("sf1", 100, 102);
+
+        Map<Integer, Map<String, Object>> rows = unifiedRows("sf1");
+        assertEquals(List.of(100, 101, 102), List.copyOf(rows.keySet()));
+        // 新期号直接插入
+        assertEquals("1+2+3=6", rows.get(100).get("numbers"));
+        assertEquals("单", rows.get(100).get("prediction"));
+        // 占位记录被旧表的真实号码覆盖
+        assertEquals("4+5+6=15", rows.get(101).get("numbers"));
+        assertEquals("双", rows.get(101).get("prediction"));
+        assertEquals(15, rows.get(101).get("total_number"));
+        // 已有真实号码的记录保持不变
+        assertEquals("0+0+0=0", rows.get(102).get("numbers"));
+        assertEquals("双", rows.get(102).get("prediction"));
+        // 其他服务器的同期号记录不受影响
+        assertEquals("---", unifiedRows("sf3").get(101).get("numbers"));
+    }
+
+    @Test
+    void repeatedCopyKeepsUpgradedRows() {
+        writer.copyLegacyRange("sf1", 100, 103);
+        jdbcTemplate.update("UPDATE sf1_history SET numbers = '---', prediction = NULL WHERE period = 101");
+
+        writer.copyLegacyRange("sf1", 100, 103);
+
+        Map<Integer, Map<String, Object>> rows = unifiedRows("sf1");
+        assertEquals(4, rows.size());
+        assertEquals("4+5+6=15", rows.get(101).get("numbers"));
+        assertEquals("双", rows.get(101).get("prediction"));
+        assertTrue(rows.containsKey(103));
+    }
+
+    private void insertLegacy(int period, String numbers, String prediction) {
+        jdbcTemplate.update("INSERT INTO sf1_history (period, numbers, prediction, outcome, total_number, "
+                        + "kill_number, created_at, updated_at) VALUES (?, ?, ?, ?, ?, '', NOW(), NOW())",
+                period, numbers, prediction, prediction, Integer.parseInt(numbers.substring(numbers.indexOf('=') + 1)));
+    }
+
+    private void insertUnified(String server, int period, String numbers, String prediction) {
+        jdbcTemplate.update("INSERT INTO draw_history (server, period, numbers, prediction, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, NOW(), NOW())", server, period, numbers, prediction);
+    }
+
+    private Map<Integer, Map<String, Object>> unifiedRows(String server) {
+        Map<Integer, Map<String, Object>> rows = new TreeMap<>();
+        for (Map<String, Object> row : jdbcTemplate.queryForList(
+                "SELECT * FROM draw_history WHERE server = ? ORDER BY period", server)) {
+            rows.put(((Number) row.get("period")).intValue(), row);
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,86 @@
+package org.pc28.service.db;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.pc28.model.DrawSeries;
+import org.pc28.model.ParsedServerPage;
+import org.pc28.repository.Sf1HistoryRepository;
+import org.pc28.repository.Sf3HistoryRepository;
+import org.pc28.repository.Sf4HistoryRepository;
+import org.pc28.repository.Sf5HistoryRepository;
+import org.pc28.repository.Sf6HistoryRepository;
+import org.pc28.repository.Sf7HistoryRepository;
+import org.pc28.service.db.HistoryBatchWriter.HistoryRow;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 双写模式下批量保存的测试：两张表分别写入，结果合并
+ */
+class HistoryDataServiceDualWriteTest {
+
+    private final HistoryBatchWriter batchWriter = mock(HistoryBatchWriter.class);
+
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+
+    private final PeriodPresenceIndex presenceIndex = new PeriodPresenceIndex();
+
+    private HistoryDataServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new HistoryDataServiceImpl(mock(Sf1HistoryRepository.class), mock(Sf3HistoryRepository.class),
+                mock(Sf4HistoryRepository.class), mock(Sf5HistoryRepository.class), mock(Sf6HistoryRepository.class),
+                mock(Sf7HistoryRepository.class), batchWriter, presenceIndex, eventPublisher);
+        ReflectionTestUtils.setField(service, "batchEnabled", true);
+        ReflectionTestUtils.setField(service, "storageMode", HistoryStorageMode.DUAL);
+        ReflectionTestUtils.setField(service, "presenceIndexEnabled", true);
+        when(batchWriter.upsert(anyString(), anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(1).size());
+        when(batchWriter.upsertUnified(anyString(), anyList())).thenAnswer(invocation -> invocation.<List<?>>getArgument(1).size());
+    }
+
+    @Test
+    void sumsAndMergesBothTables() {
+        // 旧表缺101期，统一表缺100期，102期在统一表中仍是占位
+        when(batchWriter.loadExistingNumbers(eq("sf1_history"), anyInt(), anyInt()))
+                .thenReturn(Map.of(100, "1+2+3=6", 102, "7+8+9=24"));
+        when(batchWriter.loadExistingNumbersUnified(eq("sf1"), anyInt(), anyInt()))
+                .thenReturn(Map.of(101, "4+5+6=15", 102, "---"));
+
+        int saved = service.savePreparedPage(new PreparedServerPage(new ParsedServerPage("sf1"), List.of(
+                row(102, "---"), row(101, "4+5+6=15"), row(100, "1+2+3=6"))));
+
+        assertEquals(2, saved);
+        ArgumentCaptor<DrawPersistedEvent> event = ArgumentCaptor.forClass(DrawPersistedEvent.class);
+        verify(eventPublisher).publishEvent(event.capture());
+        DrawSeries draws = event.getValue().draws();
+        assertEquals(2, draws.getSize());
+        assertEquals(100, draws.periodAt(0));
+        assertEquals(101, draws.periodAt(1));
+
+        // 两张表都已是真实号码的期号才记为最终，统一表仍是占位的期号不能跳过
+        assertTrue(presenceIndex.isFinal("sf1", 100));
+        assertTrue(presenceIndex.isFinal("sf1", 101));
+        assertFalse(presenceIndex.isFinal("sf1", 102));
+        assertFalse(presenceIndex.canSkip("sf1", 102, false));
+    }
+
+    private static HistoryRow row(int period, String numbers) {
+        return new HistoryRow(period, numbers, "单", "中", null, "", null, null);
+    }
+}
@@ -0,0 +1,105 @@
+package org.pc28.service.db;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 历史数据保存基准测试：对比逐行保存与批量写入的吞吐量（行/秒）
+ * 需要本地MySQL（使用application.properties中的数据源），默认跳过：
+ * mvn test -Dtest=HistorySaveBenchmarkTest -Dpc28.benchmark=true
+ * 测试在事务中执行并在结束后回滚，不会留下数据
+ */
+@SpringBootTest
+@Transactional
+@EnabledIfSystemProperty(named = "pc28.benchmark", matches = "true")
+@TestPropertySource(properties = {
+    "spring.autoconfigure.exclude=org.springframework.ai.model.openai.autoconfigure.OpenAiAudioTranscriptionAutoConfiguration," +
+    "org.springframework.ai.model.openai.autoconfigure.OpenAiAudioSpeechAutoConfiguration," +
+    "org.springframework.ai.model.openai.autoconfigure.OpenAiChatAutoConfiguration," +
+    "org.springframework.ai.model.openai.autoconfigure.OpenAiEmbeddingAutoConfiguration," +
+    "org.springframework.ai.model.openai.autoconfigure.OpenAiImageAutoConfiguration," +
+    "org.springframework.ai.model.openai.autoconfigure.OpenAiModerationAutoConfiguration",
+    "spring.ai.openai.enabled=false",
+    "pc28.collection.enabled=false",
+    "spring.shell.interactive.enabled=false"
+})
+class HistorySaveBenchmarkTest {
+
+    private static final String SERVER = "sf1";
+    
+    private static final int ROWS_PER_PAGE = 220;
+    
+    private static final int PAGES = 20;
+    
+    /**
+     * 使用远离真实期号的区间，避免与已有数据冲突
+     */
+    private static final int LEGACY_BASE_PERIOD = 900_000_000;
+    
+    private static final int BATCH_BASE_PERIOD = 910_000_000;
+
+    @Autowired
+    private HistoryDataServiceImpl historyDataService;
+
+    @Test
+    void compareLegacyAndBatchSave() {
+        ReflectionTestUtils.setField(historyDataService, "batchEnabled", false);
+        double legacyInsert = measurePages(LEGACY_BASE_PERIOD);
+        double legacySteady = measurePages(LEGACY_BASE_PERIOD);
+        
+        ReflectionTestUtils.setField(historyDataService, "batchEnabled", true);
+        double batchInsert = measurePages(BATCH_BASE_PERIOD);
+        double batchSteady = measurePages(BATCH_BASE_PERIOD);
+        
+        System.out.println("===== 历史数据保存基准（" + PAGES + " 页 × " + ROWS_PER_PAGE + " 行） =====");
+        System.out.println(String.format("%-10s %15s %15s", "模式", "新数据 行/秒", "已存在 行/秒"));
+        System.out.println(String.format("%-10s %15.0f %15.0f", "逐行", legacyInsert, legacySteady));
+        System.out.println(String.format("%-10s %15.0f %15.0f", "批量", batchInsert, batchSteady));
+    }
+    
+    /**
+     * 保存从basePeriod开始的所有页，返回行/秒
+     * 第一次调用时全部是新期号，第二次调用同一区间时全部已存在（对应大多数轮询周期）
+     */
+    private double measurePages(int basePeriod) {
+        long start = System.nanoTime();
+        for (int page = 0; page < PAGES; page++) {
+            historyDataService.saveServerData(SERVER, buildPage(basePeriod + page * ROWS_PER_PAGE));
+        }
+        return rowsPerSecond(start);
+    }
+    
+    private static double rowsPerSecond(long startNanos) {
+        double seconds = (System.nanoTime() - startNanos) / 1_000_000_000.0;
+        return PAGES * ROWS_PER_PAGE / seconds;
+    }
+    
+    /**
+     * 构造与SimpleHtmlParser输出格式一致的一页数据（期号从高到低）
+     */
+    private static Map<String, Object> buildPage(int lowestPeriod) {
+        Map<String, Object> data = new HashMap<>();
+        for (int i = 0; i < ROWS_PER_PAGE; i++) {
+            int a = i % 10;
+            int b = (i / 10) % 10;
+            int c = (i * 7) % 10;
+            int sum = a + b + c;
+            data.put("history_" + i + "_period", lowestPeriod + ROWS_PER_PAGE - 1 - i);
+            data.put("history_" + i + "_numbers", a + "+" + b + "+" + c + "=" + sum);
+            data.put("history_" + i + "_prediction", i % 2 == 0 ? "单" : "双");
+            data.put("history_" + i + "_outcome", (sum % 2 == 1) == (i % 2 == 0) ? "中" : "错");
+            data.put("history_" + i + "_total_number", sum);
+        }
+        data.put("history_count", ROWS_PER_PAGE);
+        data.put("server", SERVER);
+        return data;
+    }
+}
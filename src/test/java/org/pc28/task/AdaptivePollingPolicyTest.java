@@ -0,0 +1,49 @@
+package org.pc28.task;
+
+import org.junit.jupiter.api.Test;
+import org.pc28.constants.WebConstants;
+
+import java.time.Instant;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 开奖前后自适应轮询策略测试
+ */
+class AdaptivePollingPolicyTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    private final AdaptivePollingPolicy policy = new AdaptivePollingPolicy(2000, 500, 100, 30_000, 60_000);
+
+    @Test
+    void pollsSparselyUntilBurstStarts() {
+        SplittableRandom random = new SplittableRandom(28);
+        assertEquals(60_000, policy.nextDelayMillis(NOW.plusSeconds(200), NOW, random));
+        // 醒来时正好进入密集轮询阶段
+        assertEquals(8_000, policy.nextDelayMillis(NOW.plusSeconds(10), NOW, random));
+        assertFalse(policy.isBursting(NOW.plusSeconds(10), NOW));
+    }
+
+    @Test
+    void burstsWithJitterAroundExpectedDraw() {
+        SplittableRandom random = new SplittableRandom(28);
+        for (int offset = -30; offset <= 2; offset++) {
+            Instant expected = NOW.plusSeconds(offset);
+            assertTrue(policy.isBursting(expected, NOW));
+            long delay = policy.nextDelayMillis(expected, NOW, random);
+            assertTrue(delay >= 400 && delay <= 600, "延迟 " + delay);
+        }
+    }
+
+    @Test
+    void fallsBackAfterBurstWindowOrWithoutCountdown() {
+        SplittableRandom random = new SplittableRandom(28);
+        assertEquals(WebConstants.TASK_DEFAULT_INTERVAL * 1000L, policy.nextDelayMillis(NOW.minusSeconds(31), NOW, random));
+        assertEquals(WebConstants.TASK_DEFAULT_INTERVAL * 1000L, policy.nextDelayMillis(null, NOW, random));
+        assertFalse(policy.isBursting(NOW.minusSeconds(31), NOW));
+    }
+}
@@ -0,0 +1,44 @@
+package org.pc28.task;
+
+import org.junit.jupiter.api.Test;
+import org.pc28.constants.WebConstants;
+
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 按服务器独立调度的采集流水线测试
+ */
+class ServerCollectionPipelinesTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    void usesOwnCountdownWhenPresent() {
+        assertEquals(95 + WebConstants.TASK_BUFFER_SECONDS,
+                ServerCollectionPipelines.nextDelaySeconds(95, NOW.plusSeconds(10), NOW));
+        assertEquals(WebConstants.TASK_BUFFER_SECONDS,
+                ServerCollectionPipelines.nextDelaySeconds(0, null, NOW));
+    }
+
+    @Test
+    void waitsForExpectedDrawWhenPageUnchanged() {
+        assertEquals(40 + WebConstants.TASK_BUFFER_SECONDS,
+                ServerCollectionPipelines.nextDelaySeconds(-1, NOW.plusSeconds(40), NOW));
+        // 预计开奖时刻已过，按默认间隔轮询
+        assertEquals(WebConstants.TASK_DEFAULT_INTERVAL,
+                ServerCollectionPipelines.nextDelaySeconds(-1, NOW.minusSeconds(1), NOW));
+        assertEquals(WebConstants.TASK_DEFAULT_INTERVAL,
+                ServerCollectionPipelines.nextDelaySeconds(-1, null, NOW));
+    }
+
+    @Test
+    void backsOffExponentiallyUpToLimit() {
+        assertEquals(5, ServerCollectionPipelines.backoffSeconds(1, 5, 120));
+        assertEquals(10, ServerCollectionPipelines.backoffSeconds(2, 5, 120));
+        assertEquals(80, ServerCollectionPipelines.backoffSeconds(5, 5, 120));
+        assertEquals(120, ServerCollectionPipelines.backoffSeconds(6, 5, 120));
+        assertEquals(120, ServerCollectionPipelines.backoffSeconds(1000, 5, 120));
+    }
+}
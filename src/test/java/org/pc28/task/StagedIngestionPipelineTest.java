@@ -0,0 +1,218 @@
+package org.pc28.task;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.pc28.constants.WebConstants;
+import org.pc28.model.IngestionStageStats;
+import org.pc28.model.WebDownloadResult;
+import org.pc28.service.WebDownloadService;
+import org.pc28.service.db.HistoryDataService;
+import org.pc28.service.db.PreparedServerPage;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 分阶段采集流水线测试
+ */
+class StagedIngestionPipelineTest {
+
+    private static final int SOURCES = WebConstants.TARGET_URLS.length;
+
+    private final WebDownloadService downloads = mock(WebDownloadService.class);
+
+    private final HistoryDataService history = mock(HistoryDataService.class);
+
+    private final AtomicInteger downloadCount = new AtomicInteger();
+
+    private StagedIngestionPipeline pipeline;
+
+    @BeforeEach
+    void setUp() {
+        pipeline = new StagedIngestionPipeline(downloads, history, new SimpleMeterRegistry());
+        for (String stage : List.of("fetch", "parse", "analyze", "persist")) {
+            ReflectionTestUtils.setField(pipeline, stage + "Workers", 1);
+            ReflectionTestUtils.setField(pipeline, stage + "QueueCapacity", 1);
+        }
+        ReflectionTestUtils.setField(pipeline, "streamingParse", true);
+        when(downloads.downloadSource(anyInt(), anyBoolean())).thenAnswer(invocation -> {
+            downloadCount.incrementAndGet();
+            int urlIndex = invocation.getArgument(0);
+            return WebDownloadResult.success("<html><body></body></html>", null, 10).toBuilder()
+                    .serverPrefix(WebConstants.getServerPrefix(urlIndex))
+                    .startedAtMillis(1_000)
+                    .build();
+        });
+        when(history.prepareServerPage(any())).thenAnswer(invocation ->
+                new PreparedServerPage(invocation.getArgument(0), List.of()));
+    }
+
+    @AfterEach
+    void tearDown() {
+        pipeline.stop();
+    }
+
+    @Test
+    void passesSourceThroughAllStages() throws Exception {
+        when(history.savePreparedPage(any())).thenReturn(3);
+
+        SourceCollection collection = pipeline.ingest(0, true, server -> -1);
+
+        assertEquals(WebConstants.getServerPrefix(0), collection.page().getServer());
+        assertEquals(3, collection.saved());
+        assertEquals(1_005, collection.sampledAtMillis());
+        for (IngestionStageStats stats : pipeline.getStageStats()) {
+            assertEquals(1, stats.getProcessed(), stats.getStage());
+        }
+    }
+
+    @Test
+    void skipsPersistForUnchangedPages() throws Exception {
+        when(downloads.downloadSource(anyInt(), anyBoolean())).thenReturn(WebDownloadResult.builder()
+                .success(true)
+                .unchanged(true)
+                .serverPrefix(WebConstants.getServerPrefix(1))
+                .build());
+
+        SourceCollection collection = pipeline.ingest(1, true, server -> -1);
+
+        assertTrue(collection.page().isUnchanged());
+        assertEquals(0, collection.saved());
+        verify(history, never()).prepareServerPage(any());
+        verify(history, never()).savePreparedPage(any());
+    }
+
+    @Test
+    void throttlesFetchingWhenPersistBlocks() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(history.savePreparedPage(any())).thenAnswer(invocation -> {
+            release.await();
+            return 1;
+        });
+
+        int submitted = 3 * SOURCES;
+        ExecutorService callers = Executors.newFixedThreadPool(submitted);
+        try {
+            List<Future<SourceCollection>> futures = new ArrayList<>();
+            for (int i = 0; i < submitted; i++) {
+                final int urlIndex = i % SOURCES;
+                futures.add(callers.submit(() -> pipeline.ingest(urlIndex, true, server -> -1)));
+            }
+
+            awaitBusy(StagedIngestionPipeline.Stage.PERSIST);
+            Thread.sleep(300);
+            // 入库阻塞时，在途的数据源不超过各阶段工作线程数与队列容量之和（不含下载队列）
+            assertTrue(downloadCount.get() <= 7, "下载次数: " + downloadCount.get());
+
+            release.countDown();
+            for (Future<SourceCollection> future : futures) {
+                assertEquals(1, future.get(10, TimeUnit.SECONDS).saved());
+            }
+            assertEquals(submitted, downloadCount.get());
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    void cancelsSourceWhenCallerIsInterrupted() throws Exception {
+        CountDownLatch workerInterrupted = new CountDownLatch(1);
+        when(history.savePreparedPage(any())).thenAnswer(invocation -> {
+            try {
+                new CountDownLatch(1).await();
+            } catch (InterruptedException e) {
+                workerInterrupted.countDown();
+                throw e;
+            }
+            return 1;
+        });
+
+        CountDownLatch callerInterrupted = new CountDownLatch(1);
+        Thread caller = new Thread(() -> {
+            try {
+                pipeline.ingest(2, true, server -> -1);
+            } catch (InterruptedException e) {
+                callerInterrupted.countDown();
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        caller.start();
+
+        awaitBusy(StagedIngestionPipeline.Stage.PERSIST);
+        caller.interrupt();
+        assertTrue(callerInterrupted.await(5, TimeUnit.SECONDS));
+        assertTrue(workerInterrupted.await(5, TimeUnit.SECONDS));
+
+        // 被中断的工作线程继续处理后续数据源
+        doReturn(2).when(history).savePreparedPage(any());
+        assertEquals(2, pipeline.ingest(3, true, server -> -1).saved());
+    }
+
+    @Test
+    void failsQueuedSourcesWhenStopped() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        when(history.savePreparedPage(any())).thenAnswer(invocation -> {
+            release.await();
+            return 1;
+        });
+
+        int submitted = 2 * SOURCES;
+        ExecutorService callers = Executors.newFixedThreadPool(submitted);
+        try {
+            List<Future<SourceCollection>> futures = new ArrayList<>();
+            for (int i = 0; i < submitted; i++) {
+                final int urlIndex = i % SOURCES;
+                futures.add(callers.submit(() -> pipeline.ingest(urlIndex, true, server -> -1)));
+            }
+            awaitBusy(StagedIngestionPipeline.Stage.PERSIST);
+            Thread.sleep(200);
+
+            pipeline.stop();
+
+            // 正在入库的被中断，排队中和之后提交的都以失败结束，没有等待方一直阻塞
+            for (Future<SourceCollection> future : futures) {
+                assertThrows(ExecutionException.class, () -> future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            release.countDown();
+            callers.shutdownNow();
+        }
+    }
+
+    private void awaitBusy(StagedIngestionPipeline.Stage stage) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (System.currentTimeMillis() < deadline) {
+            for (IngestionStageStats stats : pipeline.getStageStats()) {
+                if (stats.getStage().equals(stage.name()) && stats.getBusyWorkers() > 0) {
+                    return;
+                }
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError(stage + " 阶段没有开始处理");
+    }
+}
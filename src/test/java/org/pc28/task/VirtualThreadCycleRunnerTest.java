@@ -0,0 +1,68 @@
+package org.pc28.task;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 采集周期执行器和截止时间测试
+ */
+class VirtualThreadCycleRunnerTest {
+
+    private static final Instant NOW = Instant.parse("2025-01-01T00:00:00Z");
+
+    @Test
+    void cancelsSlowTasksAndKeepsFinishedResults() throws InterruptedException {
+        CountDownLatch interrupted = new CountDownLatch(1);
+        List<Callable<String>> tasks = List.of(
+                () -> "fast",
+                () -> {
+                    throw new IllegalStateException("broken");
+                },
+                () -> {
+                    try {
+                        Thread.sleep(10_000);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                        throw e;
+                    }
+                    return "slow";
+                });
+
+        long start = System.currentTimeMillis();
+        List<CycleSubtaskResult<String>> results = new VirtualThreadCycleRunner()
+                .runAll(tasks, Instant.now().plusMillis(200));
+
+        assertTrue(System.currentTimeMillis() - start < 5_000);
+        assertEquals(CycleSubtaskResult.State.SUCCESS, results.get(0).state());
+        assertEquals("fast", results.get(0).value());
+        assertEquals(CycleSubtaskResult.State.FAILED, results.get(1).state());
+        assertEquals("broken", results.get(1).error().getMessage());
+        assertEquals(CycleSubtaskResult.State.CANCELLED, results.get(2).state());
+        assertNull(results.get(2).value());
+        assertTrue(interrupted.await(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void deadlineEndsBeforeNextDraw() {
+        assertEquals(NOW.plusSeconds(195),
+                DataCollectionTask.cycleDeadline(NOW, NOW.plusSeconds(200), 5_000, 5_000, 300_000));
+        // 下一次开奖较远时不超过最长预算
+        assertEquals(NOW.plusSeconds(60),
+                DataCollectionTask.cycleDeadline(NOW, NOW.plusSeconds(200), 5_000, 5_000, 60_000));
+        // 开奖时钟还没有观测
+        assertEquals(NOW.plusSeconds(60),
+                DataCollectionTask.cycleDeadline(NOW, null, 5_000, 5_000, 60_000));
+        // 至少保留最短预算
+        assertEquals(NOW.plusSeconds(5),
+                DataCollectionTask.cycleDeadline(NOW, NOW.plusSeconds(3), 5_000, 5_000, 60_000));
+    }
+}
@@ -0,0 +1,44 @@
+package org.pc28.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 数据源内容变化跟踪器测试
+ */
+class ContentChangeTrackerTest {
+
+    private final ContentChangeTracker tracker = new ContentChangeTracker();
+
+    @Test
+    void keepsChangedContentPendingUntilConfirmed() {
+        assertTrue(tracker.recordContent("sf1", "page-1", "etag-1", null));
+        // 入库前不使用新的ETag，也不把相同内容当作未变化
+        assertNull(tracker.getEtag("sf1"));
+        assertTrue(tracker.recordContent("sf1", "page-1", "etag-1", null));
+
+        tracker.confirm("sf1");
+
+        assertEquals("etag-1", tracker.getEtag("sf1"));
+        assertFalse(tracker.recordContent("sf1", "page-1", "etag-1", null));
+    }
+
+    @Test
+    void failedSaveDoesNotHideNextDownload() {
+        assertTrue(tracker.recordContent("sf1", "page-1", "etag-1", null));
+        tracker.confirm("sf1");
+
+        // 第二页入库失败（未确认），再次下载到相同内容仍需重新入库
+        assertTrue(tracker.recordContent("sf1", "page-2", "etag-2", null));
+        assertEquals("etag-1", tracker.getEtag("sf1"));
+        assertTrue(tracker.recordContent("sf1", "page-2", "etag-2", null));
+
+        tracker.invalidate("sf1");
+        tracker.confirm("sf1");
+        assertTrue(tracker.recordContent("sf1", "page-1", "etag-1", null));
+    }
+}
@@ -0,0 +1,61 @@
+package org.pc28.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 号码查找表与原有正则实现的一致性测试
+ */
+class DrawCodeTableTest {
+
+    @Test
+    void lookupMatchesRegexForAllCodes() {
+        for (int code = 0; code < DrawCodeTable.SIZE; code++) {
+            String numbers = DrawCodeTable.text(code);
+            assertEquals(code, DrawCodeTable.encode(numbers), numbers);
+
+            // 前面加空格使查表失败，走原有的正则路径作为对照
+            String irregular = " " + numbers;
+            assertEquals(DrawCodeTable.INVALID, DrawCodeTable.encode(irregular));
+            assertEquals(NumberAnalysisUtil.checkIfKill(irregular), NumberAnalysisUtil.checkIfKill(numbers), numbers);
+            assertEquals(NumberAnalysisUtil.extractTotalNumber(irregular), NumberAnalysisUtil.extractTotalNumber(numbers), numbers);
+            assertEquals(NumberAnalysisUtil.determineOddEven(NumberAnalysisUtil.extractTotalNumber(irregular)),
+                    DrawCodeTable.oddEven(code), numbers);
+        }
+    }
+
+    @Test
+    void classifiesShapes() {
+        int leopard = DrawCodeTable.encode("7+7+7=21");
+        assertTrue(DrawCodeTable.isLeopard(leopard));
+        assertFalse(DrawCodeTable.isPair(leopard));
+        assertTrue(DrawCodeTable.isBig(leopard));
+
+        int pair = DrawCodeTable.encode("1+1+8=10");
+        assertTrue(DrawCodeTable.isPair(pair));
+        assertTrue(DrawCodeTable.isKill(pair));
+        assertFalse(DrawCodeTable.isBig(pair));
+
+        int straight = DrawCodeTable.encode("5+3+4=12");
+        assertTrue(DrawCodeTable.isStraight(straight));
+        assertTrue(DrawCodeTable.isKill(straight));
+
+        int plain = DrawCodeTable.encode("0+2+9=11");
+        assertFalse(DrawCodeTable.isKill(plain));
+        assertTrue(DrawCodeTable.isOdd(plain));
+        assertEquals("11", DrawCodeTable.sumText(plain));
+    }
+
+    @Test
+    void rejectsIrregularText() {
+        for (String numbers : new String[]{null, "", "---", "-", "1+2+3=7", "1+2+3=06", "12+1+1=14", "1+2+3=6 "}) {
+            assertEquals(DrawCodeTable.INVALID, DrawCodeTable.encode(numbers), String.valueOf(numbers));
+        }
+        assertEquals("", NumberAnalysisUtil.checkIfKill("---"));
+        assertEquals("", NumberAnalysisUtil.extractTotalNumber("-"));
+        assertEquals("06", NumberAnalysisUtil.extractTotalNumber("1+2+3=06"));
+    }
+}
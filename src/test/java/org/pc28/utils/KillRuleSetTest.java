@@ -0,0 +1,46 @@
+package org.pc28.utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 杀规则集编译测试
+ */
+class KillRuleSetTest {
+
+    @Test
+    void standardRuleSetMatchesCheckIfKill() {
+        for (int code = 0; code < DrawCodeTable.SIZE; code++) {
+            String numbers = DrawCodeTable.text(code);
+            assertEquals("杀".equals(NumberAnalysisUtil.checkIfKill(numbers)), KillRuleSet.STANDARD.isKill(code), numbers);
+        }
+        assertFalse(KillRuleSet.STANDARD.isKill("---"));
+        assertFalse(KillRuleSet.STANDARD.isKill(-1));
+    }
+
+    @Test
+    void compilesAlternativeRules() {
+        KillRuleSet wide = KillRuleSet.compile("wide", "sum=12-15; pair; leopard; straight-wrap");
+        assertTrue(wide.isKill("0+3+9=12"));
+        assertTrue(wide.isKill("9+0+1=10"));
+        assertTrue(wide.isKill("0+8+9=17"));
+        assertFalse(KillRuleSet.STANDARD.isKill("9+0+1=10"));
+        assertFalse(wide.isKill("0+2+9=11"));
+
+        KillRuleSet codes = KillRuleSet.compile("codes", "code=118, 200-209");
+        assertEquals(11, codes.getKillCount());
+        assertEquals(0, KillRuleSet.compile("none", "").getKillCount());
+    }
+
+    @Test
+    void rejectsUnknownRules() {
+        assertThrows(IllegalArgumentException.class, () -> KillRuleSet.compile("bad", "sum=30"));
+        assertThrows(IllegalArgumentException.class, () -> KillRuleSet.compile("bad", "triple"));
+        assertThrows(IllegalArgumentException.class, () -> KillRuleSet.compile("bad", "pair=1"));
+        assertThrows(IllegalArgumentException.class, () -> KillRuleSet.compile("bad", "sum=a"));
+    }
+}
@@ -0,0 +1,135 @@
+package org.pc28.utils;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.pc28.model.ParsedServerPage;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * 流式提取器与jsoup解析结果一致性测试
+ * 基准对比（默认跳过）：mvn test -Dtest=StreamingForecastExtractorTest -Dpc28.benchmark=true
+ */
+class StreamingForecastExtractorTest {
+
+    private static final Path SAMPLE_PAGE = Path.of("download/redtaotao_sf1_20250614_103937.html");
+
+    private String html;
+
+    @BeforeEach
+    void loadSamplePage() throws IOException {
+        assumeTrue(Files.exists(SAMPLE_PAGE), "样例网页不存在: " + SAMPLE_PAGE);
+        html = Files.readString(SAMPLE_PAGE, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void fullParseMatchesJsoup() {
+        Map<String, Object> streamed = StreamingForecastExtractor.extract(html);
+        assertNotNull(streamed, "样例网页应通过流式提取器的结构校验");
+        assertEquals(parseWithJsoup(-1), streamed);
+        assertEquals(101, streamed.get("history_count"));
+        assertEquals("03", streamed.get("countdown_minutes"));
+        assertEquals("23", streamed.get("countdown_seconds"));
+    }
+
+    @Test
+    void incrementalParseMatchesJsoup() {
+        for (int watermark : new int[]{3298081, 3298080, 3298000, 3297000}) {
+            Map<String, Object> streamed = StreamingForecastExtractor.extract(html, watermark);
+            assertNotNull(streamed);
+            assertEquals(parseWithJsoup(watermark), streamed, "水位期号: " + watermark);
+        }
+
+        Map<String, Object> streamed = StreamingForecastExtractor.extract(html, 3298080);
+        assertEquals(2, streamed.get("history_count"));
+        assertEquals(3, streamed.get("history_rows_visited"));
+        assertEquals("---", streamed.get("history_0_numbers"));
+        assertEquals("错", streamed.get("history_1_outcome"));
+    }
+
+    @Test
+    void columnarPageMatchesMapView() {
+        ParsedServerPage page = StreamingForecastExtractor.extractPage("sf1", html, -1);
+        assertNotNull(page);
+        assertEquals(101, page.getRowCount());
+        assertTrue(page.isPlaceholderAt(0));
+        assertEquals(3298082, page.periodAt(0));
+
+        Map<String, Object> jsoup = parseWithJsoup(-1);
+        for (int i = 1; i < page.getRowCount(); i++) {
+            assertEquals(jsoup.get("history_" + i + "_numbers"), page.numbersAt(i));
+            assertEquals(jsoup.get("history_" + i + "_total_number"), page.totalNumberAt(i));
+        }
+
+        // Map视图只是兼容适配，两个方向的转换都不丢失信息
+        jsoup.put("server", "sf1");
+        assertEquals(jsoup, page.toMap());
+        assertEquals(jsoup, ParsedServerPage.fromMap("sf1", jsoup).toMap());
+    }
+
+    @Test
+    void fallsBackToJsoupWhenLayoutDiffers() {
+        String missingTable = html.replace("id=\"forecast\"", "id=\"forecast-v2\"");
+        assertNull(StreamingForecastExtractor.extract(missingTable));
+
+        String unknownEntity = html.replace("<span>3298079</span>", "<span>3298079&copy;</span>");
+        assertNull(StreamingForecastExtractor.extract(unknownEntity));
+
+        Map<String, Object> expected = SimpleHtmlParser.parseHtmlContent(unknownEntity, -1, false);
+        assertEquals(expected, SimpleHtmlParser.parseHtmlContent(unknownEntity, -1, true));
+    }
+
+    @Test
+    @EnabledIfSystemProperty(named = "pc28.benchmark", matches = "true")
+    void compareThroughputAndAllocation() {
+        int warmup = 200;
+        int iterations = 1000;
+
+        double[] jsoup = measure(() -> parseWithJsoup(-1), warmup, iterations);
+        double[] streaming = measure(() -> StreamingForecastExtractor.extract(html), warmup, iterations);
+
+        System.out.println("===== 解析基准（样例网页 " + html.length() + " 字符） =====");
+        System.out.printf("jsoup:  %.1f 次/秒, %.1f KB/次%n", jsoup[0], jsoup[1] / 1024);
+        System.out.printf("流式:   %.1f 次/秒, %.1f KB/次%n", streaming[0], streaming[1] / 1024);
+        System.out.printf("吞吐提升 %.1f 倍, 分配减少 %.1f 倍%n", streaming[0] / jsoup[0], jsoup[1] / streaming[1]);
+    }
+
+    private Map<String, Object> parseWithJsoup(int watermark) {
+        return SimpleHtmlParser.parseHtmlContent(html, watermark, false);
+    }
+
+    /**
+     * @return [每秒解析次数, 每次解析分配的字节数]
+     */
+    private static double[] measure(Supplier<Map<String, Object>> parser, int warmup, int iterations) {
+        for (int i = 0; i < warmup; i++) {
+            parser.get();
+        }
+
+        com.sun.management.ThreadMXBean threadBean =
+                (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = threadBean.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            parser.get();
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = threadBean.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        return new double[]{iterations * 1_000_000_000.0 / elapsed, (double) allocated / iterations};
+    }
+}